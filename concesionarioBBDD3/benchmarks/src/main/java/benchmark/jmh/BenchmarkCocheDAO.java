@@ -0,0 +1,81 @@
+package benchmark.jmh;
+
+import model.CocheDAO;
+import model.Dinero;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Altas de coches: una a una (insertarCoche) y por CSV (importarDesdeCsv).
+ *
+ * ¿QUÉ MIDE?
+ * - insertarCoche: µs por coche con autocommit (una transacción por alta)
+ * - importarDesdeCsv: µs por fila de un CSV de FILAS_CSV coches nuevos; el CSV se escribe
+ *   antes de cada llamada, fuera de la medición
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkCocheDAO {
+
+    static final int FILAS_CSV = 1000;
+
+    /**
+     * Solo el azar de los datos del coche: la matrícula la da el estado al insertar.
+     */
+    @State(Scope.Thread)
+    public static class Alta {
+        final SplittableRandom random = new SplittableRandom(7);
+    }
+
+    /**
+     * CSV nuevo antes de cada importación (E/S fuera de la medición, pero solo en ese benchmark).
+     */
+    @State(Scope.Thread)
+    public static class Csv {
+        final SplittableRandom random = new SplittableRandom(7);
+        Path csv;
+
+        @Setup(Level.Invocation)
+        public void escribirCsv(EstadoBaseDatos estado) throws Exception {
+            List<String> matriculas = new ArrayList<>(FILAS_CSV);
+            for (int i = 0; i < FILAS_CSV; i++) {
+                matriculas.add(estado.nuevaMatricula());
+            }
+            csv = estado.directorio().resolve("importar.csv");
+            EstadoBaseDatos.escribirCsvCoches(csv, matriculas, random);
+        }
+    }
+
+
+    @Benchmark
+    public boolean insertarCoche(EstadoBaseDatos estado, Alta alta) {
+        String marca = EstadoBaseDatos.MARCAS[alta.random.nextInt(EstadoBaseDatos.MARCAS.length)];
+        return CocheDAO.insertarCoche(estado.con, estado.nuevaMatricula(), marca, marca + " 1",
+                EstadoBaseDatos.extras(alta.random), Dinero.deCentimos(1_500_000 + alta.random.nextInt(2_000_000)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS_CSV)
+    public boolean importarDesdeCsv(EstadoBaseDatos estado, Csv datos) {
+        return CocheDAO.importarDesdeCsv(estado.con, datos.csv.toString());
+    }
+}
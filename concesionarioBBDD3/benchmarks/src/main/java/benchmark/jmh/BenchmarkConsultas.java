@@ -0,0 +1,94 @@
+package benchmark.jmh;
+
+import model.Coche;
+import model.CocheDAO;
+import model.ConsultaCoches;
+import model.Dinero;
+import model.InformeDAO;
+import model.Propietario;
+import model.ProcedimientoDAO;
+import model.PropietarioDAO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consultas de solo lectura: listados del menú, informe resumen y búsquedas.
+ *
+ * ¿QUÉ MIDE?
+ * - Los dos listados completos (su salida va a un flujo vacío: se mide la consulta y el
+ *   formateo, no la consola)
+ * - generarInformeResumen escribiendo el informe en el directorio temporal
+ * - Estadísticas por marca (vista v_coches_por_marca: una pasada por idx_coches_marca_precio)
+ * - Una página de ConsultaCoches con filtros de marca, precio y stock
+ * - Una página de búsqueda por prefijo de apellidos y una sugerencia del trie
+ *
+ * Los listados y el informe crecen con el inventario: con coches=100000 se cuentan
+ * en milisegundos, por eso la unidad es ms para todo el grupo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkConsultas {
+
+    @State(Scope.Thread)
+    public static class Azar {
+        final SplittableRandom random = new SplittableRandom(13);
+    }
+
+
+    @Benchmark
+    public void listarCochesConcesionario(EstadoBaseDatos estado) {
+        CocheDAO.listarCochesConcesionario(estado.con);
+    }
+
+    @Benchmark
+    public void listarCochesPropietarios(EstadoBaseDatos estado) {
+        CocheDAO.listarCochesPropietarios(estado.con);
+    }
+
+    @Benchmark
+    public boolean generarInformeResumen(EstadoBaseDatos estado) {
+        return InformeDAO.generarInformeResumen(estado.con, estado.directorio().resolve("informe.txt").toString());
+    }
+
+    @Benchmark
+    public List<ProcedimientoDAO.EstadisticaMarca> cochesPorMarca(EstadoBaseDatos estado) throws SQLException {
+        return ProcedimientoDAO.cochesPorMarca(estado.con);
+    }
+
+    @Benchmark
+    public List<Coche> consultaCoches(EstadoBaseDatos estado, Azar azar) throws SQLException {
+        String marca = EstadoBaseDatos.MARCAS[azar.random.nextInt(EstadoBaseDatos.MARCAS.length)];
+        return ConsultaCoches.nueva()
+                .marca(marca)
+                .precioEntre(Dinero.deCentimos(1_000_000), Dinero.deCentimos(4_000_000))
+                .enStock()
+                .limite(50)
+                .ejecutar(estado.con);
+    }
+
+    @Benchmark
+    public List<Propietario> buscarPorPrefijo(EstadoBaseDatos estado, Azar azar) throws SQLException {
+        return PropietarioDAO.buscarPorPrefijo(estado.con, PropietarioDAO.CampoBusqueda.APELLIDOS,
+                "Apellido" + azar.random.nextInt(100), null, 50);
+    }
+
+    @Benchmark
+    public List<Propietario> sugerir(EstadoBaseDatos estado, Azar azar) throws SQLException {
+        return PropietarioDAO.sugerir(estado.con, "apellido" + azar.random.nextInt(100), 10);
+    }
+}
@@ -0,0 +1,56 @@
+package benchmark.jmh;
+
+import model.Dinero;
+import model.Traspaso;
+import model.TraspasoDAO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ventas y consultas del historial de traspasos.
+ *
+ * ¿QUÉ MIDE?
+ * - realizarTraspaso: una venta completa (comprobaciones, INSERT, UPDATE del coche y
+ *   resúmenes de ventas) de un coche al azar a un propietario al azar; si el coche ya
+ *   tenía dueño es una reventa
+ * - historialPropietario: primera página (50) del historial de un propietario al azar
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkTraspasoDAO {
+
+    @State(Scope.Thread)
+    public static class Azar {
+        final SplittableRandom random = new SplittableRandom(11);
+    }
+
+
+    @Benchmark
+    public boolean realizarTraspaso(EstadoBaseDatos estado, Azar azar) {
+        String dni = EstadoBaseDatos.dni(azar.random.nextInt(estado.propietarios));
+        String matricula = EstadoBaseDatos.matricula(azar.random.nextInt(estado.coches));
+        return TraspasoDAO.realizarTraspaso(estado.con, dni, matricula,
+                Dinero.deCentimos(500_000 + azar.random.nextInt(5_000_000)));
+    }
+
+    @Benchmark
+    public List<Traspaso> historialPropietario(EstadoBaseDatos estado, Azar azar) throws SQLException {
+        String dni = EstadoBaseDatos.dni(azar.random.nextInt(estado.propietarios));
+        return TraspasoDAO.historialPropietario(estado.con, dni, null, 50);
+    }
+}
@@ -0,0 +1,58 @@
+package benchmark.jmh;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Punto de entrada de benchmarks.jar: JMH con los resultados siempre en JSON.
+ *
+ * USO:
+ *   java -jar benchmarks/target/benchmarks.jar [opciones de JMH]
+ *
+ * Ejemplos:
+ *   java -jar benchmarks.jar                                 (todo: unos 15 minutos)
+ *   java -jar benchmarks.jar BenchmarkTraspasoDAO -p coches=1000
+ *   java -jar benchmarks.jar -p almacenamiento=memoria -rff base.json
+ *
+ * Acepta las mismas opciones que el Main de JMH (-h las lista). Si no se indica -rff,
+ * el JSON se guarda en resultados/jmh-AAAAMMDD-HHMMSS.json, listo para comparar
+ * ejecuciones o subirlo a un visor de JMH.
+ */
+public class EjecutarBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions lineaComandos = new CommandLineOptions(args);
+        if (lineaComandos.shouldHelp()) {
+            lineaComandos.showHelp();
+            return;
+        }
+        if (lineaComandos.shouldList()) {
+            new Runner(lineaComandos).list();
+            return;
+        }
+
+        ChainedOptionsBuilder opciones = new OptionsBuilder()
+                .parent(lineaComandos)
+                .resultFormat(ResultFormatType.JSON);
+
+        if (lineaComandos.getResult().hasValue()) {
+            System.out.println("Resultados JSON: " + lineaComandos.getResult().get());
+        } else {
+            Path resultados = Path.of("resultados",
+                    "jmh-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+            Files.createDirectories(resultados.getParent());
+            opciones.result(resultados.toString());
+            System.out.println("Resultados JSON: " + resultados.toAbsolutePath());
+        }
+
+        new Runner(opciones.build()).run();
+    }
+}
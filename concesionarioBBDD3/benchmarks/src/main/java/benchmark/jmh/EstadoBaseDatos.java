@@ -0,0 +1,268 @@
+package benchmark.jmh;
+
+import benchmark.GeneradorDatos;
+import database.CacheResultados;
+import database.CacheSentencias;
+import database.MigradorEsquema;
+import model.CatalogoMarcas;
+import model.CocheDAO;
+import model.EstadisticasAproximadas;
+import model.IndicePrecios;
+import model.PropietarioDAO;
+import model.TriePropietarios;
+import util.ConfigProperties;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base de datos SQLite de un benchmark, ya migrada y con datos.
+ *
+ * PARÁMETROS (JMH los combina todos; se pueden fijar con -p coches=1000):
+ * - almacenamiento: "archivo" (WAL + synchronous=NORMAL, como config.properties) o "memoria"
+ * - coches: tamaño del inventario; hay un propietario por cada 10 coches y el 40 % está vendido
+ *
+ * ¿CÓMO SE RELLENA?
+ * - Propietarios y coches con las cargas masivas de la aplicación
+ *   (PropietarioDAO.importar y CocheDAO.importarDesdeCsv), así el índice de búsqueda,
+ *   el catálogo y el índice de precios quedan como en producción
+ * - Las ventas iniciales con un INSERT por lotes (mil veces más rápido que realizarTraspaso,
+ *   que es lo que se mide aparte)
+ *
+ * IMPORTANTE:
+ * - Los DAO escriben en System.out: durante la prueba se redirige a un flujo vacío para
+ *   no medir la consola (los errores siguen saliendo por System.err)
+ * - Al terminar se borran la BD temporal y el resumen aproximado que se guarda al cerrar
+ * - Los DAO que escriben (insertar, importar, traspasar) hacen crecer la BD durante la
+ *   medición; con pocos segundos por iteración el efecto es despreciable
+ */
+@State(Scope.Benchmark)
+public class EstadoBaseDatos {
+
+    static final String[] MARCAS = {
+            "Seat", "Toyota", "Renault", "Volkswagen", "Ford", "Peugeot", "Kia", "BMW", "Audi", "Mercedes"};
+    static final String[] EXTRAS = {"GPS", "ABS", "Climatizador", "Bluetooth", "Techo panoramico", "Camara"};
+
+    private static final int COCHES_POR_PROPIETARIO = 10;
+    private static final double PROPORCION_VENDIDOS = 0.4;
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Param({"archivo", "memoria"})
+    public String almacenamiento;
+
+    @Param({"1000", "100000"})
+    public int coches;
+
+    public Connection con;
+    public int propietarios;
+
+    private Path directorio;
+    private PrintStream salidaOriginal;
+    private final AtomicInteger siguienteCoche = new AtomicInteger();
+
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        salidaOriginal = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        invalidarCaches();
+
+        directorio = Files.createTempDirectory("jmh-concesionario");
+        if (almacenamiento.equals("memoria")) {
+            con = DriverManager.getConnection("jdbc:sqlite::memory:");
+        } else {
+            // Nombre único: EstadisticasAproximadas guarda su resumen según el nombre del archivo
+            con = DriverManager.getConnection("jdbc:sqlite:" + directorio.resolve(directorio.getFileName() + ".db"));
+            try (Statement stmt = con.createStatement()) {
+                stmt.execute("PRAGMA journal_mode = WAL");
+                stmt.execute("PRAGMA synchronous = NORMAL");
+            }
+        }
+
+        MigradorEsquema.migrar(con);
+        propietarios = Math.max(1, coches / COCHES_POR_PROPIETARIO);
+        poblar();
+        siguienteCoche.set(coches);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws Exception {
+        CacheSentencias.olvidar(con);
+        con.close();
+        invalidarCaches();
+        System.setOut(salidaOriginal);
+
+        try (var archivos = Files.walk(directorio)) {
+            archivos.sorted((a, b) -> b.compareTo(a)).forEach(ruta -> ruta.toFile().delete());
+        }
+        Files.deleteIfExists(Path.of(ConfigProperties.getProperty("estadisticas.directorio", "."),
+                "estadisticas-sqlite-" + directorio.getFileName() + ".db.bin"));
+    }
+
+
+    // ============================================
+    // AYUDAS PARA LOS BENCHMARKS
+    // ============================================
+
+    /**
+     * Matrícula que aún no existe (para insertar o importar durante la medición).
+     */
+    public String nuevaMatricula() {
+        return matricula(siguienteCoche.getAndIncrement());
+    }
+
+    public Path directorio() {
+        return directorio;
+    }
+
+    /**
+     * Matrícula del coche i (0000BBB, 0001BBB...): única hasta 80 millones.
+     */
+    static String matricula(int i) {
+        String letras = "BCDFGHJKLMNPRSTVWXYZ";
+        int resto = i / 10_000;
+        char[] sufijo = new char[3];
+        for (int p = 2; p >= 0; p--) {
+            sufijo[p] = letras.charAt(resto % letras.length());
+            resto /= letras.length();
+        }
+        return String.format("%04d", i % 10_000) + new String(sufijo);
+    }
+
+    static String dni(int i) {
+        return String.format("%08d", i) + "TRWAGMYFPDXBNJZSQVHLCKE".charAt(i % 23);
+    }
+
+    static String extras(SplittableRandom random) {
+        List<String> elegidos = new ArrayList<>();
+        for (String extra : EXTRAS) {
+            if (random.nextInt(3) == 0) {
+                elegidos.add(extra);
+            }
+        }
+        return String.join("|", elegidos);
+    }
+
+    /**
+     * Escribe un CSV de coches en el formato de CocheDAO.importarDesdeCsv.
+     */
+    static void escribirCsvCoches(Path ruta, List<String> matriculas, SplittableRandom random) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(ruta)) {
+            writer.write("matricula;marca;modelo;extras;precio\n");
+            for (String matricula : matriculas) {
+                String marca = MARCAS[random.nextInt(MARCAS.length)];
+                writer.write(matricula + ";" + marca + ";" + marca + " " + (1 + random.nextInt(8)) + ";"
+                        + extras(random) + ";" + (5000 + random.nextInt(60000)) + ".00\n");
+            }
+        }
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    private void poblar() throws IOException, SQLException {
+        SplittableRandom random = new SplittableRandom(42);
+
+        StringBuilder csvPropietarios = new StringBuilder();
+        for (int i = 0; i < propietarios; i++) {
+            csvPropietarios.append(dni(i)).append(";Nombre").append(i)
+                    .append(";Apellido").append(i % 1000).append(" Segundo").append(i % 97).append(";\n");
+        }
+        if (PropietarioDAO.importar(con, new BufferedReader(new StringReader(csvPropietarios.toString())),
+                PropietarioDAO.ModoConflicto.OMITIR) == null) {
+            throw new IllegalStateException("No se pudieron cargar los propietarios");
+        }
+
+        List<String> matriculas = new ArrayList<>(coches);
+        for (int i = 0; i < coches; i++) {
+            matriculas.add(matricula(i));
+        }
+        Path csv = directorio.resolve("coches.csv");
+        escribirCsvCoches(csv, matriculas, random);
+        if (!CocheDAO.importarDesdeCsv(con, csv.toString())) {
+            throw new IllegalStateException("No se pudieron cargar los coches");
+        }
+
+        venderIniciales(random);
+
+        try (Statement stmt = con.createStatement()) {
+            stmt.executeUpdate("ANALYZE");
+        }
+    }
+
+    /**
+     * Primera venta (del concesionario) del 40 % de los coches, repartida en el último año.
+     * Se insertan en bloque, sin TraspasoDAO: los resúmenes ventas_diarias / ventas_mensuales
+     * se calculan al final (si no, las consultas sobre ellos medirían tablas vacías).
+     */
+    private void venderIniciales(SplittableRandom random) throws SQLException {
+        String sqlTraspaso = "INSERT INTO traspasos (matricula_coche, id_vendedor, id_comprador, monto_centimos, fecha_venta) "
+                + "VALUES (?, NULL, ?, ?, ?)";
+        String sqlCoche = "UPDATE coches SET id_propietario = ? WHERE matricula = ?";
+        LocalDateTime ahora = LocalDateTime.now();
+
+        con.setAutoCommit(false);
+        try (PreparedStatement traspaso = con.prepareStatement(sqlTraspaso);
+             PreparedStatement coche = con.prepareStatement(sqlCoche)) {
+            for (int i = 0; i < coches; i++) {
+                if (random.nextDouble() >= PROPORCION_VENDIDOS) {
+                    continue;
+                }
+                int comprador = 1 + random.nextInt(propietarios);
+                traspaso.setString(1, matricula(i));
+                traspaso.setInt(2, comprador);
+                traspaso.setLong(3, 500_000 + random.nextInt(5_000_000));
+                traspaso.setString(4, ahora.minusMinutes(random.nextInt(525_600)).format(FORMATO_FECHA));
+                traspaso.addBatch();
+
+                coche.setInt(1, comprador);
+                coche.setString(2, matricula(i));
+                coche.addBatch();
+            }
+            traspaso.executeBatch();
+            coche.executeBatch();
+            GeneradorDatos.recalcularResumenesVentas(con);
+            con.commit();
+        } finally {
+            con.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Las cachés de los DAO son estáticas: cada prueba empieza sin datos de la anterior.
+     * El resumen aproximado no debe guardarse en disco (sería de una BD temporal).
+     * La caché de resultados se desactiva: se mide la BD, no la caché.
+     */
+    private static void invalidarCaches() {
+        CacheResultados.setActiva(false);
+        CatalogoMarcas.invalidar();
+        IndicePrecios.invalidar();
+        TriePropietarios.invalidar();
+        EstadisticasAproximadas.invalidar();
+    }
+}
@@ -1,14 +1,91 @@
+import database.ArchivadorTraspasos;
+import database.DatabaseInitializer;
+import database.DatabaseManager;
+import servidor.ServidorHttp;
+import util.ConfigProperties;
 import util.MenuPrincipal;
+import util.ModoLote;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
 
 public class Main {
 
 
     public static void main(String[] args) {
 
+        // java Main servidor [sqlite|mysql] [puerto] → API HTTP sin menú (ver ServidorHttp)
+        if (args.length > 0 && args[0].equalsIgnoreCase("servidor")) {
+            System.exit(arrancarServidor(args));
+        }
+
+        // java Main lote sqlite|mysql ... → comandos sin menú, con código de salida (ver ModoLote)
+        if (args.length > 0 && args[0].equalsIgnoreCase("lote")) {
+            System.exit(ModoLote.ejecutar(Arrays.copyOfRange(args, 1, args.length)));
+        }
+
         MenuPrincipal menuPrincipal = new MenuPrincipal();
 
         menuPrincipal.mostrarMenu();
 
 
     }
+
+    /**
+     * Conecta, aplica las migraciones y deja el servidor HTTP atendiendo hasta que se
+     * pare el proceso (Ctrl+C / SIGTERM cierran servidor y conexión en orden).
+     *
+     * @return código de salida si no se pudo arrancar (el servidor en marcha no vuelve)
+     */
+    private static int arrancarServidor(String[] args) {
+        String motor = args.length > 1 ? args[1].toLowerCase() : "sqlite";
+        int puerto;
+        try {
+            puerto = args.length > 2 ? Integer.parseInt(args[2])
+                    : ConfigProperties.getIntProperty("servidor.puerto", 8080);
+        } catch (NumberFormatException e) {
+            System.err.println("Puerto inválido: " + args[2]);
+            return 2;
+        }
+
+        boolean conectado = switch (motor) {
+            case "mysql" -> DatabaseManager.conectarMySQL();
+            case "sqlite" -> DatabaseManager.conectarSQLite();
+            default -> {
+                System.err.println("Motor no válido: " + motor + " (sqlite | mysql)");
+                yield false;
+            }
+        };
+        if (!conectado) {
+            return 1;
+        }
+
+        try {
+            DatabaseInitializer.crearTablas(DatabaseManager.getConnection());
+            ArchivadorTraspasos.iniciar();
+
+            InetSocketAddress direccion = ServidorHttp.iniciar(puerto);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                System.out.println("\n→ Deteniendo el servidor...");
+                ServidorHttp.detener();
+                DatabaseManager.cerrarConexion();
+            }));
+            System.out.println("Servidor HTTP escuchando en el puerto " + direccion.getPort()
+                    + " (Ctrl+C para detener)");
+
+        } catch (Exception e) {
+            System.err.println("No se pudo arrancar el servidor: " + e.getMessage());
+            ServidorHttp.detener();
+            DatabaseManager.cerrarConexion();
+            return 1;
+        }
+
+        // El hilo principal espera aquí; el proceso termina con Ctrl+C / SIGTERM (gancho de cierre)
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 0;
+    }
 }
@@ -0,0 +1,311 @@
+package benchmark;
+
+import database.CacheResultados;
+import database.CacheSentencias;
+import database.MigradorEsquema;
+import model.CatalogoMarcas;
+import model.Coche;
+import model.ConsultaCoches;
+import model.Dinero;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+/**
+ * Mide ConsultaCoches sobre un inventario sintético en SQLite.
+ *
+ * USO:
+ *   java -cp ... benchmark.BenchmarkConsultaCoches [numCoches] [repeticiones] [directorio]
+ *
+ * Por defecto: 5.000.000 coches, 2.000 repeticiones por forma de consulta, directorio temporal.
+ *
+ * ¿QUÉ MIDE?
+ * - Para cada combinación de filtros: plan de ejecución, µs por consulta (media y p99)
+ *   y coste de preparar la sentencia que ahorra la caché (CacheSentencias)
+ * - Paginación profunda: página 1.000 por clave (matricula > ?) frente a OFFSET
+ */
+public class BenchmarkConsultaCoches {
+
+    private static final String[] MARCAS = {
+            "Seat", "Toyota", "Renault", "Volkswagen", "Ford", "Peugeot", "Kia", "BMW", "Audi", "Mercedes",
+            "Opel", "Citroen", "Hyundai", "Nissan", "Fiat", "Skoda", "Mazda", "Volvo", "Dacia", "Honda"};
+    private static final String[] EXTRAS = {"GPS", "ABS", "Climatizador", "Bluetooth", "Techo panoramico", "Camara"};
+
+    private static final int MODELOS_POR_MARCA = 12;
+    private static final int COCHES_POR_PROPIETARIO = 20;
+    private static final double PROPORCION_VENDIDOS = 0.4;
+    private static final int FILAS_POR_TRANSACCION = 100_000;
+    private static final int TAMANO_PAGINA = 50;
+
+
+    public static void main(String[] args) throws Exception {
+        int numCoches = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int repeticiones = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        Path directorio = args.length > 2 ? Path.of(args[2]) : Files.createTempDirectory("consulta-coches");
+        Path fichero = directorio.resolve("consultas.db");
+
+        System.out.println("=== BENCHMARK CONSULTA COCHES: " + numCoches + " coches, "
+                + repeticiones + " repeticiones por forma ===");
+
+        Files.deleteIfExists(fichero);
+        CatalogoMarcas.invalidar();
+        // Se mide la consulta: las formas sin parámetros al azar siempre acertarían en la caché
+        CacheResultados.setActiva(false);
+
+        try (Connection con = DriverManager.getConnection("jdbc:sqlite:" + fichero)) {
+            MigradorEsquema.migrar(con);
+            int numPropietarios = Math.max(1, numCoches / COCHES_POR_PROPIETARIO);
+            poblar(con, numCoches, numPropietarios);
+
+            try (Statement stmt = con.createStatement()) {
+                stmt.executeUpdate("ANALYZE");
+            }
+
+            try {
+                medirFormas(con, numPropietarios, repeticiones);
+                medirPaginacionProfunda(con, 1_000);
+            } finally {
+                // Las sentencias que ConsultaCoches dejó preparadas se cierran antes que la conexión
+                CacheSentencias.olvidar(con);
+            }
+        }
+    }
+
+
+    // ============================================
+    // DATOS SINTÉTICOS
+    // ============================================
+
+    /**
+     * Propietarios, catálogo, coches (40% vendidos) y su fila en el índice de texto completo.
+     */
+    private static void poblar(Connection con, int numCoches, int numPropietarios) throws SQLException {
+        SplittableRandom random = new SplittableRandom(42);
+        long inicio = System.nanoTime();
+
+        con.setAutoCommit(false);
+        try {
+            try (PreparedStatement pstmt = con.prepareStatement(
+                    "INSERT INTO propietarios (dni, nombre, apellidos, telefono) VALUES (?, ?, ?, NULL)")) {
+                for (int i = 0; i < numPropietarios; i++) {
+                    pstmt.setString(1, dni(i));
+                    pstmt.setString(2, "Nombre" + i);
+                    pstmt.setString(3, "Apellido" + (i % 1000));
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+
+            int[][] idsModelo = new int[MARCAS.length][MODELOS_POR_MARCA];
+            int[] idsMarca = new int[MARCAS.length];
+            for (int m = 0; m < MARCAS.length; m++) {
+                idsMarca[m] = CatalogoMarcas.obtenerIdMarca(con, MARCAS[m]);
+                for (int n = 0; n < MODELOS_POR_MARCA; n++) {
+                    idsModelo[m][n] = CatalogoMarcas.obtenerIdModelo(con, idsMarca[m], MARCAS[m] + " " + (n + 1));
+                }
+            }
+            con.commit();
+            CatalogoMarcas.confirmar(con);
+
+            String sqlCoche = "INSERT INTO coches (matricula, id_marca, id_modelo, extras, precio_centimos, id_propietario) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)";
+            String sqlBusqueda = "INSERT INTO coches_busqueda (matricula, marca, modelo, extras) VALUES (?, ?, ?, ?)";
+
+            try (PreparedStatement pstmtCoche = con.prepareStatement(sqlCoche);
+                 PreparedStatement pstmtBusqueda = con.prepareStatement(sqlBusqueda)) {
+
+                for (int i = 0; i < numCoches; i++) {
+                    int m = random.nextInt(MARCAS.length);
+                    int n = random.nextInt(MODELOS_POR_MARCA);
+                    String matricula = BenchmarkPerfilSQLite.matricula(i);
+                    String extras = extras(random);
+
+                    pstmtCoche.setString(1, matricula);
+                    pstmtCoche.setInt(2, idsMarca[m]);
+                    pstmtCoche.setInt(3, idsModelo[m][n]);
+                    pstmtCoche.setString(4, extras);
+                    pstmtCoche.setLong(5, 500_000 + random.nextInt(6_000_000));
+                    if (random.nextDouble() < PROPORCION_VENDIDOS) {
+                        pstmtCoche.setInt(6, 1 + random.nextInt(numPropietarios));
+                    } else {
+                        pstmtCoche.setNull(6, java.sql.Types.INTEGER);
+                    }
+                    pstmtCoche.addBatch();
+
+                    pstmtBusqueda.setString(1, matricula);
+                    pstmtBusqueda.setString(2, MARCAS[m]);
+                    pstmtBusqueda.setString(3, MARCAS[m] + " " + (n + 1));
+                    pstmtBusqueda.setString(4, extras);
+                    pstmtBusqueda.addBatch();
+
+                    if ((i + 1) % FILAS_POR_TRANSACCION == 0) {
+                        pstmtCoche.executeBatch();
+                        pstmtBusqueda.executeBatch();
+                        con.commit();
+                    }
+                }
+                pstmtCoche.executeBatch();
+                pstmtBusqueda.executeBatch();
+                con.commit();
+            }
+        } finally {
+            con.setAutoCommit(true);
+        }
+
+        System.out.println("Generados " + numCoches + " coches y " + numPropietarios + " propietarios en "
+                + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+    }
+
+    private static String extras(SplittableRandom random) {
+        List<String> elegidos = new ArrayList<>();
+        for (String extra : EXTRAS) {
+            if (random.nextInt(3) == 0) {
+                elegidos.add(extra);
+            }
+        }
+        return String.join("|", elegidos);
+    }
+
+    private static String dni(int i) {
+        return String.format("%08d", i) + "TRWAGMYFPDXBNJZSQVHLCKE".charAt(i % 23);
+    }
+
+
+    // ============================================
+    // MEDICIONES
+    // ============================================
+
+    /**
+     * Cada forma recibe un generador aleatorio y construye la consulta con valores distintos
+     * en cada repetición (misma forma → misma sentencia preparada).
+     */
+    private static void medirFormas(Connection con, int numPropietarios, int repeticiones) throws SQLException {
+        List<String> nombres = List.of(
+                "marca",
+                "marca + precio",
+                "precio",
+                "stock + precio",
+                "vendidos",
+                "dni propietario",
+                "marca + stock + extra",
+                "extras (2)",
+                "sin filtros");
+
+        List<Function<SplittableRandom, ConsultaCoches>> formas = List.of(
+                r -> ConsultaCoches.nueva().marca(marca(r)),
+                r -> rangoPrecio(ConsultaCoches.nueva().marca(marca(r)), r, 300_000),
+                r -> rangoPrecio(ConsultaCoches.nueva(), r, 50_000),
+                r -> rangoPrecio(ConsultaCoches.nueva().enStock(), r, 50_000),
+                r -> ConsultaCoches.nueva().vendidos(),
+                r -> ConsultaCoches.nueva().propietario(dni(r.nextInt(numPropietarios))),
+                r -> ConsultaCoches.nueva().marca(marca(r)).enStock().conExtra(EXTRAS[r.nextInt(EXTRAS.length)]),
+                r -> ConsultaCoches.nueva().conExtra("GPS").conExtra("Techo panoramico"),
+                r -> ConsultaCoches.nueva());
+
+        System.out.println("\n" + "─".repeat(92));
+        System.out.printf("%-24s %12s %12s %14s %12s%n", "FORMA", "µs MEDIA", "µs p99", "µs PREPARAR", "FILAS/CONS");
+        System.out.println("─".repeat(92));
+
+        for (int f = 0; f < formas.size(); f++) {
+            SplittableRandom random = new SplittableRandom(f);
+            ConsultaCoches ejemplo = formas.get(f).apply(random.split());
+
+            // Calentamiento: llena la caché de páginas y prepara la sentencia
+            for (int i = 0; i < Math.min(100, repeticiones); i++) {
+                formas.get(f).apply(random).limite(TAMANO_PAGINA).ejecutar(con);
+            }
+
+            long[] nanos = new long[repeticiones];
+            long filas = 0;
+            for (int i = 0; i < repeticiones; i++) {
+                ConsultaCoches consulta = formas.get(f).apply(random).limite(TAMANO_PAGINA);
+                long inicio = System.nanoTime();
+                filas += consulta.ejecutar(con).size();
+                nanos[i] = System.nanoTime() - inicio;
+            }
+            Arrays.sort(nanos);
+
+            System.out.printf("%-24s %12.1f %12.1f %14.1f %12.1f%n",
+                    nombres.get(f),
+                    Arrays.stream(nanos).average().orElse(0) / 1e3,
+                    nanos[(int) (repeticiones * 0.99)] / 1e3,
+                    medirPreparacion(con, ejemplo) / 1e3,
+                    (double) filas / repeticiones);
+
+            for (String paso : ejemplo.explicar(con)) {
+                System.out.println("    · " + paso);
+            }
+        }
+        System.out.println("─".repeat(92));
+    }
+
+    /**
+     * Nanosegundos que cuesta preparar (analizar + planificar) la consulta sin caché:
+     * EXPLAIN prepara la misma sentencia y casi no la ejecuta.
+     */
+    private static double medirPreparacion(Connection con, ConsultaCoches consulta) throws SQLException {
+        int veces = 200;
+        long inicio = System.nanoTime();
+        for (int i = 0; i < veces; i++) {
+            consulta.explicar(con);
+        }
+        return (double) (System.nanoTime() - inicio) / veces;
+    }
+
+    /**
+     * Lee la página 'pagina' del inventario completo por clave y por OFFSET.
+     */
+    private static void medirPaginacionProfunda(Connection con, int pagina) throws SQLException {
+        // Por clave: se recorren las páginas anteriores (como haría un usuario) y se mide la última
+        Coche ultimo = null;
+        for (int i = 0; i < pagina - 1; i++) {
+            List<Coche> coches = ConsultaCoches.nueva().despuesDe(ultimo).limite(TAMANO_PAGINA).ejecutar(con);
+            if (coches.isEmpty()) {
+                System.out.println("\nEl inventario tiene menos de " + pagina + " páginas");
+                return;
+            }
+            ultimo = coches.get(coches.size() - 1);
+        }
+
+        long inicio = System.nanoTime();
+        ConsultaCoches.nueva().despuesDe(ultimo).limite(TAMANO_PAGINA).ejecutar(con);
+        long nanosClave = System.nanoTime() - inicio;
+
+        String sqlOffset = "SELECT matricula, id_marca, id_modelo, extras, precio_centimos FROM coches "
+                + "ORDER BY matricula LIMIT " + TAMANO_PAGINA + " OFFSET " + (long) (pagina - 1) * TAMANO_PAGINA;
+        inicio = System.nanoTime();
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery(sqlOffset)) {
+            while (rs.next()) {
+                rs.getString(1);
+            }
+        }
+        long nanosOffset = System.nanoTime() - inicio;
+
+        System.out.printf("%nPágina %d (%d filas): por clave %.1f µs, con OFFSET %.1f µs (%.0fx)%n",
+                pagina, TAMANO_PAGINA, nanosClave / 1e3, nanosOffset / 1e3, (double) nanosOffset / nanosClave);
+    }
+
+    private static String marca(SplittableRandom random) {
+        return MARCAS[random.nextInt(MARCAS.length)];
+    }
+
+    /**
+     * Añade un rango de precio aleatorio de 'anchoCentimos' de ancho.
+     */
+    private static ConsultaCoches rangoPrecio(ConsultaCoches consulta, SplittableRandom random, long anchoCentimos) {
+        long desde = 500_000 + random.nextInt(6_000_000);
+        return consulta.precioEntre(Dinero.deCentimos(desde), Dinero.deCentimos(desde + anchoCentimos));
+    }
+}
@@ -0,0 +1,182 @@
+package benchmark;
+
+import database.MigradorEsquema;
+import database.PerfilAlmacenamientoSQLite;
+import model.CatalogoMarcas;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.SplittableRandom;
+
+/**
+ * Compara el perfil de almacenamiento estándar y el compacto (WITHOUT ROWID) de SQLite.
+ *
+ * USO:
+ *   java -cp ... benchmark.BenchmarkPerfilSQLite [numCoches] [numBusquedas] [directorio]
+ *
+ * Por defecto: 10.000.000 coches, 1.000.000 búsquedas, directorio temporal.
+ *
+ * ¿QUÉ MIDE?
+ * - Búsquedas puntuales por matrícula (aleatorias, misma semilla en ambos perfiles)
+ * - Recorrido completo de la tabla (COUNT + SUM de precios)
+ * - Tamaño final del fichero .db
+ */
+public class BenchmarkPerfilSQLite {
+
+    private static final String[] MARCAS = {"Seat", "Toyota", "Renault", "Volkswagen", "Ford", "Peugeot", "Kia", "BMW"};
+    private static final int FILAS_POR_TRANSACCION = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        int numCoches = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int numBusquedas = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        Path directorio = args.length > 2 ? Path.of(args[2]) : Files.createTempDirectory("perfil-sqlite");
+
+        System.out.println("=== BENCHMARK PERFIL SQLITE: " + numCoches + " coches, "
+                + numBusquedas + " búsquedas ===");
+
+        Resultado estandar = ejecutar(directorio.resolve("estandar.db"), numCoches, numBusquedas, false);
+        Resultado compacto = ejecutar(directorio.resolve("compacto.db"), numCoches, numBusquedas, true);
+
+        System.out.println("\n" + "─".repeat(78));
+        System.out.printf("%-10s %18s %18s %14s %12s%n",
+                "PERFIL", "BÚSQUEDAS/s", "µs/BÚSQUEDA", "SCAN (ms)", "TAMAÑO (MB)");
+        System.out.println("─".repeat(78));
+        imprimir("estándar", estandar, numBusquedas);
+        imprimir("compacto", compacto, numBusquedas);
+        System.out.println("─".repeat(78));
+        System.out.printf("Mejora búsquedas: %.2fx   Mejora scan: %.2fx   Ahorro espacio: %.1f%%%n",
+                (double) estandar.nanosBusquedas / compacto.nanosBusquedas,
+                (double) estandar.nanosScan / compacto.nanosScan,
+                100.0 * (estandar.bytes - compacto.bytes) / estandar.bytes);
+    }
+
+    private record Resultado(long nanosBusquedas, long nanosScan, long bytes) {
+    }
+
+    private static Resultado ejecutar(Path fichero, int numCoches, int numBusquedas, boolean compacto)
+            throws SQLException, IOException {
+
+        Files.deleteIfExists(fichero);
+        CatalogoMarcas.invalidar();
+
+        try (Connection con = DriverManager.getConnection("jdbc:sqlite:" + fichero)) {
+            MigradorEsquema.migrar(con);
+            poblar(con, numCoches);
+
+            if (compacto) {
+                PerfilAlmacenamientoSQLite.migrarAPerfilCompacto(con);
+            }
+
+            try (Statement stmt = con.createStatement()) {
+                stmt.executeUpdate("ANALYZE");
+            }
+
+            // Calentamiento (llena la caché de páginas igual en ambos perfiles)
+            medirScan(con);
+            long nanosScan = medirScan(con);
+            long nanosBusquedas = medirBusquedas(con, numCoches, numBusquedas);
+
+            return new Resultado(nanosBusquedas, nanosScan, Files.size(fichero));
+        }
+    }
+
+    /**
+     * Inserta numCoches coches sintéticos en lotes (la misma secuencia en ambos perfiles).
+     */
+    private static void poblar(Connection con, int numCoches) throws SQLException {
+        String sql = "INSERT INTO coches (matricula, id_marca, id_modelo, extras, precio_centimos, id_propietario) "
+                + "VALUES (?, ?, ?, ?, ?, NULL)";
+        SplittableRandom random = new SplittableRandom(42);
+        long inicio = System.nanoTime();
+
+        con.setAutoCommit(false);
+        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+            for (int i = 0; i < numCoches; i++) {
+                String marca = MARCAS[random.nextInt(MARCAS.length)];
+                int idMarca = CatalogoMarcas.obtenerIdMarca(con, marca);
+                pstmt.setString(1, matricula(i));
+                pstmt.setInt(2, idMarca);
+                pstmt.setInt(3, CatalogoMarcas.obtenerIdModelo(con, idMarca, marca + " " + (1 + random.nextInt(20))));
+                pstmt.setString(4, random.nextBoolean() ? "GPS|ABS" : "Climatizador");
+                pstmt.setLong(5, 500_000 + random.nextInt(6_000_000));
+                pstmt.addBatch();
+
+                if ((i + 1) % FILAS_POR_TRANSACCION == 0) {
+                    pstmt.executeBatch();
+                    con.commit();
+                }
+            }
+            pstmt.executeBatch();
+            con.commit();
+            CatalogoMarcas.confirmar(con);
+        } finally {
+            con.setAutoCommit(true);
+        }
+
+        System.out.println("Insertados " + numCoches + " coches en "
+                + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+    }
+
+    private static long medirScan(Connection con) throws SQLException {
+        long inicio = System.nanoTime();
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*), SUM(precio_centimos) FROM coches")) {
+            rs.next();
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private static long medirBusquedas(Connection con, int numCoches, int numBusquedas) throws SQLException {
+        SplittableRandom random = new SplittableRandom(7);
+        String sql = "SELECT id_marca, id_modelo, precio_centimos FROM coches WHERE matricula = ?";
+        long encontrados = 0;
+
+        long inicio = System.nanoTime();
+        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+            for (int i = 0; i < numBusquedas; i++) {
+                pstmt.setString(1, matricula(random.nextInt(numCoches)));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        encontrados++;
+                    }
+                }
+            }
+        }
+        long nanos = System.nanoTime() - inicio;
+
+        if (encontrados != numBusquedas) {
+            throw new IllegalStateException("Se esperaban " + numBusquedas + " coches y se encontraron " + encontrados);
+        }
+        return nanos;
+    }
+
+    /**
+     * Matrícula única y determinista para el índice i: 4 cifras + 3 letras (0000BBB).
+     */
+    static String matricula(int i) {
+        String letras = "BCDFGHJKLMNPRSTVWXYZ";
+        int resto = i / 10_000;
+        char[] sufijo = new char[3];
+        for (int p = 2; p >= 0; p--) {
+            sufijo[p] = letras.charAt(resto % letras.length());
+            resto /= letras.length();
+        }
+        return String.format("%04d", i % 10_000) + new String(sufijo);
+    }
+
+    private static void imprimir(String perfil, Resultado r, int numBusquedas) {
+        System.out.printf("%-10s %18.0f %18.2f %14.1f %12.1f%n",
+                perfil,
+                numBusquedas / (r.nanosBusquedas / 1e9),
+                r.nanosBusquedas / 1e3 / numBusquedas,
+                r.nanosScan / 1e6,
+                r.bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,453 @@
+package benchmark;
+
+import database.CacheSentencias;
+import database.DatabaseManager;
+import database.EjecutorScriptSQL;
+import database.PoolConexiones;
+import database.TipoMotor;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.SQLiteLimits;
+import util.ConfigProperties;
+import util.HistogramaLatencias;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmark con la BD de ejemplo Sakila (videoclub): una segunda carga de trabajo, con más
+ * tablas y JOIN más largos que las del concesionario, para validar cambios en los pools,
+ * las cachés y CacheSentencias.
+ *
+ * USO:
+ *   java -cp ... benchmark.BenchmarkSakila motor [iteraciones] [hilos] [recargar]
+ *
+ * motor: sqlite | mysql (la BD de config.properties)
+ * Por defecto: 200 iteraciones de cada consulta repartidas entre 1 hilo. 'recargar' borra
+ * Sakila y la vuelve a cargar aunque ya estuviera.
+ *
+ * ¿CÓMO SE CARGA?
+ * Con EjecutorScriptSQL sobre la conexión de DatabaseManager, desde los scripts de
+ * sakila.directorio (Recursos/sakila-db):
+ * - MySQL: sakila-schema.sql y sakila-data.sql tal cual (crean el esquema 'sakila')
+ * - SQLite: las tablas se crean con resources/sakila/sakila-schema-sqlite.sql en una BD
+ *   adjunta (ATTACH sakila.path AS sakila) y sakila-data.sql se adapta al vuelo: se saltan
+ *   SET, USE, LOCK, COMMIT y los triggers de MySQL, y los BLOB 0x... pasan a X'...'
+ * En ambos motores las consultas usan el prefijo sakila.: el mismo SQL sirve para los dos.
+ * Si Sakila ya está cargada no se vuelve a cargar.
+ *
+ * ¿QUÉ MIDE?
+ * - Consultas habituales sobre Sakila: alquileres por cliente, ingresos por tienda y por
+ *   categoría, películas más alquiladas, y dos consultas con parámetro (historial de un
+ *   cliente, actores de una categoría) que se benefician de CacheSentencias
+ * - Cada hilo (virtual) ejecuta todas las consultas por turnos con su propia conexión:
+ *   la del pool de lectura de SQLite en WAL o, con varios hilos y sin ese pool, las de un
+ *   pool de conexiones auxiliares
+ * - El primer 10 % de las vueltas es calentamiento y no cuenta
+ * - Al final: filas y percentiles de latencia por consulta (HistogramaLatencias, en µs)
+ */
+public class BenchmarkSakila {
+
+    private static final String[] TABLAS = {"actor", "address", "category", "city", "country", "customer",
+            "film", "film_actor", "film_category", "film_text", "inventory", "language", "payment",
+            "rental", "staff", "store"};
+
+    private static final String[] SENTENCIAS_SOLO_MYSQL = {"SET ", "USE ", "LOCK ", "UNLOCK ", "COMMIT",
+            "CREATE TRIGGER"};
+
+    // Literal binario de MySQL (0x89504E47...) como valor de un INSERT
+    private static final Pattern LITERAL_HEXADECIMAL = Pattern.compile("(?<=[,(])0x([0-9A-Fa-f]+)(?=[,)])");
+
+    private static final long ESPERA_CONEXION_MS = 60_000;
+
+    // Los INSERT de payment y rental ocupan ~1 MB, justo por encima del límite por defecto de SQLite
+    private static final int LONGITUD_MAXIMA_SENTENCIA = 16 * 1024 * 1024;
+
+    /**
+     * Consulta del benchmark. Si maximoParametro > 0, lleva un parámetro entero al azar
+     * entre 1 y maximoParametro.
+     */
+    private record Consulta(String nombre, String sql, int maximoParametro) {}
+
+    private static final List<Consulta> CONSULTAS = List.of(
+            new Consulta("alquileres_por_cliente",
+                    "SELECT c.customer_id, c.first_name, c.last_name, COUNT(*) AS alquileres "
+                            + "FROM sakila.customer c "
+                            + "INNER JOIN sakila.rental r ON r.customer_id = c.customer_id "
+                            + "GROUP BY c.customer_id, c.first_name, c.last_name "
+                            + "ORDER BY alquileres DESC, c.customer_id LIMIT 10", 0),
+            new Consulta("ingresos_por_tienda",
+                    "SELECT s.store_id, ci.city, co.country, SUM(p.amount) AS ingresos "
+                            + "FROM sakila.payment p "
+                            + "INNER JOIN sakila.rental r ON r.rental_id = p.rental_id "
+                            + "INNER JOIN sakila.inventory i ON i.inventory_id = r.inventory_id "
+                            + "INNER JOIN sakila.store s ON s.store_id = i.store_id "
+                            + "INNER JOIN sakila.address a ON a.address_id = s.address_id "
+                            + "INNER JOIN sakila.city ci ON ci.city_id = a.city_id "
+                            + "INNER JOIN sakila.country co ON co.country_id = ci.country_id "
+                            + "GROUP BY s.store_id, ci.city, co.country ORDER BY ingresos DESC", 0),
+            new Consulta("ingresos_por_categoria",
+                    "SELECT ca.name, SUM(p.amount) AS ingresos "
+                            + "FROM sakila.payment p "
+                            + "INNER JOIN sakila.rental r ON r.rental_id = p.rental_id "
+                            + "INNER JOIN sakila.inventory i ON i.inventory_id = r.inventory_id "
+                            + "INNER JOIN sakila.film_category fc ON fc.film_id = i.film_id "
+                            + "INNER JOIN sakila.category ca ON ca.category_id = fc.category_id "
+                            + "GROUP BY ca.name ORDER BY ingresos DESC", 0),
+            new Consulta("peliculas_mas_alquiladas",
+                    "SELECT f.film_id, f.title, COUNT(*) AS alquileres "
+                            + "FROM sakila.rental r "
+                            + "INNER JOIN sakila.inventory i ON i.inventory_id = r.inventory_id "
+                            + "INNER JOIN sakila.film f ON f.film_id = i.film_id "
+                            + "GROUP BY f.film_id, f.title ORDER BY alquileres DESC, f.film_id LIMIT 10", 0),
+            new Consulta("historial_cliente",
+                    "SELECT r.rental_date, f.title, p.amount "
+                            + "FROM sakila.rental r "
+                            + "INNER JOIN sakila.inventory i ON i.inventory_id = r.inventory_id "
+                            + "INNER JOIN sakila.film f ON f.film_id = i.film_id "
+                            + "LEFT JOIN sakila.payment p ON p.rental_id = r.rental_id "
+                            + "WHERE r.customer_id = ? ORDER BY r.rental_date DESC", 599),
+            new Consulta("actores_por_categoria",
+                    "SELECT a.actor_id, a.first_name, a.last_name, COUNT(*) AS peliculas "
+                            + "FROM sakila.film_category fc "
+                            + "INNER JOIN sakila.film_actor fa ON fa.film_id = fc.film_id "
+                            + "INNER JOIN sakila.actor a ON a.actor_id = fa.actor_id "
+                            + "WHERE fc.category_id = ? "
+                            + "GROUP BY a.actor_id, a.first_name, a.last_name "
+                            + "ORDER BY peliculas DESC, a.actor_id LIMIT 5", 16));
+
+    /**
+     * Latencias y filas devueltas de una consulta.
+     */
+    private record Resultado(HistogramaLatencias latencias, LongAdder filas) {
+        Resultado() {
+            this(new HistogramaLatencias(), new LongAdder());
+        }
+    }
+
+    // Conexiones SQLite que ya tienen la BD de Sakila adjunta (ATTACH es por conexión)
+    private static final Set<Connection> adjuntadas = Collections.newSetFromMap(
+            Collections.synchronizedMap(new WeakHashMap<>()));
+
+    private static TipoMotor tipo;
+    private static PoolConexiones lectores;
+
+    @FunctionalInterface
+    private interface Tarea {
+        void ejecutar(Connection con) throws SQLException;
+    }
+
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || !(args[0].equals("sqlite") || args[0].equals("mysql"))) {
+            System.err.println("Uso: BenchmarkSakila sqlite|mysql [iteraciones] [hilos] [recargar]");
+            System.exit(1);
+        }
+
+        boolean mysql = args[0].equals("mysql");
+        int iteraciones = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int hilos = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        boolean recargar = args.length > 3 && args[3].equals("recargar");
+        Path directorio = Path.of(ConfigProperties.getProperty("sakila.directorio", "../Recursos/sakila-db"));
+
+        if (!(mysql ? DatabaseManager.conectarMySQL() : DatabaseManager.conectarSQLite())) {
+            System.exit(1);
+        }
+
+        try {
+            Connection con = DatabaseManager.getConnection();
+            tipo = DatabaseManager.getTipoMotor();
+
+            if (tipo == TipoMotor.SQLITE) {
+                adjuntar(con);
+            }
+            if (recargar || !estaCargada(con)) {
+                cargar(con, directorio);
+            } else {
+                System.out.println("Sakila ya está cargada (use 'recargar' para cargarla de nuevo)");
+            }
+
+            if (hilos > 1 && !DatabaseManager.tienePoolLectura()) {
+                lectores = new PoolConexiones("lectura Sakila", hilos, ESPERA_CONEXION_MS,
+                        DatabaseManager::abrirConexionAuxiliar);
+            }
+
+            System.out.println("\n=== BENCHMARK SAKILA: " + (mysql ? "MySQL" : "SQLite") + ", " + iteraciones
+                    + " iteraciones por consulta, " + hilos + " hilo(s), conexiones: "
+                    + (lectores != null ? "pool auxiliar" : DatabaseManager.tienePoolLectura()
+                    ? "pool de lectura SQLite" : "conexión activa") + " ===");
+
+            imprimirComprobacion();
+
+            long inicio = System.nanoTime();
+            Resultado[] resultados = ejecutar(iteraciones, hilos);
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+
+            imprimir(resultados, segundos);
+
+        } finally {
+            if (lectores != null) {
+                lectores.cerrar();
+            }
+            DatabaseManager.cerrarConexion();
+        }
+    }
+
+
+    // ============================================
+    // CARGA DE SAKILA
+    // ============================================
+
+    /**
+     * true si la tabla sakila.rental existe y tiene filas.
+     */
+    private static boolean estaCargada(Connection con) throws SQLException {
+        String sqlExiste = tipo == TipoMotor.MYSQL
+                ? "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = 'sakila' AND table_name = 'rental'"
+                : "SELECT COUNT(*) FROM sakila.sqlite_master WHERE type = 'table' AND name = 'rental'";
+
+        try (Statement stmt = con.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(sqlExiste)) {
+                if (!rs.next() || rs.getInt(1) == 0) {
+                    return false;
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sakila.rental")) {
+                return rs.next() && rs.getLong(1) > 0;
+            }
+        }
+    }
+
+    /**
+     * Carga (o recarga) el esquema y los datos de Sakila.
+     *
+     * PASOS QUE REALIZA:
+     * 1. MySQL: sakila-schema.sql ya empieza con DROP SCHEMA IF EXISTS sakila
+     *    SQLite: se borran las tablas de la BD adjunta
+     * 2. Ejecuta el esquema y los datos con EjecutorScriptSQL
+     * 3. ANALYZE, para que ambos motores planifiquen los JOIN con estadísticas reales
+     */
+    private static void cargar(Connection con, Path directorio) throws Exception {
+        Path esquema = directorio.resolve("sakila-schema.sql");
+        Path datos = directorio.resolve("sakila-data.sql");
+        if (!Files.isRegularFile(esquema) || !Files.isRegularFile(datos)) {
+            throw new IllegalStateException("No se encuentran los scripts de Sakila en " + directorio.toAbsolutePath()
+                    + " (revise sakila.directorio en config.properties)");
+        }
+
+        System.out.println("Cargando Sakila desde " + directorio.toAbsolutePath() + "...");
+        long inicio = System.nanoTime();
+        EjecutorScriptSQL ejecutor = new EjecutorScriptSQL(con);
+
+        if (tipo == TipoMotor.MYSQL) {
+            // Los scripts hacen USE sakila: al terminar se vuelve a la BD del concesionario
+            String catalogo = con.getCatalog();
+            try {
+                ejecutor.ejecutarFichero(esquema);
+                ejecutor.ejecutarFichero(datos);
+            } finally {
+                con.setCatalog(catalogo);
+            }
+            try (Statement stmt = con.createStatement()) {
+                stmt.execute("ANALYZE TABLE sakila." + String.join(", sakila.", TABLAS));
+            }
+
+        } else {
+            try (Statement stmt = con.createStatement()) {
+                stmt.execute("DROP TRIGGER IF EXISTS sakila.ins_film");
+                for (String tabla : TABLAS) {
+                    stmt.execute("DROP TABLE IF EXISTS sakila." + tabla);
+                }
+            }
+            con.unwrap(SQLiteConnection.class)
+                    .setLimit(SQLiteLimits.SQLITE_LIMIT_SQL_LENGTH, LONGITUD_MAXIMA_SENTENCIA);
+            ejecutor.ejecutarRecurso("sakila/sakila-schema-sqlite.sql");
+            ejecutor.ejecutarFichero(datos, BenchmarkSakila::adaptarASQLite);
+            try (Statement stmt = con.createStatement()) {
+                stmt.execute("ANALYZE sakila");
+            }
+        }
+
+        System.out.println("Sakila cargada en " + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Adapta una sentencia de sakila-data.sql (MySQL) a SQLite.
+     * @return la sentencia a ejecutar, o null si en SQLite no tiene sentido
+     */
+    private static String adaptarASQLite(String sentencia) {
+        for (String prefijo : SENTENCIAS_SOLO_MYSQL) {
+            if (sentencia.regionMatches(true, 0, prefijo, 0, prefijo.length())) {
+                return null;
+            }
+        }
+        if (sentencia.contains("0x")) {
+            return LITERAL_HEXADECIMAL.matcher(sentencia).replaceAll("X'$1'");
+        }
+        return sentencia;
+    }
+
+    /**
+     * Adjunta la BD de Sakila (sakila.path) a una conexión SQLite, una sola vez por conexión.
+     */
+    private static void adjuntar(Connection con) throws SQLException {
+        if (adjuntadas.contains(con)) {
+            return;
+        }
+        try (PreparedStatement pstmt = con.prepareStatement("ATTACH DATABASE ? AS sakila")) {
+            pstmt.setString(1, ConfigProperties.getProperty("sakila.path", "sakila.db"));
+            pstmt.execute();
+        }
+        adjuntadas.add(con);
+    }
+
+
+    // ============================================
+    // EJECUCIÓN
+    // ============================================
+
+    private static Resultado[] ejecutar(int iteraciones, int hilos) throws Exception {
+        Resultado[] resultados = new Resultado[CONSULTAS.size()];
+        for (int i = 0; i < resultados.length; i++) {
+            resultados[i] = new Resultado();
+        }
+
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?>[] trabajos = new Future<?>[hilos];
+            for (int h = 0; h < hilos; h++) {
+                // Reparto de las iteraciones: los primeros hilos se llevan el resto
+                int vueltas = iteraciones / hilos + (h < iteraciones % hilos ? 1 : 0);
+                long semilla = h;
+                trabajos[h] = ejecutor.submit(() -> {
+                    conConexion(con -> trabajador(con, vueltas, new SplittableRandom(semilla), resultados));
+                    return null;
+                });
+            }
+            for (Future<?> trabajo : trabajos) {
+                trabajo.get();
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Ejecuta todas las consultas por turnos 'vueltas' veces; el primer 10 % no se anota.
+     */
+    private static void trabajador(Connection con, int vueltas, SplittableRandom random,
+                                   Resultado[] resultados) throws SQLException {
+        int calentamiento = vueltas / 10;
+
+        for (int vuelta = 0; vuelta < calentamiento + vueltas; vuelta++) {
+            for (int i = 0; i < CONSULTAS.size(); i++) {
+                Consulta consulta = CONSULTAS.get(i);
+                int parametro = consulta.maximoParametro() > 0 ? 1 + random.nextInt(consulta.maximoParametro()) : 0;
+
+                long inicio = System.nanoTime();
+                long filas = consultar(con, consulta, parametro);
+                long micros = (System.nanoTime() - inicio) / 1_000;
+
+                if (vuelta >= calentamiento) {
+                    resultados[i].latencias().registrar(micros);
+                    resultados[i].filas().add(filas);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ejecuta la consulta con CacheSentencias y lee todas las columnas de todas las filas.
+     * @return filas leídas
+     */
+    private static long consultar(Connection con, Consulta consulta, int parametro) throws SQLException {
+        PreparedStatement pstmt = CacheSentencias.preparar(con, consulta.sql());
+        if (consulta.maximoParametro() > 0) {
+            pstmt.setInt(1, parametro);
+        }
+
+        long filas = 0;
+        try (ResultSet rs = pstmt.executeQuery()) {
+            int columnas = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                for (int c = 1; c <= columnas; c++) {
+                    rs.getString(c);
+                }
+                filas++;
+            }
+        }
+        return filas;
+    }
+
+    /**
+     * Presta una conexión de lectura (la del pool auxiliar si lo hay) con Sakila disponible.
+     */
+    private static void conConexion(Tarea tarea) throws SQLException {
+        Connection con = lectores != null ? lectores.obtener() : DatabaseManager.obtenerConexionLectura();
+        try {
+            if (tipo == TipoMotor.SQLITE) {
+                adjuntar(con);
+            }
+            tarea.ejecutar(con);
+        } finally {
+            if (lectores != null) {
+                lectores.liberar(con);
+            } else {
+                DatabaseManager.liberarConexionLectura(con);
+            }
+        }
+    }
+
+
+    // ============================================
+    // SALIDA
+    // ============================================
+
+    /**
+     * Ingresos por tienda antes de medir: confirma que la carga está completa
+     * (en la Sakila original, unos 33.700 por tienda).
+     */
+    private static void imprimirComprobacion() throws SQLException {
+        conConexion(con -> {
+            try (ResultSet rs = CacheSentencias.preparar(con, CONSULTAS.get(1).sql()).executeQuery()) {
+                while (rs.next()) {
+                    System.out.printf("Tienda %d (%s, %s): %.2f%n",
+                            rs.getInt(1), rs.getString(2), rs.getString(3), rs.getDouble(4));
+                }
+            }
+        });
+    }
+
+    private static void imprimir(Resultado[] resultados, double segundos) {
+        String linea = "─".repeat(108);
+        System.out.println("\n" + linea);
+        System.out.printf("%-24s %8s %10s %10s %10s %10s %10s %10s %10s%n",
+                "CONSULTA", "EJEC.", "FILAS/EJ.", "MEDIA ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "MÁX ms");
+        System.out.println(linea);
+
+        long total = 0;
+        for (int i = 0; i < resultados.length; i++) {
+            HistogramaLatencias h = resultados[i].latencias();
+            total += h.total();
+            System.out.printf("%-24s %8d %10.1f %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    CONSULTAS.get(i).nombre(), h.total(),
+                    h.total() == 0 ? 0 : (double) resultados[i].filas().sum() / h.total(),
+                    h.media() / 1e3, h.percentil(50) / 1e3, h.percentil(90) / 1e3,
+                    h.percentil(99) / 1e3, h.percentil(99.9) / 1e3, h.maximo() / 1e3);
+        }
+        System.out.println(linea);
+        System.out.printf("TOTAL: %d consultas medidas (%.1f s con el calentamiento)%n", total, segundos);
+    }
+}
@@ -0,0 +1,685 @@
+package benchmark;
+
+import database.DatabaseManager;
+import database.MigradorEsquema;
+import database.TipoMotor;
+import model.CatalogoMarcas;
+import util.ConfigProperties;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Generador de datos sintéticos a escala de producción (dimensionar hardware, pruebas de carga).
+ *
+ * USO:
+ *   java -cp ... benchmark.GeneradorDatos destino [coches] [propietarios] [traspasosPorCoche] [semilla] [hilos] [hasta]
+ *
+ * destino:
+ *   csv:directorio     propietarios.csv (formato de PropietarioDAO.importarDesdeCsv),
+ *                      coches.csv (formato de CocheDAO.importarDesdeCsv) y traspasos.csv
+ *   sqlite:archivo.db  escribe directamente en una BD SQLite (se crea y se migra si hace falta)
+ *   mysql              escribe directamente en la BD de mysql.url (config.properties)
+ *
+ * Por defecto: 2.000.000 coches, 300.000 propietarios, 5 traspasos por coche de media
+ * (unos 10 millones), semilla 42, un hilo por núcleo y fechas hasta hoy.
+ *
+ * ¿QUÉ GENERA?
+ * - Marcas y modelos reales con popularidad sesgada (Zipf): unas pocas marcas y, dentro
+ *   de cada una, unos pocos modelos acaparan el inventario
+ * - Precio según la gama de la marca y del modelo, con dispersión lognormal
+ * - Extras con probabilidad propia (ABS casi siempre, techo panorámico pocas veces) que
+ *   aumenta con el precio del coche
+ * - Propietarios con DNI válido (letra de control), nombre y dos apellidos frecuentes
+ * - Cadenas de propiedad: el 30 % de los coches sigue en stock; el resto tiene una primera
+ *   venta del concesionario y reventas encadenadas (el vendedor es el comprador anterior)
+ *   con fechas crecientes en los últimos 10 años e importes que se deprecian
+ *
+ * ¿CÓMO FUNCIONA?
+ * - El trabajo se parte en bloques de 10.000 coches o propietarios; cada bloque tiene su
+ *   propio generador aleatorio, derivado de (semilla, tipo de bloque, número de bloque)
+ * - Los bloques se generan en paralelo y se escriben en orden: el resultado es idéntico
+ *   con cualquier número de hilos
+ * - En BD: INSERT por lotes (rewriteBatchedStatements en MySQL) con los id de propietario
+ *   explícitos y commit cada 100.000 filas; al final se rellenan la búsqueda de texto,
+ *   ventas_diarias y ventas_mensuales con un INSERT ... SELECT cada una
+ *
+ * IMPORTANTE:
+ * - En BD, coches, propietarios y traspasos (y su archivo) deben estar vacías
+ * - Si la carga en BD falla a mitad, lo ya confirmado se queda: hay que vaciar las tablas
+ * - Las fechas se cuentan hacia atrás desde 'hasta' (AAAA-MM-DD): para repetir exactamente
+ *   el mismo conjunto de datos otro día hay que indicarla
+ * - Los id_traspaso siguen el orden de los coches, no el de las fechas de venta
+ */
+public class GeneradorDatos {
+
+    private static final int FILAS_POR_BLOQUE = 10_000;
+    private static final int FILAS_POR_TRANSACCION = 100_000;
+    private static final int ANOS_HISTORIAL = 10;
+    private static final double PROPORCION_MAXIMA_VENDIDOS = 0.7;
+    private static final int MAXIMO_TRASPASOS_POR_COCHE = 200;
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final long TIPO_PROPIETARIOS = 1;
+    private static final long TIPO_COCHES = 2;
+
+    // Marcas por popularidad, con el precio base de su gama (céntimos) y sus modelos por popularidad
+    private static final String[] MARCAS = {
+            "Toyota", "Seat", "Volkswagen", "Renault", "Peugeot", "Kia", "Hyundai", "Dacia", "Citroen", "Ford",
+            "Nissan", "Opel", "Skoda", "BMW", "Mercedes", "Audi", "Fiat", "Mazda", "Volvo", "Honda"};
+    private static final long[] PRECIO_BASE = {
+            2_400_000, 2_000_000, 2_600_000, 1_900_000, 2_100_000, 2_200_000, 2_200_000, 1_400_000, 1_900_000, 2_300_000,
+            2_400_000, 1_900_000, 2_300_000, 4_500_000, 5_000_000, 4_300_000, 1_600_000, 2_700_000, 4_600_000, 2_600_000};
+    private static final String[][] MODELOS = {
+            {"Corolla", "C-HR", "Yaris", "RAV4", "Yaris Cross", "Aygo X", "Camry", "Land Cruiser"},
+            {"Ibiza", "Arona", "Leon", "Ateca", "Tarraco", "Mii"},
+            {"Golf", "Polo", "T-Roc", "Tiguan", "Passat", "T-Cross", "Touareg"},
+            {"Clio", "Captur", "Megane", "Arkana", "Austral", "Kadjar"},
+            {"208", "2008", "3008", "308", "5008", "508"},
+            {"Sportage", "Niro", "Ceed", "Picanto", "Stonic", "Sorento", "EV6"},
+            {"Tucson", "Kona", "i20", "i30", "Bayon", "Santa Fe", "Ioniq 5"},
+            {"Sandero", "Duster", "Jogger", "Spring", "Logan"},
+            {"C3", "C4", "C3 Aircross", "C5 Aircross", "Berlingo"},
+            {"Puma", "Kuga", "Focus", "Fiesta", "Mustang Mach-E", "Ranger"},
+            {"Qashqai", "Juke", "X-Trail", "Micra", "Leaf"},
+            {"Corsa", "Astra", "Mokka", "Crossland", "Grandland"},
+            {"Octavia", "Fabia", "Kamiq", "Karoq", "Kodiaq", "Superb"},
+            {"Serie 1", "Serie 3", "X1", "X3", "Serie 5", "X5", "i4"},
+            {"Clase A", "Clase C", "GLA", "GLC", "Clase E", "Clase S"},
+            {"A3", "A1", "Q3", "Q5", "A4", "A6", "e-tron"},
+            {"500", "Panda", "Tipo", "500X"},
+            {"CX-30", "Mazda2", "Mazda3", "CX-5", "MX-5"},
+            {"XC40", "XC60", "XC90", "EX30", "V60"},
+            {"Civic", "HR-V", "CR-V", "Jazz", "ZR-V"}};
+
+    private static final String[] EXTRAS = {
+            "ABS", "Climatizador", "Bluetooth", "Control crucero", "Sensores aparcamiento", "GPS",
+            "Camara", "Asientos calefactables", "Faros LED", "Techo panoramico"};
+    private static final double[] PROBABILIDAD_EXTRA = {0.95, 0.75, 0.7, 0.5, 0.45, 0.4, 0.35, 0.2, 0.3, 0.1};
+
+    private static final String[] NOMBRES = {
+            "Antonio", "Maria", "Manuel", "Carmen", "Jose", "Ana", "Francisco", "Laura", "David", "Isabel",
+            "Juan", "Lucia", "Javier", "Marta", "Daniel", "Cristina", "Carlos", "Elena", "Miguel", "Paula",
+            "Alejandro", "Sara", "Rafael", "Raquel", "Pedro", "Rosa", "Pablo", "Pilar", "Sergio", "Silvia",
+            "Fernando", "Beatriz", "Jorge", "Patricia", "Luis", "Andrea", "Alberto", "Nuria", "Alvaro", "Julia"};
+    private static final String[] APELLIDOS = {
+            "Garcia", "Rodriguez", "Gonzalez", "Fernandez", "Lopez", "Martinez", "Sanchez", "Perez", "Gomez", "Martin",
+            "Jimenez", "Ruiz", "Hernandez", "Diaz", "Moreno", "Muñoz", "Alvarez", "Romero", "Alonso", "Gutierrez",
+            "Navarro", "Torres", "Dominguez", "Vazquez", "Ramos", "Gil", "Ramirez", "Serrano", "Blanco", "Molina",
+            "Morales", "Suarez", "Ortega", "Delgado", "Castro", "Ortiz", "Rubio", "Marin", "Sanz", "Nuñez",
+            "Iglesias", "Medina", "Garrido", "Cortes", "Castillo", "Santos", "Lozano", "Guerrero", "Cano", "Prieto"};
+
+    private static final String LETRAS_DNI = "TRWAGMYFPDXBNJZSQVHLCKE";
+    // Coprimo con 80.000.000: i → número de DNI es una biyección (DNI únicos sin tabla de usados)
+    private static final long PASO_DNI = 7_919_993L;
+
+    private static final Zipf ZIPF_MARCAS = new Zipf(MARCAS.length, 1.0);
+    private static final Zipf[] ZIPF_MODELOS = new Zipf[MODELOS.length];
+    private static final Zipf ZIPF_NOMBRES = new Zipf(NOMBRES.length, 0.8);
+    private static final Zipf ZIPF_APELLIDOS = new Zipf(APELLIDOS.length, 0.9);
+
+    static {
+        for (int m = 0; m < MODELOS.length; m++) {
+            ZIPF_MODELOS[m] = new Zipf(MODELOS[m].length, 1.2);
+        }
+    }
+
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Uso: GeneradorDatos csv:directorio|sqlite:archivo.db|mysql "
+                    + "[coches] [propietarios] [traspasosPorCoche] [semilla] [hilos] [hasta AAAA-MM-DD]");
+            System.exit(1);
+        }
+
+        Parametros p = new Parametros(
+                args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000,
+                args.length > 2 ? Integer.parseInt(args[2]) : 300_000,
+                args.length > 3 ? Double.parseDouble(args[3]) : 5.0,
+                args.length > 4 ? Long.parseLong(args[4]) : 42,
+                args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors(),
+                (args.length > 6 ? LocalDate.parse(args[6]) : LocalDate.now()).atStartOfDay());
+
+        if (p.coches() < 0 || p.propietarios() < 1 || p.traspasosPorCoche() < 0 || p.hilos() < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un propietario y valores no negativos");
+        }
+        if (p.coches() > 80_000_000 || p.propietarios() > 80_000_000) {
+            throw new IllegalArgumentException("Máximo 80.000.000 coches y propietarios (matrículas y DNI únicos)");
+        }
+
+        System.out.println("=== GENERADOR DE DATOS: " + p.coches() + " coches, " + p.propietarios()
+                + " propietarios, " + p.traspasosPorCoche() + " traspasos por coche, semilla " + p.semilla()
+                + ", " + p.hilos() + " hilos ===");
+
+        String destino = args[0];
+        ExecutorService hilos = Executors.newFixedThreadPool(p.hilos());
+        try {
+            if (destino.startsWith("csv:")) {
+                generarCsv(Path.of(destino.substring("csv:".length())), p, hilos);
+            } else if (destino.startsWith("sqlite:")) {
+                try (Connection con = DriverManager.getConnection("jdbc:" + destino)) {
+                    generarEnBD(con, p, hilos);
+                }
+            } else if (destino.equals("mysql")) {
+                try (Connection con = DriverManager.getConnection(ConfigProperties.getProperty("mysql.url"),
+                        ConfigProperties.getProperty("mysql.user"), ConfigProperties.getProperty("mysql.pass"))) {
+                    generarEnBD(con, p, hilos);
+                }
+            } else {
+                throw new IllegalArgumentException("Destino desconocido: " + destino);
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+
+    // ============================================
+    // DESTINOS
+    // ============================================
+
+    /**
+     * Escribe propietarios.csv, coches.csv y traspasos.csv en 'directorio'.
+     * traspasos.csv: matricula;dni_vendedor;dni_comprador;importe;fecha_venta
+     * (dni_vendedor vacío = venta del concesionario).
+     */
+    private static void generarCsv(Path directorio, Parametros p, ExecutorService hilos) throws Exception {
+        Files.createDirectories(directorio);
+        long inicio = System.nanoTime();
+
+        try (BufferedWriter escritor = abrirCsv(directorio.resolve("propietarios.csv"), "dni;nombre;apellidos;telefono")) {
+            enOrden(hilos, p.hilos(), bloques(p.propietarios()), b -> {
+                StringBuilder texto = new StringBuilder(FILAS_POR_BLOQUE * 48);
+                for (FilaPropietario fila : bloquePropietarios(b, p)) {
+                    texto.append(fila.dni()).append(';').append(fila.nombre()).append(';')
+                            .append(fila.apellidos()).append(';')
+                            .append(fila.telefono() == null ? "" : fila.telefono()).append('\n');
+                }
+                return texto.toString();
+            }, escritor::write);
+        }
+        informar("propietarios", p.propietarios(), inicio);
+
+        inicio = System.nanoTime();
+        long[] traspasos = {0};
+        try (BufferedWriter coches = abrirCsv(directorio.resolve("coches.csv"), "matricula;marca;modelo;extras;precio");
+             BufferedWriter ventas = abrirCsv(directorio.resolve("traspasos.csv"),
+                     "matricula;dni_vendedor;dni_comprador;importe;fecha_venta")) {
+
+            enOrden(hilos, p.hilos(), bloques(p.coches()), b -> {
+                BloqueCoches bloque = bloqueCoches(b, p);
+                StringBuilder textoCoches = new StringBuilder(FILAS_POR_BLOQUE * 64);
+                for (FilaCoche fila : bloque.coches()) {
+                    textoCoches.append(fila.matricula()).append(';').append(MARCAS[fila.marca()]).append(';')
+                            .append(MODELOS[fila.marca()][fila.modelo()]).append(';').append(fila.extras()).append(';');
+                    importe(textoCoches, fila.precio()).append('\n');
+                }
+                StringBuilder textoVentas = new StringBuilder(bloque.traspasos().size() * 56);
+                for (FilaTraspaso fila : bloque.traspasos()) {
+                    textoVentas.append(fila.matricula()).append(';')
+                            .append(fila.vendedor() == 0 ? "" : dni(fila.vendedor() - 1)).append(';')
+                            .append(dni(fila.comprador() - 1)).append(';');
+                    importe(textoVentas, fila.importe()).append(';').append(fila.fecha()).append('\n');
+                }
+                return new String[]{textoCoches.toString(), textoVentas.toString(),
+                        String.valueOf(bloque.traspasos().size())};
+            }, textos -> {
+                coches.write(textos[0]);
+                ventas.write(textos[1]);
+                traspasos[0] += Long.parseLong(textos[2]);
+            });
+        }
+        informar("coches", p.coches(), inicio);
+        System.out.println("Traspasos generados: " + traspasos[0]);
+        System.out.println("Archivos en " + directorio.toAbsolutePath());
+    }
+
+    /**
+     * Inserta directamente en la BD (tras aplicar las migraciones pendientes).
+     */
+    private static void generarEnBD(Connection con, Parametros p, ExecutorService hilos) throws Exception {
+        MigradorEsquema.migrar(con);
+        comprobarTablasVacias(con);
+        TipoMotor motor = TipoMotor.detectar(con);
+        CatalogoMarcas.invalidar();
+
+        // Solo para esta conexión: las claves ya son coherentes por construcción
+        try (Statement stmt = con.createStatement()) {
+            if (motor == TipoMotor.MYSQL) {
+                stmt.execute("SET foreign_key_checks = 0");
+                stmt.execute("SET unique_checks = 0");
+            } else {
+                stmt.execute("PRAGMA synchronous = OFF");
+                // Los índices de comprador/vendedor reciben claves al azar: que quepan en caché
+                stmt.execute("PRAGMA cache_size = -524288");   // 512 MB
+            }
+        }
+
+        con.setAutoCommit(false);
+        try {
+            int[] idsMarca = new int[MARCAS.length];
+            int[][] idsModelo = new int[MARCAS.length][];
+            for (int m = 0; m < MARCAS.length; m++) {
+                idsMarca[m] = CatalogoMarcas.obtenerIdMarca(con, MARCAS[m]);
+                idsModelo[m] = new int[MODELOS[m].length];
+                for (int n = 0; n < MODELOS[m].length; n++) {
+                    idsModelo[m][n] = CatalogoMarcas.obtenerIdModelo(con, idsMarca[m], MODELOS[m][n]);
+                }
+            }
+            con.commit();
+            CatalogoMarcas.confirmar(con);
+
+            insertarPropietarios(con, p, hilos);
+            insertarCoches(con, p, hilos, idsMarca, idsModelo);
+            indexarBusqueda(con, motor);
+            recalcularResumenesVentas(con);
+            con.commit();
+
+        } catch (Exception e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.setAutoCommit(true);
+            if (motor == TipoMotor.MYSQL) {
+                try (Statement stmt = con.createStatement()) {
+                    stmt.execute("SET foreign_key_checks = 1");
+                    stmt.execute("SET unique_checks = 1");
+                }
+            }
+            // La carga no pasa por los DAO
+            DatabaseManager.invalidarCachesDerivadas();
+        }
+
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute(motor == TipoMotor.MYSQL
+                    ? "ANALYZE TABLE propietarios, coches, coches_busqueda, traspasos" : "ANALYZE");
+        }
+    }
+
+    private static void insertarPropietarios(Connection con, Parametros p, ExecutorService hilos) throws Exception {
+        long inicio = System.nanoTime();
+        String sql = "INSERT INTO propietarios (id_propietario, dni, nombre, apellidos, telefono) VALUES (?, ?, ?, ?, ?)";
+        int[] sinConfirmar = {0};
+
+        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+            enOrden(hilos, p.hilos(), bloques(p.propietarios()), b -> bloquePropietarios(b, p), bloque -> {
+                for (FilaPropietario fila : bloque) {
+                    pstmt.setInt(1, fila.id());
+                    pstmt.setString(2, fila.dni());
+                    pstmt.setString(3, fila.nombre());
+                    pstmt.setString(4, fila.apellidos());
+                    pstmt.setString(5, fila.telefono());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                sinConfirmar[0] += bloque.size();
+                if (sinConfirmar[0] >= FILAS_POR_TRANSACCION) {
+                    con.commit();
+                    sinConfirmar[0] = 0;
+                }
+            });
+        }
+        con.commit();
+        informar("propietarios", p.propietarios(), inicio);
+    }
+
+    /**
+     * Coches y sus traspasos, bloque a bloque (los traspasos de un coche van detrás del
+     * coche: las claves foráneas se cumplen aunque estén activas).
+     */
+    private static void insertarCoches(Connection con, Parametros p, ExecutorService hilos,
+                                       int[] idsMarca, int[][] idsModelo) throws Exception {
+        long inicio = System.nanoTime();
+        String sqlCoche = "INSERT INTO coches (matricula, id_marca, id_modelo, extras, precio_centimos, id_propietario) "
+                + "VALUES (?, ?, ?, ?, ?, ?)";
+        String sqlTraspaso = "INSERT INTO traspasos (matricula_coche, id_vendedor, id_comprador, monto_centimos, fecha_venta) "
+                + "VALUES (?, ?, ?, ?, ?)";
+        long[] contadores = {0, 0};   // filas sin confirmar, traspasos
+
+        try (PreparedStatement pstmtCoche = con.prepareStatement(sqlCoche);
+             PreparedStatement pstmtTraspaso = con.prepareStatement(sqlTraspaso)) {
+
+            enOrden(hilos, p.hilos(), bloques(p.coches()), b -> bloqueCoches(b, p), bloque -> {
+                for (FilaCoche fila : bloque.coches()) {
+                    pstmtCoche.setString(1, fila.matricula());
+                    pstmtCoche.setInt(2, idsMarca[fila.marca()]);
+                    pstmtCoche.setInt(3, idsModelo[fila.marca()][fila.modelo()]);
+                    pstmtCoche.setString(4, fila.extras());
+                    pstmtCoche.setLong(5, fila.precio());
+                    if (fila.propietario() == 0) {
+                        pstmtCoche.setNull(6, Types.INTEGER);
+                    } else {
+                        pstmtCoche.setInt(6, fila.propietario());
+                    }
+                    pstmtCoche.addBatch();
+                }
+                pstmtCoche.executeBatch();
+
+                for (FilaTraspaso fila : bloque.traspasos()) {
+                    pstmtTraspaso.setString(1, fila.matricula());
+                    if (fila.vendedor() == 0) {
+                        pstmtTraspaso.setNull(2, Types.INTEGER);
+                    } else {
+                        pstmtTraspaso.setInt(2, fila.vendedor());
+                    }
+                    pstmtTraspaso.setInt(3, fila.comprador());
+                    pstmtTraspaso.setLong(4, fila.importe());
+                    pstmtTraspaso.setString(5, fila.fecha());
+                    pstmtTraspaso.addBatch();
+                }
+                pstmtTraspaso.executeBatch();
+
+                contadores[0] += bloque.coches().size() + bloque.traspasos().size();
+                contadores[1] += bloque.traspasos().size();
+                if (contadores[0] >= FILAS_POR_TRANSACCION) {
+                    con.commit();
+                    contadores[0] = 0;
+                }
+            });
+        }
+        con.commit();
+        informar("coches", p.coches(), inicio);
+        System.out.println("Traspasos insertados: " + contadores[1]);
+    }
+
+    /**
+     * Rellena coches_busqueda con un INSERT ... SELECT (como la migración V4 de MySQL).
+     *
+     * En SQLite el trigger que copia cada fila al índice FTS5 es lo más caro de toda la carga
+     * de coches (unas 10 veces más que insertar el coche): se quita, se reconstruye el índice
+     * de una vez ('rebuild') y se vuelve a crear el trigger con su SQL original, todo en la
+     * misma transacción.
+     */
+    private static void indexarBusqueda(Connection con, TipoMotor motor) throws SQLException {
+        long inicio = System.nanoTime();
+        String sqlBusqueda = "INSERT INTO coches_busqueda (matricula, marca, modelo, extras) "
+                + "SELECT c.matricula, m.nombre, mo.nombre, c.extras FROM coches c "
+                + "INNER JOIN marcas m ON m.id_marca = c.id_marca "
+                + "INNER JOIN modelos mo ON mo.id_modelo = c.id_modelo";
+
+        try (Statement stmt = con.createStatement()) {
+            if (motor == TipoMotor.MYSQL) {
+                stmt.executeUpdate(sqlBusqueda);
+            } else {
+                String trigger;
+                try (ResultSet rs = stmt.executeQuery(
+                        "SELECT sql FROM sqlite_master WHERE type = 'trigger' AND name = 'coches_busqueda_ai'")) {
+                    if (!rs.next()) {
+                        throw new SQLException("No existe el trigger coches_busqueda_ai (migración V4)");
+                    }
+                    trigger = rs.getString(1);
+                }
+                stmt.execute("DROP TRIGGER coches_busqueda_ai");
+                stmt.executeUpdate(sqlBusqueda);
+                stmt.execute("INSERT INTO coches_busqueda_fts (coches_busqueda_fts) VALUES ('rebuild')");
+                stmt.execute(trigger);
+            }
+        }
+        con.commit();
+        System.out.println("Búsqueda de texto indexada (" + (System.nanoTime() - inicio) / 1_000_000 + " ms)");
+    }
+
+    /**
+     * Los resúmenes que TraspasoDAO mantiene venta a venta, calculados de una vez.
+     * También lo usa EstadoBaseDatos (JMH), que carga sus ventas sin pasar por TraspasoDAO.
+     */
+    public static void recalcularResumenesVentas(Connection con) throws SQLException {
+        long inicio = System.nanoTime();
+        try (Statement stmt = con.createStatement()) {
+            stmt.executeUpdate("DELETE FROM ventas_diarias");
+            stmt.executeUpdate("DELETE FROM ventas_mensuales");
+            stmt.executeUpdate("INSERT INTO ventas_diarias (dia, id_marca, ventas, importe_centimos) "
+                    + "SELECT SUBSTR(t.fecha_venta, 1, 10), c.id_marca, COUNT(*), SUM(t.monto_centimos) "
+                    + "FROM traspasos t INNER JOIN coches c ON c.matricula = t.matricula_coche "
+                    + "WHERE t.fecha_venta IS NOT NULL GROUP BY SUBSTR(t.fecha_venta, 1, 10), c.id_marca");
+            stmt.executeUpdate("INSERT INTO ventas_mensuales (mes, id_marca, ventas, importe_centimos) "
+                    + "SELECT SUBSTR(dia, 1, 7), id_marca, SUM(ventas), SUM(importe_centimos) "
+                    + "FROM ventas_diarias GROUP BY SUBSTR(dia, 1, 7), id_marca");
+        }
+        System.out.println("Resúmenes de ventas recalculados (" + (System.nanoTime() - inicio) / 1_000_000 + " ms)");
+    }
+
+    private static void comprobarTablasVacias(Connection con) throws SQLException {
+        for (String tabla : new String[]{"propietarios", "coches", "traspasos", "traspasos_archivo"}) {
+            try (Statement stmt = con.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT 1 FROM " + tabla + " LIMIT 1")) {
+                if (rs.next()) {
+                    throw new IllegalStateException("La tabla " + tabla + " no está vacía: el generador necesita una BD sin datos");
+                }
+            }
+        }
+    }
+
+
+    // ============================================
+    // GENERACIÓN DE BLOQUES (en paralelo)
+    // ============================================
+
+    private static List<FilaPropietario> bloquePropietarios(int bloque, Parametros p) {
+        SplittableRandom random = aleatorio(p.semilla(), TIPO_PROPIETARIOS, bloque);
+        int desde = bloque * FILAS_POR_BLOQUE;
+        int hasta = Math.min(p.propietarios(), desde + FILAS_POR_BLOQUE);
+
+        List<FilaPropietario> filas = new ArrayList<>(hasta - desde);
+        for (int i = desde; i < hasta; i++) {
+            String nombre = NOMBRES[ZIPF_NOMBRES.muestra(random)];
+            String apellidos = APELLIDOS[ZIPF_APELLIDOS.muestra(random)] + " " + APELLIDOS[ZIPF_APELLIDOS.muestra(random)];
+            String telefono = random.nextDouble() < 0.8 ? String.valueOf(600_000_000 + random.nextInt(100_000_000)) : null;
+            filas.add(new FilaPropietario(i + 1, dni(i), nombre, apellidos, telefono));
+        }
+        return filas;
+    }
+
+    private static BloqueCoches bloqueCoches(int bloque, Parametros p) {
+        SplittableRandom random = aleatorio(p.semilla(), TIPO_COCHES, bloque);
+        int desde = bloque * FILAS_POR_BLOQUE;
+        int hasta = Math.min(p.coches(), desde + FILAS_POR_BLOQUE);
+
+        double vendidos = Math.min(PROPORCION_MAXIMA_VENDIDOS, p.traspasosPorCoche());
+        double reventasMedias = vendidos > 0 ? p.traspasosPorCoche() / vendidos - 1 : 0;
+        long segundosHistorial = ANOS_HISTORIAL * 365L * 86_400;
+        LocalDateTime origen = p.hasta().minusSeconds(segundosHistorial);
+
+        List<FilaCoche> coches = new ArrayList<>(hasta - desde);
+        List<FilaTraspaso> traspasos = new ArrayList<>((int) ((hasta - desde) * p.traspasosPorCoche() * 1.1));
+
+        for (int i = desde; i < hasta; i++) {
+            String matricula = BenchmarkPerfilSQLite.matricula(i);
+            int marca = ZIPF_MARCAS.muestra(random);
+            int modelo = ZIPF_MODELOS[marca].muestra(random);
+            long precio = precio(marca, modelo, random);
+            String extras = extras(precio, random);
+
+            int propietario = 0;
+            if (random.nextDouble() < vendidos) {
+                int ventas = 1 + geometrica(reventasMedias, random);
+                long[] instantes = new long[ventas];
+                for (int v = 0; v < ventas; v++) {
+                    instantes[v] = random.nextLong(segundosHistorial);
+                }
+                Arrays.sort(instantes);
+
+                long importe = precio * (90 + random.nextInt(11)) / 100;
+                for (int v = 0; v < ventas; v++) {
+                    if (v > 0) {
+                        // Depreciación de ~15 % al año desde la venta anterior, con variación
+                        double anos = (instantes[v] - instantes[v - 1]) / (365.0 * 86_400);
+                        importe = (long) (importe * Math.pow(0.85, anos) * (0.9 + 0.2 * random.nextDouble()));
+                    }
+                    importe = Math.max(50_000, importe / 10_000 * 10_000);   // a cientos de euros
+
+                    int comprador = 1 + random.nextInt(p.propietarios());
+                    if (comprador == propietario && p.propietarios() > 1) {
+                        comprador = comprador % p.propietarios() + 1;
+                    }
+                    traspasos.add(new FilaTraspaso(matricula, propietario, comprador, importe,
+                            origen.plusSeconds(instantes[v]).format(FORMATO_FECHA)));
+                    propietario = comprador;
+                }
+            }
+            coches.add(new FilaCoche(matricula, marca, modelo, extras, precio, propietario));
+        }
+        return new BloqueCoches(coches, traspasos);
+    }
+
+    /**
+     * Precio base de la marca, +12 % por cada puesto del modelo en la lista (los menos
+     * vendidos suelen ser los de gama alta) y dispersión lognormal; a cientos de euros.
+     */
+    private static long precio(int marca, int modelo, SplittableRandom random) {
+        double precio = PRECIO_BASE[marca] * (1 + 0.12 * modelo) * Math.exp(0.25 * random.nextGaussian());
+        return Math.max(300_000, Math.round(precio / 10_000) * 10_000);
+    }
+
+    /**
+     * Cada extra con su probabilidad, escalada con el precio (x0,6 en un coche de 10.000 €,
+     * hasta x1,5 en uno de 60.000 €).
+     */
+    private static String extras(long precio, SplittableRandom random) {
+        double factor = Math.min(1.5, Math.max(0.6, precio / 4_000_000.0));
+        StringBuilder extras = new StringBuilder();
+        for (int e = 0; e < EXTRAS.length; e++) {
+            if (random.nextDouble() < Math.min(0.99, PROBABILIDAD_EXTRA[e] * factor)) {
+                if (!extras.isEmpty()) {
+                    extras.append('|');
+                }
+                extras.append(EXTRAS[e]);
+            }
+        }
+        return extras.toString();
+    }
+
+    /**
+     * Número de fracasos antes del primer éxito con media 'media' (reventas de un coche).
+     */
+    private static int geometrica(double media, SplittableRandom random) {
+        if (media <= 0) {
+            return 0;
+        }
+        double exito = 1 / (1 + media);
+        int n = (int) (Math.log(1 - random.nextDouble()) / Math.log(1 - exito));
+        return Math.min(n, MAXIMO_TRASPASOS_POR_COCHE - 1);
+    }
+
+    /**
+     * DNI del propietario i: número de 8 cifras repartido por todo el rango y su letra.
+     */
+    static String dni(int i) {
+        int numero = (int) (10_000_000 + (i * PASO_DNI) % 80_000_000);
+        return numero + String.valueOf(LETRAS_DNI.charAt(numero % 23));
+    }
+
+    private static SplittableRandom aleatorio(long semilla, long tipo, int bloque) {
+        return new SplittableRandom(semilla * 0x9E3779B97F4A7C15L + tipo * 0xC2B2AE3D27D4EB4FL + bloque);
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    /**
+     * Genera los bloques 0..total-1 en paralelo (como mucho 2 por hilo adelantados) y se
+     * los pasa a 'escritor' en orden, desde el hilo que llama.
+     */
+    private static <T> void enOrden(ExecutorService hilos, int numHilos, int total,
+                                    IntFunction<T> generar, Escritor<T> escritor) throws Exception {
+        ArrayDeque<Future<T>> enCurso = new ArrayDeque<>();
+        int siguiente = 0;
+        while (siguiente < total || !enCurso.isEmpty()) {
+            while (siguiente < total && enCurso.size() < numHilos * 2) {
+                int bloque = siguiente++;
+                enCurso.add(hilos.submit(() -> generar.apply(bloque)));
+            }
+            escritor.escribir(enCurso.poll().get());
+        }
+    }
+
+    /**
+     * Importe en el formato de Dinero.toString (18000.50) sin String.format: se llama
+     * una vez por coche y por traspaso.
+     */
+    private static StringBuilder importe(StringBuilder texto, long centimos) {
+        long resto = centimos % 100;
+        return texto.append(centimos / 100).append(resto < 10 ? ".0" : ".").append(resto);
+    }
+
+    private static int bloques(int filas) {
+        return (filas + FILAS_POR_BLOQUE - 1) / FILAS_POR_BLOQUE;
+    }
+
+    private static BufferedWriter abrirCsv(Path ruta, String cabecera) throws IOException {
+        BufferedWriter escritor = Files.newBufferedWriter(ruta, StandardCharsets.UTF_8);
+        escritor.write(cabecera);
+        escritor.write('\n');
+        return escritor;
+    }
+
+    private static void informar(String que, long filas, long inicio) {
+        long ms = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+        System.out.println("Generados " + filas + " " + que + " en " + ms + " ms (" + filas * 1000 / ms + " filas/s)");
+    }
+
+
+    private record Parametros(int coches, int propietarios, double traspasosPorCoche,
+                              long semilla, int hilos, LocalDateTime hasta) {}
+
+    private record FilaPropietario(int id, String dni, String nombre, String apellidos, String telefono) {}
+
+    /** propietario: id del dueño actual, 0 = en stock. */
+    private record FilaCoche(String matricula, int marca, int modelo, String extras, long precio, int propietario) {}
+
+    /** vendedor: 0 = venta del concesionario. */
+    private record FilaTraspaso(String matricula, int vendedor, int comprador, long importe, String fecha) {}
+
+    private record BloqueCoches(List<FilaCoche> coches, List<FilaTraspaso> traspasos) {}
+
+    @FunctionalInterface
+    private interface Escritor<T> {
+        void escribir(T bloque) throws Exception;
+    }
+
+    /**
+     * Distribución de Zipf sobre 0..n-1 (el 0 es el más frecuente): P(k) ∝ 1 / (k+1)^s.
+     */
+    private static final class Zipf {
+        private final double[] acumulada;
+
+        Zipf(int n, double s) {
+            acumulada = new double[n];
+            double suma = 0;
+            for (int k = 0; k < n; k++) {
+                suma += 1 / Math.pow(k + 1, s);
+                acumulada[k] = suma;
+            }
+        }
+
+        int muestra(SplittableRandom random) {
+            double u = random.nextDouble() * acumulada[acumulada.length - 1];
+            int i = Arrays.binarySearch(acumulada, u);
+            return Math.min(i >= 0 ? i + 1 : -i - 1, acumulada.length - 1);
+        }
+    }
+}
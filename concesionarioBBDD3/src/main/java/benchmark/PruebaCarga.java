@@ -0,0 +1,385 @@
+package benchmark;
+
+import database.DatabaseManager;
+import database.MigradorEsquema;
+import database.PoolConexiones;
+import model.CocheDAO;
+import model.Dinero;
+import model.InformeDAO;
+import model.TraspasoDAO;
+import util.ConfigProperties;
+import util.HistogramaLatencias;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prueba de carga: muchos clientes simultáneos con una mezcla de operaciones del concesionario.
+ *
+ * USO:
+ *   java -cp ... benchmark.PruebaCarga motor [clientes] [segundos] [mezcla] [conexiones] [calentamiento]
+ *
+ * motor: sqlite | mysql (la BD de config.properties; necesita coches y propietarios,
+ *        por ejemplo los de GeneradorDatos)
+ *
+ * Por defecto: 64 clientes, 60 s, mezcla alta=20,precio=30,traspaso=40,informe=10,
+ * conexiones de escritura = db.pool.maxTotal en MySQL y 1 en SQLite, 10 s de calentamiento.
+ *
+ * ¿QUÉ HACE CADA OPERACIÓN?
+ * - alta:     CocheDAO.insertarCoche con una matrícula nueva
+ * - precio:   CocheDAO.modificarCoche de un coche existente con su precio ±10 %
+ * - traspaso: TraspasoDAO.realizarTraspaso de un coche existente a un propietario al azar
+ * - informe:  InformeDAO.generarInformeResumen a un archivo temporal
+ *
+ * ¿CÓMO FUNCIONA?
+ * - Cada cliente es un hilo virtual que elige operación al azar según los pesos de la mezcla
+ *   y la ejecuta sin pausas (bucle cerrado) hasta que se acaba el tiempo
+ * - Conexiones como en la aplicación: las escrituras van por un pool de 'conexiones'
+ *   (en SQLite, 1: un único escritor); los informes por el pool de lectura de SQLite en WAL
+ *   o, si no lo hay, por el mismo pool de escritura
+ * - La latencia incluye la espera por una conexión libre: es lo que nota el usuario
+ * - Lo que ocurre durante el calentamiento no cuenta
+ * - Al final: operaciones por segundo, errores y percentiles por operación (HistogramaLatencias)
+ *
+ * IMPORTANTE:
+ * - Modifica la BD (altas, precios, traspasos): úsese una copia o una BD generada
+ * - Durante la prueba se descarta la salida por consola de los DAO; sus errores sí se ven
+ */
+public class PruebaCarga {
+
+    private static final String MEZCLA_POR_DEFECTO = "alta=20,precio=30,traspaso=40,informe=10";
+    private static final int TAMANO_MUESTRA = 100_000;
+    private static final long ESPERA_CONEXION_MS = 60_000;
+    private static final String LETRAS_MATRICULA = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    enum Operacion { ALTA, PRECIO, TRASPASO, INFORME }
+
+    private record CocheMuestra(String matricula, String marca, String modelo, String extras, long precio) {}
+
+    /**
+     * Resultados de una operación: latencias de las que salieron bien y número de fallos.
+     */
+    private record Resultado(HistogramaLatencias latencias, LongAdder errores) {
+        Resultado() {
+            this(new HistogramaLatencias(), new LongAdder());
+        }
+    }
+
+    private static List<CocheMuestra> coches;
+    private static List<String> dnis;
+    private static PoolConexiones escritores;
+
+    @FunctionalInterface
+    private interface Accion {
+        boolean ejecutar(Connection con) throws Exception;
+    }
+
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || !(args[0].equals("sqlite") || args[0].equals("mysql"))) {
+            System.err.println("Uso: PruebaCarga sqlite|mysql [clientes] [segundos] [mezcla] [conexiones] [calentamiento]");
+            System.exit(1);
+        }
+
+        boolean mysql = args[0].equals("mysql");
+        int clientes = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int[] pesos = leerMezcla(args.length > 3 ? args[3] : MEZCLA_POR_DEFECTO);
+        int conexiones = args.length > 4 ? Integer.parseInt(args[4])
+                : mysql ? ConfigProperties.getIntProperty("db.pool.maxTotal", 20) : 1;
+        int calentamiento = args.length > 5 ? Integer.parseInt(args[5]) : 10;
+
+        if (!(mysql ? DatabaseManager.conectarMySQL() : DatabaseManager.conectarSQLite())) {
+            System.exit(1);
+        }
+
+        PrintStream consola = System.out;
+        try {
+            Connection con = DatabaseManager.getConnection();
+            MigradorEsquema.migrar(con);
+            cargarMuestras(con);
+            if (coches.isEmpty() || dnis.isEmpty()) {
+                System.err.println("La BD no tiene coches o propietarios: genere datos antes (GeneradorDatos)");
+                System.exit(1);
+            }
+
+            escritores = new PoolConexiones("escritura prueba de carga", conexiones, ESPERA_CONEXION_MS,
+                    DatabaseManager::abrirConexionAuxiliar);
+
+            consola.println("\n=== PRUEBA DE CARGA: " + (mysql ? "MySQL" : "SQLite") + ", " + clientes
+                    + " clientes, " + segundos + " s (+" + calentamiento + " s de calentamiento) ===");
+            consola.println("Mezcla: " + describirMezcla(pesos) + " | conexiones de escritura: " + conexiones
+                    + " | informes: " + (DatabaseManager.tienePoolLectura() ? "pool de lectura SQLite" : "pool de escritura"));
+            consola.println("Muestra: " + coches.size() + " coches, " + dnis.size() + " propietarios");
+
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            Resultado[] resultados = ejecutar(clientes, segundos, calentamiento, pesos, consola);
+            System.setOut(consola);
+
+            imprimir(resultados, segundos);
+
+        } finally {
+            System.setOut(consola);
+            if (escritores != null) {
+                escritores.cerrar();
+            }
+            DatabaseManager.cerrarConexion();
+        }
+    }
+
+
+    // ============================================
+    // EJECUCIÓN
+    // ============================================
+
+    private static Resultado[] ejecutar(int clientes, int segundos, int calentamiento, int[] pesos,
+                                        PrintStream consola) throws InterruptedException {
+        Resultado[] resultados = new Resultado[Operacion.values().length];
+        for (int i = 0; i < resultados.length; i++) {
+            resultados[i] = new Resultado();
+        }
+
+        long inicio = System.nanoTime();
+        long inicioMedida = inicio + TimeUnit.SECONDS.toNanos(calentamiento);
+        long fin = inicioMedida + TimeUnit.SECONDS.toNanos(segundos);
+
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clientes; c++) {
+                long semilla = c;
+                hilos.submit(() -> cliente(new SplittableRandom(semilla), pesos, resultados, inicioMedida, fin));
+            }
+
+            // Progreso cada 10 s mientras trabajan los clientes
+            while (System.nanoTime() < fin) {
+                Thread.sleep(Math.min(10_000, Math.max(1, TimeUnit.NANOSECONDS.toMillis(fin - System.nanoTime()))));
+                long transcurrido = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - inicio);
+                long hechas = 0;
+                for (Resultado r : resultados) {
+                    hechas += r.latencias().total();
+                }
+                consola.println("  " + transcurrido + " s: " + hechas + " operaciones medidas"
+                        + (System.nanoTime() < inicioMedida ? " (calentando)" : ""));
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Bucle de un cliente: elige operación, la cronometra y la anota (si ya no está calentando).
+     */
+    private static void cliente(SplittableRandom random, int[] pesos, Resultado[] resultados,
+                                long inicioMedida, long fin) {
+        while (true) {
+            long inicio = System.nanoTime();
+            if (inicio >= fin) {
+                return;
+            }
+
+            Operacion operacion = elegir(random, pesos);
+            boolean correcta;
+            try {
+                correcta = ejecutar(operacion, random);
+            } catch (Exception e) {
+                System.err.println("Error en " + operacion + ": " + e.getMessage());
+                correcta = false;
+            }
+
+            if (inicio >= inicioMedida) {
+                Resultado resultado = resultados[operacion.ordinal()];
+                if (correcta) {
+                    resultado.latencias().registrar((System.nanoTime() - inicio) / 1_000);
+                } else {
+                    resultado.errores().increment();
+                }
+            }
+        }
+    }
+
+    private static boolean ejecutar(Operacion operacion, SplittableRandom random) throws Exception {
+        CocheMuestra coche = coches.get(random.nextInt(coches.size()));
+
+        return switch (operacion) {
+            case ALTA -> escribir(con -> CocheDAO.insertarCoche(con, matriculaNueva(), coche.marca(),
+                    coche.modelo(), coche.extras(), Dinero.deCentimos(coche.precio())));
+            case PRECIO -> {
+                Dinero precio = Dinero.deCentimos(
+                        Math.max(100_000, coche.precio() * (90 + random.nextInt(21)) / 100 / 100 * 100));
+                yield escribir(con -> CocheDAO.modificarCoche(con, coche.matricula(), coche.marca(),
+                        coche.modelo(), coche.extras(), precio));
+            }
+            case TRASPASO -> {
+                String dni = dnis.get(random.nextInt(dnis.size()));
+                Dinero importe = Dinero.deCentimos(coche.precio() * (80 + random.nextInt(21)) / 100);
+                yield escribir(con -> TraspasoDAO.realizarTraspaso(con, dni, coche.matricula(), importe));
+            }
+            case INFORME -> generarInforme();
+        };
+    }
+
+    /**
+     * Presta una conexión del pool de escritura durante la operación.
+     */
+    private static boolean escribir(Accion accion) throws Exception {
+        Connection con = escritores.obtener();
+        try {
+            return accion.ejecutar(con);
+        } finally {
+            escritores.liberar(con);
+        }
+    }
+
+    /**
+     * Informe resumen a un archivo temporal, por el pool de lectura si lo hay.
+     */
+    private static boolean generarInforme() throws Exception {
+        Path informe = Files.createTempFile("informe-carga", ".txt");
+        try {
+            if (!DatabaseManager.tienePoolLectura()) {
+                return escribir(con -> InformeDAO.generarInformeResumen(con, informe.toString()));
+            }
+            Connection con = DatabaseManager.obtenerConexionLectura();
+            try {
+                return InformeDAO.generarInformeResumen(con, informe.toString());
+            } finally {
+                DatabaseManager.liberarConexionLectura(con);
+            }
+        } finally {
+            Files.deleteIfExists(informe);
+        }
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    /**
+     * Coches y DNI existentes con los que trabajan los clientes (los primeros TAMANO_MUESTRA).
+     */
+    private static void cargarMuestras(Connection con) throws SQLException {
+        coches = new ArrayList<>();
+        String sqlCoches = "SELECT c.matricula, m.nombre, mo.nombre, c.extras, c.precio_centimos FROM coches c "
+                + "INNER JOIN marcas m ON m.id_marca = c.id_marca "
+                + "INNER JOIN modelos mo ON mo.id_modelo = c.id_modelo LIMIT " + TAMANO_MUESTRA;
+        try (PreparedStatement pstmt = con.prepareStatement(sqlCoches);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                coches.add(new CocheMuestra(rs.getString(1), rs.getString(2), rs.getString(3),
+                        rs.getString(4), rs.getLong(5)));
+            }
+        }
+
+        dnis = new ArrayList<>();
+        try (PreparedStatement pstmt = con.prepareStatement("SELECT dni FROM propietarios LIMIT " + TAMANO_MUESTRA);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                dnis.add(rs.getString(1));
+            }
+        }
+    }
+
+    /**
+     * "LT" + 8 caracteres al azar (36^8 combinaciones): no choca con las de GeneradorDatos
+     * ni, en la práctica, con las de otras pruebas sobre la misma BD.
+     */
+    private static String matriculaNueva() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] matricula = new char[10];
+        matricula[0] = 'L';
+        matricula[1] = 'T';
+        for (int i = 2; i < matricula.length; i++) {
+            matricula[i] = LETRAS_MATRICULA.charAt(random.nextInt(LETRAS_MATRICULA.length()));
+        }
+        return new String(matricula);
+    }
+
+    private static Operacion elegir(SplittableRandom random, int[] pesos) {
+        int total = 0;
+        for (int peso : pesos) {
+            total += peso;
+        }
+        int r = random.nextInt(total);
+        for (int i = 0; i < pesos.length; i++) {
+            r -= pesos[i];
+            if (r < 0) {
+                return Operacion.values()[i];
+            }
+        }
+        return Operacion.values()[pesos.length - 1];
+    }
+
+    /**
+     * "alta=20,precio=30,traspaso=40,informe=10" → pesos por Operacion (las que no aparecen, 0).
+     */
+    private static int[] leerMezcla(String mezcla) {
+        int[] pesos = new int[Operacion.values().length];
+        for (String parte : mezcla.split(",")) {
+            String[] claveValor = parte.trim().split("=");
+            if (claveValor.length != 2) {
+                throw new IllegalArgumentException("Mezcla inválida (se espera operacion=peso): " + parte);
+            }
+            Operacion operacion = Operacion.valueOf(claveValor[0].trim().toUpperCase(Locale.ROOT));
+            pesos[operacion.ordinal()] = Integer.parseInt(claveValor[1].trim());
+            if (pesos[operacion.ordinal()] < 0) {
+                throw new IllegalArgumentException("Los pesos no pueden ser negativos: " + parte);
+            }
+        }
+        if (Arrays.stream(pesos).sum() == 0) {
+            throw new IllegalArgumentException("La mezcla no tiene ninguna operación");
+        }
+        return pesos;
+    }
+
+    private static String describirMezcla(int[] pesos) {
+        List<String> partes = new ArrayList<>();
+        for (Operacion operacion : Operacion.values()) {
+            if (pesos[operacion.ordinal()] > 0) {
+                partes.add(operacion.name().toLowerCase(Locale.ROOT) + "=" + pesos[operacion.ordinal()]);
+            }
+        }
+        return String.join(",", partes);
+    }
+
+    private static void imprimir(Resultado[] resultados, int segundos) {
+        String linea = "─".repeat(104);
+        System.out.println("\n" + linea);
+        System.out.printf("%-10s %10s %8s %10s %10s %10s %10s %10s %10s %10s%n",
+                "OPERACIÓN", "OPS", "ERRORES", "OPS/S", "MEDIA ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "MÁX ms");
+        System.out.println(linea);
+
+        long totalOps = 0;
+        long totalErrores = 0;
+        for (Operacion operacion : Operacion.values()) {
+            Resultado r = resultados[operacion.ordinal()];
+            HistogramaLatencias h = r.latencias();
+            if (h.total() == 0 && r.errores().sum() == 0) {
+                continue;
+            }
+            totalOps += h.total();
+            totalErrores += r.errores().sum();
+            System.out.printf("%-10s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    operacion.name().toLowerCase(Locale.ROOT), h.total(), r.errores().sum(),
+                    (double) h.total() / segundos, h.media() / 1e3,
+                    h.percentil(50) / 1e3, h.percentil(90) / 1e3, h.percentil(99) / 1e3,
+                    h.percentil(99.9) / 1e3, h.maximo() / 1e3);
+        }
+        System.out.println(linea);
+        System.out.printf("%-10s %10d %8d %10.1f%n", "TOTAL", totalOps, totalErrores, (double) totalOps / segundos);
+    }
+}
@@ -0,0 +1,246 @@
+package database;
+
+import util.ConfigProperties;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mueve los traspasos antiguos de traspasos a traspasos_archivo (migración V8).
+ *
+ * ¿POR QUÉ?
+ * traspasos solo crece. Con los años, sus índices dejan de caber en caché y cada venta
+ * nueva (que inserta en cuatro índices) se vuelve más lenta. Las consultas del día a día
+ * tocan casi siempre traspasos recientes: los antiguos pueden vivir en otra tabla.
+ *
+ * ¿CÓMO FUNCIONA?
+ * - Cada archivo.intervalo_min minutos un hilo en segundo plano abre su propia conexión
+ * - Busca los traspasos con fecha_venta anterior a hoy − archivo.dias (idx_traspasos_fecha)
+ * - Los mueve por lotes de archivo.lote: INSERT ... SELECT + DELETE en una transacción
+ *   corta por lote, y una pausa de archivo.pausa_ms entre lotes para no acaparar la BD
+ *   (en SQLite solo hay un escritor: cada lote lo retiene unos milisegundos)
+ * - TraspasoDAO consulta las dos tablas, así que el historial no cambia al archivar
+ *
+ * IMPORTANTE:
+ * - Los traspasos sin fecha_venta (anteriores a V7) no se archivan nunca
+ * - traspasos_archivo no tiene claves foráneas: un coche cuyos traspasos estén todos
+ *   archivados se puede borrar, y su historial archivado se conserva
+ * - Una BD SQLite en memoria no admite una segunda conexión: ahí no hay hilo en
+ *   segundo plano, solo el archivado manual con la conexión activa
+ */
+public class ArchivadorTraspasos {
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String COLUMNAS = "id_traspaso, matricula_coche, id_vendedor, id_comprador, monto_centimos, fecha_venta";
+
+    private static ScheduledExecutorService planificador = null;
+
+
+    // ============================================
+    // HILO EN SEGUNDO PLANO
+    // ============================================
+
+    /**
+     * Arranca el archivado periódico (si archivo.intervalo_min > 0).
+     * Se llama tras conectar y aplicar las migraciones.
+     */
+    public static synchronized void iniciar() {
+        detener();
+
+        int intervalo = ConfigProperties.getIntProperty("archivo.intervalo_min", 60);
+        if (intervalo <= 0) {
+            return;
+        }
+
+        planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "archivador-traspasos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        // Primera pasada al minuto: no compite con el arranque de la aplicación
+        planificador.scheduleWithFixedDelay(ArchivadorTraspasos::pasadaProgramada,
+                1, intervalo, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Detiene el archivado periódico. Si hay un lote en curso, espera a que termine
+     * (su transacción es corta); no empieza lotes nuevos.
+     *
+     * @return true si estaba en marcha
+     */
+    public static synchronized boolean detener() {
+        if (planificador == null) {
+            return false;
+        }
+
+        planificador.shutdownNow();
+        try {
+            if (!planificador.awaitTermination(30, TimeUnit.SECONDS)) {
+                System.err.println("El archivador de traspasos no terminó a tiempo");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        planificador = null;
+        return true;
+    }
+
+
+    // ============================================
+    // ARCHIVADO
+    // ============================================
+
+    /**
+     * Archiva con la configuración de config.properties.
+     *
+     * @param con conexión de escritura (la activa o una auxiliar); se usa en transacciones propias
+     * @return número de traspasos archivados
+     */
+    public static int archivar(Connection con) throws SQLException {
+        int dias = ConfigProperties.getIntProperty("archivo.dias", 365);
+        int lote = ConfigProperties.getIntProperty("archivo.lote", 500);
+        int pausaMs = ConfigProperties.getIntProperty("archivo.pausa_ms", 200);
+
+        return archivar(con, LocalDateTime.now().minusDays(dias), lote, pausaMs);
+    }
+
+    /**
+     * Mueve a traspasos_archivo los traspasos con fecha_venta anterior a 'limite'.
+     *
+     * PASOS QUE REALIZA (por cada lote):
+     * 1. Lee los id de los 'lote' traspasos más antiguos (fuera de transacción)
+     * 2. Transacción: INSERT INTO traspasos_archivo SELECT ... WHERE id IN (...),
+     *    DELETE FROM traspasos WHERE id IN (...), commit
+     * 3. Pausa 'pausaMs' y repite hasta que un lote salga incompleto
+     *
+     * Si el hilo se interrumpe (detener()), termina tras el lote en curso.
+     *
+     * @return número de traspasos archivados
+     */
+    public static int archivar(Connection con, LocalDateTime limite, int lote, long pausaMs) throws SQLException {
+        if (lote < 1) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor que 0");
+        }
+
+        long inicio = System.nanoTime();
+        String fechaLimite = limite.format(FORMATO_FECHA);
+        int archivados = 0;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Long> ids = leerCandidatos(con, fechaLimite, lote);
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            archivados += moverLote(con, ids);
+
+            if (ids.size() < lote) {
+                break;
+            }
+            try {
+                Thread.sleep(pausaMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (archivados > 0) {
+            System.out.println("Archivados " + archivados + " traspasos anteriores a " + fechaLimite
+                    + " (" + (System.nanoTime() - inicio) / 1_000_000 + " ms)");
+        }
+        return archivados;
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    /**
+     * Una pasada del hilo en segundo plano, con su propia conexión.
+     * Los errores se informan y se reintenta en la siguiente pasada.
+     */
+    private static void pasadaProgramada() {
+        try (Connection con = DatabaseManager.abrirConexionAuxiliar()) {
+            try {
+                archivar(con);
+            } finally {
+                CacheSentencias.olvidar(con);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al archivar traspasos: " + e.getMessage());
+        }
+    }
+
+    private static List<Long> leerCandidatos(Connection con, String fechaLimite, int lote) throws SQLException {
+        String sql = "SELECT id_traspaso FROM traspasos WHERE fecha_venta < ? ORDER BY fecha_venta LIMIT ?";
+
+        List<Long> ids = new ArrayList<>(lote);
+        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+            pstmt.setString(1, fechaLimite);
+            pstmt.setInt(2, lote);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Copia y borra un lote en una transacción. Si el número de filas copiadas y
+     * borradas no coincide (otra conexión tocó esos traspasos) se deshace el lote.
+     */
+    private static int moverLote(Connection con, List<Long> ids) throws SQLException {
+        String marcadores = "?,".repeat(ids.size() - 1) + "?";
+        String sqlCopiar = "INSERT INTO traspasos_archivo (" + COLUMNAS + ") SELECT " + COLUMNAS
+                + " FROM traspasos WHERE id_traspaso IN (" + marcadores + ")";
+        String sqlBorrar = "DELETE FROM traspasos WHERE id_traspaso IN (" + marcadores + ")";
+
+        try {
+            con.setAutoCommit(false);
+
+            int copiados;
+            try (PreparedStatement pstmt = con.prepareStatement(sqlCopiar)) {
+                asignarIds(pstmt, ids);
+                copiados = pstmt.executeUpdate();
+            }
+
+            int borrados;
+            try (PreparedStatement pstmt = con.prepareStatement(sqlBorrar)) {
+                asignarIds(pstmt, ids);
+                borrados = pstmt.executeUpdate();
+            }
+
+            if (copiados != borrados) {
+                throw new SQLException("Lote inconsistente: " + copiados + " copiados, " + borrados + " borrados");
+            }
+
+            con.commit();
+            CacheResultados.tablasModificadas("traspasos", "traspasos_archivo");
+            return borrados;
+
+        } catch (SQLException e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.setAutoCommit(true);
+        }
+    }
+
+    private static void asignarIds(PreparedStatement pstmt, List<Long> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            pstmt.setLong(i + 1, ids.get(i));
+        }
+    }
+}
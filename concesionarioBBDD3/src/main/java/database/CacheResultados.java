@@ -0,0 +1,236 @@
+package database;
+
+import util.ConfigProperties;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché de resultados de consultas, invalidada por las escrituras.
+ *
+ * ¿POR QUÉ?
+ * Listados, historiales, informes y estadísticas se vuelven a calcular en cada opción
+ * del menú o petición HTTP aunque nada haya cambiado desde la última vez.
+ *
+ * ¿CÓMO FUNCIONA?
+ * - Clave: la base de datos + la huella del SQL (espacios normalizados) + los valores de
+ *   sus parámetros. La base de datos es la URL de la conexión (dos conexiones a la misma
+ *   BD comparten resultados); cada BD en memoria es distinta aunque su URL sea la misma.
+ *   Sin ella, la misma consulta en otra BD (benchmarks, pruebas) devolvería lo de la primera
+ * - Cada tabla tiene un contador de versión. Los DAO lo suben después de cada commit
+ *   que la modifica (tablasModificadas). Los contadores solo crecen, así que basta con
+ *   guardar la suma de los de las tablas de las que depende la entrada: si cambia,
+ *   la entrada está obsoleta. Solo caen las entradas de las tablas tocadas
+ * - La suma se toma ANTES de calcular: si una escritura confirma durante el cálculo,
+ *   la entrada nace ya obsoleta y no se llega a servir
+ * - LRU con resultados.cache entradas como máximo (0 = desactivada) y caducidad de
+ *   resultados.cache.ttl_s segundos (para lo que depende de la fecha actual o de
+ *   escrituras hechas desde otro proceso)
+ * - Al cerrar la conexión o ejecutar un script SQL se vacía entera (invalidar)
+ *
+ * IMPORTANTE:
+ * - El valor guardado se comparte entre todos los que lo piden: debe ser inmutable
+ *   (records, List.copyOf, String...)
+ * - La misma clave siempre debe ir con las mismas tablas y devolver el mismo tipo
+ * - Las versiones de las tablas son por nombre, no por BD: una escritura en una BD hace
+ *   recalcular también lo de esa tabla en las demás (de más, nunca de menos)
+ * - Dos fallos simultáneos de la misma clave calculan los dos (no se esperan)
+ */
+public class CacheResultados {
+
+    /**
+     * Cálculo del resultado cuando no está en la caché.
+     */
+    @FunctionalInterface
+    public interface Calculo<T> {
+        T calcular() throws SQLException;
+    }
+
+    /**
+     * Aciertos, fallos (cálculos) y entradas actuales.
+     */
+    public record Estadisticas(long aciertos, long fallos, int entradas) {
+    }
+
+    private static final int MAXIMO_CONFIGURADO = ConfigProperties.getIntProperty("resultados.cache", 256);
+    private static final long VIDA_CONFIGURADA =
+            TimeUnit.SECONDS.toNanos(ConfigProperties.getIntProperty("resultados.cache.ttl_s", 300));
+
+    // Los de la configuración salvo en las pruebas (fijarLimites)
+    private static volatile int maximo = MAXIMO_CONFIGURADO;
+    private static volatile long vidaNanos = VIDA_CONFIGURADA;
+
+    private record Clave(String baseDatos, String huella, List<Object> parametros) {
+    }
+
+    private record Entrada(Object valor, long sello, long caducidad) {
+    }
+
+    private static final Map<String, AtomicLong> versiones = new ConcurrentHashMap<>();
+
+    // LRU: con más de 'maximo' entradas sale la menos usada. Se protege con synchronized (entradas)
+    private static final Map<Clave, Entrada> entradas = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Clave, Entrada> masAntigua) {
+            return size() > maximo;
+        }
+    };
+
+    // Base de datos de cada conexión, calculada una vez. Claves débiles: una conexión
+    // cerrada y olvidada desaparece sola (no hace falta avisar al cerrarla)
+    private static final Map<Connection, String> bases = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final AtomicLong basesEnMemoria = new AtomicLong();
+
+    // Sube con cada invalidar(): un cálculo que empezó antes no guarda su resultado
+    private static long generacion = 0;
+
+    private static volatile boolean activa = maximo > 0;
+
+    private static final LongAdder aciertos = new LongAdder();
+    private static final LongAdder fallos = new LongAdder();
+
+
+    /**
+     * Devuelve el resultado guardado para el SQL y sus parámetros en la BD de la conexión
+     * si sigue vigente; si no, lo calcula y lo guarda.
+     *
+     * @param con        conexión con la que se calcula (identifica la base de datos)
+     * @param sql        consulta (o un nombre único, como "informe:resumen")
+     * @param parametros valores de sus parámetros, en orden
+     * @param tablas     tablas de las que depende el resultado
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T obtener(Connection con, String sql, List<?> parametros, List<String> tablas,
+                                Calculo<T> calculo) throws SQLException {
+        if (!activa) {
+            return calculo.calcular();
+        }
+
+        Clave clave = new Clave(baseDatos(con), huella(sql), Collections.unmodifiableList(new ArrayList<>(parametros)));
+        long sello = sello(tablas);
+        long ahora = System.nanoTime();
+        long generacionInicial;
+
+        synchronized (entradas) {
+            Entrada entrada = entradas.get(clave);
+            if (entrada != null) {
+                if (entrada.sello() == sello && ahora - entrada.caducidad() < 0) {
+                    aciertos.increment();
+                    return (T) entrada.valor();
+                }
+                entradas.remove(clave);
+            }
+            generacionInicial = generacion;
+        }
+
+        fallos.increment();
+        T valor = calculo.calcular();
+
+        synchronized (entradas) {
+            if (generacion == generacionInicial) {
+                entradas.put(clave, new Entrada(valor, sello, ahora + vidaNanos));
+            }
+        }
+        return valor;
+    }
+
+    /**
+     * Marca las tablas como modificadas: los resultados que dependen de ellas dejan de servirse.
+     * Se llama DESPUÉS del commit (antes, una lectura concurrente podría guardar datos viejos
+     * con la versión nueva).
+     */
+    public static void tablasModificadas(String... tablas) {
+        for (String tabla : tablas) {
+            versiones.computeIfAbsent(tabla, t -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    /**
+     * Vacía la caché (otra BD, o cambios de los que no se sabe qué tablas tocan).
+     */
+    public static void invalidar() {
+        synchronized (entradas) {
+            entradas.clear();
+            generacion++;
+        }
+    }
+
+    /**
+     * Activa o desactiva la caché (los benchmarks la desactivan para medir la BD y no la caché).
+     * Desactivarla la vacía. No se puede activar si resultados.cache es 0.
+     */
+    public static void setActiva(boolean activar) {
+        activa = activar && maximo > 0;
+        if (!activa) {
+            invalidar();
+        }
+    }
+
+    /**
+     * Sustituye resultados.cache y resultados.cache.ttl_s (pruebas); null vuelve al de la
+     * configuración. Vacía la caché y la activa si el máximo lo permite.
+     */
+    static void fijarLimites(Integer maximoEntradas, Duration vida) {
+        maximo = maximoEntradas != null ? maximoEntradas : MAXIMO_CONFIGURADO;
+        vidaNanos = vida != null ? vida.toNanos() : VIDA_CONFIGURADA;
+        invalidar();
+        activa = maximo > 0;
+    }
+
+    public static Estadisticas estadisticas() {
+        synchronized (entradas) {
+            return new Estadisticas(aciertos.sum(), fallos.sum(), entradas.size());
+        }
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    /**
+     * URL de la conexión; las BD en memoria (jdbc:sqlite::memory:, mode=memory) llevan
+     * además un número propio, porque cada conexión abre una distinta.
+     */
+    private static String baseDatos(Connection con) throws SQLException {
+        String base = bases.get(con);
+        if (base == null) {
+            base = con.getMetaData().getURL();
+            if (base.contains(":memory:") || base.contains("mode=memory")) {
+                base += "#" + basesEnMemoria.incrementAndGet();
+            }
+            String anterior = bases.putIfAbsent(con, base);
+            if (anterior != null) {
+                base = anterior;
+            }
+        }
+        return base;
+    }
+
+    private static long sello(List<String> tablas) {
+        long suma = 0;
+        for (String tabla : tablas) {
+            AtomicLong version = versiones.get(tabla);
+            suma += version == null ? 0 : version.get();
+        }
+        return suma;
+    }
+
+    /**
+     * El mismo SQL escrito con distintos saltos de línea o sangrías es la misma consulta.
+     */
+    private static String huella(String sql) {
+        return sql.strip().replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,104 @@
+package database;
+
+import util.ConfigProperties;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché de sentencias preparadas por conexión.
+ *
+ * ¿POR QUÉ?
+ * Preparar una sentencia obliga al motor a analizar el SQL y planificarlo.
+ * Las consultas que se repiten mucho con la misma "forma" (mismo SQL, distintos
+ * parámetros) pueden reutilizar la sentencia ya preparada.
+ *
+ * ¿CÓMO FUNCIONA?
+ * - Cada conexión tiene su propio mapa SQL → PreparedStatement
+ * - El mapa es LRU: con más de sentencias.cache entradas se cierra la menos usada
+ * - Quien cierra una conexión llama antes a olvidar(con) (PoolConexiones, DatabaseManager,
+ *   ArchivadorTraspasos): las sentencias guardan una referencia a su conexión, así que
+ *   la entrada no desaparece sola
+ *
+ * IMPORTANTE:
+ * - Quien usa la sentencia NO debe cerrarla (sí sus ResultSet)
+ * - Como la conexión, la sentencia solo la puede usar un hilo a la vez
+ */
+public class CacheSentencias {
+
+    private static final int MAXIMO_POR_CONEXION = ConfigProperties.getIntProperty("sentencias.cache", 64);
+
+    // Por identidad: dos conexiones distintas nunca comparten sentencias
+    private static final Map<Connection, Map<String, PreparedStatement>> sentencias =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+
+    /**
+     * Devuelve una sentencia preparada para el SQL, reutilizándola si ya existía.
+     * Los parámetros de usos anteriores se limpian.
+     */
+    public static PreparedStatement preparar(Connection con, String sql) throws SQLException {
+        Map<String, PreparedStatement> cache = sentencias.computeIfAbsent(con, c -> crearLRU());
+
+        synchronized (cache) {
+            PreparedStatement pstmt = cache.get(sql);
+
+            if (pstmt == null || pstmt.isClosed()) {
+                pstmt = con.prepareStatement(sql);
+                cache.put(sql, pstmt);
+            } else {
+                pstmt.clearParameters();
+            }
+            return pstmt;
+        }
+    }
+
+    /**
+     * Cierra y olvida todas las sentencias de una conexión.
+     */
+    public static void olvidar(Connection con) {
+        Map<String, PreparedStatement> cache = sentencias.remove(con);
+        if (cache == null) {
+            return;
+        }
+
+        synchronized (cache) {
+            for (PreparedStatement pstmt : cache.values()) {
+                cerrar(pstmt);
+            }
+            cache.clear();
+        }
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    private static Map<String, PreparedStatement> crearLRU() {
+        // accessOrder = true → el orden es de uso, no de inserción
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> masAntigua) {
+                if (size() > MAXIMO_POR_CONEXION) {
+                    cerrar(masAntigua.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private static void cerrar(PreparedStatement pstmt) {
+        try {
+            pstmt.close();
+        } catch (SQLException e) {
+            System.err.println("Error al cerrar sentencia en caché: " + e.getMessage());
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package database;
 
+import model.CatalogoMarcas;
+import model.EstadisticasAproximadas;
+import model.IndicePrecios;
+import model.Transaccion;
+import model.TriePropietarios;
+import servicio.EjecutorServicios;
 import util.ConfigProperties;
 
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Set;
 
 /**
  * Gestor centralizado de conexiones a base de datos.
@@ -18,7 +26,13 @@ import java.sql.Statement;
  *
  * PATRÓN DE DISEÑO:
  * - Singleton implícito (atributos y métodos estáticos)
- * - Solo existe UNA conexión compartida por toda la aplicación
+ * - Solo existe UNA conexión de escritura compartida por toda la aplicación
+ *
+ * MODO WAL (SQLite):
+ * - Con sqlite.journal_mode=WAL los lectores no bloquean al escritor ni al revés
+ * - Las escrituras van SIEMPRE por la conexión activa (un único escritor)
+ * - Las lecturas (listados, informes) usan un pool de sqlite.lectores conexiones
+ *   de solo lectura: obtenerConexionLectura() / liberarConexionLectura()
  *
  * FLUJO TÍPICO:
  * 1. Usuario elige conectar MySQL o SQLite
@@ -47,6 +61,28 @@ public class DatabaseManager {
      */
     private static TipoMotor tipoActual = null;
 
+    /**
+     * Pool de conexiones de solo lectura (solo SQLite en modo WAL).
+     * - null = las lecturas usan la conexión activa
+     */
+    private static PoolConexiones poolLectura = null;
+
+    /**
+     * URL JDBC de la BD SQLite activa (para reabrir el pool de lectura).
+     */
+    private static String urlSQLite = null;
+
+    /**
+     * Operación de mantenimiento que necesita la BD en exclusiva.
+     */
+    @FunctionalInterface
+    public interface TareaExclusiva {
+        void ejecutar(Connection con) throws SQLException;
+    }
+
+    private static final Set<String> JOURNAL_MODES = Set.of("DELETE", "TRUNCATE", "PERSIST", "MEMORY", "WAL", "OFF");
+    private static final Set<String> SYNCHRONOUS = Set.of("OFF", "NORMAL", "FULL", "EXTRA");
+
 
     // ============================================
     // MÉTODOS PÚBLICOS
@@ -68,6 +104,9 @@ public class DatabaseManager {
      */
     public static boolean conectarMySQL() {
         try {
+            // Si ya había una conexión abierta, la cerramos antes de abrir otra
+            cerrarConexion();
+
             // PASO 1: Leer configuración
             String url = ConfigProperties.getProperty("mysql.url");
             String user = ConfigProperties.getProperty("mysql.user");
@@ -113,39 +152,112 @@ public class DatabaseManager {
      *
      * PASOS QUE REALIZA:
      * 1. Lee la ruta del archivo desde config.properties
-     * 2. Se conecta (SQLite crea el archivo .db si no existe)
-     * 3. Guarda la conexión en conexionActiva
+     * 2. Abre la conexión de escritura y aplica los PRAGMA configurados
+     *    (journal_mode, synchronous, busy_timeout, cache_size, mmap_size)
+     * 3. Si la BD queda en modo WAL, abre el pool de conexiones de lectura
+     * 4. Guarda la conexión en conexionActiva
      *
      * @return true si la conexión fue exitosa, false si hubo error
      */
     public static boolean conectarSQLite() {
 
         try {
-            // PASO 1: Leer ruta del archivo desde config.properties
-            String path = ConfigProperties.getProperty("sqlite.path");
+            // Si ya había una conexión abierta, la cerramos antes de abrir otra
+            cerrarConexion();
 
-            // Si no está en config.properties, usar valor por defecto
-            if (path == null || path.isEmpty()) {
-                path = "concesionario.db";
-            }
+            // PASO 1: Leer ruta del archivo desde config.properties (por defecto concesionario.db)
+            String path = ConfigProperties.getProperty("sqlite.path", "concesionario.db");
 
             // PASO 2: Construir la URL de conexión JDBC para SQLite
             String url = "jdbc:sqlite:" + path;
 
-            // PASO 3: Conectar (crea el archivo automáticamente si no existe)
-            conexionActiva = DriverManager.getConnection(url);
+            // PASO 3: Conexión de escritura (crea el archivo automáticamente si no existe)
+            conexionActiva = abrirConexionSQLite(url, false);
             tipoActual = TipoMotor.SQLITE;
 
-            System.out.println("Conexión SQLite establecida (" + path + ")");
+            // PASO 4: En modo WAL, las lecturas van por conexiones aparte
+            String modo = consultarJournalMode(conexionActiva);
+            int lectores = ConfigProperties.getIntProperty("sqlite.lectores", 4);
+
+            urlSQLite = url;
+            if (modo.equalsIgnoreCase("WAL") && lectores > 0) {
+                abrirPoolLectura(lectores);
+            }
+
+            System.out.println("Conexión SQLite establecida (" + path + ", journal_mode=" + modo
+                    + (poolLectura != null ? ", " + poolLectura.getTamano() + " lectores" : "") + ")");
             return true;
 
         } catch (SQLException e) {
             System.err.println("Error al conectar SQLite: " + e.getMessage());
+            cerrarConexion();
             return false;
         }
     }
 
 
+    private static void abrirPoolLectura(int lectores) throws SQLException {
+        poolLectura = new PoolConexiones("lectura SQLite", lectores,
+                ConfigProperties.getIntProperty("sqlite.busy_timeout", 5000),
+                () -> abrirConexionSQLite(urlSQLite, true));
+    }
+
+
+    /**
+     * Abre una conexión SQLite y le aplica los PRAGMA de config.properties.
+     *
+     * - Conexión de escritura: journal_mode y synchronous (afectan a la escritura)
+     * - Conexión de lectura: query_only = ON (cualquier escritura por error falla)
+     * - Ambas: busy_timeout, cache_size y mmap_size (son por conexión)
+     */
+    private static Connection abrirConexionSQLite(String url, boolean soloLectura) throws SQLException {
+        Connection con = DriverManager.getConnection(url);
+
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + ConfigProperties.getIntProperty("sqlite.busy_timeout", 5000));
+            stmt.execute("PRAGMA cache_size = " + ConfigProperties.getIntProperty("sqlite.cache_size", -2000));
+            stmt.execute("PRAGMA mmap_size = " + ConfigProperties.getIntProperty("sqlite.mmap_size", 0));
+
+            if (soloLectura) {
+                stmt.execute("PRAGMA query_only = ON");
+            } else {
+                stmt.execute("PRAGMA journal_mode = "
+                        + leerOpcion("sqlite.journal_mode", "WAL", JOURNAL_MODES));
+                stmt.execute("PRAGMA synchronous = "
+                        + leerOpcion("sqlite.synchronous", "NORMAL", SYNCHRONOUS));
+            }
+
+        } catch (SQLException e) {
+            con.close();
+            throw e;
+        }
+        return con;
+    }
+
+    /**
+     * Devuelve el journal_mode efectivo (una BD en memoria nunca queda en WAL).
+     */
+    private static String consultarJournalMode(Connection con) throws SQLException {
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA journal_mode")) {
+            return rs.next() ? rs.getString(1) : "";
+        }
+    }
+
+    /**
+     * Lee una opción de texto y comprueba que es uno de los valores permitidos
+     * (se concatena en un PRAGMA, así que no puede ser texto libre).
+     */
+    private static String leerOpcion(String clave, String porDefecto, Set<String> permitidos) {
+        String valor = ConfigProperties.getProperty(clave, porDefecto).toUpperCase();
+        if (!permitidos.contains(valor)) {
+            System.err.println("Valor inválido para " + clave + ": " + valor + " (se usa " + porDefecto + ")");
+            return porDefecto;
+        }
+        return valor;
+    }
+
+
     /**
      * Obtiene la conexión activa actual.
      */
@@ -164,6 +276,114 @@ public class DatabaseManager {
     }
 
 
+    /**
+     * Presta una conexión para CONSULTAS (listados, informes, procedimientos).
+     * - SQLite en modo WAL: una conexión de solo lectura del pool
+     * - Resto de casos: la conexión activa
+     * SIEMPRE hay que devolverla con liberarConexionLectura() en un finally.
+     */
+    public static Connection obtenerConexionLectura() throws SQLException {
+        PoolConexiones pool = poolLectura;
+        if (pool != null) {
+            return pool.obtener();
+        }
+        return getConnection();
+    }
+
+
+    /**
+     * Devuelve una conexión obtenida con obtenerConexionLectura().
+     */
+    public static void liberarConexionLectura(Connection con) {
+        PoolConexiones pool = poolLectura;
+        if (pool != null && pool.contiene(con)) {
+            pool.liberar(con);
+        }
+    }
+
+
+    /**
+     * true si las lecturas tienen su propio pool (SQLite en WAL): se pueden hacer
+     * consultas desde varios hilos sin tocar la conexión de escritura.
+     */
+    public static boolean tienePoolLectura() {
+        return poolLectura != null;
+    }
+
+
+    /**
+     * Abre una conexión de ESCRITURA adicional, para trabajos en segundo plano
+     * (ArchivadorTraspasos) que no deben compartir la conexión activa con el menú.
+     * - SQLite: misma URL y PRAGMA que la activa (en WAL espera con busy_timeout)
+     * - MySQL: nueva conexión con los datos de config.properties
+     * Quien la pide la cierra (try-with-resources).
+     *
+     * @throws SQLException si no hay conexión activa o la BD SQLite está en memoria
+     */
+    public static Connection abrirConexionAuxiliar() throws SQLException {
+        TipoMotor tipo = getTipoMotor();
+
+        if (tipo == TipoMotor.MYSQL) {
+            return DriverManager.getConnection(ConfigProperties.getProperty("mysql.url"),
+                    ConfigProperties.getProperty("mysql.user"), ConfigProperties.getProperty("mysql.pass"));
+        }
+
+        String url = urlSQLite;
+        if (url == null || url.contains(":memory:") || url.contains("mode=memory")) {
+            throw new SQLException("Una BD SQLite en memoria no admite conexiones adicionales");
+        }
+        return abrirConexionSQLite(url, false);
+    }
+
+
+    /**
+     * Vacía todas las cachés en memoria que se calculan a partir de la BD: resultados,
+     * catálogo de marcas, índice de precios, trie de propietarios y resumen aproximado
+     * (este sin guardarlo: se reconstruirá leyendo las tablas).
+     *
+     * Se llama tras cualquier escritura que no pasa por los DAO (scripts SQL, migraciones,
+     * cargas masivas, mantenimiento en exclusiva): no se sabe qué datos cambiaron.
+     */
+    public static void invalidarCachesDerivadas() {
+        CacheResultados.invalidar();
+        CatalogoMarcas.invalidar();
+        IndicePrecios.invalidar();
+        TriePropietarios.invalidar();
+        EstadisticasAproximadas.descartar();
+    }
+
+
+    /**
+     * Ejecuta una tarea de mantenimiento (VACUUM, cambio de page_size...) con la BD en exclusiva:
+     * detiene el archivador y los servicios asíncronos, cierra el pool de lectura, ejecuta
+     * la tarea sobre la conexión activa y vuelve a abrir el archivador y el pool.
+     */
+    public static void ejecutarEnExclusiva(TareaExclusiva tarea) throws SQLException {
+        Connection con = getConnection();
+        int lectores = (poolLectura != null) ? poolLectura.getTamano() : 0;
+        boolean archivando = ArchivadorTraspasos.detener();
+        // Los servicios asíncronos vuelven a arrancar solos con su siguiente operación
+        EjecutorServicios.detener();
+
+        if (poolLectura != null) {
+            poolLectura.cerrar();
+            poolLectura = null;
+        }
+
+        try {
+            tarea.ejecutar(con);
+        } finally {
+            invalidarCachesDerivadas();
+            if (archivando) {
+                ArchivadorTraspasos.iniciar();
+            }
+            if (lectores > 0) {
+                abrirPoolLectura(lectores);
+            }
+        }
+    }
+
+
     /**
      * Obtiene el tipo de motor actual (MYSQL o SQLITE).
 
@@ -194,8 +414,19 @@ public class DatabaseManager {
 
 
     public static void cerrarConexion() {
+        // Antes que nada: el archivador y los servicios asíncronos usan sus propias conexiones a esta BD
+        ArchivadorTraspasos.detener();
+        EjecutorServicios.detener();
+
+        if (poolLectura != null) {
+            poolLectura.cerrar();
+            poolLectura = null;
+        }
+
         try {
             if (conexionActiva != null && !conexionActiva.isClosed()) {
+                CacheSentencias.olvidar(conexionActiva);
+                Transaccion.olvidar(conexionActiva);
                 conexionActiva.close();
                 System.out.println("Conexión cerrada");
             }
@@ -205,6 +436,14 @@ public class DatabaseManager {
             // Siempre limpiamos el estado, incluso si hubo error
             conexionActiva = null;
             tipoActual = null;
+            urlSQLite = null;
+            // El catálogo, el índice de precios, el trie de propietarios y los resultados en caché
+            // pertenecían a la BD anterior; el resumen aproximado se guarda en disco para la próxima sesión
+            CacheResultados.invalidar();
+            CatalogoMarcas.invalidar();
+            IndicePrecios.invalidar();
+            EstadisticasAproximadas.invalidar();
+            TriePropietarios.invalidar();
         }
     }
 }
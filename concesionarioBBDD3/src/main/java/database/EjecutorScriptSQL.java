@@ -0,0 +1,227 @@
+package database;
+
+import util.ConfigProperties;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.UnaryOperator;
+
+/**
+ * Ejecuta scripts SQL de cualquier tamaño en streaming.
+ *
+ * ¿CÓMO FUNCIONA?
+ * 1. LectorSentenciasSQL va entregando sentencias una a una (respeta literales,
+ *    comentarios y bloques DELIMITER)
+ * 2. Los INSERT consecutivos se agrupan en lotes (addBatch / executeBatch)
+ * 3. Si la conexión está en auto-commit, el script se ejecuta en transacciones
+ *    de N sentencias (COMMIT cada N) y al final se restaura el auto-commit
+ *
+ * Opcionalmente, un adaptador puede reescribir o saltarse sentencias antes de ejecutarlas
+ * (BenchmarkSakila lo usa para cargar en SQLite el script de datos de Sakila, escrito para MySQL).
+ *
+ * Si la conexión YA está dentro de una transacción (auto-commit desactivado),
+ * el ejecutor no hace COMMIT: la transacción pertenece a quien llama
+ * (por ejemplo MigradorEsquema).
+ *
+ * CONFIGURACIÓN (config.properties):
+ * - script.lote        → INSERTs por executeBatch (por defecto 500)
+ * - script.transaccion → sentencias por transacción (por defecto 5000, 0 = una sola transacción)
+ */
+public class EjecutorScriptSQL {
+
+    private static final int LOTE_POR_DEFECTO = 500;
+    private static final int TRANSACCION_POR_DEFECTO = 5000;
+
+    private final Connection con;
+    private final TipoMotor tipo;
+    private final int tamanoLote;
+    private final int sentenciasPorTransaccion;
+
+    private long sentenciasEjecutadas = 0;
+
+
+    /**
+     * Crea un ejecutor con los tamaños de lote y transacción de config.properties.
+     */
+    public EjecutorScriptSQL(Connection con) throws SQLException {
+        this(con,
+                ConfigProperties.getIntProperty("script.lote", LOTE_POR_DEFECTO),
+                ConfigProperties.getIntProperty("script.transaccion", TRANSACCION_POR_DEFECTO));
+    }
+
+    /**
+     * @param con                      conexión activa
+     * @param tamanoLote               INSERTs consecutivos que se envían juntos
+     * @param sentenciasPorTransaccion sentencias entre COMMITs (0 = una sola transacción)
+     */
+    public EjecutorScriptSQL(Connection con, int tamanoLote, int sentenciasPorTransaccion) throws SQLException {
+        this.con = con;
+        this.tipo = TipoMotor.detectar(con);
+        this.tamanoLote = Math.max(1, tamanoLote);
+        this.sentenciasPorTransaccion = Math.max(0, sentenciasPorTransaccion);
+    }
+
+
+    /**
+     * Ejecuta un fichero SQL del disco (por ejemplo Recursos/sakila-db/sakila-data.sql).
+     * @return número de sentencias ejecutadas
+     */
+    public long ejecutarFichero(Path fichero) throws SQLException, IOException {
+        return ejecutarFichero(fichero, UnaryOperator.identity());
+    }
+
+    /**
+     * Ejecuta un fichero SQL del disco pasando cada sentencia por el adaptador.
+     * @param adaptador devuelve la sentencia a ejecutar, o null para saltársela
+     * @return número de sentencias ejecutadas
+     */
+    public long ejecutarFichero(Path fichero, UnaryOperator<String> adaptador) throws SQLException, IOException {
+        try (Reader reader = Files.newBufferedReader(fichero, StandardCharsets.UTF_8)) {
+            return ejecutar(reader, adaptador);
+        }
+    }
+
+    /**
+     * Ejecuta un script empaquetado en resources/.
+     * @return número de sentencias ejecutadas
+     */
+    public long ejecutarRecurso(String recurso) throws SQLException, IOException {
+        InputStream inputStream = EjecutorScriptSQL.class
+                .getClassLoader()
+                .getResourceAsStream(recurso);
+
+        if (inputStream == null) {
+            throw new IOException("No se encontró el script: " + recurso);
+        }
+
+        try (Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            return ejecutar(reader);
+        }
+    }
+
+    /**
+     * Ejecuta todas las sentencias leídas del Reader.
+     *
+     * @return número de sentencias ejecutadas
+     * @throws SQLException si falla alguna sentencia (se hace ROLLBACK del tramo en curso
+     *                      si la transacción es del ejecutor)
+     */
+    public long ejecutar(Reader reader) throws SQLException, IOException {
+        return ejecutar(reader, UnaryOperator.identity());
+    }
+
+    /**
+     * Igual que ejecutar(Reader), pero cada sentencia pasa antes por el adaptador.
+     * @param adaptador devuelve la sentencia a ejecutar, o null para saltársela
+     */
+    public long ejecutar(Reader reader, UnaryOperator<String> adaptador) throws SQLException, IOException {
+        boolean transaccionPropia = con.getAutoCommit();
+        long inicio = System.nanoTime();
+        sentenciasEjecutadas = 0;
+
+        if (transaccionPropia) {
+            con.setAutoCommit(false);
+        }
+
+        try (LectorSentenciasSQL lector = new LectorSentenciasSQL(reader, tipo);
+             Statement stmt = con.createStatement()) {
+
+            int insertsEnLote = 0;
+            long sentenciasEnTransaccion = 0;
+            String sentencia;
+
+            while ((sentencia = lector.siguiente()) != null) {
+
+                sentencia = adaptador.apply(sentencia);
+                if (sentencia == null) {
+                    continue;
+                }
+
+                if (esInsert(sentencia)) {
+                    stmt.addBatch(sentencia);
+                    insertsEnLote++;
+                    if (insertsEnLote >= tamanoLote) {
+                        stmt.executeBatch();
+                        insertsEnLote = 0;
+                    }
+                } else {
+                    // Cualquier otra sentencia corta el lote para respetar el orden del script
+                    if (insertsEnLote > 0) {
+                        stmt.executeBatch();
+                        insertsEnLote = 0;
+                    }
+                    stmt.execute(sentencia);
+                }
+
+                sentenciasEjecutadas++;
+                sentenciasEnTransaccion++;
+
+                if (transaccionPropia && sentenciasPorTransaccion > 0
+                        && sentenciasEnTransaccion >= sentenciasPorTransaccion) {
+                    if (insertsEnLote > 0) {
+                        stmt.executeBatch();
+                        insertsEnLote = 0;
+                    }
+                    con.commit();
+                    sentenciasEnTransaccion = 0;
+                }
+            }
+
+            if (insertsEnLote > 0) {
+                stmt.executeBatch();
+            }
+
+            if (transaccionPropia) {
+                con.commit();
+            }
+
+        } catch (SQLException | IOException e) {
+            if (transaccionPropia) {
+                try {
+                    con.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Error al hacer rollback: " + ex.getMessage());
+                }
+            }
+            throw e;
+
+        } finally {
+            if (transaccionPropia) {
+                con.setAutoCommit(true);
+            }
+            // No se sabe qué tablas ha tocado el script (ni si confirmó una parte antes de fallar)
+            DatabaseManager.invalidarCachesDerivadas();
+        }
+
+        long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+        System.out.println("Total de sentencias ejecutadas: " + sentenciasEjecutadas
+                + " (" + milisegundos + " ms)");
+        return sentenciasEjecutadas;
+    }
+
+    /**
+     * Sentencias ejecutadas en la última llamada a ejecutar().
+     */
+    public long getSentenciasEjecutadas() {
+        return sentenciasEjecutadas;
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    private static boolean esInsert(String sentencia) {
+        return sentencia.regionMatches(true, 0, "INSERT", 0, 6);
+    }
+
+}
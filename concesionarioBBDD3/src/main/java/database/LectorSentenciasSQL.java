@@ -0,0 +1,250 @@
+package database;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Tokenizador en streaming de scripts SQL.
+ *
+ * Lee el script carácter a carácter desde un Reader (sin cargarlo entero en memoria)
+ * y devuelve las sentencias una a una.
+ *
+ * ¿QUÉ RESPETA?
+ * - Literales entre comillas simples, dobles y `backticks` (un ; dentro NO corta la sentencia)
+ * - Comillas duplicadas ('') y, en MySQL, escapes con barra invertida (\')
+ * - Comentarios de línea (-- y, en MySQL, #) y de bloque (/* ... *&#47;), que se eliminan.
+ *   En MySQL -- solo abre comentario seguido de un espacio, un carácter de control o el final
+ *   del script, como en el cliente mysql: 5--3 es 5 - (-3). SQLite toma cualquier -- como
+ *   comentario y aquí se hace igual
+ * - Comentarios ejecutables de MySQL (/*!40101 ... *&#47;), que se conservan tal cual
+ * - Bloques DELIMITER (procedimientos y triggers con ; internos)
+ */
+class LectorSentenciasSQL implements Closeable {
+
+    private static final String PALABRA_DELIMITER = "DELIMITER";
+
+    private final Reader reader;
+    private final boolean dialectoMySQL;
+
+    private final char[] buffer = new char[64 * 1024];
+    private int posicion = 0;
+    private int limite = 0;
+
+    private String delimitador = ";";
+
+    LectorSentenciasSQL(Reader reader, TipoMotor tipo) {
+        this.reader = reader;
+        this.dialectoMySQL = (tipo == TipoMotor.MYSQL);
+    }
+
+
+    /**
+     * Devuelve la siguiente sentencia (sin el delimitador y sin espacios extremos)
+     * o null cuando se llega al final del script.
+     */
+    String siguiente() throws IOException {
+        StringBuilder sentencia = new StringBuilder();
+        boolean soloEspacios = true;
+
+        while (asegurar(1)) {
+            char c = buffer[posicion];
+
+            // DELIMITER solo puede aparecer al principio de una sentencia
+            if (soloEspacios && (c == 'D' || c == 'd') && esDirectivaDelimiter()) {
+                leerDirectivaDelimiter();
+                sentencia.setLength(0);
+                continue;
+            }
+
+            if (c == '\'' || c == '"' || c == '`') {
+                copiarLiteral(sentencia, c);
+                soloEspacios = false;
+
+            } else if (c == '-' && siguienteEs(1, '-') && abreComentarioDeLinea()) {
+                saltarHastaFinDeLinea();
+                sentencia.append('\n');
+
+            } else if (c == '#' && dialectoMySQL) {
+                saltarHastaFinDeLinea();
+                sentencia.append('\n');
+
+            } else if (c == '/' && siguienteEs(1, '*')) {
+                if (dialectoMySQL && siguienteEs(2, '!')) {
+                    copiarComentarioEjecutable(sentencia);
+                    soloEspacios = false;
+                } else {
+                    saltarComentarioDeBloque();
+                    sentencia.append(' ');
+                }
+
+            } else if (empiezaDelimitador()) {
+                posicion += delimitador.length();
+                String resultado = sentencia.toString().trim();
+                if (!resultado.isEmpty()) {
+                    return resultado;
+                }
+                sentencia.setLength(0);
+                soloEspacios = true;
+
+            } else {
+                sentencia.append(c);
+                posicion++;
+                if (!Character.isWhitespace(c)) {
+                    soloEspacios = false;
+                }
+            }
+        }
+
+        // Última sentencia sin delimitador final
+        String resultado = sentencia.toString().trim();
+        return resultado.isEmpty() ? null : resultado;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    /**
+     * Garantiza que haya al menos n caracteres disponibles en el buffer.
+     * @return false si el script se termina antes
+     */
+    private boolean asegurar(int n) throws IOException {
+        if (limite - posicion >= n) {
+            return true;
+        }
+
+        // Compactar: mover lo pendiente al principio del buffer
+        int pendientes = limite - posicion;
+        System.arraycopy(buffer, posicion, buffer, 0, pendientes);
+        posicion = 0;
+        limite = pendientes;
+
+        while (limite < n) {
+            int leidos = reader.read(buffer, limite, buffer.length - limite);
+            if (leidos == -1) {
+                return false;
+            }
+            limite += leidos;
+        }
+        return true;
+    }
+
+    private boolean siguienteEs(int desplazamiento, char esperado) throws IOException {
+        return asegurar(desplazamiento + 1) && buffer[posicion + desplazamiento] == esperado;
+    }
+
+    /**
+     * Con "--" delante: ¿es un comentario? En MySQL hace falta un espacio o un carácter
+     * de control (tabulador, salto de línea...) detrás, o que el script termine ahí.
+     */
+    private boolean abreComentarioDeLinea() throws IOException {
+        if (!dialectoMySQL || !asegurar(3)) {
+            return true;
+        }
+        char despues = buffer[posicion + 2];
+        return despues == ' ' || Character.isISOControl(despues);
+    }
+
+    private boolean empiezaDelimitador() throws IOException {
+        int longitud = delimitador.length();
+        if (!asegurar(longitud)) {
+            return false;
+        }
+        for (int i = 0; i < longitud; i++) {
+            if (buffer[posicion + i] != delimitador.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean esDirectivaDelimiter() throws IOException {
+        int longitud = PALABRA_DELIMITER.length();
+        if (!asegurar(longitud + 1)) {
+            return false;
+        }
+        String palabra = new String(buffer, posicion, longitud);
+        return palabra.equalsIgnoreCase(PALABRA_DELIMITER)
+                && Character.isWhitespace(buffer[posicion + longitud]);
+    }
+
+    /**
+     * Procesa "DELIMITER xx" hasta el final de la línea y cambia el delimitador activo.
+     */
+    private void leerDirectivaDelimiter() throws IOException {
+        posicion += PALABRA_DELIMITER.length();
+
+        StringBuilder nuevo = new StringBuilder();
+        while (asegurar(1) && buffer[posicion] != '\n') {
+            nuevo.append(buffer[posicion++]);
+        }
+
+        String valor = nuevo.toString().trim();
+        if (valor.isEmpty()) {
+            throw new IOException("Directiva DELIMITER sin delimitador");
+        }
+        delimitador = valor;
+    }
+
+    private void copiarLiteral(StringBuilder destino, char comilla) throws IOException {
+        destino.append(comilla);
+        posicion++;
+
+        while (asegurar(1)) {
+            char c = buffer[posicion++];
+            destino.append(c);
+
+            if (c == '\\' && dialectoMySQL && comilla != '`') {
+                // Escape MySQL: el siguiente carácter forma parte del literal
+                if (asegurar(1)) {
+                    destino.append(buffer[posicion++]);
+                }
+            } else if (c == comilla) {
+                if (siguienteEs(0, comilla)) {
+                    // Comilla duplicada ('') → sigue dentro del literal
+                    destino.append(buffer[posicion++]);
+                } else {
+                    return;
+                }
+            }
+        }
+        throw new IOException("Literal sin cerrar al final del script");
+    }
+
+    private void saltarHastaFinDeLinea() throws IOException {
+        while (asegurar(1) && buffer[posicion] != '\n') {
+            posicion++;
+        }
+    }
+
+    private void saltarComentarioDeBloque() throws IOException {
+        posicion += 2;
+        while (asegurar(2)) {
+            if (buffer[posicion] == '*' && buffer[posicion + 1] == '/') {
+                posicion += 2;
+                return;
+            }
+            posicion++;
+        }
+        throw new IOException("Comentario /* sin cerrar al final del script");
+    }
+
+    private void copiarComentarioEjecutable(StringBuilder destino) throws IOException {
+        while (asegurar(2)) {
+            if (buffer[posicion] == '*' && buffer[posicion + 1] == '/') {
+                destino.append("*/");
+                posicion += 2;
+                return;
+            }
+            destino.append(buffer[posicion++]);
+        }
+        throw new IOException("Comentario /*! sin cerrar al final del script");
+    }
+}
@@ -0,0 +1,274 @@
+package database;
+
+import util.ConfigProperties;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Aplica las migraciones de esquema versionadas.
+ *
+ * RESPONSABILIDAD ÚNICA:
+ * - Leer la lista ordenada de migraciones del motor activo (resources/migraciones/<motor>/indice.txt)
+ * - Registrar en la tabla schema_version qué versiones están aplicadas y con qué checksum
+ * - Aplicar SOLO las migraciones pendientes, cada una en su propia transacción
+ *
+ * ARRANQUE RÁPIDO:
+ * Con la base de datos al día solo se lanza UNA consulta (SELECT sobre schema_version).
+ * Los checksums se comparan en memoria contra los scripts empaquetados.
+ *
+ * IMPORTANTE:
+ * En MySQL las sentencias DDL hacen COMMIT implícito, por lo que una migración
+ * que falle a mitad puede dejar aplicadas sus primeras sentencias. En SQLite
+ * el DDL es transaccional y el ROLLBACK deja la base de datos intacta.
+ */
+public class MigradorEsquema {
+
+    private static final String TABLA_VERSIONES = "schema_version";
+
+    /**
+     * Migración disponible en el classpath.
+     */
+    record Migracion(int version, String descripcion, String recurso, String contenido, long checksum) {
+    }
+
+
+    /**
+     * Lleva el esquema de la base de datos a la última versión disponible.
+     *
+     * FLUJO DE EJECUCIÓN:
+     * 1. Lee las migraciones disponibles para el motor (sin tocar la BD)
+     * 2. Consulta las versiones aplicadas (una sola consulta)
+     * 3. Valida los checksums de las ya aplicadas
+     * 4. Aplica en orden las pendientes
+     *
+     * @param con conexión activa
+     * @return número de migraciones aplicadas (0 si el esquema ya estaba al día)
+     * @throws SQLException si una migración falla o un checksum no coincide
+     * @throws IOException  si no se pueden leer los scripts
+     */
+    public static int migrar(Connection con) throws SQLException, IOException {
+        TipoMotor tipo = TipoMotor.detectar(con);
+        List<Migracion> disponibles = cargarMigraciones(tipo);
+
+        Map<Integer, Long> aplicadas = leerVersionesAplicadas(con);
+        validarChecksums(disponibles, aplicadas);
+
+        int aplicadasAhora = 0;
+        for (Migracion migracion : disponibles) {
+            if (!aplicadas.containsKey(migracion.version())) {
+                aplicarMigracion(con, migracion);
+                aplicadasAhora++;
+            }
+        }
+
+        if (aplicadasAhora == 0) {
+            System.out.println("Esquema al día (versión " + versionActual(disponibles) + ")");
+        } else {
+            System.out.println("Migraciones aplicadas: " + aplicadasAhora
+                    + " → versión " + versionActual(disponibles));
+        }
+        return aplicadasAhora;
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    /**
+     * Lee las versiones ya aplicadas con sus checksums.
+     * Si la tabla schema_version no existe todavía, la crea y devuelve un mapa vacío.
+     * Cualquier otro error (BD bloqueada, sin permisos...) se lanza: tomarlo por una
+     * primera ejecución volvería a aplicar todas las migraciones sobre un esquema existente.
+     */
+    private static Map<Integer, Long> leerVersionesAplicadas(Connection con) throws SQLException {
+        Map<Integer, Long> aplicadas = new HashMap<>();
+        String sql = "SELECT version, checksum FROM " + TABLA_VERSIONES;
+
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                aplicadas.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+            return aplicadas;
+
+        } catch (SQLException e) {
+            if (!tablaNoExiste(con, e)) {
+                throw e;
+            }
+            // Primera ejecución: la tabla de control todavía no existe
+            crearTablaVersiones(con);
+            return aplicadas;
+        }
+    }
+
+    /**
+     * ¿El error es "la tabla no existe"? MySQL: código 1146 (ER_NO_SUCH_TABLE).
+     * SQLite lo da como error genérico (código 1), así que se mira el mensaje.
+     */
+    private static boolean tablaNoExiste(Connection con, SQLException e) throws SQLException {
+        if (TipoMotor.detectar(con) == TipoMotor.MYSQL) {
+            return e.getErrorCode() == 1146;
+        }
+        return e.getMessage() != null && e.getMessage().contains("no such table");
+    }
+
+    private static void crearTablaVersiones(Connection con) throws SQLException {
+        String sql = "CREATE TABLE IF NOT EXISTS " + TABLA_VERSIONES + " ("
+                + "version INTEGER NOT NULL PRIMARY KEY, "
+                + "descripcion VARCHAR(200) NOT NULL, "
+                + "checksum BIGINT NOT NULL, "
+                + "fecha_aplicacion VARCHAR(30) NOT NULL)";
+
+        try (Statement stmt = con.createStatement()) {
+            stmt.executeUpdate(sql);
+        }
+    }
+
+    /**
+     * Comprueba que ninguna migración aplicada se haya modificado después.
+     */
+    private static void validarChecksums(List<Migracion> disponibles, Map<Integer, Long> aplicadas)
+            throws SQLException {
+
+        for (Migracion migracion : disponibles) {
+            Long checksumAplicado = aplicadas.get(migracion.version());
+            if (checksumAplicado != null && checksumAplicado != migracion.checksum()) {
+                throw new SQLException("La migración V" + migracion.version()
+                        + " (" + migracion.recurso() + ") ha cambiado después de aplicarse. "
+                        + "Cree una migración nueva en lugar de editar la existente.");
+            }
+        }
+    }
+
+    /**
+     * Aplica una migración y registra su versión dentro de la misma transacción.
+     */
+    private static void aplicarMigracion(Connection con, Migracion migracion) throws SQLException {
+        System.out.println("→ Aplicando migración V" + migracion.version() + " - " + migracion.descripcion());
+
+        boolean autoCommitOriginal = con.getAutoCommit();
+        try {
+            con.setAutoCommit(false);
+
+            DatabaseInitializer.ejecutarScript(con, migracion.contenido());
+
+            String sql = "INSERT INTO " + TABLA_VERSIONES
+                    + " (version, descripcion, checksum, fecha_aplicacion) VALUES (?, ?, ?, ?)";
+            try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+                pstmt.setInt(1, migracion.version());
+                pstmt.setString(2, migracion.descripcion());
+                pstmt.setLong(3, migracion.checksum());
+                pstmt.setString(4, java.time.LocalDateTime.now().toString());
+                pstmt.executeUpdate();
+            }
+
+            con.commit();
+
+        } catch (SQLException e) {
+            try {
+                con.rollback();
+            } catch (SQLException ex) {
+                System.err.println("Error al hacer rollback: " + ex.getMessage());
+            }
+            throw new SQLException("Falló la migración V" + migracion.version()
+                    + " (" + migracion.recurso() + "): " + e.getMessage(), e);
+
+        } finally {
+            con.setAutoCommit(autoCommitOriginal);
+        }
+    }
+
+    /**
+     * Carga la lista ordenada de migraciones del motor indicado.
+     */
+    static List<Migracion> cargarMigraciones(TipoMotor tipo) throws IOException {
+        String motor = tipo.name().toLowerCase();
+        String directorio = ConfigProperties.getProperty("migraciones." + motor, "migraciones/" + motor);
+
+        List<Migracion> migraciones = new ArrayList<>();
+        int versionAnterior = 0;
+
+        for (String fichero : leerLineas(directorio + "/indice.txt")) {
+            if (!fichero.matches("V\\d+__\\w+\\.sql")) {
+                throw new IOException("Nombre de migración inválido en indice.txt: " + fichero);
+            }
+
+            int separador = fichero.indexOf("__");
+            int version = Integer.parseInt(fichero.substring(1, separador));
+            String descripcion = fichero.substring(separador + 2, fichero.length() - 4).replace('_', ' ');
+
+            if (version <= versionAnterior) {
+                throw new IOException("Las migraciones deben tener versiones crecientes: " + fichero);
+            }
+            versionAnterior = version;
+
+            String recurso = directorio + "/" + fichero;
+            String contenido = String.join("\n", leerLineasCompletas(recurso));
+            migraciones.add(new Migracion(version, descripcion, recurso, contenido, calcularChecksum(contenido)));
+        }
+
+        return migraciones;
+    }
+
+    /**
+     * CRC32 del script (los saltos de línea ya vienen normalizados a \n).
+     */
+    private static long calcularChecksum(String contenido) {
+        CRC32 crc = new CRC32();
+        crc.update(contenido.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    private static int versionActual(List<Migracion> migraciones) {
+        return migraciones.isEmpty() ? 0 : migraciones.get(migraciones.size() - 1).version();
+    }
+
+    /**
+     * Lee las líneas no vacías de un recurso ignorando comentarios (#).
+     */
+    private static List<String> leerLineas(String recurso) throws IOException {
+        List<String> lineas = new ArrayList<>();
+        for (String linea : leerLineasCompletas(recurso)) {
+            linea = linea.trim();
+            if (!linea.isEmpty() && !linea.startsWith("#")) {
+                lineas.add(linea);
+            }
+        }
+        return lineas;
+    }
+
+    private static List<String> leerLineasCompletas(String recurso) throws IOException {
+        InputStream inputStream = MigradorEsquema.class
+                .getClassLoader()
+                .getResourceAsStream(recurso);
+
+        if (inputStream == null) {
+            throw new IOException("No se encontró el recurso: " + recurso);
+        }
+
+        List<String> lineas = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                lineas.add(linea);
+            }
+        }
+        return lineas;
+    }
+}
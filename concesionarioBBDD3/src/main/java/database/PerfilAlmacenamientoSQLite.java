@@ -0,0 +1,308 @@
+package database;
+
+import util.ConfigProperties;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Perfil de almacenamiento "compacto" para SQLite.
+ *
+ * ¿POR QUÉ?
+ * En el esquema estándar la tabla coches tiene un rowid oculto y la matrícula
+ * (TEXT PRIMARY KEY) vive en un índice aparte: cada búsqueda por matrícula
+ * recorre DOS B-trees (índice → rowid → fila).
+ *
+ * ¿QUÉ CAMBIA EL PERFIL COMPACTO?
+ * - coches pasa a ser WITHOUT ROWID: la fila se guarda en el propio B-tree de la matrícula
+ * - Las columnas numéricas se declaran INTEGER/REAL para que SQLite aplique esa afinidad
+ * - page_size se ajusta (sqlite.page_size) y se hace VACUUM para reconstruir el fichero
+ *
+ * La conversión se hace sobre el esquema que haya en ese momento (lee PRAGMA table_info),
+ * así que sigue funcionando aunque migraciones posteriores añadan columnas.
+ *
+ * IMPORTANTE:
+ * Cambiar page_size exige salir temporalmente de WAL, por lo que no debe haber
+ * otras conexiones usando la BD durante la conversión.
+ */
+public class PerfilAlmacenamientoSQLite {
+
+    private static final String TABLA = "coches";
+    private static final String TABLA_TEMPORAL = "coches_compacto";
+
+
+    /**
+     * Indica si la tabla coches ya usa el perfil compacto (WITHOUT ROWID).
+     */
+    public static boolean esPerfilCompacto(Connection con) throws SQLException {
+        String sql = "SELECT sql FROM sqlite_master WHERE type = 'table' AND name = '" + TABLA + "'";
+
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() && rs.getString(1).toUpperCase().contains("WITHOUT ROWID");
+        }
+    }
+
+
+    /**
+     * Convierte la base de datos al perfil compacto.
+     *
+     * PASOS QUE REALIZA:
+     * 1. Reconstruye coches como WITHOUT ROWID (transacción: crear, copiar, borrar, renombrar)
+     * 2. Recrea los índices que tuviera la tabla original, sus triggers y las vistas
+     * 3. Cambia page_size y hace VACUUM (saliendo y volviendo al journal_mode original)
+     *
+     * @return true si se convirtió, false si ya estaba en perfil compacto
+     */
+    public static boolean migrarAPerfilCompacto(Connection con) throws SQLException {
+        if (TipoMotor.detectar(con) != TipoMotor.SQLITE) {
+            throw new SQLException("El perfil de almacenamiento solo se aplica a SQLite");
+        }
+
+        if (esPerfilCompacto(con)) {
+            System.out.println("La tabla coches ya usa el perfil compacto");
+            return false;
+        }
+
+        long inicio = System.nanoTime();
+        reconstruirSinRowid(con);
+        ajustarPageSize(con, ConfigProperties.getIntProperty("sqlite.page_size", 8192));
+
+        System.out.println("Perfil compacto aplicado en " + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+        return true;
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    /**
+     * Procedimiento estándar de SQLite para cambiar la definición de una tabla:
+     * crear la nueva, copiar, borrar la vieja y renombrar, todo en una transacción.
+     *
+     * Las vistas (p. ej. v_coches_por_marca, V10) se borran antes y se recrean después:
+     * con coches borrada, el RENAME comprueba el esquema y falla por cualquier vista que
+     * la use. Los triggers de coches desaparecen con el DROP y también se recrean.
+     */
+    private static void reconstruirSinRowid(Connection con) throws SQLException {
+        List<String> columnas = new ArrayList<>();
+        String ddl = generarDDLCompacto(con, columnas);
+        List<String> indices = leerDefiniciones(con, "index", TABLA);
+        List<String> vistas = leerNombres(con, "view");
+        List<String> dependientes = new ArrayList<>(leerDefiniciones(con, "view", null));
+        dependientes.addAll(leerDefiniciones(con, "trigger", TABLA));
+        String listaColumnas = String.join(", ", columnas);
+
+        boolean autoCommitOriginal = con.getAutoCommit();
+        try (Statement stmt = con.createStatement()) {
+            con.setAutoCommit(false);
+
+            for (String vista : vistas) {
+                stmt.executeUpdate("DROP VIEW \"" + vista + "\"");
+            }
+
+            stmt.executeUpdate("DROP TABLE IF EXISTS " + TABLA_TEMPORAL);
+            stmt.executeUpdate(ddl);
+            stmt.executeUpdate("INSERT INTO " + TABLA_TEMPORAL + " (" + listaColumnas + ") "
+                    + "SELECT " + listaColumnas + " FROM " + TABLA + " ORDER BY matricula");
+            stmt.executeUpdate("DROP TABLE " + TABLA);
+            stmt.executeUpdate("ALTER TABLE " + TABLA_TEMPORAL + " RENAME TO " + TABLA);
+
+            for (String indice : indices) {
+                stmt.executeUpdate(indice);
+            }
+            for (String definicion : dependientes) {
+                stmt.executeUpdate(definicion);
+            }
+
+            con.commit();
+
+        } catch (SQLException e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.setAutoCommit(autoCommitOriginal);
+        }
+    }
+
+    /**
+     * Genera el CREATE TABLE ... WITHOUT ROWID a partir de las columnas actuales de coches.
+     *
+     * La clave primaria va al final como restricción de tabla, PRIMARY KEY (a, b), en el orden
+     * de PRAGMA table_info (columna pk): un PRIMARY KEY en cada columna no es una clave compuesta
+     * y SQLite lo rechaza. Las claves foráneas conservan sus columnas (también las compuestas)
+     * y sus acciones ON UPDATE / ON DELETE.
+     */
+    private static String generarDDLCompacto(Connection con, List<String> columnas) throws SQLException {
+        StringBuilder ddl = new StringBuilder("CREATE TABLE " + TABLA_TEMPORAL + " (\n");
+        Map<Integer, String> clavePrimaria = new TreeMap<>();     // posición en la clave → columna
+
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + TABLA + ")")) {
+
+            while (rs.next()) {
+                String nombre = rs.getString("name");
+                String tipo = afinidad(rs.getString("type"));
+                boolean noNulo = rs.getInt("notnull") == 1;
+                int posicionClave = rs.getInt("pk");
+                boolean clave = posicionClave > 0;
+                String valorPorDefecto = rs.getString("dflt_value");
+
+                columnas.add(nombre);
+                ddl.append("    ").append(nombre).append(' ').append(tipo);
+                if (clave || noNulo) {
+                    ddl.append(" NOT NULL");
+                }
+                if (valorPorDefecto != null) {
+                    ddl.append(" DEFAULT ").append(valorPorDefecto);
+                }
+                if (clave) {
+                    clavePrimaria.put(posicionClave, nombre);
+                }
+                ddl.append(",\n");
+            }
+        }
+
+        if (columnas.isEmpty()) {
+            throw new SQLException("La tabla coches no existe: inicialice la base de datos primero");
+        }
+
+        if (!clavePrimaria.isEmpty()) {
+            ddl.append("    PRIMARY KEY (").append(String.join(", ", clavePrimaria.values())).append("),\n");
+        }
+
+        // Claves foráneas: una fila por columna, agrupadas por id (en orden de seq)
+        Map<Integer, ClaveForanea> foraneas = new TreeMap<>();
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA foreign_key_list(" + TABLA + ")")) {
+            while (rs.next()) {
+                ClaveForanea foranea = foraneas.computeIfAbsent(rs.getInt("id"), id -> new ClaveForanea());
+                foranea.tabla = rs.getString("table");
+                foranea.alActualizar = rs.getString("on_update");
+                foranea.alBorrar = rs.getString("on_delete");
+                foranea.columnas.add(rs.getString("from"));
+                foranea.referenciadas.add(rs.getString("to"));     // null = la clave primaria de la otra tabla
+            }
+        }
+        for (ClaveForanea foranea : foraneas.values()) {
+            ddl.append("    ").append(foranea.definicion()).append(",\n");
+        }
+
+        ddl.setLength(ddl.length() - 2);
+        ddl.append("\n) WITHOUT ROWID");
+        return ddl.toString();
+    }
+
+    /**
+     * Normaliza el tipo declarado para que la afinidad sea la correcta:
+     * INT, BIGINT... → INTEGER; DECIMAL, DOUBLE... → REAL; el resto → TEXT.
+     */
+    private static String afinidad(String tipoDeclarado) {
+        String tipo = tipoDeclarado == null ? "" : tipoDeclarado.toUpperCase();
+
+        if (tipo.contains("INT")) {
+            return "INTEGER";
+        } else if (tipo.contains("REAL") || tipo.contains("FLOA") || tipo.contains("DOUB")
+                || tipo.contains("DEC") || tipo.contains("NUM")) {
+            return "REAL";
+        } else {
+            return "TEXT";
+        }
+    }
+
+    /**
+     * SQL de los objetos del tipo indicado (index, view, trigger) de sqlite_master,
+     * de la tabla indicada o de todas si es null. Los índices automáticos no tienen SQL.
+     */
+    private static List<String> leerDefiniciones(Connection con, String tipo, String tabla) throws SQLException {
+        List<String> definiciones = new ArrayList<>();
+        String sql = "SELECT sql FROM sqlite_master WHERE type = '" + tipo + "'"
+                + (tabla == null ? "" : " AND tbl_name = '" + tabla + "'")
+                + " AND sql IS NOT NULL";
+
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                definiciones.add(rs.getString(1));
+            }
+        }
+        return definiciones;
+    }
+
+    private static List<String> leerNombres(Connection con, String tipo) throws SQLException {
+        List<String> nombres = new ArrayList<>();
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT name FROM sqlite_master WHERE type = '" + tipo + "'")) {
+            while (rs.next()) {
+                nombres.add(rs.getString(1));
+            }
+        }
+        return nombres;
+    }
+
+    /**
+     * Cambia page_size. En WAL no se puede, así que se pasa a DELETE, se hace
+     * VACUUM (que reescribe el fichero con el nuevo tamaño) y se restaura el modo.
+     */
+    private static void ajustarPageSize(Connection con, int pageSize) throws SQLException {
+        try (Statement stmt = con.createStatement()) {
+
+            String modoOriginal;
+            try (ResultSet rs = stmt.executeQuery("PRAGMA journal_mode")) {
+                modoOriginal = rs.next() ? rs.getString(1) : "delete";
+            }
+
+            if (modoOriginal.equalsIgnoreCase("wal")) {
+                stmt.execute("PRAGMA journal_mode = DELETE");
+            }
+
+            stmt.execute("PRAGMA page_size = " + pageSize);
+            stmt.executeUpdate("VACUUM");
+
+            if (modoOriginal.equalsIgnoreCase("wal")) {
+                stmt.execute("PRAGMA journal_mode = WAL");
+            }
+
+            try (ResultSet rs = stmt.executeQuery("PRAGMA page_size")) {
+                if (rs.next() && rs.getInt(1) != pageSize) {
+                    System.err.println("Aviso: page_size sigue en " + rs.getInt(1)
+                            + " (¿hay otras conexiones abiertas sobre la BD?)");
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Una clave foránea leída de PRAGMA foreign_key_list.
+     */
+    private static class ClaveForanea {
+        private String tabla;
+        private String alActualizar;
+        private String alBorrar;
+        private final List<String> columnas = new ArrayList<>();
+        private final List<String> referenciadas = new ArrayList<>();
+
+        String definicion() {
+            StringBuilder sql = new StringBuilder("FOREIGN KEY (").append(String.join(", ", columnas))
+                    .append(") REFERENCES ").append(tabla);
+            if (!referenciadas.contains(null)) {
+                sql.append('(').append(String.join(", ", referenciadas)).append(')');
+            }
+            if (!"NO ACTION".equalsIgnoreCase(alActualizar)) {
+                sql.append(" ON UPDATE ").append(alActualizar);
+            }
+            if (!"NO ACTION".equalsIgnoreCase(alBorrar)) {
+                sql.append(" ON DELETE ").append(alBorrar);
+            }
+            return sql.toString();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package database;
+
+import model.Transaccion;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool de conexiones de tamaño fijo.
+ *
+ * ¿CÓMO FUNCIONA?
+ * - Al crearse abre TODAS las conexiones con la fábrica indicada
+ * - obtener() presta una conexión libre (espera si están todas ocupadas)
+ * - liberar() la devuelve al pool para que otro la use
+ *
+ * IMPORTANTE:
+ * Una conexión prestada solo debe usarla un hilo a la vez y SIEMPRE
+ * hay que devolverla (try/finally), o el pool se quedará sin conexiones.
+ *
+ * Es final: si el constructor falla a mitad llama a cerrar(), y en una subclase
+ * ese método se ejecutaría antes de que ella estuviera inicializada.
+ */
+public final class PoolConexiones {
+
+    /**
+     * Crea una conexión nueva y configurada.
+     */
+    @FunctionalInterface
+    public interface FabricaConexiones {
+        Connection crear() throws SQLException;
+    }
+
+    private final String nombre;
+    private final List<Connection> todas;
+    private final BlockingQueue<Connection> libres;
+    private final long esperaMaximaMs;
+
+    private volatile boolean cerrado = false;
+
+
+    /**
+     * @param nombre         nombre del pool (para los mensajes de error)
+     * @param tamano         número de conexiones
+     * @param esperaMaximaMs tiempo máximo de espera en obtener()
+     * @param fabrica        crea cada conexión del pool
+     */
+    public PoolConexiones(String nombre, int tamano, long esperaMaximaMs, FabricaConexiones fabrica)
+            throws SQLException {
+
+        this.nombre = nombre;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.todas = new ArrayList<>(tamano);
+        this.libres = new ArrayBlockingQueue<>(tamano);
+
+        try {
+            for (int i = 0; i < tamano; i++) {
+                Connection con = fabrica.crear();
+                todas.add(con);
+                libres.add(con);
+            }
+        } catch (SQLException e) {
+            // Si falla a mitad, no dejamos conexiones huérfanas abiertas
+            cerrar();
+            throw e;
+        }
+    }
+
+
+    /**
+     * Presta una conexión libre, esperando como máximo esperaMaximaMs.
+     */
+    public Connection obtener() throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool " + nombre + " está cerrado");
+        }
+
+        try {
+            Connection con = libres.poll(esperaMaximaMs, TimeUnit.MILLISECONDS);
+            if (con == null) {
+                throw new SQLException("Tiempo de espera agotado: no hay conexiones libres en el pool " + nombre);
+            }
+            return con;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexión del pool " + nombre, e);
+        }
+    }
+
+    /**
+     * Devuelve al pool una conexión prestada con obtener().
+     */
+    public void liberar(Connection con) {
+        if (con == null || cerrado) {
+            return;
+        }
+
+        // Lo que los DAO dejaron pendiente del commit de quien la usó ya no se publicará
+        Transaccion.olvidar(con);
+        try {
+            // Si quien la usó dejó una transacción abierta, la deshacemos
+            if (!con.getAutoCommit()) {
+                con.rollback();
+                con.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al limpiar la conexión devuelta al pool " + nombre + ": " + e.getMessage());
+        }
+
+        libres.offer(con);
+    }
+
+    /**
+     * Indica si la conexión pertenece a este pool.
+     */
+    public boolean contiene(Connection con) {
+        return todas.contains(con);
+    }
+
+    public int getTamano() {
+        return todas.size();
+    }
+
+    /**
+     * Cierra todas las conexiones del pool (prestadas o no).
+     */
+    public void cerrar() {
+        cerrado = true;
+        for (Connection con : todas) {
+            CacheSentencias.olvidar(con);
+            Transaccion.olvidar(con);
+            try {
+                con.close();
+            } catch (SQLException e) {
+                System.err.println("Error al cerrar conexión del pool " + nombre + ": " + e.getMessage());
+            }
+        }
+        libres.clear();
+    }
+}
@@ -0,0 +1,225 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publica las filas de una consulta como un Flow.Publisher, con contrapresión.
+ *
+ * ¿POR QUÉ?
+ * Un listado o una exportación grande en una List obliga a tener todo el resultado en
+ * memoria antes de escribir la primera línea. Con un Publisher, cada fila se lee del
+ * ResultSet solo cuando el suscriptor la pide: si el consumidor es lento (un socket,
+ * un compresor...), simplemente pide más tarde y la BD espera.
+ *
+ * ¿CÓMO FUNCIONA?
+ * - Cada suscripción ejecuta la consulta de nuevo, al llegar la primera petición (request)
+ * - Las filas se entregan en el hilo que llama a request(): no hay hilos ni buffers
+ *   propios. Si onNext() vuelve a llamar a request(), no se anida: el bucle que ya
+ *   está entregando recoge la nueva demanda
+ * - Al terminar, fallar o cancelar se cierran el ResultSet y la sentencia (el cursor)
+ * - MySQL: fetchSize = Integer.MIN_VALUE, para que Connector/J lea fila a fila del
+ *   servidor en lugar de cargar el resultado entero al ejecutar
+ *
+ * IMPORTANTE:
+ * - La conexión es de quien llama y debe seguir abierta hasta que acabe la suscripción
+ * - En MySQL, mientras dura la suscripción la conexión no admite otras consultas:
+ *   úsese una conexión propia (DatabaseManager.abrirConexionAuxiliar)
+ * - Como la conexión, una suscripción solo la debe usar un hilo a la vez
+ */
+public class PublicadorConsulta<T> implements Flow.Publisher<T> {
+
+    /**
+     * Asigna los parámetros de la consulta.
+     */
+    @FunctionalInterface
+    public interface Parametros {
+        void asignar(PreparedStatement pstmt) throws SQLException;
+    }
+
+    /**
+     * Convierte la fila actual del ResultSet en un objeto.
+     */
+    @FunctionalInterface
+    public interface LectorFila<T> {
+        T leer(ResultSet rs) throws SQLException;
+    }
+
+    private final Connection con;
+    private final String sql;
+    private final Parametros parametros;
+    private final LectorFila<T> lector;
+
+
+    public PublicadorConsulta(Connection con, String sql, Parametros parametros, LectorFila<T> lector) {
+        this.con = Objects.requireNonNull(con);
+        this.sql = Objects.requireNonNull(sql);
+        this.parametros = parametros;
+        this.lector = Objects.requireNonNull(lector);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> suscriptor) {
+        Objects.requireNonNull(suscriptor);
+        Suscripcion suscripcion = new Suscripcion(suscriptor);
+        suscriptor.onSubscribe(suscripcion);
+    }
+
+
+    // ============================================
+    // SUSCRIPCIÓN
+    // ============================================
+
+    private class Suscripcion implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> suscriptor;
+
+        // Filas pedidas y aún no entregadas (Long.MAX_VALUE = sin límite)
+        private final AtomicLong demanda = new AtomicLong();
+        // Llamadas pendientes de atender: solo quien la sube de 0 a 1 entrega filas
+        private final AtomicInteger pendientes = new AtomicInteger();
+
+        private volatile boolean cancelada = false;
+        private volatile IllegalArgumentException peticionInvalida = null;
+
+        // Solo los usa el hilo que está entregando
+        private PreparedStatement pstmt = null;
+        private ResultSet rs = null;
+        private boolean mysql = false;
+        private boolean terminada = false;
+
+        Suscripcion(Flow.Subscriber<? super T> suscriptor) {
+            this.suscriptor = suscriptor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                peticionInvalida = new IllegalArgumentException("request(" + n + "): hay que pedir al menos 1 fila");
+            } else {
+                demanda.getAndAccumulate(n, (actual, pedida) -> {
+                    long suma = actual + pedida;
+                    return suma < 0 ? Long.MAX_VALUE : suma;
+                });
+            }
+            atender();
+        }
+
+        @Override
+        public void cancel() {
+            cancelada = true;
+            atender();
+        }
+
+        /**
+         * Entrega filas mientras haya demanda. Si otro hilo (o una llamada anidada desde
+         * onNext) ya está entregando, solo anota que hay trabajo y vuelve.
+         */
+        private void atender() {
+            if (pendientes.getAndIncrement() != 0) {
+                return;
+            }
+
+            int atendidas = 1;
+            do {
+                entregar();
+                atendidas = pendientes.addAndGet(-atendidas);
+            } while (atendidas != 0);
+        }
+
+        private void entregar() {
+            if (terminada) {
+                return;
+            }
+            if (cancelada) {
+                // MySQL leería (y descartaría) el resto de filas al cerrar: antes se corta la consulta
+                if (rs != null && mysql) {
+                    cortarConsulta();
+                }
+                terminar();
+                return;
+            }
+            if (peticionInvalida != null) {
+                terminar();
+                suscriptor.onError(peticionInvalida);
+                return;
+            }
+
+            try {
+                while (demanda.get() > 0) {
+                    if (rs == null) {
+                        abrir();
+                    }
+                    if (!rs.next()) {
+                        terminar();
+                        suscriptor.onComplete();
+                        return;
+                    }
+
+                    T elemento = lector.leer(rs);
+                    if (demanda.get() != Long.MAX_VALUE) {
+                        demanda.decrementAndGet();
+                    }
+                    suscriptor.onNext(elemento);
+
+                    if (cancelada || peticionInvalida != null) {
+                        // Se atiende en la siguiente vuelta de atender()
+                        return;
+                    }
+                }
+            } catch (SQLException e) {
+                terminar();
+                suscriptor.onError(e);
+            } catch (RuntimeException e) {
+                // Un suscriptor que lanza excepciones cuenta como cancelado: el cursor no se queda abierto
+                terminar();
+                throw e;
+            }
+        }
+
+        private void abrir() throws SQLException {
+            mysql = TipoMotor.detectar(con) == TipoMotor.MYSQL;
+            pstmt = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            if (mysql) {
+                pstmt.setFetchSize(Integer.MIN_VALUE);
+            }
+            if (parametros != null) {
+                parametros.asignar(pstmt);
+            }
+            rs = pstmt.executeQuery();
+        }
+
+        private void cortarConsulta() {
+            try {
+                pstmt.cancel();
+            } catch (SQLException e) {
+                System.err.println("No se pudo cancelar la consulta en el servidor: " + e.getMessage());
+            }
+        }
+
+        /**
+         * Cierra el cursor y la sentencia; no se vuelve a entregar nada.
+         */
+        private void terminar() {
+            terminada = true;
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException e) {
+                System.err.println("Error al cerrar el cursor de la consulta: " + e.getMessage());
+            }
+            rs = null;
+            pstmt = null;
+        }
+    }
+}
@@ -1,10 +1,29 @@
 package database;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+
     /**
      * Enum que representa los tipos de motores de base de datos soportados.
      */
     public enum TipoMotor {
 
         MYSQL,
-        SQLITE
+        SQLITE;
+
+        /**
+         * Detecta el tipo de motor de una conexión a partir de sus metadatos.
+         * No lanza ninguna consulta: el nombre del producto lo resuelve el driver.
+         */
+        public static TipoMotor detectar(Connection con) throws SQLException {
+            String nombreProducto = con.getMetaData().getDatabaseProductName().toLowerCase();
+
+            if (nombreProducto.contains("mysql")) {
+                return MYSQL;
+            } else if (nombreProducto.contains("sqlite")) {
+                return SQLITE;
+            } else {
+                throw new SQLException("Motor de base de datos no soportado: " + nombreProducto);
+            }
+        }
     }
@@ -0,0 +1,175 @@
+package estadistica;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Frecuencias aproximadas (count-min) con los valores más frecuentes (heavy hitters).
+ *
+ * ¿CÓMO FUNCIONA?
+ * - Una tabla de 4 filas × 2048 contadores; cada fila usa un hash distinto
+ * - Añadir un valor suma 1 en un contador de cada fila
+ * - La frecuencia estimada es el MÍNIMO de sus 4 contadores (las colisiones solo suman)
+ * - Aparte se guardan los 'candidatos' con mayor frecuencia estimada, para poder
+ *   responder "¿cuáles son los más repetidos?" sin recorrer todos los valores
+ *
+ * IMPORTANTE:
+ * - Nunca se queda corto: estimación ≥ frecuencia real
+ * - Exceso máximo típico: total / 2048 × e (≈ 0,13 % del total)
+ * - Memoria fija: 64 KB de contadores + los candidatos
+ */
+public class CountMinSketch {
+
+    private static final int FILAS = 4;
+    private static final int COLUMNAS = 2048;
+    private static final int CANDIDATOS = 64;
+
+    private final long[][] contadores = new long[FILAS][COLUMNAS];
+    private final Map<String, Long> candidatos = new HashMap<>();
+    private long total = 0;
+
+    public void anadir(String valor) {
+        long hash = Hash64.de(valor);
+        long estimacion = Long.MAX_VALUE;
+
+        for (int fila = 0; fila < FILAS; fila++) {
+            int columna = columna(hash, fila);
+            contadores[fila][columna]++;
+            estimacion = Math.min(estimacion, contadores[fila][columna]);
+        }
+        total++;
+
+        proponerCandidato(valor, estimacion);
+    }
+
+    /**
+     * Frecuencia estimada de un valor (nunca menor que la real).
+     */
+    public long estimar(String valor) {
+        long hash = Hash64.de(valor);
+        long estimacion = Long.MAX_VALUE;
+        for (int fila = 0; fila < FILAS; fila++) {
+            estimacion = Math.min(estimacion, contadores[fila][columna(hash, fila)]);
+        }
+        return estimacion;
+    }
+
+    /**
+     * Los valores más frecuentes, de mayor a menor frecuencia estimada.
+     */
+    public List<Map.Entry<String, Long>> masFrecuentes(int cuantos) {
+        List<Map.Entry<String, Long>> lista = new ArrayList<>();
+        for (String valor : candidatos.keySet()) {
+            lista.add(Map.entry(valor, estimar(valor)));
+        }
+        lista.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return lista.subList(0, Math.min(cuantos, lista.size()));
+    }
+
+    /**
+     * Número de valores añadidos (con repeticiones).
+     */
+    public long total() {
+        return total;
+    }
+
+    public void fusionar(CountMinSketch otro) {
+        for (int fila = 0; fila < FILAS; fila++) {
+            for (int columna = 0; columna < COLUMNAS; columna++) {
+                contadores[fila][columna] += otro.contadores[fila][columna];
+            }
+        }
+        total += otro.total;
+
+        // Los candidatos de ambos se vuelven a puntuar con la tabla ya sumada
+        Set<String> todos = new HashSet<>(candidatos.keySet());
+        todos.addAll(otro.candidatos.keySet());
+        candidatos.clear();
+        for (String valor : todos) {
+            proponerCandidato(valor, estimar(valor));
+        }
+    }
+
+    public void escribir(DataOutputStream salida) throws IOException {
+        salida.writeInt(FILAS);
+        salida.writeInt(COLUMNAS);
+        salida.writeLong(total);
+        for (long[] fila : contadores) {
+            for (long contador : fila) {
+                salida.writeLong(contador);
+            }
+        }
+        salida.writeInt(candidatos.size());
+        for (String valor : candidatos.keySet()) {
+            salida.writeUTF(valor);
+        }
+    }
+
+    public static CountMinSketch leer(DataInputStream entrada) throws IOException {
+        int filas = entrada.readInt();
+        int columnas = entrada.readInt();
+        if (filas != FILAS || columnas != COLUMNAS) {
+            throw new IOException("Count-min de " + filas + "×" + columnas
+                    + " (se esperaba " + FILAS + "×" + COLUMNAS + ")");
+        }
+
+        CountMinSketch sketch = new CountMinSketch();
+        sketch.total = entrada.readLong();
+        for (long[] fila : sketch.contadores) {
+            for (int columna = 0; columna < COLUMNAS; columna++) {
+                fila[columna] = entrada.readLong();
+            }
+        }
+        int candidatos = entrada.readInt();
+        for (int i = 0; i < candidatos; i++) {
+            String valor = entrada.readUTF();
+            sketch.candidatos.put(valor, sketch.estimar(valor));
+        }
+        return sketch;
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    /**
+     * Doble hashing: fila i → h1 + i·h2, con h1 y h2 las dos mitades del hash de 64 bits.
+     */
+    private static int columna(long hash, int fila) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        return Math.floorMod(h1 + fila * h2, COLUMNAS);
+    }
+
+    /**
+     * Entra si ya era candidato, si hay hueco o si supera al candidato menos frecuente.
+     */
+    private void proponerCandidato(String valor, long estimacion) {
+        if (candidatos.containsKey(valor) || candidatos.size() < CANDIDATOS) {
+            candidatos.put(valor, estimacion);
+            return;
+        }
+
+        String menor = null;
+        long frecuenciaMenor = Long.MAX_VALUE;
+        for (Map.Entry<String, Long> candidato : candidatos.entrySet()) {
+            if (candidato.getValue() < frecuenciaMenor) {
+                frecuenciaMenor = candidato.getValue();
+                menor = candidato.getKey();
+            }
+        }
+
+        if (estimacion > frecuenciaMenor) {
+            candidatos.remove(menor);
+            candidatos.put(valor, estimacion);
+        }
+    }
+}
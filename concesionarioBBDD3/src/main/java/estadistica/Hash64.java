@@ -0,0 +1,38 @@
+package estadistica;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hash de 64 bits para los sketches.
+ *
+ * String.hashCode() solo tiene 32 bits y se reparte mal en los bits altos, que es
+ * justo lo que usa HyperLogLog. Aquí se hace FNV-1a sobre los bytes UTF-8 y se
+ * termina con el "finalizador" de MurmurHash3 para mezclar bien todos los bits.
+ */
+final class Hash64 {
+
+    private Hash64() {
+    }
+
+    static long de(String texto) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : texto.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        return mezclar(hash);
+    }
+
+    static long de(long valor) {
+        return mezclar(valor ^ 0x9e3779b97f4a7c15L);
+    }
+
+    private static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,157 @@
+package estadistica;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Conjunto de sketches que alimentan el informe aproximado.
+ *
+ * - modelos:  HyperLogLog de los id_modelo dados de alta o modificados
+ * - clientes: HyperLogLog de los compradores (id_comprador de cada traspaso)
+ * - precios:  t-digest del precio de los coches dados de alta
+ * - importes: t-digest del importe de cada traspaso
+ * - extras:   count-min con los extras más frecuentes de los coches dados de alta
+ *
+ * Todos son "de solo añadir": describen el flujo de altas y ventas, no el inventario
+ * exacto de hoy (un coche borrado sigue contando en precios y extras). Los contadores
+ * altas/bajas/traspasos permiten detectar si el resumen guardado se ha desfasado de la BD.
+ *
+ * Dos resúmenes se fusionan con fusionar(): así una importación rellena su propio
+ * resumen y lo vuelca de una vez al confirmar.
+ */
+public class ResumenAproximado {
+
+    private static final int VERSION_FORMATO = 1;
+
+    private HyperLogLog modelos = new HyperLogLog();
+    private HyperLogLog clientes = new HyperLogLog();
+    private TDigest precios = new TDigest();
+    private TDigest importes = new TDigest();
+    private CountMinSketch extras = new CountMinSketch();
+
+    private long altas = 0;
+    private long bajas = 0;
+    private long traspasos = 0;
+
+
+    // ============================================
+    // REGISTRO DE CAMBIOS
+    // ============================================
+
+    /**
+     * Coche nuevo. Los extras llegan en el formato del CSV ("GPS|Climatización").
+     */
+    public void alta(long idModelo, String extrasCoche, long precioCentimos) {
+        modelos.anadir(idModelo);
+        precios.anadir(precioCentimos);
+        if (extrasCoche != null) {
+            for (String extra : extrasCoche.split("\\|")) {
+                extra = extra.trim();
+                if (!extra.isEmpty()) {
+                    extras.anadir(extra);
+                }
+            }
+        }
+        altas++;
+    }
+
+    /**
+     * Coche modificado: solo puede aportar un modelo nuevo.
+     */
+    public void modificacion(long idModelo) {
+        modelos.anadir(idModelo);
+    }
+
+    public void baja() {
+        bajas++;
+    }
+
+    public void traspaso(long idComprador, long importeCentimos) {
+        clientes.anadir(idComprador);
+        importes.anadir(importeCentimos);
+        traspasos++;
+    }
+
+    public void fusionar(ResumenAproximado otro) {
+        modelos.fusionar(otro.modelos);
+        clientes.fusionar(otro.clientes);
+        precios.fusionar(otro.precios);
+        importes.fusionar(otro.importes);
+        extras.fusionar(otro.extras);
+        altas += otro.altas;
+        bajas += otro.bajas;
+        traspasos += otro.traspasos;
+    }
+
+
+    // ============================================
+    // CONSULTAS
+    // ============================================
+
+    public HyperLogLog modelos() {
+        return modelos;
+    }
+
+    public HyperLogLog clientes() {
+        return clientes;
+    }
+
+    public TDigest precios() {
+        return precios;
+    }
+
+    public TDigest importes() {
+        return importes;
+    }
+
+    public CountMinSketch extras() {
+        return extras;
+    }
+
+    /**
+     * Coches que debería haber en la BD según el resumen (altas − bajas).
+     */
+    public long coches() {
+        return altas - bajas;
+    }
+
+    public long traspasos() {
+        return traspasos;
+    }
+
+
+    // ============================================
+    // PERSISTENCIA
+    // ============================================
+
+    public void escribir(DataOutputStream salida) throws IOException {
+        salida.writeInt(VERSION_FORMATO);
+        salida.writeLong(altas);
+        salida.writeLong(bajas);
+        salida.writeLong(traspasos);
+        modelos.escribir(salida);
+        clientes.escribir(salida);
+        precios.escribir(salida);
+        importes.escribir(salida);
+        extras.escribir(salida);
+    }
+
+    public static ResumenAproximado leer(DataInputStream entrada) throws IOException {
+        int version = entrada.readInt();
+        if (version != VERSION_FORMATO) {
+            throw new IOException("Formato de resumen desconocido: " + version);
+        }
+
+        ResumenAproximado resumen = new ResumenAproximado();
+        resumen.altas = entrada.readLong();
+        resumen.bajas = entrada.readLong();
+        resumen.traspasos = entrada.readLong();
+        resumen.modelos = HyperLogLog.leer(entrada);
+        resumen.clientes = HyperLogLog.leer(entrada);
+        resumen.precios = TDigest.leer(entrada);
+        resumen.importes = TDigest.leer(entrada);
+        resumen.extras = CountMinSketch.leer(entrada);
+        return resumen;
+    }
+}
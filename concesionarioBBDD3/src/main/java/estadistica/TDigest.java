@@ -0,0 +1,228 @@
+package estadistica;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Cuantiles aproximados de una serie de números (t-digest con fusión).
+ *
+ * ¿CÓMO FUNCIONA?
+ * - Los valores se agrupan en "centroides" (media + peso)
+ * - En los extremos (p1, p99) los centroides son diminutos y en el centro (mediana)
+ *   son grandes: así los percentiles altos y bajos salen muy precisos
+ * - Los valores nuevos van a un buffer; al llenarse se ordena todo y se fusionan
+ *   centroides vecinos mientras quepan según la función de escala k1
+ *
+ * IMPORTANTE:
+ * - Memoria acotada (unos cientos de centroides con compresión 200), da igual el volumen
+ * - Error típico por debajo del 1 % en la mediana y mucho menor en las colas
+ * - Dos digests se fusionan añadiendo los centroides de uno al otro
+ */
+public class TDigest {
+
+    private static final double COMPRESION = 200;
+    private static final int TAMANO_BUFFER = (int) (5 * COMPRESION);
+
+    private double[] medias = new double[0];
+    private double[] pesos = new double[0];
+    private int centroides = 0;
+
+    private final double[] bufferMedias = new double[TAMANO_BUFFER];
+    private final double[] bufferPesos = new double[TAMANO_BUFFER];
+    private int enBuffer = 0;
+
+    private double total = 0;
+    private double minimo = Double.POSITIVE_INFINITY;
+    private double maximo = Double.NEGATIVE_INFINITY;
+
+    public void anadir(double valor) {
+        anadir(valor, 1);
+    }
+
+    /**
+     * Número de valores añadidos.
+     */
+    public long total() {
+        return Math.round(total);
+    }
+
+    /**
+     * Valor aproximado del cuantil q (0 = mínimo, 0.5 = mediana, 1 = máximo).
+     * @return el valor, o NaN si el digest está vacío
+     */
+    public double cuantil(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("El cuantil debe estar entre 0 y 1: " + q);
+        }
+        comprimir();
+
+        if (centroides == 0) {
+            return Double.NaN;
+        }
+        // Los extremos son exactos: se guardan aparte (también con un solo centroide)
+        if (q == 0) {
+            return minimo;
+        }
+        if (q == 1) {
+            return maximo;
+        }
+        return Math.max(minimo, Math.min(maximo, interpolar(q)));
+    }
+
+    public void fusionar(TDigest otro) {
+        otro.comprimir();
+        for (int i = 0; i < otro.centroides; i++) {
+            anadir(otro.medias[i], otro.pesos[i]);
+        }
+        if (otro.centroides > 0) {
+            minimo = Math.min(minimo, otro.minimo);
+            maximo = Math.max(maximo, otro.maximo);
+        }
+    }
+
+    public void escribir(DataOutputStream salida) throws IOException {
+        comprimir();
+        salida.writeDouble(minimo);
+        salida.writeDouble(maximo);
+        salida.writeInt(centroides);
+        for (int i = 0; i < centroides; i++) {
+            salida.writeDouble(medias[i]);
+            salida.writeDouble(pesos[i]);
+        }
+    }
+
+    public static TDigest leer(DataInputStream entrada) throws IOException {
+        TDigest digest = new TDigest();
+        double minimo = entrada.readDouble();
+        double maximo = entrada.readDouble();
+        int centroides = entrada.readInt();
+        if (centroides < 0) {
+            throw new IOException("Número de centroides inválido: " + centroides);
+        }
+
+        for (int i = 0; i < centroides; i++) {
+            digest.anadir(entrada.readDouble(), entrada.readDouble());
+        }
+        digest.minimo = minimo;
+        digest.maximo = maximo;
+        digest.comprimir();
+        return digest;
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    /**
+     * Interpolación lineal entre los centros de los centroides; antes del primero y
+     * después del último, hacia el mínimo y el máximo.
+     */
+    private double interpolar(double q) {
+        // Posición buscada, en "valores" desde el principio
+        double indice = q * total;
+
+        // Antes del centro del primer centroide: entre el mínimo y su media
+        if (indice < pesos[0] / 2) {
+            return minimo + (medias[0] - minimo) * indice / (pesos[0] / 2);
+        }
+
+        // Entre los centros de dos centroides consecutivos: interpolación lineal
+        double acumulado = pesos[0] / 2;
+        for (int i = 0; i < centroides - 1; i++) {
+            double tramo = (pesos[i] + pesos[i + 1]) / 2;
+            if (indice < acumulado + tramo) {
+                double fraccion = (indice - acumulado) / tramo;
+                return medias[i] + (medias[i + 1] - medias[i]) * fraccion;
+            }
+            acumulado += tramo;
+        }
+
+        // Después del centro del último centroide: entre su media y el máximo
+        int ultimo = centroides - 1;
+        double fraccion = (indice - acumulado) / (pesos[ultimo] / 2);
+        return medias[ultimo] + (maximo - medias[ultimo]) * Math.min(1, fraccion);
+    }
+
+    private void anadir(double valor, double peso) {
+        if (Double.isNaN(valor)) {
+            throw new IllegalArgumentException("No se puede añadir NaN a un t-digest");
+        }
+        if (enBuffer == TAMANO_BUFFER) {
+            comprimir();
+        }
+        bufferMedias[enBuffer] = valor;
+        bufferPesos[enBuffer] = peso;
+        enBuffer++;
+
+        total += peso;
+        minimo = Math.min(minimo, valor);
+        maximo = Math.max(maximo, valor);
+    }
+
+    /**
+     * Ordena centroides + buffer por media y fusiona vecinos mientras el centroide
+     * resultante no supere el tamaño permitido en su cuantil.
+     */
+    private void comprimir() {
+        if (enBuffer == 0) {
+            return;
+        }
+
+        int n = centroides + enBuffer;
+        double[] todasMedias = Arrays.copyOf(medias, n);
+        double[] todosPesos = Arrays.copyOf(pesos, n);
+        System.arraycopy(bufferMedias, 0, todasMedias, centroides, enBuffer);
+        System.arraycopy(bufferPesos, 0, todosPesos, centroides, enBuffer);
+        enBuffer = 0;
+
+        Integer[] orden = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            orden[i] = i;
+        }
+        Arrays.sort(orden, (a, b) -> Double.compare(todasMedias[a], todasMedias[b]));
+
+        double[] nuevasMedias = new double[n];
+        double[] nuevosPesos = new double[n];
+        int nuevos = 0;
+
+        double pesoAnterior = 0;                       // peso de los centroides ya cerrados
+        double limite = limiteCuantil(0);
+
+        nuevasMedias[0] = todasMedias[orden[0]];
+        nuevosPesos[0] = todosPesos[orden[0]];
+
+        for (int i = 1; i < n; i++) {
+            double media = todasMedias[orden[i]];
+            double peso = todosPesos[orden[i]];
+
+            if ((pesoAnterior + nuevosPesos[nuevos] + peso) / total <= limite) {
+                // Cabe en el centroide actual: media ponderada
+                nuevosPesos[nuevos] += peso;
+                nuevasMedias[nuevos] += (media - nuevasMedias[nuevos]) * peso / nuevosPesos[nuevos];
+            } else {
+                pesoAnterior += nuevosPesos[nuevos];
+                limite = limiteCuantil(pesoAnterior / total);
+                nuevos++;
+                nuevasMedias[nuevos] = media;
+                nuevosPesos[nuevos] = peso;
+            }
+        }
+
+        centroides = nuevos + 1;
+        medias = Arrays.copyOf(nuevasMedias, centroides);
+        pesos = Arrays.copyOf(nuevosPesos, centroides);
+    }
+
+    /**
+     * Función de escala k1: k(q) = δ/2π · asin(2q − 1). Un centroide que empieza en q
+     * puede crecer hasta el cuantil donde k aumenta en 1.
+     */
+    private static double limiteCuantil(double q) {
+        double k = COMPRESION / (2 * Math.PI) * Math.asin(2 * q - 1);
+        double siguiente = Math.min(k + 1, COMPRESION / 4);
+        return (Math.sin(siguiente * 2 * Math.PI / COMPRESION) + 1) / 2;
+    }
+}
@@ -0,0 +1,180 @@
+package model;
+
+import database.CacheResultados;
+import database.TipoMotor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Clase DAO para la búsqueda de texto completo sobre el inventario.
+ *
+ * ¿CÓMO FUNCIONA?
+ * - La tabla coches_busqueda tiene una fila por coche con marca, modelo y extras en texto
+ * - SQLite: índice FTS5 (coches_busqueda_fts) mantenido por triggers, ordenado con bm25
+ * - MySQL: índice FULLTEXT en modo BOOLEAN, ordenado por relevancia
+ * - CocheDAO llama a indexar() / desindexar() en la MISMA transacción que el cambio del coche
+ *
+ * El texto del usuario ("seat leon gps") se parte en palabras y TODAS deben aparecer;
+ * la última se busca como prefijo para que funcione mientras se escribe ("seat le").
+ *
+ * IMPORTANTE (MySQL):
+ * Por defecto InnoDB ignora palabras de menos de 3 letras (innodb_ft_min_token_size)
+ * y las stopwords en inglés, así que "ds 3" no encuentra nada.
+ */
+public class BusquedaCocheDAO {
+
+    /**
+     * Busca coches por texto libre y devuelve las matrículas ordenadas por relevancia.
+     *
+     * @param con          Conexión activa
+     * @param texto        Texto libre, por ejemplo "seat leon gps"
+     * @param pagina       Número de página (empieza en 1)
+     * @param tamanoPagina Resultados por página
+     * @return matrículas de la página pedida (vacía si no hay coincidencias)
+     */
+    public static List<String> buscar(Connection con, String texto, int pagina, int tamanoPagina)
+            throws SQLException {
+
+        if (pagina < 1 || tamanoPagina < 1) {
+            throw new IllegalArgumentException("La página y su tamaño deben ser mayores que 0");
+        }
+
+        List<String> palabras = extraerPalabras(texto);
+        if (palabras.isEmpty()) {
+            return List.of();
+        }
+
+        boolean mysql = TipoMotor.detectar(con) == TipoMotor.MYSQL;
+        String sql = mysql
+                ? "SELECT matricula, MATCH(marca, modelo, extras) AGAINST (? IN BOOLEAN MODE) AS relevancia "
+                + "FROM coches_busqueda "
+                + "WHERE MATCH(marca, modelo, extras) AGAINST (? IN BOOLEAN MODE) "
+                + "ORDER BY relevancia DESC, matricula LIMIT ? OFFSET ?"
+                // bm25 con pesos por columna: coincidir en marca/modelo pesa más que en extras
+                : "SELECT b.matricula FROM coches_busqueda_fts f "
+                + "INNER JOIN coches_busqueda b ON b.id = f.rowid "
+                + "WHERE coches_busqueda_fts MATCH ? "
+                + "ORDER BY bm25(coches_busqueda_fts, 4.0, 2.0, 1.0), b.matricula LIMIT ? OFFSET ?";
+
+        String consulta = mysql ? consultaMySQL(palabras) : consultaFTS5(palabras);
+
+        return CacheResultados.obtener(con, sql, List.of(consulta, tamanoPagina, pagina), List.of("coches_busqueda"), () -> {
+            List<String> matriculas = new ArrayList<>();
+            try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+                int i = 1;
+                pstmt.setString(i++, consulta);
+                if (mysql) {
+                    pstmt.setString(i++, consulta);
+                }
+                pstmt.setInt(i++, tamanoPagina);
+                pstmt.setLong(i, (long) (pagina - 1) * tamanoPagina);
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        matriculas.add(rs.getString("matricula"));
+                    }
+                }
+            }
+            return List.copyOf(matriculas);
+        });
+    }
+
+    /**
+     * Da de alta o actualiza el texto buscable de un coche.
+     * Debe llamarse con la misma conexión (y transacción) que modificó el coche.
+     */
+    public static void indexar(Connection con, String matricula, String marca,
+                               String modelo, String extras) throws SQLException {
+
+        String sql = TipoMotor.detectar(con) == TipoMotor.MYSQL
+                ? "INSERT INTO coches_busqueda (matricula, marca, modelo, extras) VALUES (?, ?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE marca = VALUES(marca), modelo = VALUES(modelo), extras = VALUES(extras)"
+                // ON CONFLICT DO UPDATE (no INSERT OR REPLACE): así salta el trigger de UPDATE
+                : "INSERT INTO coches_busqueda (matricula, marca, modelo, extras) VALUES (?, ?, ?, ?) "
+                + "ON CONFLICT(matricula) DO UPDATE SET marca = excluded.marca, modelo = excluded.modelo, "
+                + "extras = excluded.extras";
+
+        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+            pstmt.setString(1, matricula);
+            pstmt.setString(2, marca);
+            pstmt.setString(3, modelo);
+            pstmt.setString(4, extras);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Quita un coche del índice de búsqueda.
+     */
+    public static void desindexar(Connection con, String matricula) throws SQLException {
+        String sql = "DELETE FROM coches_busqueda WHERE matricula = ?";
+
+        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+            pstmt.setString(1, matricula);
+            pstmt.executeUpdate();
+        }
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    /**
+     * Parte el texto en palabras (letras y dígitos). Todo lo demás (comillas,
+     * operadores, signos) se descarta, así el usuario no puede romper la sintaxis
+     * de MATCH.
+     */
+    static List<String> extraerPalabras(String texto) {
+        List<String> palabras = new ArrayList<>();
+        if (texto == null) {
+            return palabras;
+        }
+
+        for (String palabra : texto.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!palabra.isEmpty()) {
+                palabras.add(palabra);
+            }
+        }
+        return palabras;
+    }
+
+    /**
+     * "seat leon gps" → "seat" "leon" "gps"*  (FTS5: AND implícito, la última como prefijo)
+     */
+    private static String consultaFTS5(List<String> palabras) {
+        StringBuilder consulta = new StringBuilder();
+        for (int i = 0; i < palabras.size(); i++) {
+            if (i > 0) {
+                consulta.append(' ');
+            }
+            consulta.append('"').append(palabras.get(i)).append('"');
+            if (i == palabras.size() - 1) {
+                consulta.append('*');
+            }
+        }
+        return consulta.toString();
+    }
+
+    /**
+     * "seat leon gps" → +seat +leon +gps*  (BOOLEAN MODE: + obliga a que aparezca)
+     */
+    private static String consultaMySQL(List<String> palabras) {
+        StringBuilder consulta = new StringBuilder();
+        for (int i = 0; i < palabras.size(); i++) {
+            if (i > 0) {
+                consulta.append(' ');
+            }
+            consulta.append('+').append(palabras.get(i));
+            if (i == palabras.size() - 1) {
+                consulta.append('*');
+            }
+        }
+        return consulta.toString();
+    }
+}
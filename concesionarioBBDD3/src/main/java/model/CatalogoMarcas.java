@@ -0,0 +1,331 @@
+package model;
+
+import database.TipoMotor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Diccionario en memoria del catálogo de marcas y modelos.
+ *
+ * ¿POR QUÉ?
+ * La tabla coches guarda id_marca / id_modelo (enteros) en lugar de los textos.
+ * Hay pocas marcas y modelos, así que se cargan UNA vez en memoria y la
+ * traducción texto ↔ clave no necesita ir a la base de datos.
+ *
+ * ¿CÓMO FUNCIONA?
+ * - La primera llamada carga las tablas marcas y modelos completas
+ * - obtenerIdMarca() / obtenerIdModelo() devuelven la clave y, si el nombre
+ *   es nuevo, lo dan de alta en el catálogo (get-or-create)
+ * - nombreMarca() / nombreModelo() hacen la traducción inversa para los listados
+ * - Los nombres no distinguen mayúsculas ni espacios de los extremos ("seat " = "Seat"),
+ *   como la colación _ci de MySQL y COLLATE NOCASE en SQLite (V11): las claves de los
+ *   mapas se normalizan con clave() y se guarda el primer nombre dado de alta
+ * - Un alta hecha dentro de una transacción queda pendiente de esa conexión (solo ella
+ *   la ve) hasta confirmar(con), tras el commit; descartar(con) la olvida tras un rollback.
+ *   Así ninguna otra conexión recibe una clave que aún puede deshacerse.
+ *   Transaccion (CocheDAO) llama a los dos; en autocommit el alta se publica en el momento
+ *
+ * IMPORTANTE:
+ * - El alta se hace con la conexión recibida, dentro de la transacción de quien llama.
+ *   Quien confirma con con.commit() sin pasar por Transaccion deja sus altas pendientes:
+ *   siguen valiendo en esa conexión y las demás las leen de la BD cuando las necesitan
+ * - DatabaseManager invalida la caché al cerrar o cambiar de conexión.
+ */
+public class CatalogoMarcas {
+
+    // Altas confirmadas (o leídas de la BD), para todas las conexiones
+    private static final Diccionario catalogo = new Diccionario();
+
+    // Altas de transacciones aún abiertas, por conexión (por identidad, como CacheSentencias)
+    private static final Map<Connection, Diccionario> pendientes =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private static volatile boolean cargado = false;
+
+
+    /**
+     * Devuelve el id de la marca, dándola de alta si no existe.
+     */
+    public static int obtenerIdMarca(Connection con, String nombre) throws SQLException {
+        cargarSiHaceFalta(con);
+
+        Integer id = buscar(con, d -> d.idMarca(clave(nombre)));
+        if (id != null) {
+            return id;
+        }
+        return crearMarca(con, nombre);
+    }
+
+    /**
+     * Devuelve el id de un modelo de la marca indicada, dándolo de alta si no existe.
+     */
+    public static int obtenerIdModelo(Connection con, int idMarca, String nombre) throws SQLException {
+        cargarSiHaceFalta(con);
+
+        Integer id = buscar(con, d -> d.idModelo(idMarca, clave(nombre)));
+        if (id != null) {
+            return id;
+        }
+        return crearModelo(con, idMarca, nombre);
+    }
+
+    /**
+     * Busca el id de una marca SIN darla de alta (para filtros y consultas).
+     * @return el id, o null si la marca no está en el catálogo
+     */
+    public static Integer buscarIdMarca(Connection con, String nombre) throws SQLException {
+        cargarSiHaceFalta(con);
+
+        Integer id = buscar(con, d -> d.idMarca(clave(nombre)));
+        if (id == null) {
+            // Puede haberla creado otro proceso: recargamos una vez
+            recargar(con);
+            id = buscar(con, d -> d.idMarca(clave(nombre)));
+        }
+        return id;
+    }
+
+    /**
+     * Traduce un id_marca a su nombre.
+     */
+    public static String nombreMarca(Connection con, int idMarca) throws SQLException {
+        cargarSiHaceFalta(con);
+
+        String nombre = buscar(con, d -> d.nombresMarca.get(idMarca));
+        if (nombre == null) {
+            recargar(con);
+            nombre = buscar(con, d -> d.nombresMarca.get(idMarca));
+        }
+        return nombre == null ? "?" : nombre;
+    }
+
+    /**
+     * Traduce un id_modelo a su nombre.
+     */
+    public static String nombreModelo(Connection con, int idModelo) throws SQLException {
+        cargarSiHaceFalta(con);
+
+        String nombre = buscar(con, d -> d.nombresModelo.get(idModelo));
+        if (nombre == null) {
+            recargar(con);
+            nombre = buscar(con, d -> d.nombresModelo.get(idModelo));
+        }
+        return nombre == null ? "?" : nombre;
+    }
+
+    /**
+     * Publica las altas pendientes de la conexión. Se llama después de su commit.
+     */
+    public static synchronized void confirmar(Connection con) {
+        Diccionario altas = pendientes.remove(con);
+        if (altas != null && cargado) {
+            altas.copiarEn(catalogo);
+        }
+    }
+
+    /**
+     * Olvida las altas pendientes de la conexión (rollback, o conexión que se cierra).
+     */
+    public static void descartar(Connection con) {
+        pendientes.remove(con);
+    }
+
+    /**
+     * Vacía la caché: la siguiente llamada vuelve a cargar el catálogo.
+     * Las altas pendientes siguen siendo de sus transacciones.
+     */
+    public static synchronized void invalidar() {
+        cargado = false;
+        catalogo.vaciar();
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    private static void cargarSiHaceFalta(Connection con) throws SQLException {
+        if (!cargado) {
+            recargar(con);
+        }
+    }
+
+    /**
+     * Primero lo confirmado y después, si no está, lo pendiente de esta conexión.
+     */
+    private static <T> T buscar(Connection con, Function<Diccionario, T> consulta) {
+        T valor = consulta.apply(catalogo);
+        if (valor == null) {
+            Diccionario propias = pendientes.get(con);
+            if (propias != null) {
+                valor = consulta.apply(propias);
+            }
+        }
+        return valor;
+    }
+
+    /**
+     * Lee las dos tablas del catálogo completas (son pequeñas).
+     * Las filas que son altas pendientes de esta misma conexión siguen siendo solo suyas.
+     */
+    private static synchronized void recargar(Connection con) throws SQLException {
+        Diccionario propias = pendientes.get(con);
+
+        try (Statement stmt = con.createStatement()) {
+
+            try (ResultSet rs = stmt.executeQuery("SELECT id_marca, nombre FROM marcas")) {
+                while (rs.next()) {
+                    int id = rs.getInt(1);
+                    if (propias == null || !propias.nombresMarca.containsKey(id)) {
+                        catalogo.registrarMarca(id, rs.getString(2));
+                    }
+                }
+            }
+
+            try (ResultSet rs = stmt.executeQuery("SELECT id_modelo, id_marca, nombre FROM modelos")) {
+                while (rs.next()) {
+                    int id = rs.getInt(1);
+                    if (propias == null || !propias.nombresModelo.containsKey(id)) {
+                        catalogo.registrarModelo(id, rs.getInt(2), rs.getString(3));
+                    }
+                }
+            }
+        }
+        cargado = true;
+    }
+
+    /**
+     * Alta de una marca. INSERT OR IGNORE / INSERT IGNORE + SELECT: si otra
+     * conexión la creó a la vez no falla, simplemente se lee su id.
+     */
+    private static synchronized int crearMarca(Connection con, String nombre) throws SQLException {
+        Integer existente = buscar(con, d -> d.idMarca(clave(nombre)));
+        if (existente != null) {
+            return existente;
+        }
+        String nombreLimpio = nombre.trim();
+
+        String insertar = insertarIgnorando(con) + " INTO marcas (nombre) VALUES (?)";
+        try (PreparedStatement pstmt = con.prepareStatement(insertar)) {
+            pstmt.setString(1, nombreLimpio);
+            pstmt.executeUpdate();
+        }
+
+        try (PreparedStatement pstmt = con.prepareStatement("SELECT id_marca, nombre FROM marcas WHERE nombre = ?")) {
+            pstmt.setString(1, nombreLimpio);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("No se pudo dar de alta la marca: " + nombreLimpio);
+                }
+                int id = rs.getInt(1);
+                // El nombre guardado, que puede diferir en mayúsculas si ya existía
+                destino(con).registrarMarca(id, rs.getString(2));
+                return id;
+            }
+        }
+    }
+
+    private static synchronized int crearModelo(Connection con, int idMarca, String nombre) throws SQLException {
+        Integer existente = buscar(con, d -> d.idModelo(idMarca, clave(nombre)));
+        if (existente != null) {
+            return existente;
+        }
+        String nombreLimpio = nombre.trim();
+
+        String insertar = insertarIgnorando(con) + " INTO modelos (id_marca, nombre) VALUES (?, ?)";
+        try (PreparedStatement pstmt = con.prepareStatement(insertar)) {
+            pstmt.setInt(1, idMarca);
+            pstmt.setString(2, nombreLimpio);
+            pstmt.executeUpdate();
+        }
+
+        String sql = "SELECT id_modelo, nombre FROM modelos WHERE id_marca = ? AND nombre = ?";
+        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+            pstmt.setInt(1, idMarca);
+            pstmt.setString(2, nombreLimpio);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("No se pudo dar de alta el modelo: " + nombreLimpio);
+                }
+                int id = rs.getInt(1);
+                destino(con).registrarModelo(id, idMarca, rs.getString(2));
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Dónde se apunta un alta: en autocommit ya está confirmada; si no, queda pendiente
+     * de la transacción de la conexión. Puede que la fila ya existiera y confirmada
+     * (la creó otra conexión): en ese caso se publica más tarde, sin ningún riesgo.
+     */
+    private static Diccionario destino(Connection con) throws SQLException {
+        return con.getAutoCommit() ? catalogo : pendientes.computeIfAbsent(con, c -> new Diccionario());
+    }
+
+    private static String insertarIgnorando(Connection con) throws SQLException {
+        return TipoMotor.detectar(con) == TipoMotor.MYSQL ? "INSERT IGNORE" : "INSERT OR IGNORE";
+    }
+
+    /**
+     * Clave en memoria de un nombre: sin espacios en los extremos y en mayúsculas.
+     */
+    private static String clave(String nombre) {
+        return nombre.trim().toUpperCase(Locale.ROOT);
+    }
+
+
+    /**
+     * Los mapas de un catálogo: el confirmado o las altas pendientes de una conexión.
+     */
+    private static class Diccionario {
+        // clave(nombre) → id y id → nombre
+        private final Map<String, Integer> idsMarca = new ConcurrentHashMap<>();
+        private final Map<Integer, String> nombresMarca = new ConcurrentHashMap<>();
+
+        // (id_marca, clave(nombre)) → id_modelo y id_modelo → nombre
+        private final Map<Integer, Map<String, Integer>> idsModelo = new ConcurrentHashMap<>();
+        private final Map<Integer, String> nombresModelo = new ConcurrentHashMap<>();
+
+        Integer idMarca(String clave) {
+            return idsMarca.get(clave);
+        }
+
+        Integer idModelo(int idMarca, String clave) {
+            return idsModelo.getOrDefault(idMarca, Map.of()).get(clave);
+        }
+
+        void registrarMarca(int id, String nombre) {
+            idsMarca.put(clave(nombre), id);
+            nombresMarca.put(id, nombre);
+        }
+
+        void registrarModelo(int id, int idMarca, String nombre) {
+            idsModelo.computeIfAbsent(idMarca, k -> new ConcurrentHashMap<>()).put(clave(nombre), id);
+            nombresModelo.put(id, nombre);
+        }
+
+        void copiarEn(Diccionario otro) {
+            nombresMarca.forEach(otro::registrarMarca);
+            idsModelo.forEach((idMarca, modelos) ->
+                    modelos.values().forEach(id -> otro.registrarModelo(id, idMarca, nombresModelo.get(id))));
+        }
+
+        void vaciar() {
+            idsMarca.clear();
+            nombresMarca.clear();
+            idsModelo.clear();
+            nombresModelo.clear();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package model;
+
+/**
+ * Un coche tal y como lo devuelven las consultas (marca y modelo ya traducidos del catálogo).
+ *
+ * @param dniPropietario DNI del propietario actual, o null si está en el concesionario
+ */
+public record Coche(String matricula, String marca, String modelo, String extras,
+                    Dinero precio, String dniPropietario) {
+
+    public boolean enStock() {
+        return dniPropietario == null;
+    }
+}
@@ -1,6 +1,11 @@
 package model;
 
 
+import database.CacheSentencias;
+import database.PublicadorConsulta;
+import database.TipoMotor;
+import estadistica.ResumenAproximado;
+
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
@@ -9,12 +14,28 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.concurrent.Flow;
 
 /**
  * Clase DAO para gestionar las operaciones de la tabla coches
  */
 public class CocheDAO {
 
+    // Tablas que cambia cualquier alta, modificación o baja (ver CacheResultados)
+    // Todas las escrituras usan Transaccion: si quien llama ya tiene una transacción
+    // abierta se unen a ella y el commit lo hace él (con Transaccion.confirmar(con))
+    private static final String[] TABLAS_MODIFICADAS = {"coches", "coches_busqueda", "marcas", "modelos"};
+
+    /**
+     * Cómo terminó una escritura de insertar() / modificar() / borrar().
+     * Los errores de la BD no son un resultado: se lanzan como SQLException.
+     */
+    public enum Resultado {
+        HECHO,
+        MATRICULA_REPETIDA,
+        NO_EXISTE
+    }
+
     /**
      * Inserta un nuevo coche en la base de datos (sin propietario, pertenece al concesionario)
      *
@@ -23,33 +44,72 @@ public class CocheDAO {
      * @param marca     Marca del vehículo
      * @param modelo    Modelo del vehículo
      * @param extras    Equipamiento extra separado por |
-     * @param precio    Precio del vehículo
-     * @return true si se insertó correctamente, false si hubo error
+     * @param precio    Precio del vehículo (en céntimos, ver Dinero)
+     * @return true si se insertó correctamente, false si la matrícula ya existe o hubo error
      */
     public static boolean insertarCoche(Connection con, String matricula, String marca,
-                                        String modelo, String extras, double precio) {
+                                        String modelo, String extras, Dinero precio) {
+        try {
+            Resultado resultado = insertar(con, matricula, marca, modelo, extras, precio);
+            if (resultado == Resultado.MATRICULA_REPETIDA) {
+                System.err.println("Ya existe un coche con la matrícula: " + matricula);
+            }
+            return resultado == Resultado.HECHO;
 
-        String sql = "INSERT INTO coches (matricula, marca, modelo, extras, precio, id_propietario) VALUES (?, ?, ?, ?, ?, NULL)";
+        } catch (SQLException e) {
+            System.err.println("Error SQL al insertar coche: " + e.getMessage());
+            return false;
+        }
+    }
 
-        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+    /**
+     * Como insertarCoche, para quien tiene que distinguir el motivo (la API HTTP).
+     * @return HECHO, o MATRICULA_REPETIDA si ya hay un coche con esa matrícula
+     * @throws SQLException cualquier otro error (ya se ha hecho rollback)
+     */
+    public static Resultado insertar(Connection con, String matricula, String marca,
+                                     String modelo, String extras, Dinero precio) throws SQLException {
 
-            // Asignar valores a los parámetros
-            pstmt.setString(1, matricula);
-            pstmt.setString(2, marca);
-            pstmt.setString(3, modelo);
-            pstmt.setString(4, extras);
-            pstmt.setDouble(5, precio);
-            // El sexto parámetro (id_propietario) es NULL, ya está en el SQL
+        String sql = "INSERT INTO coches (matricula, id_marca, id_modelo, extras, precio_centimos, id_propietario) VALUES (?, ?, ?, ?, ?, NULL)";
+
+        Transaccion transaccion = null;
+        try {
+            // Coche e índice de búsqueda se escriben juntos o no se escribe ninguno
+            transaccion = Transaccion.empezar(con);
+
+            // Marca y modelo se guardan como claves del catálogo
+            int idMarca = CatalogoMarcas.obtenerIdMarca(con, marca);
+            int idModelo = CatalogoMarcas.obtenerIdModelo(con, idMarca, modelo);
 
-            // Ejecutar INSERT
-            int filasAfectadas = pstmt.executeUpdate();
+            try (PreparedStatement pstmt = con.prepareStatement(sql)) {
 
-            // Retornar true si se insertó al menos una fila
-            return filasAfectadas > 0;
+                // Asignar valores a los parámetros
+                pstmt.setString(1, matricula);
+                pstmt.setInt(2, idMarca);
+                pstmt.setInt(3, idModelo);
+                pstmt.setString(4, extras);
+                pstmt.setLong(5, precio.centimos());
+                // El sexto parámetro (id_propietario) es NULL, ya está en el SQL
+
+                // Ejecutar INSERT (una matrícula repetida salta como SQLException)
+                pstmt.executeUpdate();
+            }
+
+            BusquedaCocheDAO.indexar(con, matricula, marca, modelo, extras);
+
+            // Commit + alta en el índice de precios en memoria (o al commit de quien llama)
+            transaccion.precios().alta(idMarca, precio);
+            transaccion.tablasModificadas(TABLAS_MODIFICADAS);
+            transaccion.trasConfirmar(() -> EstadisticasAproximadas.registrarAlta(con, idModelo, extras, precio));
+            transaccion.confirmar();
+            return Resultado.HECHO;
 
         } catch (SQLException e) {
-            System.err.println("Error SQL al insertar coche: " + e.getMessage());
-            return false;
+            deshacer(transaccion);
+            if (esClaveRepetida(con, e)) {
+                return Resultado.MATRICULA_REPETIDA;
+            }
+            throw e;
         }
     }
 
@@ -65,11 +125,12 @@ public class CocheDAO {
      */
     public static boolean importarDesdeCsv(Connection con, String rutaCSV) {
 
-        String sql = "INSERT INTO coches (matricula, marca, modelo, extras, precio, id_propietario) VALUES (?, ?, ?, ?, ?, NULL)";
+        String sql = "INSERT INTO coches (matricula, id_marca, id_modelo, extras, precio_centimos, id_propietario) VALUES (?, ?, ?, ?, ?, NULL)";
 
+        Transaccion transaccion = null;
         try {
-            // Desactivar auto-commit para manejar transacción manualmente
-            con.setAutoCommit(false);
+            // Transacción propia, o un savepoint si quien llama ya tiene una abierta
+            transaccion = Transaccion.empezar(con);
 
             // Leer el archivo CSV
             BufferedReader br = new BufferedReader(new FileReader(rutaCSV));
@@ -78,6 +139,7 @@ public class CocheDAO {
             String lineaCabecera = br.readLine();
 
             PreparedStatement pstmt = con.prepareStatement(sql);
+            ResumenAproximado resumen = new ResumenAproximado();
             String linea;
             int contador = 0;
 
@@ -91,8 +153,7 @@ public class CocheDAO {
                     System.err.println("Línea inválida (se esperan 5 campos): " + linea);
                     br.close();
                     pstmt.close();
-                    con.rollback();
-                    con.setAutoCommit(true);
+                    deshacer(transaccion);
                     return false;
                 }
 
@@ -101,17 +162,24 @@ public class CocheDAO {
                 String marca = datos[1].trim();
                 String modelo = datos[2].trim();
                 String extras = datos[3].trim();
-                double precio = Double.parseDouble(datos[4].trim());
+                Dinero precio = Dinero.parse(datos[4]);
+
+                // Traducir marca y modelo a sus claves (en memoria salvo la primera vez)
+                int idMarca = CatalogoMarcas.obtenerIdMarca(con, marca);
+                int idModelo = CatalogoMarcas.obtenerIdModelo(con, idMarca, modelo);
 
                 // Asignar al PreparedStatement
                 pstmt.setString(1, matricula);
-                pstmt.setString(2, marca);
-                pstmt.setString(3, modelo);
+                pstmt.setInt(2, idMarca);
+                pstmt.setInt(3, idModelo);
                 pstmt.setString(4, extras);
-                pstmt.setDouble(5, precio);
+                pstmt.setLong(5, precio.centimos());
 
-                // Ejecutar INSERT
+                // Ejecutar INSERT y mantener el índice de búsqueda en la misma transacción
                 pstmt.executeUpdate();
+                BusquedaCocheDAO.indexar(con, matricula, marca, modelo, extras);
+                transaccion.precios().alta(idMarca, precio);
+                resumen.alta(idModelo, extras, precio.centimos());
                 contador++;
             }
 
@@ -119,51 +187,32 @@ public class CocheDAO {
             br.close();
             pstmt.close();
 
-            // Si llegamos aquí, t-do fue bien → COMMIT
-            con.commit();
-            con.setAutoCommit(true);
+            // Si llegamos aquí, t-do fue bien → COMMIT (y los precios entran al índice de una vez)
+            transaccion.tablasModificadas(TABLAS_MODIFICADAS);
+            transaccion.trasConfirmar(() -> EstadisticasAproximadas.registrar(con, resumen));
+            transaccion.confirmar();
 
             System.out.println("Se importaron " + contador + " coches correctamente");
             return true;
 
         } catch (FileNotFoundException e) {
             System.err.println("Error: No se encontró el archivo CSV: " + rutaCSV);
-            try {
-                con.rollback();
-                con.setAutoCommit(true);
-            } catch (SQLException ex) {
-                System.err.println("Error al hacer rollback: " + ex.getMessage());
-            }
+            deshacer(transaccion);
             return false;
 
         } catch (IOException e) {
             System.err.println("Error al leer el archivo CSV: " + e.getMessage());
-            try {
-                con.rollback();
-                con.setAutoCommit(true);
-            } catch (SQLException ex) {
-                System.err.println("Error al hacer rollback: " + ex.getMessage());
-            }
+            deshacer(transaccion);
             return false;
 
         } catch (NumberFormatException e) {
-            System.err.println("Error: El precio en el CSV no es un número válido");
-            try {
-                con.rollback();
-                con.setAutoCommit(true);
-            } catch (SQLException ex) {
-                System.err.println("Error al hacer rollback: " + ex.getMessage());
-            }
+            System.err.println("Error: El precio en el CSV no es un importe válido: " + e.getMessage());
+            deshacer(transaccion);
             return false;
 
         } catch (SQLException e) {
             System.err.println("Error SQL al importar CSV: " + e.getMessage());
-            try {
-                con.rollback();
-                con.setAutoCommit(true);
-            } catch (SQLException ex) {
-                System.err.println("Error al hacer rollback: " + ex.getMessage());
-            }
+            deshacer(transaccion);
             return false;
         }
     }
@@ -175,7 +224,7 @@ public class CocheDAO {
      * @param con Conexión activa
      */
     public static void listarCochesConcesionario(Connection con) {
-        String sql = "SELECT matricula, marca, modelo, extras, precio FROM coches WHERE id_propietario IS NULL";
+        String sql = "SELECT matricula, id_marca, id_modelo, extras, precio_centimos FROM coches WHERE id_propietario IS NULL";
 
         try (PreparedStatement pstmt = con.prepareStatement(sql);
              ResultSet rs = pstmt.executeQuery()) {
@@ -192,12 +241,12 @@ public class CocheDAO {
                 hayCoches = true;
 
                 String matricula = rs.getString("matricula");
-                String marca = rs.getString("marca");
-                String modelo = rs.getString("modelo");
+                String marca = CatalogoMarcas.nombreMarca(con, rs.getInt("id_marca"));
+                String modelo = CatalogoMarcas.nombreModelo(con, rs.getInt("id_modelo"));
                 String extras = rs.getString("extras");
-                double precio = rs.getDouble("precio");
+                Dinero precio = Dinero.deCentimos(rs.getLong("precio_centimos"));
 
-                System.out.printf("%-12s %-15s %-15s %-35s %10.2f€%n",
+                System.out.printf("%-12s %-15s %-15s %-35s %10s€%n",
                         matricula, marca, modelo, extras, precio);
             }
 
@@ -220,7 +269,7 @@ public class CocheDAO {
      * @param con Conexión activa
      */
     public static void listarCochesPropietarios(Connection con) {
-        String sql = "SELECT c.matricula, c.marca, c.modelo, c.precio, " +
+        String sql = "SELECT c.matricula, c.id_marca, c.id_modelo, c.precio_centimos, " +
                 "p.dni, p.nombre, p.apellidos " +
                 "FROM coches c " +
                 "INNER JOIN propietarios p ON c.id_propietario = p.id_propietario " +
@@ -242,14 +291,14 @@ public class CocheDAO {
                 hayCoches = true;
 
                 String matricula = rs.getString("matricula");
-                String marca = rs.getString("marca");
-                String modelo = rs.getString("modelo");
-                double precio = rs.getDouble("precio");
+                String marca = CatalogoMarcas.nombreMarca(con, rs.getInt("id_marca"));
+                String modelo = CatalogoMarcas.nombreModelo(con, rs.getInt("id_modelo"));
+                Dinero precio = Dinero.deCentimos(rs.getLong("precio_centimos"));
                 String dni = rs.getString("dni");
                 String nombre = rs.getString("nombre");
                 String apellidos = rs.getString("apellidos");
 
-                System.out.printf("%-12s %-15s %-15s %10.2f€ | %-12s %-20s %-20s%n",
+                System.out.printf("%-12s %-15s %-15s %10s€ | %-12s %-20s %-20s%n",
                         matricula, marca, modelo, precio,
                         dni, nombre, apellidos);
             }
@@ -266,6 +315,40 @@ public class CocheDAO {
     }
 
 
+    /**
+     * Todos los coches (o solo los del concesionario / los vendidos) como un Flow.Publisher,
+     * en orden de matrícula. Las filas se leen a medida que el suscriptor las pide
+     * (ver PublicadorConsulta): sirve para listados y exportaciones de cualquier tamaño.
+     *
+     * La marca y el modelo salen del JOIN con el catálogo y no de CatalogoMarcas:
+     * en MySQL la conexión no admite otras consultas mientras dura el recorrido.
+     *
+     * @param con    Conexión que se usará durante toda la suscripción
+     * @param estado TODOS, EN_STOCK o VENDIDOS
+     */
+    public static Flow.Publisher<Coche> publicarCoches(Connection con, ConsultaCoches.Estado estado) {
+        String sql = "SELECT c.matricula, m.nombre AS marca, mo.nombre AS modelo, c.extras, c.precio_centimos, p.dni "
+                + "FROM coches c "
+                + "INNER JOIN marcas m ON m.id_marca = c.id_marca "
+                + "INNER JOIN modelos mo ON mo.id_modelo = c.id_modelo "
+                + "LEFT JOIN propietarios p ON p.id_propietario = c.id_propietario "
+                + switch (estado) {
+                    case TODOS -> "";
+                    case EN_STOCK -> "WHERE c.id_propietario IS NULL ";
+                    case VENDIDOS -> "WHERE c.id_propietario IS NOT NULL ";
+                }
+                + "ORDER BY c.matricula";
+
+        return new PublicadorConsulta<>(con, sql, null, rs -> new Coche(
+                rs.getString("matricula"),
+                rs.getString("marca"),
+                rs.getString("modelo"),
+                rs.getString("extras"),
+                Dinero.deCentimos(rs.getLong("precio_centimos")),
+                rs.getString("dni")));
+    }
+
+
 
 
 
@@ -281,33 +364,72 @@ public class CocheDAO {
      * @return true si se modificó correctamente, false si no existe o hubo error
      */
     public static boolean modificarCoche(Connection con, String matricula, String marca,
-                                         String modelo, String extras, double precio) {
+                                         String modelo, String extras, Dinero precio) {
+        try {
+            Resultado resultado = modificar(con, matricula, marca, modelo, extras, precio);
+            if (resultado == Resultado.NO_EXISTE) {
+                System.err.println("No existe ningún coche con la matrícula: " + matricula);
+            }
+            return resultado == Resultado.HECHO;
 
-        String sql = "UPDATE coches SET marca = ?, modelo = ?, extras = ?, precio = ? WHERE matricula = ?";
+        } catch (SQLException e) {
+            System.err.println("Error SQL al modificar coche: " + e.getMessage());
+            return false;
+        }
+    }
 
-        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+    /**
+     * Como modificarCoche, para quien tiene que distinguir el motivo (la API HTTP).
+     * @return HECHO, o NO_EXISTE si no hay ningún coche con esa matrícula
+     * @throws SQLException cualquier otro error (ya se ha hecho rollback)
+     */
+    public static Resultado modificar(Connection con, String matricula, String marca,
+                                      String modelo, String extras, Dinero precio) throws SQLException {
 
-            // Asignar valores a los parámetros
-            pstmt.setString(1, marca);
-            pstmt.setString(2, modelo);
-            pstmt.setString(3, extras);
-            pstmt.setDouble(4, precio);
-            pstmt.setString(5, matricula);
+        String sql = "UPDATE coches SET id_marca = ?, id_modelo = ?, extras = ?, precio_centimos = ? WHERE matricula = ?";
 
-            // Ejecutar UPDATE
-            int filasAfectadas = pstmt.executeUpdate();
+        Transaccion transaccion = null;
+        try {
+            transaccion = Transaccion.empezar(con);
+
+            int idMarca = CatalogoMarcas.obtenerIdMarca(con, marca);
+            int idModelo = CatalogoMarcas.obtenerIdModelo(con, idMarca, modelo);
+
+            // El precio anterior sale del índice de precios y entra el nuevo
+            IndicePrecios.Cambios cambios = transaccion.precios();
+            anotarBaja(con, matricula, cambios);
+            cambios.alta(idMarca, precio);
+
+            int filasAfectadas;
+            try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+
+                // Asignar valores a los parámetros
+                pstmt.setInt(1, idMarca);
+                pstmt.setInt(2, idModelo);
+                pstmt.setString(3, extras);
+                pstmt.setLong(4, precio.centimos());
+                pstmt.setString(5, matricula);
+
+                // Ejecutar UPDATE
+                filasAfectadas = pstmt.executeUpdate();
+            }
 
             // Si filasAfectadas = 0, significa que no existe un coche con esa matrícula
             if (filasAfectadas == 0) {
-                System.err.println("No existe ningún coche con la matrícula: " + matricula);
-                return false;
+                deshacer(transaccion);
+                return Resultado.NO_EXISTE;
             }
 
-            return true;
+            BusquedaCocheDAO.indexar(con, matricula, marca, modelo, extras);
+
+            transaccion.tablasModificadas(TABLAS_MODIFICADAS);
+            transaccion.trasConfirmar(() -> EstadisticasAproximadas.registrarModificacion(con, idModelo));
+            transaccion.confirmar();
+            return Resultado.HECHO;
 
         } catch (SQLException e) {
-            System.err.println("Error SQL al modificar coche: " + e.getMessage());
-            return false;
+            deshacer(transaccion);
+            throw e;
         }
     }
 
@@ -318,7 +440,7 @@ public class CocheDAO {
      * @return true si existe, false si no existe
      */
     public static boolean mostrarCoche(Connection con, String matricula) {
-        String sql = "SELECT matricula, marca, modelo, extras, precio FROM coches WHERE matricula = ?";
+        String sql = "SELECT matricula, id_marca, id_modelo, extras, precio_centimos FROM coches WHERE matricula = ?";
 
         try (PreparedStatement pstmt = con.prepareStatement(sql)) {
             pstmt.setString(1, matricula);
@@ -327,10 +449,10 @@ public class CocheDAO {
                 if (rs.next()) {
                     System.out.println("\n--- DATOS ACTUALES ---");
                     System.out.println("Matrícula: " + rs.getString("matricula"));
-                    System.out.println("Marca: " + rs.getString("marca"));
-                    System.out.println("Modelo: " + rs.getString("modelo"));
+                    System.out.println("Marca: " + CatalogoMarcas.nombreMarca(con, rs.getInt("id_marca")));
+                    System.out.println("Modelo: " + CatalogoMarcas.nombreModelo(con, rs.getInt("id_modelo")));
                     System.out.println("Extras: " + rs.getString("extras"));
-                    System.out.println("Precio: " + rs.getDouble("precio") + "€");
+                    System.out.println("Precio: " + Dinero.deCentimos(rs.getLong("precio_centimos")) + "€");
                     System.out.println("----------------------\n");
                     return true;
                 } else {
@@ -345,6 +467,34 @@ public class CocheDAO {
         }
     }
 
+    /**
+     * Busca un coche por su matrícula
+     * @param con Conexión activa
+     * @param matricula Matrícula del coche
+     * @return el coche, o null si no existe
+     */
+    public static Coche obtenerCoche(Connection con, String matricula) throws SQLException {
+        String sql = "SELECT c.matricula, c.id_marca, c.id_modelo, c.extras, c.precio_centimos, p.dni "
+                + "FROM coches c LEFT JOIN propietarios p ON p.id_propietario = c.id_propietario "
+                + "WHERE c.matricula = ?";
+
+        PreparedStatement pstmt = CacheSentencias.preparar(con, sql);
+        pstmt.setString(1, matricula);
+
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (!rs.next()) {
+                return null;
+            }
+            return new Coche(
+                    rs.getString("matricula"),
+                    CatalogoMarcas.nombreMarca(con, rs.getInt("id_marca")),
+                    CatalogoMarcas.nombreModelo(con, rs.getInt("id_modelo")),
+                    rs.getString("extras"),
+                    Dinero.deCentimos(rs.getLong("precio_centimos")),
+                    rs.getString("dni"));
+        }
+    }
+
 
 
     /**
@@ -354,28 +504,103 @@ public class CocheDAO {
      * @return true si se eliminó correctamente, false si no existe o hubo error
      */
     public static boolean borrarCoche(Connection con, String matricula) {
+        try {
+            Resultado resultado = borrar(con, matricula);
+            if (resultado == Resultado.NO_EXISTE) {
+                System.err.println("No existe ningún coche con la matrícula: " + matricula);
+            }
+            return resultado == Resultado.HECHO;
+
+        } catch (SQLException e) {
+            System.err.println("Error SQL al borrar coche: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Como borrarCoche, para quien tiene que distinguir el motivo (la API HTTP).
+     * @return HECHO, o NO_EXISTE si no hay ningún coche con esa matrícula
+     * @throws SQLException cualquier otro error (ya se ha hecho rollback)
+     */
+    public static Resultado borrar(Connection con, String matricula) throws SQLException {
 
         String sql = "DELETE FROM coches WHERE matricula = ?";
 
-        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+        Transaccion transaccion = null;
+        try {
+            transaccion = Transaccion.empezar(con);
 
-            // Asignar matrícula al parámetro
-            pstmt.setString(1, matricula);
+            anotarBaja(con, matricula, transaccion.precios());
 
-            // Ejecutar DELETE
-            int filasAfectadas = pstmt.executeUpdate();
+            int filasAfectadas;
+            try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+
+                // Asignar matrícula al parámetro
+                pstmt.setString(1, matricula);
+
+                // Ejecutar DELETE
+                filasAfectadas = pstmt.executeUpdate();
+            }
 
             // Si filasAfectadas = 0, significa que no existe un coche con esa matrícula
             if (filasAfectadas == 0) {
-                System.err.println("No existe ningún coche con la matrícula: " + matricula);
-                return false;
+                deshacer(transaccion);
+                return Resultado.NO_EXISTE;
             }
 
-            return true;
+            BusquedaCocheDAO.desindexar(con, matricula);
+
+            transaccion.tablasModificadas(TABLAS_MODIFICADAS);
+            transaccion.trasConfirmar(() -> EstadisticasAproximadas.registrarBaja(con));
+            transaccion.confirmar();
+            return Resultado.HECHO;
 
         } catch (SQLException e) {
-            System.err.println("Error SQL al borrar coche: " + e.getMessage());
-            return false;
+            deshacer(transaccion);
+            throw e;
+        }
+    }
+
+
+    /**
+     * Anota como baja en el índice de precios la marca y el precio que tiene ahora un coche.
+     * Se lee dentro de la transacción, antes del UPDATE/DELETE.
+     */
+    private static void anotarBaja(Connection con, String matricula,
+                                   IndicePrecios.Cambios cambios) throws SQLException {
+        String sql = "SELECT id_marca, precio_centimos FROM coches WHERE matricula = ?";
+
+        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+            pstmt.setString(1, matricula);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    cambios.baja(rs.getInt("id_marca"), Dinero.deCentimos(rs.getLong("precio_centimos")));
+                }
+            }
+        }
+    }
+
+    /**
+     * ¿El error es una clave única repetida? MySQL: código 1062 (ER_DUP_ENTRY).
+     * SQLite: SQLITE_CONSTRAINT (19) con "UNIQUE constraint failed" (también para la PRIMARY KEY).
+     * Otras restricciones (NOT NULL, CHECK, claves ajenas) no cuentan: son errores.
+     */
+    private static boolean esClaveRepetida(Connection con, SQLException e) throws SQLException {
+        if (TipoMotor.detectar(con) == TipoMotor.MYSQL) {
+            return e.getErrorCode() == 1062;
+        }
+        return e.getErrorCode() == 19 && e.getMessage() != null
+                && e.getMessage().contains("UNIQUE constraint failed");
+    }
+
+    /**
+     * Deshace lo que hizo el DAO tras un error (ver Transaccion.deshacer).
+     * null = falló al empezar y no hay nada que deshacer.
+     */
+    private static void deshacer(Transaccion transaccion) {
+        if (transaccion != null) {
+            transaccion.deshacer();
         }
     }
 
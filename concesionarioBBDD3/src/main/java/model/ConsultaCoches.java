@@ -0,0 +1,409 @@
+package model;
+
+import database.CacheResultados;
+import database.CacheSentencias;
+import database.TipoMotor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Consulta del inventario con filtros combinables (constructor fluido).
+ *
+ * EJEMPLO:
+ *   ConsultaCoches consulta = ConsultaCoches.nueva()
+ *           .marca("Seat")
+ *           .precioEntre(Dinero.parse("15000"), Dinero.parse("20000"))
+ *           .enStock()
+ *           .conExtra("GPS")
+ *           .limite(50);
+ *   List<Coche> pagina = consulta.ejecutar(con);
+ *
+ *   // Página siguiente (paginación por clave, sin OFFSET)
+ *   consulta.despuesDe(pagina.get(pagina.size() - 1)).ejecutar(con);
+ *
+ * ¿CÓMO GENERA EL SQL?
+ * - Solo se añaden los predicados de los filtros usados, siempre con parámetros (?)
+ * - El orden de los resultados se elige para que coincida con el índice que sirve al filtro
+ *   (ver migración V5), así el motor lee ya ordenado y para al llenar la página:
+ *     · con filtro de precio → ORDER BY precio, matrícula  (idx_coches_marca_precio / idx_coches_precio)
+ *     · sin filtro de precio → ORDER BY matrícula          (idx_coches_marca / idx_coches_propietario / PK)
+ * - El orden de los predicados en el WHERE no cambia el plan (SQLite y MySQL eligen el índice
+ *   por su cuenta): se escriben agrupados por filtro solo para que el SQL se lea mejor
+ * - "Vendidos" (≈ la mitad del inventario) no compensa buscarlo por índice:
+ *   se anula con +c.id_propietario y se recorre en orden de matrícula
+ * - Extras: si hay otro filtro indexado se comprueban sobre sus filas. Si son el único filtro,
+ *   en SQLite se elige por coste con una muestra al azar: un extra raro se busca en el índice
+ *   de texto completo (V4); uno muy común, recorriendo coches en orden hasta llenar la página.
+ *   En MySQL no hay forma barata de sacar una muestra al azar y se usa siempre el FULLTEXT
+ * - La unión con propietarios es INNER si el filtro exige propietario y LEFT si no
+ *
+ * El SQL depende solo de QUÉ filtros se usan (la "forma"), no de sus valores,
+ * así que cada forma se prepara una vez por conexión (CacheSentencias). Los resultados
+ * (SQL + valores) se guardan en CacheResultados hasta que cambian las tablas consultadas.
+ */
+public class ConsultaCoches {
+
+    public enum Estado { TODOS, EN_STOCK, VENDIDOS }
+
+    private String marca;
+    private Dinero precioMinimo;
+    private Dinero precioMaximo;
+    private Estado estado = Estado.TODOS;
+    private String dniPropietario;
+    private final List<String> extras = new ArrayList<>();
+    private Coche despuesDe;
+    private int limite = 50;
+
+    // Filas al azar de coches_busqueda que se miran para estimar lo comunes que son unos extras
+    private static final int MUESTRA_EXTRAS = 200;
+
+    private static final List<String> TABLAS_CONSULTADAS =
+            List.of("coches", "propietarios", "marcas", "modelos", "coches_busqueda");
+
+
+    private ConsultaCoches() {
+    }
+
+    public static ConsultaCoches nueva() {
+        return new ConsultaCoches();
+    }
+
+
+    // ============================================
+    // FILTROS
+    // ============================================
+
+    public ConsultaCoches marca(String marca) {
+        this.marca = marca;
+        return this;
+    }
+
+    public ConsultaCoches precioDesde(Dinero minimo) {
+        this.precioMinimo = minimo;
+        return this;
+    }
+
+    public ConsultaCoches precioHasta(Dinero maximo) {
+        this.precioMaximo = maximo;
+        return this;
+    }
+
+    public ConsultaCoches precioEntre(Dinero minimo, Dinero maximo) {
+        return precioDesde(minimo).precioHasta(maximo);
+    }
+
+    public ConsultaCoches estado(Estado estado) {
+        this.estado = estado;
+        return this;
+    }
+
+    /** Solo coches del concesionario (sin propietario). */
+    public ConsultaCoches enStock() {
+        this.estado = Estado.EN_STOCK;
+        return this;
+    }
+
+    /** Solo coches vendidos (con propietario). */
+    public ConsultaCoches vendidos() {
+        this.estado = Estado.VENDIDOS;
+        return this;
+    }
+
+    /** Solo coches del propietario con ese DNI. */
+    public ConsultaCoches propietario(String dni) {
+        this.dniPropietario = dni;
+        return this;
+    }
+
+    /** El coche debe tener este extra (se puede llamar varias veces: deben estar todos). */
+    public ConsultaCoches conExtra(String extra) {
+        this.extras.add(extra);
+        return this;
+    }
+
+    /** Paginación por clave: devuelve los coches que van detrás de este (el último de la página anterior). */
+    public ConsultaCoches despuesDe(Coche ultimo) {
+        this.despuesDe = ultimo;
+        return this;
+    }
+
+    public ConsultaCoches limite(int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser mayor que 0");
+        }
+        this.limite = limite;
+        return this;
+    }
+
+
+    // ============================================
+    // EJECUCIÓN
+    // ============================================
+
+    /**
+     * Ejecuta la consulta y devuelve como mucho 'limite' coches
+     * (ordenados por precio y matrícula si se filtra por precio, por matrícula si no).
+     */
+    public List<Coche> ejecutar(Connection con) throws SQLException {
+        List<Object> parametros = new ArrayList<>();
+        String sql = generarSQL(con, parametros);
+        if (sql == null) {
+            return List.of();
+        }
+
+        // La misma página con los mismos filtros no se vuelve a consultar hasta que cambien las tablas
+        return CacheResultados.obtener(con, sql, parametros, TABLAS_CONSULTADAS, () -> {
+            List<Coche> coches = new ArrayList<>();
+            PreparedStatement pstmt = CacheSentencias.preparar(con, sql);
+            asignarParametros(pstmt, parametros);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    coches.add(new Coche(
+                            rs.getString("matricula"),
+                            CatalogoMarcas.nombreMarca(con, rs.getInt("id_marca")),
+                            CatalogoMarcas.nombreModelo(con, rs.getInt("id_modelo")),
+                            rs.getString("extras"),
+                            Dinero.deCentimos(rs.getLong("precio_centimos")),
+                            rs.getString("dni")));
+                }
+            }
+            return List.copyOf(coches);
+        });
+    }
+
+    /**
+     * Plan de ejecución de la consulta con los filtros actuales, una línea por paso
+     * (EXPLAIN QUERY PLAN en SQLite, EXPLAIN en MySQL). Sirve para comprobar qué índice se usa.
+     */
+    public List<String> explicar(Connection con) throws SQLException {
+        List<String> plan = new ArrayList<>();
+
+        List<Object> parametros = new ArrayList<>();
+        String sql = generarSQL(con, parametros);
+        if (sql == null) {
+            plan.add("La marca " + marca + " no está en el catálogo: no se consulta la BD");
+            return plan;
+        }
+
+        boolean sqlite = TipoMotor.detectar(con) == TipoMotor.SQLITE;
+        try (PreparedStatement pstmt = con.prepareStatement((sqlite ? "EXPLAIN QUERY PLAN " : "EXPLAIN ") + sql)) {
+            asignarParametros(pstmt, parametros);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (sqlite) {
+                        plan.add(rs.getString("detail"));
+                    } else {
+                        plan.add(rs.getString("table") + ": " + rs.getString("type")
+                                + ", índice " + rs.getString("key") + ", ~" + rs.getString("rows") + " filas"
+                                + (rs.getString("Extra") == null ? "" : " (" + rs.getString("Extra") + ")"));
+                    }
+                }
+            }
+        }
+        return plan;
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (generación del SQL)
+    // ============================================
+
+    private boolean ordenPorPrecio() {
+        return precioMinimo != null || precioMaximo != null;
+    }
+
+    private static void asignarParametros(PreparedStatement pstmt, List<Object> parametros) throws SQLException {
+        for (int i = 0; i < parametros.size(); i++) {
+            pstmt.setObject(i + 1, parametros.get(i));
+        }
+    }
+
+    /**
+     * Genera el SQL y rellena sus parámetros. Es de paquete para poder probar el SQL generado.
+     * @return el SQL, o null si la marca no existe (no puede haber resultados)
+     */
+    String generarSQL(Connection con, List<Object> parametros) throws SQLException {
+        Integer idMarca = null;
+        if (marca != null) {
+            idMarca = CatalogoMarcas.buscarIdMarca(con, marca);
+            if (idMarca == null) {
+                return null;
+            }
+        }
+
+        TipoMotor motor = TipoMotor.detectar(con);
+        List<String> predicados = new ArrayList<>();
+
+        // 1. Propietario concreto: índice UNIQUE de dni → (id_propietario, matricula)
+        if (dniPropietario != null) {
+            predicados.add("p.dni = ?");
+            parametros.add(dniPropietario);
+        }
+
+        // 2. Marca y precio (idx_coches_marca_precio / idx_coches_precio)
+        if (idMarca != null) {
+            predicados.add("c.id_marca = ?");
+            parametros.add(idMarca);
+        }
+        if (precioMinimo != null) {
+            predicados.add("c.precio_centimos >= ?");
+            parametros.add(precioMinimo.centimos());
+        }
+        if (precioMaximo != null) {
+            predicados.add("c.precio_centimos <= ?");
+            parametros.add(precioMaximo.centimos());
+        }
+
+        // 3. Estado (el filtro por DNI ya implica que está vendido)
+        if (estado == Estado.EN_STOCK) {
+            predicados.add("c.id_propietario IS NULL");
+        } else if (estado == Estado.VENDIDOS && dniPropietario == null) {
+            predicados.add("+c.id_propietario IS NOT NULL");
+        }
+
+        // 4. Clave de página: continúa justo detrás del último coche devuelto
+        if (despuesDe != null) {
+            if (ordenPorPrecio()) {
+                predicados.add("(c.precio_centimos > ? OR (c.precio_centimos = ? AND c.matricula > ?))");
+                parametros.add(despuesDe.precio().centimos());
+                parametros.add(despuesDe.precio().centimos());
+            } else {
+                predicados.add("c.matricula > ?");
+            }
+            parametros.add(despuesDe.matricula());
+        }
+
+        // 5. Extras: no hay índice B-tree que los sirva
+        if (!extras.isEmpty()) {
+            boolean hayFiltroIndexado = dniPropietario != null || idMarca != null
+                    || ordenPorPrecio() || estado == Estado.EN_STOCK;
+
+            if (hayFiltroIndexado || (motor == TipoMotor.SQLITE && extrasMuyComunes(con, motor))) {
+                predicados.addAll(predicadosExtrasSobreFilas(motor, parametros));
+            } else {
+                predicados.add(predicadoExtrasTextoCompleto(motor, parametros));
+            }
+        }
+
+        boolean exigePropietario = dniPropietario != null || estado == Estado.VENDIDOS;
+
+        StringBuilder sql = new StringBuilder()
+                .append("SELECT c.matricula, c.id_marca, c.id_modelo, c.extras, c.precio_centimos, p.dni ")
+                .append("FROM coches c ")
+                .append(exigePropietario ? "INNER JOIN" : "LEFT JOIN")
+                .append(" propietarios p ON p.id_propietario = c.id_propietario");
+
+        if (!predicados.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", predicados));
+        }
+
+        sql.append(ordenPorPrecio() ? " ORDER BY c.precio_centimos, c.matricula" : " ORDER BY c.matricula");
+        sql.append(" LIMIT ?");
+        parametros.add(limite);
+
+        return sql.toString();
+    }
+
+    /**
+     * ¿Sale más barato recorrer coches en orden comprobando los extras que buscarlos
+     * en el índice de texto completo? (solo SQLite)
+     *
+     * Con s = fracción de coches que tienen los extras y N = total de coches:
+     * - Por el índice se leen TODAS las coincidencias (s × N filas) y luego se ordenan
+     * - Recorriendo en orden se leen unas limite / s filas hasta llenar la página
+     * Compensa recorrer cuando s² × N > limite.
+     *
+     * s se estima con MUESTRA_EXTRAS ids al azar entre 1 y MAX(id) de coches_busqueda: cada uno
+     * es una búsqueda por clave, y no se miran siempre las mismas filas (las primeras son los
+     * coches más antiguos, que no tienen por qué parecerse al resto). Los ids que ya no existen
+     * (coches borrados) simplemente no cuentan.
+     */
+    private boolean extrasMuyComunes(Connection con, TipoMotor motor) throws SQLException {
+        long total;
+        // MAX(id) en lugar de COUNT(*): es inmediato y basta como estimación
+        PreparedStatement pstmtTotal = CacheSentencias.preparar(con, "SELECT MAX(id) FROM coches_busqueda");
+        try (ResultSet rs = pstmtTotal.executeQuery()) {
+            total = rs.next() ? rs.getLong(1) : 0;
+        }
+        if (total == 0) {
+            return false;
+        }
+
+        List<Object> parametros = new ArrayList<>();
+        String predicados = String.join(" AND ", predicadosExtrasSobreFilas(motor, parametros));
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < MUESTRA_EXTRAS; i++) {
+            parametros.add(random.nextLong(1, total + 1));
+        }
+        String sqlMuestra = "SELECT COUNT(*), SUM(CASE WHEN " + predicados + " THEN 1 ELSE 0 END) "
+                + "FROM coches_busqueda b INNER JOIN coches c ON c.matricula = b.matricula "
+                + "WHERE b.id IN (" + String.join(", ", Collections.nCopies(MUESTRA_EXTRAS, "?")) + ")";
+
+        PreparedStatement pstmt = CacheSentencias.preparar(con, sqlMuestra);
+        asignarParametros(pstmt, parametros);
+
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (!rs.next() || rs.getLong(1) == 0) {
+                return false;
+            }
+            double s = (double) rs.getLong(2) / rs.getLong(1);
+            return s * s * total > limite;
+        }
+    }
+
+    /**
+     * Un predicado por extra sobre las filas que recorre el motor: el extra debe
+     * aparecer completo entre los separadores | (GPS no encaja con "GPS Pro").
+     */
+    private List<String> predicadosExtrasSobreFilas(TipoMotor motor, List<Object> parametros) {
+        String lista = motor == TipoMotor.MYSQL ? "CONCAT('|', c.extras, '|')" : "('|' || c.extras || '|')";
+
+        List<String> predicados = new ArrayList<>();
+        for (String extra : extras) {
+            predicados.add(lista + " LIKE ? ESCAPE '!'");
+            parametros.add("%|" + extra.trim().replace("!", "!!").replace("%", "!%").replace("_", "!_") + "|%");
+        }
+        return predicados;
+    }
+
+    /**
+     * Extras como único filtro: se buscan en el índice de texto completo.
+     * SQLite: una consulta FTS5 limitada a la columna extras → extras : ("gps" AND "abs")
+     * MySQL:  FULLTEXT en BOOLEAN MODE (+"gps" +"abs"); el índice cubre también marca y modelo
+     * En los dos el índice encuentra palabras, no extras completos ("gps" también está en
+     * "GPS Pro"): además se comprueba cada extra sobre las filas encontradas, así el
+     * resultado es el mismo que con predicadosExtrasSobreFilas
+     */
+    private String predicadoExtrasTextoCompleto(TipoMotor motor, List<Object> parametros) {
+        if (motor == TipoMotor.SQLITE) {
+            List<String> frases = new ArrayList<>();
+            for (String extra : extras) {
+                frases.add('"' + extra.trim().replace("\"", "\"\"") + '"');
+            }
+            parametros.add("extras : (" + String.join(" AND ", frases) + ")");
+
+            return "c.matricula IN (SELECT b.matricula FROM coches_busqueda_fts f "
+                    + "INNER JOIN coches_busqueda b ON b.id = f.rowid WHERE coches_busqueda_fts MATCH ?)"
+                    + " AND " + String.join(" AND ", predicadosExtrasSobreFilas(motor, parametros));
+        }
+
+        List<String> frases = new ArrayList<>();
+        for (String extra : extras) {
+            frases.add("+\"" + extra.trim().replace("\"", "") + '"');
+        }
+        parametros.add(String.join(" ", frases));
+
+        return "c.matricula IN (SELECT b.matricula FROM coches_busqueda b "
+                + "WHERE MATCH(b.marca, b.modelo, b.extras) AGAINST (? IN BOOLEAN MODE))"
+                + " AND " + String.join(" AND ", predicadosExtrasSobreFilas(motor, parametros));
+    }
+}
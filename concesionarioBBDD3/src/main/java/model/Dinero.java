@@ -0,0 +1,76 @@
+package model;
+
+import java.math.BigDecimal;
+
+/**
+ * Importe monetario en céntimos (punto fijo, 2 decimales).
+ *
+ * ¿POR QUÉ NO double?
+ * - 0.1 + 0.2 no es 0.3 en coma flotante: los totales acumulan errores
+ * - En la BD los precios se guardan como INTEGER/BIGINT de céntimos,
+ *   así SUM/AVG/MIN/MAX operan con enteros (exactos y más rápidos)
+ *
+ * Ejemplo: 18000.50€ → new Dinero(1800050)
+ */
+public record Dinero(long centimos) implements Comparable<Dinero> {
+
+    public static final Dinero CERO = new Dinero(0);
+
+
+    public static Dinero deCentimos(long centimos) {
+        return new Dinero(centimos);
+    }
+
+    /**
+     * Convierte un texto como "18000", "18000.5" o "18000,50" en céntimos.
+     * @throws NumberFormatException si no es un número o tiene más de 2 decimales
+     */
+    public static Dinero parse(String texto) {
+        if (texto == null || texto.isBlank()) {
+            throw new NumberFormatException("Importe vacío");
+        }
+
+        BigDecimal valor = new BigDecimal(texto.trim().replace(',', '.'));
+        if (valor.stripTrailingZeros().scale() > 2) {
+            throw new NumberFormatException("El importe no puede tener más de 2 decimales: " + texto);
+        }
+
+        try {
+            return new Dinero(valor.movePointRight(2).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Importe fuera de rango: " + texto);
+        }
+    }
+
+    /**
+     * Media redondeada al céntimo (mitad hacia arriba) calculada solo con enteros.
+     * Cociente y resto por separado: suma × 2 se saldría de rango con sumas muy grandes.
+     */
+    public static Dinero promedio(long sumaCentimos, long cantidad) {
+        if (cantidad <= 0) {
+            return CERO;
+        }
+        long cociente = Math.floorDiv(sumaCentimos, cantidad);
+        long resto = Math.floorMod(sumaCentimos, cantidad);
+        return new Dinero(resto >= cantidad - resto ? cociente + 1 : cociente);
+    }
+
+    public Dinero sumar(Dinero otro) {
+        return new Dinero(Math.addExact(centimos, otro.centimos));
+    }
+
+    @Override
+    public int compareTo(Dinero otro) {
+        return Long.compare(centimos, otro.centimos);
+    }
+
+    /**
+     * Formato con 2 decimales y punto: 18000.50 (el mismo que acepta el CSV).
+     */
+    @Override
+    public String toString() {
+        // Euros y céntimos por separado: Math.abs(Long.MIN_VALUE) sigue siendo negativo
+        String texto = Math.abs(centimos / 100) + "." + String.format("%02d", Math.abs(centimos % 100));
+        return centimos < 0 ? "-" + texto : texto;
+    }
+}
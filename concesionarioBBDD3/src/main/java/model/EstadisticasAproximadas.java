@@ -0,0 +1,279 @@
+package model;
+
+import database.TipoMotor;
+import estadistica.ResumenAproximado;
+import util.ConfigProperties;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Mantiene y guarda en disco los sketches del informe aproximado (ver ResumenAproximado).
+ *
+ * ¿CÓMO FUNCIONA?
+ * - CocheDAO y TraspasoDAO avisan tras cada commit (registrarAlta, registrarTraspaso...)
+ * - Mientras el resumen no se ha cargado, los avisos se acumulan en 'pendientes'
+ * - La primera consulta carga el archivo guardado, le suma los pendientes y comprueba
+ *   que el número de coches y traspasos coincide con la BD. Si no coincide (otro
+ *   programa escribió, o la aplicación se cerró sin guardar) se reconstruye leyendo
+ *   las tablas una vez
+ * - Al cerrar la conexión se guarda en estadisticas.directorio (un archivo por BD)
+ *
+ * IMPORTANTE:
+ * - Es aproximado a propósito: memoria fija (~100 KB) sin importar el volumen
+ * - Para cifras exactas de precios del inventario actual está IndicePrecios
+ */
+public class EstadisticasAproximadas {
+
+    private static ResumenAproximado resumen = null;      // cargado y comprobado contra la BD
+    private static ResumenAproximado pendientes = null;   // cambios registrados antes de cargar
+    private static Path archivo = null;                   // null = BD en memoria, no se guarda
+    private static boolean archivoResuelto = false;
+    private static boolean archivoDesfasado = false;     // la BD cambió por fuera: no leer el archivo
+
+
+    // ============================================
+    // REGISTRO DE CAMBIOS (tras el commit)
+    // ============================================
+
+    public static synchronized void registrarAlta(Connection con, int idModelo, String extras, Dinero precio) {
+        destino(con).alta(idModelo, extras, precio.centimos());
+    }
+
+    public static synchronized void registrarModificacion(Connection con, int idModelo) {
+        destino(con).modificacion(idModelo);
+    }
+
+    public static synchronized void registrarBaja(Connection con) {
+        destino(con).baja();
+    }
+
+    public static synchronized void registrarTraspaso(Connection con, int idComprador, Dinero importe) {
+        destino(con).traspaso(idComprador, importe.centimos());
+    }
+
+    /**
+     * Vuelca de una vez el resumen de una operación masiva (importación CSV).
+     */
+    public static synchronized void registrar(Connection con, ResumenAproximado lote) {
+        destino(con).fusionar(lote);
+    }
+
+
+    // ============================================
+    // CONSULTA Y MANTENIMIENTO
+    // ============================================
+
+    /**
+     * Copia del resumen actual (cargándolo o reconstruyéndolo si hace falta).
+     * Es una copia: se puede leer sin bloquear a quien sigue registrando cambios.
+     */
+    public static synchronized ResumenAproximado obtener(Connection con) throws SQLException {
+        if (resumen == null) {
+            resolverArchivo(con);
+            cargar(con);
+        }
+        ResumenAproximado copia = new ResumenAproximado();
+        copia.fusionar(resumen);
+        return copia;
+    }
+
+    /**
+     * Descarta lo acumulado y recalcula los sketches leyendo coches y traspasos
+     * (los recientes y los ya archivados en traspasos_archivo).
+     */
+    public static synchronized void reconstruir(Connection con) throws SQLException {
+        resolverArchivo(con);
+        long inicio = System.nanoTime();
+        ResumenAproximado nuevo = new ResumenAproximado();
+
+        String sqlCoches = "SELECT id_modelo, extras, precio_centimos FROM coches";
+        try (PreparedStatement pstmt = con.prepareStatement(sqlCoches);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                nuevo.alta(rs.getInt(1), rs.getString(2), rs.getLong(3));
+            }
+        }
+
+        String sqlTraspasos = "SELECT id_comprador, monto_centimos FROM traspasos "
+                + "UNION ALL SELECT id_comprador, monto_centimos FROM traspasos_archivo";
+        try (PreparedStatement pstmt = con.prepareStatement(sqlTraspasos);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                nuevo.traspaso(rs.getInt(1), rs.getLong(2));
+            }
+        }
+
+        resumen = nuevo;
+        pendientes = null;
+        archivoDesfasado = false;
+        System.out.println("Resumen aproximado reconstruido: " + nuevo.coches() + " coches, "
+                + nuevo.traspasos() + " traspasos (" + (System.nanoTime() - inicio) / 1_000_000 + " ms)");
+    }
+
+    /**
+     * Escribe el resumen en disco (primero a un temporal y luego se renombra).
+     * Si aún no se había cargado, los pendientes se suman al archivo existente.
+     */
+    public static synchronized void guardar() {
+        if (archivo == null || (resumen == null && (pendientes == null || archivoDesfasado))) {
+            return;
+        }
+
+        ResumenAproximado aGuardar = resumen;
+        if (aGuardar == null) {
+            aGuardar = leerArchivo();
+            if (aGuardar == null) {
+                aGuardar = new ResumenAproximado();
+            }
+            aGuardar.fusionar(pendientes);
+        }
+
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (DataOutputStream salida = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+            aGuardar.escribir(salida);
+        } catch (IOException e) {
+            System.err.println("No se pudo guardar el resumen aproximado: " + e.getMessage());
+            return;
+        }
+
+        try {
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("No se pudo guardar el resumen aproximado: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Olvida el resumen SIN guardarlo y sin fiarse del archivo: la BD se modificó sin pasar
+     * por los DAO (script SQL, carga masiva) y la próxima consulta lo reconstruye.
+     */
+    public static synchronized void descartar() {
+        resumen = null;
+        pendientes = null;
+        archivoDesfasado = true;
+    }
+
+    /**
+     * Guarda y olvida el resumen (al cerrar o cambiar de BD).
+     */
+    public static synchronized void invalidar() {
+        guardar();
+        resumen = null;
+        pendientes = null;
+        archivo = null;
+        archivoResuelto = false;
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    private static ResumenAproximado destino(Connection con) {
+        if (resumen != null) {
+            return resumen;
+        }
+        resolverArchivo(con);
+        if (pendientes == null) {
+            pendientes = new ResumenAproximado();
+        }
+        return pendientes;
+    }
+
+    private static void cargar(Connection con) throws SQLException {
+        ResumenAproximado leido = archivoDesfasado ? null : leerArchivo();
+
+        if (leido != null) {
+            if (pendientes != null) {
+                leido.fusionar(pendientes);
+            }
+
+            if (leido.coches() == contar(con, "coches") && leido.traspasos() == contarTraspasos(con)) {
+                resumen = leido;
+                pendientes = null;
+                return;
+            }
+            System.out.println("El resumen aproximado guardado no coincide con la BD: se reconstruye");
+        }
+
+        // Sin archivo, ilegible o desfasado: la BD ya incluye los pendientes
+        reconstruir(con);
+    }
+
+    private static ResumenAproximado leerArchivo() {
+        if (archivo == null || !Files.exists(archivo)) {
+            return null;
+        }
+        try (DataInputStream entrada = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(archivo)))) {
+            return ResumenAproximado.leer(entrada);
+        } catch (IOException e) {
+            System.err.println("Resumen aproximado ilegible (" + e.getMessage() + "): se reconstruirá");
+            return null;
+        }
+    }
+
+    private static long contar(Connection con, String tabla) throws SQLException {
+        try (PreparedStatement pstmt = con.prepareStatement("SELECT COUNT(*) FROM " + tabla);
+             ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Archivar un traspaso lo mueve de tabla, no lo borra: cuentan las dos.
+     */
+    private static long contarTraspasos(Connection con) throws SQLException {
+        return contar(con, "traspasos") + contar(con, "traspasos_archivo");
+    }
+
+    /**
+     * estadisticas-sqlite-concesionario.db.bin / estadisticas-mysql-concesionario.bin
+     * Una BD en memoria no tiene archivo: su resumen se pierde al cerrar, igual que ella.
+     */
+    private static void resolverArchivo(Connection con) {
+        if (archivoResuelto) {
+            return;
+        }
+        archivoResuelto = true;
+
+        try {
+            String nombre;
+            if (TipoMotor.detectar(con) == TipoMotor.MYSQL) {
+                nombre = "mysql-" + con.getCatalog();
+            } else {
+                String url = con.getMetaData().getURL();
+                if (url.contains(":memory:") || url.contains("mode=memory")) {
+                    return;
+                }
+                String ruta = url.substring("jdbc:sqlite:".length());
+                int parametros = ruta.indexOf('?');
+                if (parametros >= 0) {
+                    ruta = ruta.substring(0, parametros);
+                }
+                if (ruta.isEmpty()) {
+                    return;
+                }
+                nombre = "sqlite-" + Path.of(ruta).getFileName();
+            }
+
+            String directorio = ConfigProperties.getProperty("estadisticas.directorio", ".");
+            archivo = Path.of(directorio, "estadisticas-" + nombre.replaceAll("[^A-Za-z0-9._-]", "_") + ".bin");
+
+        } catch (SQLException e) {
+            System.err.println("No se pudo determinar el archivo del resumen aproximado: " + e.getMessage());
+        }
+    }
+}
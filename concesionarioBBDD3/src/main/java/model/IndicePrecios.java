@@ -0,0 +1,428 @@
+package model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice en memoria de los precios del inventario, ordenados, global y por marca.
+ *
+ * ¿POR QUÉ?
+ * "¿Cuántos coches hay entre 15.000€ y 20.000€?" o "¿cuál es la mediana de Seat?"
+ * obligan a la BD a recorrer todos los precios. Con los precios ordenados en un long[]:
+ * - Contar un rango = dos búsquedas binarias → O(log n)
+ * - Percentil exacto = leer una posición del array → O(1)
+ *
+ * ¿CÓMO FUNCIONA?
+ * - La primera consulta carga los precios con un solo recorrido del índice
+ *   idx_coches_marca_precio (ya vienen ordenados por marca y precio)
+ * - CocheDAO confirma sus transacciones a través de confirmar() (ver Transaccion): el commit y la
+ *   actualización del índice se hacen juntos, así nunca se cuenta un coche que
+ *   no llegó a guardarse ni se pierde uno que sí
+ * - Memoria: 8 bytes por coche en el array global + 8 en el de su marca
+ *
+ * IMPORTANTE:
+ * - Solo ve los cambios hechos por CocheDAO en este proceso. Si otro programa
+ *   modifica la BD, hay que llamar a invalidar() para que se recargue.
+ * - Un alta o baja suelta desplaza parte del array (System.arraycopy): es O(n),
+ *   pero sin reservar memoria. Las importaciones se aplican de una vez (mezcla O(n + m)).
+ */
+public class IndicePrecios {
+
+    private static final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+
+    private static ArrayPrecios global = null;          // null = sin cargar
+    private static final Map<Integer, ArrayPrecios> porMarca = new HashMap<>();
+
+
+    // ============================================
+    // CONSULTAS
+    // ============================================
+
+    /**
+     * Número de coches con precio entre minimo y maximo (ambos incluidos).
+     */
+    public static int contarEntre(Connection con, Dinero minimo, Dinero maximo) throws SQLException {
+        cargarSiHaceFalta(con);
+        cerrojo.readLock().lock();
+        try {
+            return global.contarEntre(minimo.centimos(), maximo.centimos());
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Número de coches de una marca con precio entre minimo y maximo (ambos incluidos).
+     */
+    public static int contarEntre(Connection con, String marca, Dinero minimo, Dinero maximo)
+            throws SQLException {
+        cargarSiHaceFalta(con);
+        Integer idMarca = CatalogoMarcas.buscarIdMarca(con, marca);
+
+        cerrojo.readLock().lock();
+        try {
+            ArrayPrecios precios = idMarca == null ? null : porMarca.get(idMarca);
+            return precios == null ? 0 : precios.contarEntre(minimo.centimos(), maximo.centimos());
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Percentil exacto (método del rango más cercano) de todos los precios.
+     * @param percentil entre 0 y 100 (50 = mediana)
+     * @return el precio, o null si no hay coches
+     */
+    public static Dinero percentil(Connection con, double percentil) throws SQLException {
+        cargarSiHaceFalta(con);
+        cerrojo.readLock().lock();
+        try {
+            return global.percentil(percentil);
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Percentil exacto de los precios de una marca.
+     * @return el precio, o null si la marca no tiene coches
+     */
+    public static Dinero percentil(Connection con, String marca, double percentil) throws SQLException {
+        cargarSiHaceFalta(con);
+        Integer idMarca = CatalogoMarcas.buscarIdMarca(con, marca);
+
+        cerrojo.readLock().lock();
+        try {
+            ArrayPrecios precios = idMarca == null ? null : porMarca.get(idMarca);
+            return precios == null ? null : precios.percentil(percentil);
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Número de coches de una marca (0 si no existe).
+     */
+    public static int totalMarca(Connection con, String marca) throws SQLException {
+        cargarSiHaceFalta(con);
+        Integer idMarca = CatalogoMarcas.buscarIdMarca(con, marca);
+
+        cerrojo.readLock().lock();
+        try {
+            ArrayPrecios precios = idMarca == null ? null : porMarca.get(idMarca);
+            return precios == null ? 0 : precios.tamano;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+
+    // ============================================
+    // MANTENIMIENTO (desde CocheDAO)
+    // ============================================
+
+    /**
+     * Altas y bajas de precios de una transacción, pendientes de confirmar.
+     * Una modificación de precio o de marca es una baja del valor anterior y un alta del nuevo.
+     */
+    public static class Cambios {
+        private int[] marcas = new int[4];
+        private long[] precios = new long[4];
+        private boolean[] esAlta = new boolean[4];
+        private int tamano = 0;
+
+        public Cambios alta(int idMarca, Dinero precio) {
+            return anadir(idMarca, precio, true);
+        }
+
+        public Cambios baja(int idMarca, Dinero precio) {
+            return anadir(idMarca, precio, false);
+        }
+
+        /** Suma los cambios de otra transacción unida a la misma (ver Transaccion). */
+        Cambios anadir(Cambios otros) {
+            for (int i = 0; i < otros.tamano; i++) {
+                anadir(otros.marcas[i], Dinero.deCentimos(otros.precios[i]), otros.esAlta[i]);
+            }
+            return this;
+        }
+
+        private Cambios anadir(int idMarca, Dinero precio, boolean alta) {
+            if (tamano == marcas.length) {
+                marcas = Arrays.copyOf(marcas, tamano * 2);
+                precios = Arrays.copyOf(precios, tamano * 2);
+                esAlta = Arrays.copyOf(esAlta, tamano * 2);
+            }
+            marcas[tamano] = idMarca;
+            precios[tamano] = precio.centimos();
+            esAlta[tamano] = alta;
+            tamano++;
+            return this;
+        }
+    }
+
+    /**
+     * Hace commit de la conexión y, si ha ido bien, aplica los cambios al índice.
+     * Ambas cosas ocurren con el índice bloqueado: una carga en paralelo no puede
+     * leer la BD ya confirmada y luego recibir los mismos cambios por segunda vez.
+     */
+    public static void confirmar(Connection con, Cambios cambios) throws SQLException {
+        cerrojo.writeLock().lock();
+        try {
+            con.commit();
+
+            if (global != null) {
+                aplicar(cambios);
+            }
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Descarta el índice: la siguiente consulta lo vuelve a cargar de la BD.
+     */
+    public static void invalidar() {
+        cerrojo.writeLock().lock();
+        try {
+            global = null;
+            porMarca.clear();
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    private static void cargarSiHaceFalta(Connection con) throws SQLException {
+        cerrojo.readLock().lock();
+        try {
+            if (global != null) {
+                return;
+            }
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+
+        cerrojo.writeLock().lock();
+        try {
+            if (global == null) {
+                cargar(con);
+            }
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lee todos los precios ordenados por (id_marca, precio): el motor los saca del
+     * índice idx_coches_marca_precio sin tocar la tabla, y cada marca llega ya ordenada.
+     */
+    private static void cargar(Connection con) throws SQLException {
+        long inicio = System.nanoTime();
+        String sql = "SELECT id_marca, precio_centimos FROM coches ORDER BY id_marca, precio_centimos";
+
+        ArrayPrecios todos = new ArrayPrecios(1024);
+        Map<Integer, ArrayPrecios> marcas = new HashMap<>();
+
+        try (PreparedStatement pstmt = con.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            ArrayPrecios actual = null;
+            int marcaActual = -1;
+
+            while (rs.next()) {
+                int idMarca = rs.getInt(1);
+                long precio = rs.getLong(2);
+
+                if (actual == null || idMarca != marcaActual) {
+                    actual = new ArrayPrecios(64);
+                    marcas.put(idMarca, actual);
+                    marcaActual = idMarca;
+                }
+                actual.anadirAlFinal(precio);
+                todos.anadirAlFinal(precio);
+            }
+        }
+
+        // El global llega ordenado por marca, no por precio
+        Arrays.sort(todos.valores, 0, todos.tamano);
+
+        global = todos;
+        porMarca.clear();
+        porMarca.putAll(marcas);
+
+        System.out.println("Índice de precios cargado: " + todos.tamano + " coches, "
+                + marcas.size() + " marcas (" + (System.nanoTime() - inicio) / 1_000_000 + " ms)");
+    }
+
+    private static void aplicar(Cambios cambios) {
+        if (cambios.tamano <= 2) {
+            // Caso habitual (insertar, modificar o borrar un coche): en el sitio
+            for (int i = 0; i < cambios.tamano; i++) {
+                ArrayPrecios marca = porMarca.computeIfAbsent(cambios.marcas[i], k -> new ArrayPrecios(64));
+                if (cambios.esAlta[i]) {
+                    global.insertar(cambios.precios[i]);
+                    marca.insertar(cambios.precios[i]);
+                } else {
+                    global.quitar(cambios.precios[i]);
+                    marca.quitar(cambios.precios[i]);
+                }
+            }
+            return;
+        }
+
+        // Importación o varias escrituras de una misma transacción: primero se compensan las
+        // altas y bajas del mismo precio (un coche dado de alta y modificado antes del commit)
+        Map<PrecioMarca, Integer> neto = new HashMap<>();
+        for (int i = 0; i < cambios.tamano; i++) {
+            neto.merge(new PrecioMarca(cambios.marcas[i], cambios.precios[i]), cambios.esAlta[i] ? 1 : -1, Integer::sum);
+        }
+
+        // Lo que queda: las altas se agrupan por marca, se ordenan y se mezclan de una vez
+        Map<Integer, ArrayPrecios> altasPorMarca = new HashMap<>();
+        ArrayPrecios altasGlobales = new ArrayPrecios(cambios.tamano);
+
+        for (Map.Entry<PrecioMarca, Integer> cambio : neto.entrySet()) {
+            int idMarca = cambio.getKey().idMarca();
+            long precio = cambio.getKey().precio();
+
+            for (int n = cambio.getValue(); n > 0; n--) {
+                altasGlobales.anadirAlFinal(precio);
+                altasPorMarca.computeIfAbsent(idMarca, k -> new ArrayPrecios(64)).anadirAlFinal(precio);
+            }
+            for (int n = cambio.getValue(); n < 0; n++) {
+                global.quitar(precio);
+                ArrayPrecios marca = porMarca.get(idMarca);
+                if (marca != null) {
+                    marca.quitar(precio);
+                }
+            }
+        }
+
+        global.mezclar(altasGlobales);
+        for (Map.Entry<Integer, ArrayPrecios> altas : altasPorMarca.entrySet()) {
+            porMarca.computeIfAbsent(altas.getKey(), k -> new ArrayPrecios(64)).mezclar(altas.getValue());
+        }
+    }
+
+
+    private record PrecioMarca(int idMarca, long precio) {
+    }
+
+    /**
+     * Array de precios ordenado de menor a mayor (las primeras 'tamano' posiciones).
+     */
+    private static class ArrayPrecios {
+        private long[] valores;
+        private int tamano = 0;
+
+        ArrayPrecios(int capacidad) {
+            valores = new long[Math.max(1, capacidad)];
+        }
+
+        /** Solo para la carga, cuando los valores llegan ya en orden. */
+        void anadirAlFinal(long precio) {
+            asegurarCapacidad(tamano + 1);
+            valores[tamano++] = precio;
+        }
+
+        void insertar(long precio) {
+            int posicion = primeraPosicionMayorQue(precio);
+            asegurarCapacidad(tamano + 1);
+            System.arraycopy(valores, posicion, valores, posicion + 1, tamano - posicion);
+            valores[posicion] = precio;
+            tamano++;
+        }
+
+        void quitar(long precio) {
+            int posicion = primeraPosicionMayorOIgualQue(precio);
+            if (posicion < tamano && valores[posicion] == precio) {
+                System.arraycopy(valores, posicion + 1, valores, posicion, tamano - posicion - 1);
+                tamano--;
+            }
+        }
+
+        /** Mezcla otro array (se ordena aquí) con este en un solo recorrido. */
+        void mezclar(ArrayPrecios otro) {
+            Arrays.sort(otro.valores, 0, otro.tamano);
+
+            long[] resultado = new long[Math.max(1, tamano + otro.tamano)];
+            int i = 0, j = 0, k = 0;
+            while (i < tamano && j < otro.tamano) {
+                resultado[k++] = valores[i] <= otro.valores[j] ? valores[i++] : otro.valores[j++];
+            }
+            while (i < tamano) {
+                resultado[k++] = valores[i++];
+            }
+            while (j < otro.tamano) {
+                resultado[k++] = otro.valores[j++];
+            }
+
+            valores = resultado;
+            tamano = k;
+        }
+
+        int contarEntre(long minimo, long maximo) {
+            if (minimo > maximo) {
+                return 0;
+            }
+            return primeraPosicionMayorQue(maximo) - primeraPosicionMayorOIgualQue(minimo);
+        }
+
+        /**
+         * Rango más cercano: el menor precio tal que al menos el p% de los coches cuesta eso o menos.
+         */
+        Dinero percentil(double percentil) {
+            if (percentil < 0 || percentil > 100) {
+                throw new IllegalArgumentException("El percentil debe estar entre 0 y 100: " + percentil);
+            }
+            if (tamano == 0) {
+                return null;
+            }
+            int rango = (int) Math.ceil(percentil / 100.0 * tamano);
+            return Dinero.deCentimos(valores[Math.max(0, rango - 1)]);
+        }
+
+        private int primeraPosicionMayorOIgualQue(long precio) {
+            int bajo = 0, alto = tamano;
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                if (valores[medio] < precio) {
+                    bajo = medio + 1;
+                } else {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+
+        private int primeraPosicionMayorQue(long precio) {
+            int bajo = 0, alto = tamano;
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                if (valores[medio] <= precio) {
+                    bajo = medio + 1;
+                } else {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+
+        private void asegurarCapacidad(int necesaria) {
+            if (necesaria > valores.length) {
+                valores = Arrays.copyOf(valores, Math.max(necesaria, valores.length + (valores.length >> 1)));
+            }
+        }
+    }
+}
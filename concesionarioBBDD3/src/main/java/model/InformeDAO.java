@@ -1,16 +1,25 @@
 package model;
 
+import database.CacheResultados;
+import estadistica.ResumenAproximado;
+import estadistica.TDigest;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -18,6 +27,28 @@ import java.util.Map;
  */
 public class InformeDAO {
 
+    // Percentiles de la sección 5
+    private static final double[] PERCENTILES = {10, 25, 50, 75, 90, 99};
+
+    // Límite inferior de cada tramo de precio (en euros); el último no tiene límite superior
+    private static final String[] TRAMOS_PRECIO = {"0", "10000", "20000", "30000", "50000"};
+
+    // Periodo de las series de ventas (secciones 7-9)
+    private static final int MESES_INFORME = 12;
+    private static final int DIAS_INFORME = 30;
+
+    // Extras listados en el informe aproximado
+    private static final int EXTRAS_APROXIMADOS = 5;
+
+    // Tablas de las que dependen las secciones del informe resumen (CacheResultados)
+    private static final List<String> TABLAS_RESUMEN = List.of("coches", "propietarios", "marcas", "modelos",
+            "traspasos", "ventas_diarias", "ventas_mensuales");
+
+    @FunctionalInterface
+    private interface Escritura {
+        void escribir(BufferedWriter writer) throws IOException, SQLException;
+    }
+
     /**
      * Genera un informe completo del concesionario en un archivo de texto
      * @param con Conexión activa
@@ -39,60 +70,306 @@ public class InformeDAO {
             writer.write("Fecha de generación: " + ahora.format(formato) + "\n");
             writer.write("═══════════════════════════════════════════════════════════════\n\n");
 
-            // 1. NÚMERO TOTAL DE COCHES
-            writer.write("1. NÚMERO TOTAL DE COCHES\n");
-            writer.write("───────────────────────────────────────────────────────────────\n");
-            int totalCoches = obtenerTotalCoches(con);
-            writer.write("Total de coches en la base de datos: " + totalCoches + "\n\n");
+            // 1-9. Secciones con datos: se reutilizan mientras no cambien las tablas ni el día
+            writer.write(CacheResultados.obtener(con, "informe:resumen", List.of(LocalDate.now()), TABLAS_RESUMEN,
+                    () -> escribirEnTexto(w -> escribirSecciones(con, w))));
 
-            // 2. COCHES AGRUPADOS POR MARCA
-            writer.write("2. COCHES AGRUPADOS POR MARCA\n");
-            writer.write("───────────────────────────────────────────────────────────────\n");
-            Map<String, Integer> cochesPorMarca = obtenerCochesPorMarca(con);
+            // Pie del informe
+            writer.write("═══════════════════════════════════════════════════════════════\n");
+            writer.write("                    FIN DEL INFORME\n");
+            writer.write("═══════════════════════════════════════════════════════════════\n");
 
-            if (cochesPorMarca.isEmpty()) {
-                writer.write("No hay coches registrados\n\n");
-            } else {
-                for (Map.Entry<String, Integer> entrada : cochesPorMarca.entrySet()) {
-                    writer.write(String.format("%-20s : %d coches\n", entrada.getKey(), entrada.getValue()));
+            System.out.println("✓ Informe generado correctamente en: " + rutaArchivo);
+            return true;
+
+        } catch (IOException e) {
+            System.err.println("Error al escribir el archivo: " + e.getMessage());
+            return false;
+        } catch (SQLException e) {
+            System.err.println("Error al obtener datos: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Secciones 1-9 del informe resumen.
+     */
+    private static void escribirSecciones(Connection con, BufferedWriter writer)
+            throws IOException, SQLException {
+
+        // 1. NÚMERO TOTAL DE COCHES
+        writer.write("1. NÚMERO TOTAL DE COCHES\n");
+        writer.write("───────────────────────────────────────────────────────────────\n");
+        int totalCoches = obtenerTotalCoches(con);
+        writer.write("Total de coches en la base de datos: " + totalCoches + "\n\n");
+
+        // 2. COCHES AGRUPADOS POR MARCA
+        writer.write("2. COCHES AGRUPADOS POR MARCA\n");
+        writer.write("───────────────────────────────────────────────────────────────\n");
+        Map<String, Integer> cochesPorMarca = obtenerCochesPorMarca(con);
+
+        if (cochesPorMarca.isEmpty()) {
+            writer.write("No hay coches registrados\n\n");
+        } else {
+            for (Map.Entry<String, Integer> entrada : cochesPorMarca.entrySet()) {
+                writer.write(String.format("%-20s : %d coches\n", entrada.getKey(), entrada.getValue()));
+            }
+            writer.write("\n");
+        }
+
+        // 3. EXTRA MÁS REPETIDO
+        writer.write("3. EQUIPAMIENTO MÁS POPULAR\n");
+        writer.write("───────────────────────────────────────────────────────────────\n");
+        String extraMasRepetido = obtenerExtraMasRepetido(con);
+
+        if (extraMasRepetido != null && !extraMasRepetido.isEmpty()) {
+            writer.write("El equipamiento más solicitado es: " + extraMasRepetido + "\n\n");
+        } else {
+            writer.write("No hay datos de extras disponibles\n\n");
+        }
+
+        // 4. ESTADÍSTICAS ADICIONALES
+        writer.write("4. ESTADÍSTICAS ADICIONALES\n");
+        writer.write("───────────────────────────────────────────────────────────────\n");
+
+        Dinero precioPromedio = obtenerPrecioPromedio(con);
+        Dinero precioMinimo = obtenerPrecioMinimo(con);
+        Dinero precioMaximo = obtenerPrecioMaximo(con);
+        int cochesVendidos = obtenerCochesVendidos(con);
+        int cochesConcesionario = obtenerCochesConcesionario(con);
+
+        writer.write(String.format("Precio promedio: %s€\n", precioPromedio));
+        writer.write(String.format("Precio mínimo: %s€\n", precioMinimo));
+        writer.write(String.format("Precio máximo: %s€\n", precioMaximo));
+        writer.write(String.format("Coches vendidos (con propietario): %d\n", cochesVendidos));
+        writer.write(String.format("Coches en inventario: %d\n", cochesConcesionario));
+        writer.write("\n");
+
+        // 5. DISTRIBUCIÓN DE PRECIOS (índice de precios en memoria)
+        writer.write("5. DISTRIBUCIÓN DE PRECIOS\n");
+        writer.write("───────────────────────────────────────────────────────────────\n");
+
+        if (totalCoches == 0) {
+            writer.write("No hay coches registrados\n\n");
+        } else {
+            for (double percentil : PERCENTILES) {
+                writer.write(String.format("Percentil %-4s : %s€\n",
+                        formatearPercentil(percentil), IndicePrecios.percentil(con, percentil)));
+            }
+            writer.write("\n");
+
+            for (int i = 0; i < TRAMOS_PRECIO.length; i++) {
+                Dinero desde = Dinero.parse(TRAMOS_PRECIO[i]);
+                int coches;
+                String tramo;
+                if (i + 1 < TRAMOS_PRECIO.length) {
+                    // Hasta el céntimo anterior al siguiente tramo
+                    Dinero hasta = Dinero.deCentimos(Dinero.parse(TRAMOS_PRECIO[i + 1]).centimos() - 1);
+                    coches = IndicePrecios.contarEntre(con, desde, hasta);
+                    tramo = desde + "€ - " + hasta + "€";
+                } else {
+                    coches = IndicePrecios.contarEntre(con, desde, Dinero.deCentimos(Long.MAX_VALUE));
+                    tramo = "desde " + desde + "€";
                 }
-                writer.write("\n");
+                writer.write(String.format("%-30s : %d coches\n", tramo, coches));
             }
+            writer.write("\n");
+        }
 
-            // 3. EXTRA MÁS REPETIDO
-            writer.write("3. EQUIPAMIENTO MÁS POPULAR\n");
-            writer.write("───────────────────────────────────────────────────────────────\n");
-            String extraMasRepetido = obtenerExtraMasRepetido(con);
+        // 6. PRECIOS POR MARCA
+        writer.write("6. PRECIOS POR MARCA\n");
+        writer.write("───────────────────────────────────────────────────────────────\n");
+
+        if (cochesPorMarca.isEmpty()) {
+            writer.write("No hay coches registrados\n\n");
+        } else {
+            writer.write(String.format("%-20s   %12s   %12s\n", "Marca", "Mediana", "Percentil 90"));
+            for (String marca : cochesPorMarca.keySet()) {
+                writer.write(String.format("%-20s : %11s€   %11s€\n", marca,
+                        IndicePrecios.percentil(con, marca, 50), IndicePrecios.percentil(con, marca, 90)));
+            }
+            writer.write("\n");
+        }
 
-            if (extraMasRepetido != null && !extraMasRepetido.isEmpty()) {
-                writer.write("El equipamiento más solicitado es: " + extraMasRepetido + "\n\n");
-            } else {
-                writer.write("No hay datos de extras disponibles\n\n");
+        // 7-9. SERIES TEMPORALES (tablas resumen ventas_mensuales / ventas_diarias)
+        escribirSeriesVentas(con, writer);
+    }
+
+    /**
+     * Ejecuta las escrituras sobre un texto en memoria y lo devuelve (para CacheResultados).
+     */
+    private static String escribirEnTexto(Escritura escritura) throws SQLException {
+        StringWriter texto = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(texto)) {
+            escritura.escribir(writer);
+        } catch (IOException e) {
+            // Un StringWriter no falla al escribir
+            throw new UncheckedIOException(e);
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Secciones de evolución de ventas. Se leen de las tablas resumen que TraspasoDAO
+     * mantiene en cada venta: unas decenas de filas, no todos los traspasos.
+     */
+    private static void escribirSeriesVentas(Connection con, BufferedWriter writer)
+            throws IOException, SQLException {
+
+        YearMonth mesActual = YearMonth.now();
+        YearMonth primerMes = mesActual.minusMonths(MESES_INFORME - 1);
+        LocalDate primerDia = LocalDate.now().minusDays(DIAS_INFORME - 1);
+
+        // 7. VENTAS POR MES (todos los meses, también los que no tuvieron ventas)
+        writer.write("7. VENTAS POR MES (últimos " + MESES_INFORME + " meses)\n");
+        writer.write("───────────────────────────────────────────────────────────────\n");
+        Map<String, long[]> porMes = obtenerVentasPorPeriodo(con, "ventas_mensuales", "mes", primerMes.toString());
+        long ventasTotales = 0;
+        long importeTotal = 0;
+        for (YearMonth mes = primerMes; !mes.isAfter(mesActual); mes = mes.plusMonths(1)) {
+            long[] ventas = porMes.getOrDefault(mes.toString(), new long[2]);
+            writer.write(String.format("%-10s : %6d ventas  %14s€\n", mes, ventas[0], Dinero.deCentimos(ventas[1])));
+            ventasTotales += ventas[0];
+            importeTotal += ventas[1];
+        }
+        writer.write(String.format("%-10s : %6d ventas  %14s€\n\n", "TOTAL", ventasTotales, Dinero.deCentimos(importeTotal)));
+
+        // 8. VENTAS POR DÍA (solo los días con ventas)
+        writer.write("8. VENTAS POR DÍA (últimos " + DIAS_INFORME + " días)\n");
+        writer.write("───────────────────────────────────────────────────────────────\n");
+        Map<String, long[]> porDia = obtenerVentasPorPeriodo(con, "ventas_diarias", "dia", primerDia.toString());
+        if (porDia.isEmpty()) {
+            writer.write("No hay ventas en este periodo\n\n");
+        } else {
+            for (Map.Entry<String, long[]> dia : porDia.entrySet()) {
+                writer.write(String.format("%-10s : %6d ventas  %14s€\n",
+                        dia.getKey(), dia.getValue()[0], Dinero.deCentimos(dia.getValue()[1])));
             }
+            writer.write("\n");
+        }
+
+        // 9. VENTAS POR MARCA (mismo periodo que la sección 7)
+        writer.write("9. VENTAS POR MARCA (últimos " + MESES_INFORME + " meses)\n");
+        writer.write("───────────────────────────────────────────────────────────────\n");
+        Map<String, long[]> porMarca = obtenerVentasPorMarca(con, primerMes.toString());
+        if (porMarca.isEmpty()) {
+            writer.write("No hay ventas en este periodo\n\n");
+        } else {
+            for (Map.Entry<String, long[]> marca : porMarca.entrySet()) {
+                writer.write(String.format("%-20s : %6d ventas  %14s€\n",
+                        marca.getKey(), marca.getValue()[0], Dinero.deCentimos(marca.getValue()[1])));
+            }
+            writer.write("\n");
+        }
+    }
+
+    /**
+     * Periodo → {ventas, importe en céntimos}, sumando todas las marcas, en orden cronológico.
+     * Recorre el rango [desde, ...] de la clave primaria (periodo, id_marca).
+     */
+    private static Map<String, long[]> obtenerVentasPorPeriodo(Connection con, String tabla,
+                                                               String columnaPeriodo, String desde)
+            throws SQLException {
+        Map<String, long[]> mapa = new LinkedHashMap<>();
+        String sql = "SELECT " + columnaPeriodo + ", SUM(ventas), SUM(importe_centimos) FROM " + tabla
+                + " WHERE " + columnaPeriodo + " >= ? GROUP BY " + columnaPeriodo + " ORDER BY " + columnaPeriodo;
+
+        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+            pstmt.setString(1, desde);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    mapa.put(rs.getString(1), new long[]{rs.getLong(2), rs.getLong(3)});
+                }
+            }
+        }
+        return mapa;
+    }
+
+    /**
+     * Marca → {ventas, importe en céntimos} desde un mes, de mayor a menor importe.
+     */
+    private static Map<String, long[]> obtenerVentasPorMarca(Connection con, String desdeMes) throws SQLException {
+        Map<String, long[]> mapa = new LinkedHashMap<>();
+        String sql = "SELECT id_marca, SUM(ventas) AS ventas, SUM(importe_centimos) AS importe "
+                + "FROM ventas_mensuales WHERE mes >= ? GROUP BY id_marca ORDER BY importe DESC";
+
+        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+            pstmt.setString(1, desdeMes);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    mapa.put(CatalogoMarcas.nombreMarca(con, rs.getInt("id_marca")),
+                            new long[]{rs.getLong("ventas"), rs.getLong("importe")});
+                }
+            }
+        }
+        return mapa;
+    }
+
+    /**
+     * Informe aproximado para cuadros de mando que se refrescan a menudo.
+     *
+     * ¿CÓMO FUNCIONA?
+     * No consulta las tablas: lee los sketches que CocheDAO y TraspasoDAO mantienen al
+     * escribir (ver EstadisticasAproximadas). Cuesta lo mismo con mil coches que con
+     * cien millones. Solo la primera vez de cada sesión puede recorrer la BD, si el
+     * resumen guardado no cuadra con ella.
+     *
+     * IMPORTANTE: los sketches acumulan altas y ventas; precios y extras incluyen
+     * coches que ya se han borrado.
+     *
+     * @param con Conexión activa
+     * @param rutaArchivo Ruta donde se guardará el informe
+     * @return true si se generó correctamente, false si hubo error
+     */
+    public static boolean generarInformeAproximado(Connection con, String rutaArchivo) {
 
-            // 4. ESTADÍSTICAS ADICIONALES
-            writer.write("4. ESTADÍSTICAS ADICIONALES\n");
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(rutaArchivo))) {
+
+            ResumenAproximado resumen = EstadisticasAproximadas.obtener(con);
+
+            writer.write("═══════════════════════════════════════════════════════════════\n");
+            writer.write("      INFORME APROXIMADO DEL CONCESIONARIO (sketches)\n");
+            writer.write("═══════════════════════════════════════════════════════════════\n");
+            DateTimeFormatter formato = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+            writer.write("Fecha de generación: " + LocalDateTime.now().format(formato) + "\n");
+            writer.write("═══════════════════════════════════════════════════════════════\n\n");
+
+            // 1. VOLUMEN (contadores exactos)
+            writer.write("1. VOLUMEN\n");
             writer.write("───────────────────────────────────────────────────────────────\n");
+            writer.write(String.format("Coches: %d\n", resumen.coches()));
+            writer.write(String.format("Traspasos: %d\n\n", resumen.traspasos()));
 
-            double precioPromedio = obtenerPrecioPromedio(con);
-            double precioMinimo = obtenerPrecioMinimo(con);
-            double precioMaximo = obtenerPrecioMaximo(con);
-            int cochesVendidos = obtenerCochesVendidos(con);
-            int cochesConcesionario = obtenerCochesConcesionario(con);
-
-            writer.write(String.format("Precio promedio: %.2f€\n", precioPromedio));
-            writer.write(String.format("Precio mínimo: %.2f€\n", precioMinimo));
-            writer.write(String.format("Precio máximo: %.2f€\n", precioMaximo));
-            writer.write(String.format("Coches vendidos (con propietario): %d\n", cochesVendidos));
-            writer.write(String.format("Coches en inventario: %d\n", cochesConcesionario));
-            writer.write("\n");
+            // 2. VALORES DISTINTOS (HyperLogLog, ±0,8 %)
+            writer.write("2. VALORES DISTINTOS (HyperLogLog, error típico ±0,8%)\n");
+            writer.write("───────────────────────────────────────────────────────────────\n");
+            writer.write(String.format("Modelos distintos: ~%d\n", resumen.modelos().estimar()));
+            writer.write(String.format("Clientes que han comprado: ~%d\n\n", resumen.clientes().estimar()));
+
+            // 3 y 4. CUANTILES (t-digest)
+            escribirCuantiles(writer, "3. PRECIOS DE ALTA (t-digest)", resumen.precios());
+            escribirCuantiles(writer, "4. IMPORTES DE VENTA (t-digest)", resumen.importes());
+
+            // 5. EXTRAS MÁS FRECUENTES (count-min)
+            writer.write("5. EXTRAS MÁS FRECUENTES (count-min, nunca por debajo del real)\n");
+            writer.write("───────────────────────────────────────────────────────────────\n");
+            List<Map.Entry<String, Long>> extras = resumen.extras().masFrecuentes(EXTRAS_APROXIMADOS);
+            if (extras.isEmpty()) {
+                writer.write("No hay datos de extras disponibles\n\n");
+            } else {
+                for (Map.Entry<String, Long> extra : extras) {
+                    writer.write(String.format("%-30s : ~%d coches\n", extra.getKey(), extra.getValue()));
+                }
+                writer.write("\n");
+            }
 
-            // Pie del informe
             writer.write("═══════════════════════════════════════════════════════════════\n");
             writer.write("                    FIN DEL INFORME\n");
             writer.write("═══════════════════════════════════════════════════════════════\n");
 
-            System.out.println("✓ Informe generado correctamente en: " + rutaArchivo);
+            System.out.println("✓ Informe aproximado generado en: " + rutaArchivo);
             return true;
 
         } catch (IOException e) {
@@ -104,6 +381,31 @@ public class InformeDAO {
         }
     }
 
+    private static void escribirCuantiles(BufferedWriter writer, String titulo, TDigest digest) throws IOException {
+        writer.write(titulo + "\n");
+        writer.write("───────────────────────────────────────────────────────────────\n");
+
+        if (digest.total() == 0) {
+            writer.write("Sin datos\n\n");
+            return;
+        }
+        for (double percentil : PERCENTILES) {
+            // El digest trabaja con céntimos como double: se redondea al céntimo
+            Dinero valor = Dinero.deCentimos(Math.round(digest.cuantil(percentil / 100)));
+            writer.write(String.format("Percentil %-4s : ~%s€\n", formatearPercentil(percentil), valor));
+        }
+        writer.write("\n");
+    }
+
+    /**
+     * 50 → "50", 99.9 → "99.9"
+     */
+    private static String formatearPercentil(double percentil) {
+        return percentil == Math.rint(percentil)
+                ? String.valueOf((long) percentil)
+                : String.valueOf(percentil);
+    }
+
     /**
      * Obtiene el número total de coches
      */
@@ -122,16 +424,17 @@ public class InformeDAO {
 
     /**
      * Obtiene un mapa con la cantidad de coches por marca
+     * Se agrupa por la clave entera (idx_coches_marca) y el nombre sale del catálogo en memoria
      */
     private static Map<String, Integer> obtenerCochesPorMarca(Connection con) throws SQLException {
-        Map<String, Integer> mapa = new HashMap<>();
-        String sql = "SELECT marca, COUNT(*) as total FROM coches GROUP BY marca ORDER BY total DESC";
+        Map<String, Integer> mapa = new LinkedHashMap<>();
+        String sql = "SELECT id_marca, COUNT(*) as total FROM coches GROUP BY id_marca ORDER BY total DESC";
 
         try (PreparedStatement pstmt = con.prepareStatement(sql);
              ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
-                String marca = rs.getString("marca");
+                String marca = CatalogoMarcas.nombreMarca(con, rs.getInt("id_marca"));
                 int total = rs.getInt("total");
                 mapa.put(marca, total);
             }
@@ -184,50 +487,51 @@ public class InformeDAO {
 
     /**
      * Obtiene el precio promedio de todos los coches
+     * SUM y COUNT se hacen con enteros en la BD; la división, redondeada al céntimo, en Java
      */
-    private static double obtenerPrecioPromedio(Connection con) throws SQLException {
-        String sql = "SELECT AVG(precio) FROM coches";
+    private static Dinero obtenerPrecioPromedio(Connection con) throws SQLException {
+        String sql = "SELECT SUM(precio_centimos), COUNT(*) FROM coches";
 
         try (PreparedStatement pstmt = con.prepareStatement(sql);
              ResultSet rs = pstmt.executeQuery()) {
 
             if (rs.next()) {
-                return rs.getDouble(1);
+                return Dinero.promedio(rs.getLong(1), rs.getLong(2));
             }
         }
-        return 0.0;
+        return Dinero.CERO;
     }
 
     /**
      * Obtiene el precio mínimo
      */
-    private static double obtenerPrecioMinimo(Connection con) throws SQLException {
-        String sql = "SELECT MIN(precio) FROM coches";
+    private static Dinero obtenerPrecioMinimo(Connection con) throws SQLException {
+        String sql = "SELECT MIN(precio_centimos) FROM coches";
 
         try (PreparedStatement pstmt = con.prepareStatement(sql);
              ResultSet rs = pstmt.executeQuery()) {
 
             if (rs.next()) {
-                return rs.getDouble(1);
+                return Dinero.deCentimos(rs.getLong(1));
             }
         }
-        return 0.0;
+        return Dinero.CERO;
     }
 
     /**
      * Obtiene el precio máximo
      */
-    private static double obtenerPrecioMaximo(Connection con) throws SQLException {
-        String sql = "SELECT MAX(precio) FROM coches";
+    private static Dinero obtenerPrecioMaximo(Connection con) throws SQLException {
+        String sql = "SELECT MAX(precio_centimos) FROM coches";
 
         try (PreparedStatement pstmt = con.prepareStatement(sql);
              ResultSet rs = pstmt.executeQuery()) {
 
             if (rs.next()) {
-                return rs.getDouble(1);
+                return Dinero.deCentimos(rs.getLong(1));
             }
         }
-        return 0.0;
+        return Dinero.CERO;
     }
 
     /**
@@ -1,39 +1,58 @@
 package model;
 
+import database.CacheResultados;
+import database.TipoMotor;
+
 import java.sql.CallableStatement;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
 /**
  * Clase DAO para gestionar procedimientos almacenados
+ *
+ * Estadísticas por marca (cochesPorMarca) en los dos motores:
+ * - MySQL: procedimiento sp_coches_por_marca (schema-procedures.sql, opción 11). Si aún
+ *   no se ha creado, la vista v_coches_por_marca (migración V10)
+ * - SQLite: no tiene procedimientos, se lee la vista v_coches_por_marca (V10)
+ *
+ * Procedimiento y vista son la misma consulta: agrupan por id_marca recorriendo
+ * idx_coches_marca_precio, que la cubre (una sola pasada, sin leer la tabla), y después
+ * unen con marcas. El orden se pone aquí, igual para los dos motores.
  */
 public class ProcedimientoDAO {
 
     /**
-     * Ejecuta el procedimiento almacenado sp_coches_por_marca
+     * Una fila de sp_coches_por_marca.
+     */
+    public record EstadisticaMarca(String marca, int totalCoches, Dinero precioPromedio,
+                                   Dinero precioMinimo, Dinero precioMaximo) {
+    }
+
+    private static final List<String> TABLAS_CONSULTADAS = List.of("coches", "marcas");
+
+    // Más coches primero; a igualdad, por nombre (el orden de los empates no depende del motor)
+    private static final Comparator<EstadisticaMarca> ORDEN =
+            Comparator.comparingInt(EstadisticaMarca::totalCoches).reversed()
+                    .thenComparing(EstadisticaMarca::marca);
+
+    private static final String SQL_PROCEDIMIENTO = "{CALL sp_coches_por_marca()}";
+    private static final String SQL_VISTA = "SELECT marca, total_coches, suma_centimos, "
+            + "precio_minimo_centimos, precio_maximo_centimos FROM v_coches_por_marca";
+
+    /**
+     * Ejecuta el procedimiento almacenado sp_coches_por_marca (o su vista equivalente)
      * Muestra estadísticas de coches agrupados por marca
-     * @param con Conexión activa (debe ser MySQL)
+     * @param con Conexión activa (MySQL o SQLite)
      */
     public static void ejecutarCochesPorMarca(Connection con) {
 
-        // Verificar que es MySQL
         try {
-            String nombreProducto = con.getMetaData().getDatabaseProductName().toLowerCase();
-            if (!nombreProducto.contains("mysql")) {
-                System.err.println("Este procedimiento solo funciona con MySQL");
-                return;
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al verificar tipo de base de datos: " + e.getMessage());
-            return;
-        }
-
-        // Llamar al procedimiento almacenado
-        String sql = "{CALL sp_coches_por_marca()}";
-
-        try (CallableStatement cstmt = con.prepareCall(sql);
-             ResultSet rs = cstmt.executeQuery()) {
+            List<EstadisticaMarca> estadisticas = cochesPorMarca(con);
 
             System.out.println("\n=== ESTADÍSTICAS DE COCHES POR MARCA ===");
             System.out.println("─".repeat(90));
@@ -41,34 +60,86 @@ public class ProcedimientoDAO {
                     "MARCA", "TOTAL COCHES", "PRECIO PROMEDIO", "PRECIO MÍNIMO", "PRECIO MÁXIMO");
             System.out.println("─".repeat(90));
 
-            boolean hayResultados = false;
-
-            while (rs.next()) {
-                hayResultados = true;
-
-                String marca = rs.getString("marca");
-                int totalCoches = rs.getInt("total_coches");
-                double precioPromedio = rs.getDouble("precio_promedio");
-                double precioMinimo = rs.getDouble("precio_minimo");
-                double precioMaximo = rs.getDouble("precio_maximo");
-
-                System.out.printf("%-15s %15d %20.2f€ %19.2f€ %19.2f€%n",
-                        marca, totalCoches, precioPromedio, precioMinimo, precioMaximo);
+            for (EstadisticaMarca estadistica : estadisticas) {
+                System.out.printf("%-15s %15d %20s€ %19s€ %19s€%n",
+                        estadistica.marca(), estadistica.totalCoches(), estadistica.precioPromedio(),
+                        estadistica.precioMinimo(), estadistica.precioMaximo());
             }
 
             System.out.println("─".repeat(90));
 
-            if (!hayResultados) {
+            if (estadisticas.isEmpty()) {
                 System.out.println("No hay datos para mostrar");
             }
 
         } catch (SQLException e) {
-            if (e.getMessage().contains("does not exist")) {
-                System.err.println("Error: El procedimiento almacenado no existe.");
-                System.err.println("Primero debe crear las tablas y el procedimiento (Opciones 2)");
-            } else {
-                System.err.println("Error al ejecutar procedimiento: " + e.getMessage());
+            System.err.println("Error al obtener las estadísticas por marca: " + e.getMessage());
+            System.err.println("Compruebe que el esquema está al día (Opción 2)");
+        }
+    }
+
+    /**
+     * Número de coches y precio medio, mínimo y máximo de cada marca con coches,
+     * de la marca con más coches a la que menos (a igualdad, por nombre).
+     * Mismo resultado en MySQL y SQLite; se guarda en CacheResultados hasta que
+     * cambien coches o marcas.
+     *
+     * @param con Conexión activa
+     * @return lista inmutable (vacía si no hay coches)
+     */
+    public static List<EstadisticaMarca> cochesPorMarca(Connection con) throws SQLException {
+        return CacheResultados.obtener(con, SQL_VISTA, List.of(), TABLAS_CONSULTADAS, () -> {
+            List<EstadisticaMarca> estadisticas = TipoMotor.detectar(con) == TipoMotor.MYSQL
+                    ? llamarProcedimiento(con)
+                    : leerVista(con);
+            estadisticas.sort(ORDEN);
+            return List.copyOf(estadisticas);
+        });
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    /**
+     * MySQL: el procedimiento, o la vista si todavía no se ha creado (opción 11).
+     */
+    private static List<EstadisticaMarca> llamarProcedimiento(Connection con) throws SQLException {
+        try (CallableStatement cstmt = con.prepareCall(SQL_PROCEDIMIENTO);
+             ResultSet rs = cstmt.executeQuery()) {
+            return leerFilas(rs);
+
+        } catch (SQLException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("does not exist")) {
+                throw e;
             }
+            return leerVista(con);
+        }
+    }
+
+    private static List<EstadisticaMarca> leerVista(Connection con) throws SQLException {
+        try (PreparedStatement pstmt = con.prepareStatement(SQL_VISTA);
+             ResultSet rs = pstmt.executeQuery()) {
+            return leerFilas(rs);
+        }
+    }
+
+    /**
+     * Columnas comunes al procedimiento y a la vista.
+     */
+    private static List<EstadisticaMarca> leerFilas(ResultSet rs) throws SQLException {
+        List<EstadisticaMarca> estadisticas = new ArrayList<>();
+        while (rs.next()) {
+            int totalCoches = rs.getInt("total_coches");
+            // Se devuelven céntimos: la media se calcula con enteros
+            estadisticas.add(new EstadisticaMarca(
+                    rs.getString("marca"),
+                    totalCoches,
+                    Dinero.promedio(rs.getLong("suma_centimos"), totalCoches),
+                    Dinero.deCentimos(rs.getLong("precio_minimo_centimos")),
+                    Dinero.deCentimos(rs.getLong("precio_maximo_centimos"))));
         }
+        return estadisticas;
     }
 }
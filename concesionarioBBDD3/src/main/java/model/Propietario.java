@@ -0,0 +1,10 @@
+package model;
+
+/**
+ * Un propietario tal y como lo devuelven las búsquedas.
+ *
+ * @param telefono puede ser null
+ */
+public record Propietario(int idPropietario, String dni, String nombre,
+                          String apellidos, String telefono) {
+}
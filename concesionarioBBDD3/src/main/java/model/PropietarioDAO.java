@@ -2,19 +2,106 @@ package model;
 
 
 
+import database.CacheResultados;
+import database.CacheSentencias;
+import database.TipoMotor;
+import util.ConfigProperties;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Clase DAO para gestionar las operaciones de la tabla propietarios
  */
 public class PropietarioDAO {
 
+    // Longitudes máximas de las columnas en MySQL (V1); se validan igual en SQLite
+    private static final int MAX_DNI = 10;
+    private static final int MAX_NOMBRE = 100;
+    private static final int MAX_APELLIDOS = 150;
+    private static final int MAX_TELEFONO = 15;
+
+    // Líneas rechazadas que se muestran con detalle (el resto solo se cuentan)
+    private static final int RECHAZOS_MOSTRADOS = 10;
+
+    // Marca de orden de bytes con la que algunos editores empiezan los CSV en UTF-8
+    private static final String BOM = "\uFEFF";
+
+    private static final String COLUMNAS = "SELECT id_propietario, dni, nombre, apellidos, telefono FROM propietarios ";
+
+    // Tope de filas por página de búsqueda
+    private static final int LIMITE_MAXIMO = 500;
+
+    // Cota superior del rango de un prefijo en SQLite: "garc" → [garc, garc\uFFFF)
+    private static final char FIN_PREFIJO = '\uFFFF';
+
+    /**
+     * Columna por la que se busca (cada una con su índice de V9).
+     */
+    public enum CampoBusqueda {
+        APELLIDOS("apellidos"), NOMBRE("nombre"), DNI("dni");
+
+        private final String columna;
+
+        CampoBusqueda(String columna) {
+            this.columna = columna;
+        }
+
+        String valor(Propietario propietario) {
+            return switch (this) {
+                case APELLIDOS -> propietario.apellidos();
+                case NOMBRE -> propietario.nombre();
+                case DNI -> propietario.dni();
+            };
+        }
+    }
+
+    /**
+     * Qué hacer con un DNI que ya existe en la BD.
+     * - OMITIR: se deja el propietario como estaba
+     * - ACTUALIZAR: se sobrescriben nombre, apellidos y teléfono con los del CSV
+     */
+    public enum ModoConflicto {
+        OMITIR, ACTUALIZAR
+    }
+
+    /**
+     * Resultado de una importación masiva.
+     *
+     * @param leidas      líneas de datos leídas (sin la cabecera)
+     * @param insertados  propietarios nuevos
+     * @param existentes  DNI que ya estaban en la BD (omitidos o actualizados según el modo)
+     * @param duplicados  DNI repetidos dentro del propio CSV (cuenta la primera aparición)
+     * @param rechazados  líneas inválidas (campos que faltan, vacíos o demasiado largos)
+     */
+    public record ResultadoImportacion(long leidas, long insertados, long existentes,
+                                       long duplicados, long rechazados, long milisegundos) {
+
+        public long filasPorSegundo() {
+            return milisegundos == 0 ? leidas : leidas * 1000 / milisegundos;
+        }
+    }
+
     /**
      * Registra un nuevo propietario en la base de datos
      * @param con Conexión activa a la base de datos
-     * @param dni DNI del propietario (debe ser único)
+     * @param dni DNI del propietario (debe ser único; se guarda con la letra en mayúscula)
      * @param nombre Nombre del propietario
      * @param apellidos Apellidos del propietario
      * @param telefono Teléfono de contacto
@@ -24,8 +111,9 @@ public class PropietarioDAO {
                                                String apellidos, String telefono) {
 
         String sql = "INSERT INTO propietarios (dni, nombre, apellidos, telefono) VALUES (?, ?, ?, ?)";
+        dni = normalizarDni(dni);
 
-        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             // Asignar valores a los parámetros
             pstmt.setString(1, dni);
@@ -35,6 +123,16 @@ public class PropietarioDAO {
 
             // Ejecutar INSERT
             int filasAfectadas = pstmt.executeUpdate();
+            if (filasAfectadas > 0) {
+                CacheResultados.tablasModificadas("propietarios");
+            }
+
+            // El nuevo propietario entra en las sugerencias (si el trie está cargado)
+            try (ResultSet claves = pstmt.getGeneratedKeys()) {
+                if (filasAfectadas > 0 && claves.next()) {
+                    TriePropietarios.registrar(new Propietario(claves.getInt(1), dni, nombre, apellidos, telefono));
+                }
+            }
 
             // Retornar true si se insertó al menos una fila
             return filasAfectadas > 0;
@@ -44,4 +142,419 @@ public class PropietarioDAO {
             return false;
         }
     }
-}
\ No newline at end of file
+
+
+    // ============================================
+    // BÚSQUEDA (índices de V9)
+    // ============================================
+
+    /**
+     * Propietarios cuyo campo empieza por 'prefijo', sin distinguir mayúsculas,
+     * ordenados por ese campo (y por id si coincide).
+     *
+     * ¿CÓMO FUNCIONA?
+     * - SQLite: rango [prefijo, prefijo + U+FFFF) con COLLATE NOCASE, el mismo que el índice
+     * - MySQL: LIKE 'prefijo%' (la intercalación _ci ya ignora mayúsculas y tildes)
+     * - Paginación por clave: la página siguiente empieza tras el último propietario
+     *   mostrado. Son dos búsquedas en el índice, cada una con LIMIT:
+     *   mismo valor con id mayor, y valores mayores que el último
+     *
+     * @param despuesDe último propietario de la página anterior, o null para empezar
+     * @param limite    Propietarios por página (máximo 500)
+     */
+    public static List<Propietario> buscarPorPrefijo(Connection con, CampoBusqueda campo, String prefijo,
+                                                     Propietario despuesDe, int limite) throws SQLException {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        prefijo = prefijo.trim();
+
+        boolean mysql = TipoMotor.detectar(con) == TipoMotor.MYSQL;
+        String columna = mysql ? campo.columna : campo.columna + " COLLATE NOCASE";
+        String orden = " ORDER BY " + columna + ", id_propietario LIMIT ?";
+        String patron = escaparLike(prefijo) + "%";
+        String fin = prefijo + FIN_PREFIJO;
+
+        String sql;
+        List<Object> parametros = new ArrayList<>();
+
+        if (despuesDe == null) {
+            if (mysql) {
+                sql = COLUMNAS + "WHERE " + columna + " LIKE ? ESCAPE '!'" + orden;
+                parametros.add(patron);
+            } else {
+                sql = COLUMNAS + "WHERE " + columna + " >= ? AND " + columna + " < ?" + orden;
+                parametros.add(prefijo);
+                parametros.add(fin);
+            }
+            parametros.add(limite);
+
+        } else {
+            String ultimo = campo.valor(despuesDe);
+            sql = "SELECT * FROM ("
+                    + " SELECT * FROM (" + COLUMNAS + "WHERE " + columna + " = ? AND id_propietario > ?"
+                    + "   ORDER BY id_propietario LIMIT ?) mismos"
+                    + " UNION ALL"
+                    + " SELECT * FROM (" + COLUMNAS + "WHERE " + columna
+                    // En SQLite el último valor sustituye al inicio del rango (si no, el
+                    // planificador arranca en el prefijo y recorre todo lo ya mostrado)
+                    + (mysql ? " LIKE ? ESCAPE '!' AND " + columna + " > ?" : " > ? AND " + columna + " < ?")
+                    + orden + ") siguientes"
+                    + ") p ORDER BY " + (mysql ? campo.columna : campo.columna + " COLLATE NOCASE")
+                    + ", id_propietario LIMIT ?";
+            parametros.add(ultimo);
+            parametros.add(despuesDe.idPropietario());
+            parametros.add(limite);
+            if (mysql) {
+                parametros.add(patron);
+                parametros.add(ultimo);
+            } else {
+                parametros.add(ultimo);
+                parametros.add(fin);
+            }
+            parametros.add(limite);
+            parametros.add(limite);
+        }
+
+        PreparedStatement pstmt = CacheSentencias.preparar(con, sql);
+        for (int i = 0; i < parametros.size(); i++) {
+            pstmt.setObject(i + 1, parametros.get(i));
+        }
+
+        List<Propietario> propietarios = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                propietarios.add(leerPropietario(rs));
+            }
+        }
+        return propietarios;
+    }
+
+    /**
+     * Sugerencias para autocompletar mientras se escribe (apellidos, nombre, DNI o
+     * segundo apellido que empiecen por 'prefijo'), sin distinguir mayúsculas ni tildes.
+     *
+     * Las resuelve TriePropietarios en memoria (microsegundos). Si el trie no contiene
+     * todos los propietarios (solo una parte, ver propietarios.trie.maximo) o está
+     * desactivado, se completa con SQL: por DNI si el texto empieza por un dígito y por
+     * apellidos si no (en SQLite por apellidos_sin_tildes, que ignora tildes como el trie).
+     */
+    public static List<Propietario> sugerir(Connection con, String prefijo, int limite) throws SQLException {
+        Map<Integer, Propietario> sugerencias = new LinkedHashMap<>();
+        for (Propietario propietario : TriePropietarios.sugerir(con, prefijo, limite)) {
+            sugerencias.put(propietario.idPropietario(), propietario);
+        }
+
+        if (sugerencias.size() < limite && !TriePropietarios.estaCompleto()) {
+            String texto = prefijo.trim();
+            boolean porDni = !texto.isEmpty() && Character.isDigit(texto.charAt(0));
+            List<Propietario> deLaBD;
+            if (porDni) {
+                deLaBD = buscarPorPrefijo(con, CampoBusqueda.DNI, texto, null, limite);
+            } else if (TipoMotor.detectar(con) == TipoMotor.SQLITE) {
+                // NOCASE no ignora tildes: se busca en la columna sin tildes de V12
+                deLaBD = buscarApellidosSinTildes(con, texto, limite);
+            } else {
+                deLaBD = buscarPorPrefijo(con, CampoBusqueda.APELLIDOS, texto, null, limite);
+            }
+            for (Propietario propietario : deLaBD) {
+                if (sugerencias.size() == limite) {
+                    break;
+                }
+                sugerencias.putIfAbsent(propietario.idPropietario(), propietario);
+            }
+        }
+        return new ArrayList<>(sugerencias.values());
+    }
+
+
+    // ============================================
+    // IMPORTACIÓN MASIVA
+    // ============================================
+
+    /**
+     * Importa propietarios desde un CSV (UTF-8): dni;nombre;apellidos;telefono
+     * El teléfono es opcional y la primera línea se salta si es una cabecera ("dni;...").
+     *
+     * @return el resultado, o null si la importación se interrumpió por un error
+     */
+    public static ResultadoImportacion importarDesdeCsv(Connection con, String rutaCSV, ModoConflicto modo) {
+        try (BufferedReader br = Files.newBufferedReader(Path.of(rutaCSV))) {
+            return importar(con, br, modo);
+
+        } catch (NoSuchFileException e) {
+            System.err.println("Error: No se encontró el archivo CSV: " + rutaCSV);
+            return null;
+        } catch (IOException e) {
+            System.err.println("Error al leer el archivo CSV: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Importa propietarios desde cualquier flujo de texto con el formato del CSV.
+     *
+     * ¿CÓMO FUNCIONA?
+     * - Lee línea a línea (no carga el archivo en memoria)
+     * - Los DNI se guardan sin espacios y con la letra en mayúscula (normalizarDni)
+     * - Un HashSet con los DNI ya vistos descarta los repetidos dentro del CSV
+     *   antes de llegar a la BD (gana la primera aparición)
+     * - Los válidos se envían en lotes de importacion.lote (addBatch / executeBatch)
+     *   y se confirman cada importacion.transaccion filas
+     * - El conflicto con DNI existentes lo resuelve la propia BD en el INSERT:
+     *   SQLite  → ON CONFLICT(dni) DO NOTHING / DO UPDATE
+     *   MySQL   → ON DUPLICATE KEY UPDATE (sin cambios / con los valores nuevos)
+     * - Las líneas inválidas se cuentan y se muestran las primeras; no detienen la importación
+     * - Los nuevos se cuentan lote a lote dentro de la transacción (no con un COUNT(*) de la
+     *   tabla antes y después, que incluiría lo que escriban otros a la vez):
+     *   SQLite omitiendo → suma de las cuentas de executeBatch (1 = insertado, 0 = ya existía)
+     *   resto            → antes de cada lote, cuántos de sus DNI existen ya. Las cuentas no
+     *                      sirven: DO UPDATE da 1 al insertar y al actualizar, y MySQL con
+     *                      rewriteBatchedStatements no da cuentas por fila
+     *
+     * IMPORTANTE:
+     * - Si falla la BD se deshace solo la transacción en curso: lo ya confirmado se queda.
+     *   Repetir la importación es seguro (los DNI ya cargados cuentan como existentes)
+     * - El HashSet ocupa del orden de 100 bytes por DNI (~200 MB con dos millones)
+     *
+     * @return el resultado, o null si la importación se interrumpió por un error
+     */
+    public static ResultadoImportacion importar(Connection con, BufferedReader br, ModoConflicto modo) {
+        int tamanoLote = Math.max(1, ConfigProperties.getIntProperty("importacion.lote", 1000));
+        int filasPorTransaccion = Math.max(tamanoLote, ConfigProperties.getIntProperty("importacion.transaccion", 50000));
+
+        long inicio = System.nanoTime();
+        long leidas = 0, validas = 0, insertados = 0, duplicados = 0, rechazados = 0;
+        long numeroLinea = 0;
+
+        try {
+            boolean cuentasPorFila = TipoMotor.detectar(con) == TipoMotor.SQLITE && modo == ModoConflicto.OMITIR;
+            con.setAutoCommit(false);
+
+            Set<String> vistos = new HashSet<>();
+            List<String> dnisLote = new ArrayList<>(tamanoLote);
+            long sinConfirmar = 0;
+
+            try (PreparedStatement pstmt = con.prepareStatement(sqlInsercion(con, modo))) {
+                String linea;
+                while ((linea = br.readLine()) != null) {
+                    numeroLinea++;
+                    if (numeroLinea == 1 && linea.startsWith(BOM)) {
+                        linea = linea.substring(BOM.length());
+                    }
+                    if (linea.isBlank() || (numeroLinea == 1 && esCabecera(linea))) {
+                        continue;
+                    }
+                    leidas++;
+
+                    String[] datos = linea.split(";", -1);
+                    String error = validar(datos);
+                    if (error != null) {
+                        rechazados++;
+                        if (rechazados <= RECHAZOS_MOSTRADOS) {
+                            System.err.println("Línea " + numeroLinea + " rechazada (" + error + "): " + linea);
+                        }
+                        continue;
+                    }
+
+                    // "12345678z" y "12345678Z" son el mismo DNI (en el HashSet y en la BD)
+                    String dni = normalizarDni(datos[0]);
+                    if (!vistos.add(dni)) {
+                        duplicados++;
+                        continue;
+                    }
+
+                    String telefono = datos.length == 4 ? datos[3].trim() : "";
+                    pstmt.setString(1, dni);
+                    pstmt.setString(2, datos[1].trim());
+                    pstmt.setString(3, datos[2].trim());
+                    pstmt.setString(4, telefono.isEmpty() ? null : telefono);
+                    pstmt.addBatch();
+                    dnisLote.add(dni);
+                    validas++;
+                    sinConfirmar++;
+
+                    if (dnisLote.size() == tamanoLote) {
+                        insertados += ejecutarLote(con, pstmt, dnisLote, cuentasPorFila);
+                    }
+                    if (sinConfirmar >= filasPorTransaccion) {
+                        con.commit();
+                        CacheResultados.tablasModificadas("propietarios");
+                        sinConfirmar = 0;
+                    }
+                }
+
+                if (!dnisLote.isEmpty()) {
+                    insertados += ejecutarLote(con, pstmt, dnisLote, cuentasPorFila);
+                }
+            }
+
+            con.commit();
+            con.setAutoCommit(true);
+            CacheResultados.tablasModificadas("propietarios");
+            // Demasiados cambios para aplicarlos uno a uno: las sugerencias se recargan
+            TriePropietarios.invalidar();
+
+            ResultadoImportacion resultado = new ResultadoImportacion(leidas, insertados, validas - insertados,
+                    duplicados, rechazados, (System.nanoTime() - inicio) / 1_000_000);
+
+            if (rechazados > RECHAZOS_MOSTRADOS) {
+                System.err.println("... y " + (rechazados - RECHAZOS_MOSTRADOS) + " líneas rechazadas más");
+            }
+            System.out.println("Propietarios importados: " + resultado.insertados() + " nuevos, "
+                    + resultado.existentes() + (modo == ModoConflicto.ACTUALIZAR ? " actualizados, " : " ya existentes (omitidos), ")
+                    + duplicados + " DNI repetidos en el CSV, " + rechazados + " líneas rechazadas");
+            System.out.println(leidas + " líneas en " + resultado.milisegundos() + " ms ("
+                    + resultado.filasPorSegundo() + " filas/s)");
+            return resultado;
+
+        } catch (SQLException e) {
+            System.err.println("Error SQL al importar propietarios (línea " + numeroLinea + "): " + e.getMessage());
+            deshacer(con);
+            return null;
+
+        } catch (IOException e) {
+            System.err.println("Error al leer el CSV (línea " + numeroLinea + "): " + e.getMessage());
+            deshacer(con);
+            return null;
+        }
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    /**
+     * SQLite: apellidos que empiezan por 'prefijo' sin distinguir mayúsculas ni tildes,
+     * por rango en el índice de apellidos_sin_tildes (V12). El prefijo se normaliza
+     * como las claves del trie, para que ambos encuentren lo mismo.
+     */
+    private static List<Propietario> buscarApellidosSinTildes(Connection con, String prefijo,
+                                                              int limite) throws SQLException {
+        String normalizado = TriePropietarios.normalizar(prefijo);
+        String sql = COLUMNAS + "WHERE apellidos_sin_tildes >= ? AND apellidos_sin_tildes < ?"
+                + " ORDER BY apellidos_sin_tildes, id_propietario LIMIT ?";
+
+        PreparedStatement pstmt = CacheSentencias.preparar(con, sql);
+        pstmt.setString(1, normalizado);
+        pstmt.setString(2, normalizado + FIN_PREFIJO);
+        pstmt.setInt(3, limite);
+
+        List<Propietario> propietarios = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                propietarios.add(leerPropietario(rs));
+            }
+        }
+        return propietarios;
+    }
+
+    /**
+     * DNI como se guarda: sin espacios en los extremos y con la letra en mayúscula, para que
+     * "12345678z" no entre como otro propietario (en SQLite la columna distingue mayúsculas).
+     */
+    private static String normalizarDni(String dni) {
+        return dni.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static Propietario leerPropietario(ResultSet rs) throws SQLException {
+        return new Propietario(rs.getInt("id_propietario"), rs.getString("dni"), rs.getString("nombre"),
+                rs.getString("apellidos"), rs.getString("telefono"));
+    }
+
+    /**
+     * Escapa los comodines de LIKE ('%' y '_') con '!' para buscar el texto tal cual.
+     */
+    private static String escaparLike(String texto) {
+        return texto.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private static void deshacer(Connection con) {
+        // Lo confirmado antes del error sí está en la BD
+        TriePropietarios.invalidar();
+        try {
+            con.rollback();
+            con.setAutoCommit(true);
+        } catch (SQLException ex) {
+            System.err.println("Error al hacer rollback: " + ex.getMessage());
+        }
+    }
+
+    private static String sqlInsercion(Connection con, ModoConflicto modo) throws SQLException {
+        String sql = "INSERT INTO propietarios (dni, nombre, apellidos, telefono) VALUES (?, ?, ?, ?) ";
+
+        if (TipoMotor.detectar(con) == TipoMotor.MYSQL) {
+            // Sin INSERT IGNORE: también silenciaría otros errores (truncados, nulos...)
+            return sql + (modo == ModoConflicto.ACTUALIZAR
+                    ? "ON DUPLICATE KEY UPDATE nombre = VALUES(nombre), apellidos = VALUES(apellidos), "
+                    + "telefono = VALUES(telefono)"
+                    : "ON DUPLICATE KEY UPDATE id_propietario = id_propietario");
+        }
+        return sql + (modo == ModoConflicto.ACTUALIZAR
+                ? "ON CONFLICT(dni) DO UPDATE SET nombre = excluded.nombre, apellidos = excluded.apellidos, "
+                + "telefono = excluded.telefono"
+                : "ON CONFLICT(dni) DO NOTHING");
+    }
+
+    private static boolean esCabecera(String linea) {
+        return linea.split(";", 2)[0].trim().equalsIgnoreCase("dni");
+    }
+
+    /**
+     * @return el motivo del rechazo, o null si la línea es válida
+     */
+    private static String validar(String[] datos) {
+        if (datos.length < 3 || datos.length > 4) {
+            return "se esperan 3 o 4 campos";
+        }
+        if (datos[0].isBlank() || datos[1].isBlank() || datos[2].isBlank()) {
+            return "DNI, nombre y apellidos son obligatorios";
+        }
+        if (datos[0].trim().length() > MAX_DNI
+                || datos[1].trim().length() > MAX_NOMBRE
+                || datos[2].trim().length() > MAX_APELLIDOS
+                || (datos.length == 4 && datos[3].trim().length() > MAX_TELEFONO)) {
+            return "campo demasiado largo";
+        }
+        return null;
+    }
+
+    /**
+     * Envía el lote y devuelve cuántos propietarios nuevos había en él (ver importar).
+     * Se llama dentro de la transacción de la importación.
+     */
+    private static long ejecutarLote(Connection con, PreparedStatement pstmt, List<String> dnis,
+                                     boolean cuentasPorFila) throws SQLException {
+        long existentes = cuentasPorFila ? 0 : contarExistentes(con, dnis);
+        int[] cuentas = pstmt.executeBatch();
+
+        long nuevos;
+        if (cuentasPorFila) {
+            nuevos = 0;
+            for (int cuenta : cuentas) {
+                nuevos += cuenta > 0 ? 1 : 0;
+            }
+        } else {
+            nuevos = dnis.size() - existentes;
+        }
+        dnis.clear();
+        return nuevos;
+    }
+
+    /**
+     * Cuántos de los DNI ya están en la tabla (búsqueda por el índice UNIQUE de dni).
+     */
+    private static long contarExistentes(Connection con, List<String> dnis) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM propietarios WHERE dni IN ("
+                + String.join(", ", Collections.nCopies(dnis.size(), "?")) + ")";
+        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+            for (int i = 0; i < dnis.size(); i++) {
+                pstmt.setString(i + 1, dnis.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+}
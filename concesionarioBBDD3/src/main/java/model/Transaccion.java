@@ -0,0 +1,193 @@
+package model;
+
+import database.CacheResultados;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Transacción de una escritura de CocheDAO: propia, o unida a la que ya tiene abierta quien llama.
+ *
+ * ¿POR QUÉ?
+ * Si quien llama ya abrió una transacción (autocommit desactivado), el DAO no puede hacer
+ * commit ni volver a autocommit: confirmaría a medias el trabajo de otro.
+ *
+ * ¿CÓMO FUNCIONA?
+ * - empezar(): con autocommit activo abre una transacción propia; si no, se une a la
+ *   abierta con un savepoint (un error deshace solo lo que hizo el DAO)
+ * - Lo que hay que reflejar en memoria tras el commit (precios para IndicePrecios, tablas
+ *   para CacheResultados, avisos a EstadisticasAproximadas) se anota en la transacción;
+ *   las marcas y modelos nuevos los guarda CatalogoMarcas como pendientes de la conexión
+ * - Propia: confirmar() hace commit y lo publica todo, como antes
+ * - Unida: lo anotado queda pendiente de la conexión hasta que quien llama confirma con
+ *   Transaccion.confirmar(con)
+ *
+ * IMPORTANTE:
+ * - Quien abre su propia transacción y llama a CocheDAO la termina con confirmar(con) o
+ *   deshacer(con), no con con.commit() / con.rollback(): si no, la memoria no se entera
+ * - Al devolver o cerrar una conexión se llama a olvidar(con) (PoolConexiones, DatabaseManager):
+ *   si quedaba algo pendiente no se sabe si llegó a confirmarse y se invalidan las cachés
+ */
+public class Transaccion {
+
+    // Escrituras hechas dentro de transacciones de quien llama, por conexión (por identidad, como CacheSentencias)
+    private static final Map<Connection, Transaccion> pendientes =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private final Connection con;
+    private final boolean propia;
+    private final Savepoint savepoint;      // solo si está unida
+
+    private final IndicePrecios.Cambios precios = new IndicePrecios.Cambios();
+    private final Set<String> tablas = new LinkedHashSet<>();
+    private final List<Runnable> trasConfirmar = new ArrayList<>();
+
+    private Transaccion(Connection con, boolean propia, Savepoint savepoint) {
+        this.con = con;
+        this.propia = propia;
+        this.savepoint = savepoint;
+    }
+
+    /**
+     * Empieza una transacción propia o se une a la de quien llama.
+     */
+    public static Transaccion empezar(Connection con) throws SQLException {
+        if (con.getAutoCommit()) {
+            con.setAutoCommit(false);
+            return new Transaccion(con, true, null);
+        }
+        return new Transaccion(con, false, con.setSavepoint());
+    }
+
+
+    // ============================================
+    // ANOTACIONES (se publican tras el commit)
+    // ============================================
+
+    public IndicePrecios.Cambios precios() {
+        return precios;
+    }
+
+    public void tablasModificadas(String... nombres) {
+        Collections.addAll(tablas, nombres);
+    }
+
+    public void trasConfirmar(Runnable accion) {
+        trasConfirmar.add(accion);
+    }
+
+
+    // ============================================
+    // FIN DE LA ESCRITURA (desde el DAO)
+    // ============================================
+
+    /**
+     * Propia: commit, vuelta a autocommit y publicación.
+     * Unida: lo anotado se suma a lo pendiente de la conexión; el commit es cosa de quien llama.
+     * Si lanza excepción, el DAO debe llamar a deshacer().
+     */
+    public void confirmar() throws SQLException {
+        if (propia) {
+            publicar();
+            return;
+        }
+        con.releaseSavepoint(savepoint);
+        pendientes.merge(con, this, Transaccion::sumar);
+    }
+
+    /**
+     * Deshace lo que hizo el DAO: la transacción entera si es propia, hasta el savepoint si está unida.
+     */
+    public void deshacer() {
+        try {
+            if (propia) {
+                con.rollback();
+                con.setAutoCommit(true);
+            } else {
+                con.rollback(savepoint);
+            }
+        } catch (SQLException ex) {
+            System.err.println("Error al hacer rollback: " + ex.getMessage());
+        }
+        // Con un savepoint también se olvidan las altas anteriores de la transacción:
+        // no pasa nada, si se vuelven a pedir se leen de la BD (ver CatalogoMarcas.crearMarca)
+        CatalogoMarcas.descartar(con);
+    }
+
+
+    // ============================================
+    // PARA QUIEN ABRE SU PROPIA TRANSACCIÓN
+    // ============================================
+
+    /**
+     * Commit de la transacción abierta en la conexión y publicación de lo que dejaron pendiente los DAO.
+     * La conexión sigue sin autocommit.
+     */
+    public static void confirmar(Connection con) throws SQLException {
+        Transaccion pendiente = pendientes.remove(con);
+        if (pendiente == null) {
+            con.commit();
+            CatalogoMarcas.confirmar(con);
+            return;
+        }
+        pendiente.publicar();
+    }
+
+    /**
+     * Rollback de la transacción abierta en la conexión; lo pendiente se descarta sin publicarlo.
+     */
+    public static void deshacer(Connection con) throws SQLException {
+        pendientes.remove(con);
+        con.rollback();
+        // Las marcas/modelos dados de alta en la transacción ya no existen
+        CatalogoMarcas.descartar(con);
+    }
+
+    /**
+     * La conexión se devuelve o se cierra. Si quedaba algo pendiente, quien la usó terminó
+     * la transacción por su cuenta (o no la terminó): se invalida lo que pudiera haber cambiado.
+     */
+    public static void olvidar(Connection con) {
+        CatalogoMarcas.descartar(con);
+        Transaccion pendiente = pendientes.remove(con);
+        if (pendiente == null) {
+            return;
+        }
+        IndicePrecios.invalidar();
+        EstadisticasAproximadas.descartar();
+        CacheResultados.tablasModificadas(pendiente.tablas.toArray(String[]::new));
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    /**
+     * Commit (junto con el índice de precios, ver IndicePrecios.confirmar) y avisos al resto.
+     */
+    private void publicar() throws SQLException {
+        IndicePrecios.confirmar(con, precios);
+        CatalogoMarcas.confirmar(con);
+        if (propia) {
+            con.setAutoCommit(true);
+        }
+        CacheResultados.tablasModificadas(tablas.toArray(String[]::new));
+        trasConfirmar.forEach(Runnable::run);
+    }
+
+    private Transaccion sumar(Transaccion otra) {
+        precios.anadir(otra.precios);
+        tablas.addAll(otra.tablas);
+        trasConfirmar.addAll(otra.trasConfirmar);
+        return this;
+    }
+}
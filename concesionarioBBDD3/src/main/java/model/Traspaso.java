@@ -0,0 +1,14 @@
+package model;
+
+/**
+ * Un traspaso tal y como lo devuelven las consultas de historial (con DNIs, no claves).
+ *
+ * @param dniVendedor DNI de quien vende, o null si vendió el concesionario
+ */
+public record Traspaso(long idTraspaso, String matricula, String dniVendedor,
+                       String dniComprador, Dinero monto) {
+
+    public boolean ventaDelConcesionario() {
+        return dniVendedor == null;
+    }
+}
@@ -1,16 +1,42 @@
 package model;
 
 
+import database.CacheResultados;
+import database.CacheSentencias;
+import database.PublicadorConsulta;
+import database.TipoMotor;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Flow;
 
 /**
  * Clase DAO para gestionar las operaciones de la tabla traspasos
  */
 public class TraspasoDAO {
 
+    // Tope de filas por página: la cadena de propiedad avanza un nivel de recursión por fila
+    // y MySQL corta las CTE recursivas a los 1000 niveles (cte_max_recursion_depth)
+    private static final int LIMITE_MAXIMO = 500;
+
+    // Tablas de las que dependen los historiales y totales guardados en CacheResultados
+    private static final List<String> TABLAS_HISTORIAL = List.of("traspasos", "traspasos_archivo", "propietarios");
+
+    private static final DateTimeFormatter FORMATO_FECHA_VENTA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * Compras y ventas de un propietario: número de traspasos e importe total.
+     */
+    public record Totales(long compras, Dinero totalComprado, long ventas, Dinero totalVendido) {
+    }
+
     /**
      * Verifica si existe un propietario con el DNI dado
      * @param con Conexión activa
@@ -83,11 +109,20 @@ public class TraspasoDAO {
      * @param con Conexión activa
      * @param dniComprador DNI del comprador
      * @param matriculaCoche Matrícula del coche
-     * @param montoEconomico Precio de la transacción
+     * @param montoEconomico Precio de la transacción (en céntimos, ver Dinero)
      * @return true si se realizó correctamente, false si hubo error
      */
     public static boolean realizarTraspaso(Connection con, String dniComprador,
-                                           String matriculaCoche, double montoEconomico) {
+                                           String matriculaCoche, Dinero montoEconomico) {
+        return realizarTraspaso(con, dniComprador, matriculaCoche, montoEconomico, LocalDateTime.now());
+    }
+
+    /**
+     * Igual que realizarTraspaso, con una fecha de venta concreta (cargas de históricos,
+     * generadores de datos). La fecha se guarda con precisión de segundos.
+     */
+    public static boolean realizarTraspaso(Connection con, String dniComprador, String matriculaCoche,
+                                           Dinero montoEconomico, LocalDateTime fechaVenta) {
         try {
             // Desactivar auto-commit para transacción manual
             con.setAutoCommit(false);
@@ -113,8 +148,8 @@ public class TraspasoDAO {
             Integer idVendedor = obtenerPropietarioActualCoche(con, matriculaCoche);
 
             // 4. Insertar el traspaso
-            String sqlTraspaso = "INSERT INTO traspasos (matricula_coche, id_vendedor, id_comprador, monto_economico) " +
-                    "VALUES (?, ?, ?, ?)";
+            String sqlTraspaso = "INSERT INTO traspasos (matricula_coche, id_vendedor, id_comprador, monto_centimos, fecha_venta) " +
+                    "VALUES (?, ?, ?, ?, ?)";
 
             PreparedStatement pstmtTraspaso = con.prepareStatement(sqlTraspaso);
             pstmtTraspaso.setString(1, matriculaCoche);
@@ -126,7 +161,9 @@ public class TraspasoDAO {
             }
 
             pstmtTraspaso.setInt(3, idComprador);
-            pstmtTraspaso.setDouble(4, montoEconomico);
+            pstmtTraspaso.setLong(4, montoEconomico.centimos());
+            // Como texto 'AAAA-MM-DD HH:MM:SS': DATETIME en MySQL, TEXT ordenable en SQLite
+            pstmtTraspaso.setString(5, fechaVenta.format(FORMATO_FECHA_VENTA));
 
             int filasTraspaso = pstmtTraspaso.executeUpdate();
             pstmtTraspaso.close();
@@ -155,9 +192,14 @@ public class TraspasoDAO {
                 return false;
             }
 
-            // 6. Si todo fue bien, hacer COMMIT
+            // 6. Sumar la venta a los resúmenes por día y por mes (misma transacción)
+            actualizarResumenesVentas(con, matriculaCoche, fechaVenta, montoEconomico);
+
+            // 7. Si todo fue bien, hacer COMMIT
             con.commit();
             con.setAutoCommit(true);
+            CacheResultados.tablasModificadas("traspasos", "coches", "ventas_diarias", "ventas_mensuales");
+            EstadisticasAproximadas.registrarTraspaso(con, idComprador, montoEconomico);
 
             System.out.println("Traspaso realizado correctamente");
             if (idVendedor == null) {
@@ -181,4 +223,284 @@ public class TraspasoDAO {
             return false;
         }
     }
-}
\ No newline at end of file
+
+
+    // ============================================
+    // HISTORIAL (consultas paginadas, índices de V6 y V8)
+    // ============================================
+    // Los traspasos antiguos viven en traspasos_archivo (ver ArchivadorTraspasos):
+    // cada consulta lee las dos tablas, cada una por su índice, y une los resultados.
+    // No se usa la vista traspasos_todos porque MySQL la materializaría entera.
+
+    /**
+     * Cadena de propiedad de un coche: concesionario → primer dueño → segundo dueño...
+     *
+     * ¿CÓMO FUNCIONA?
+     * CTE recursiva (igual en MySQL 8 y SQLite):
+     * - 'historial' reúne los traspasos del coche de las dos tablas (búsqueda por
+     *   idx_traspasos_coche e idx_traspasos_archivo_coche; son pocas filas por coche)
+     * - Punto de partida: el primer traspaso del coche (o el indicado en despuesDe)
+     * - Cada paso busca el siguiente traspaso del MISMO coche en el que vende quien
+     *   compró en el paso anterior. Un traspaso que no encaje (vende alguien que
+     *   no era el dueño) no forma parte de la cadena
+     *
+     * Paginación por clave: se pasa el id del último traspaso de la página anterior.
+     *
+     * @param despuesDe id_traspaso del último eslabón ya mostrado, o null para empezar
+     * @param limite    Eslabones por página (máximo 500)
+     * @return traspasos en orden cronológico (vacía si no hay más)
+     */
+    public static List<Traspaso> cadenaPropiedad(Connection con, String matricula,
+                                                 Long despuesDe, int limite) throws SQLException {
+        validarLimite(limite);
+
+        // El punto de partida de una página siguiente ya se mostró: entra en el nivel 0
+        // y no se devuelve. Dos formas de SQL, cada una preparada una sola vez.
+        int nivelInicial = despuesDe == null ? 1 : 0;
+
+        String columnas = "SELECT id_traspaso, matricula_coche, id_vendedor, id_comprador, monto_centimos FROM ";
+        String sql = "WITH RECURSIVE historial AS ("
+                + columnas + "traspasos WHERE matricula_coche = ?"
+                + " UNION ALL "
+                + columnas + "traspasos_archivo WHERE matricula_coche = ?"
+                + "), cadena (nivel, id_traspaso, matricula_coche, id_vendedor, "
+                + "id_comprador, monto_centimos) AS ("
+                + " SELECT " + nivelInicial + ", id_traspaso, matricula_coche, id_vendedor, id_comprador, monto_centimos"
+                + " FROM historial"
+                + " WHERE id_traspaso = "
+                + (despuesDe == null ? "(SELECT MIN(id_traspaso) FROM historial)" : "?")
+                + " UNION ALL"
+                + " SELECT c.nivel + 1, t.id_traspaso, t.matricula_coche, t.id_vendedor, t.id_comprador, t.monto_centimos"
+                + " FROM cadena c"
+                + " INNER JOIN historial t ON t.id_traspaso = ("
+                + "   SELECT MIN(s.id_traspaso) FROM historial s"
+                + "   WHERE s.id_vendedor = c.id_comprador"
+                + "   AND s.id_traspaso > c.id_traspaso)"
+                + " WHERE c.nivel < ?"
+                + ") "
+                + "SELECT c.id_traspaso, c.matricula_coche, pv.dni AS dni_vendedor, pc.dni AS dni_comprador, c.monto_centimos "
+                + "FROM cadena c "
+                + "LEFT JOIN propietarios pv ON pv.id_propietario = c.id_vendedor "
+                + "INNER JOIN propietarios pc ON pc.id_propietario = c.id_comprador "
+                + "WHERE c.nivel >= 1 "
+                + "ORDER BY c.nivel";
+
+        return CacheResultados.obtener(con, sql, Arrays.asList(matricula, despuesDe, limite), TABLAS_HISTORIAL, () -> {
+            PreparedStatement pstmt = CacheSentencias.preparar(con, sql);
+            int i = 1;
+            pstmt.setString(i++, matricula);
+            pstmt.setString(i++, matricula);
+            if (despuesDe != null) {
+                pstmt.setLong(i++, despuesDe);
+            }
+            pstmt.setInt(i, limite);
+
+            return List.copyOf(leerTraspasos(pstmt));
+        });
+    }
+
+    /**
+     * Compras y ventas de un propietario, de la más reciente a la más antigua.
+     *
+     * Cada parte (compras por idx_traspasos_comprador, ventas por idx_traspasos_vendedor,
+     * y lo mismo en traspasos_archivo) lee como mucho 'limite' entradas desde el final
+     * de su índice; después se mezclan y se queda la página. El coste no depende del
+     * tamaño de las tablas.
+     *
+     * @param antesDe id_traspaso del último traspaso ya mostrado, o null para empezar
+     * @param limite  Traspasos por página (máximo 500)
+     * @return la página pedida (vacía si el DNI no existe o no hay más)
+     */
+    public static List<Traspaso> historialPropietario(Connection con, String dni,
+                                                      Long antesDe, int limite) throws SQLException {
+        validarLimite(limite);
+
+        return CacheResultados.obtener(con, "traspasos:historial", Arrays.asList(dni, antesDe, limite), TABLAS_HISTORIAL, () -> {
+            int idPropietario = obtenerIdPropietario(con, dni);
+            if (idPropietario == -1) {
+                return List.<Traspaso>of();
+            }
+
+            String sql = "SELECT h.id_traspaso, h.matricula_coche, pv.dni AS dni_vendedor, pc.dni AS dni_comprador, h.monto_centimos "
+                    + "FROM ("
+                    + partesHistorial("traspasos", "recientes")
+                    + " UNION ALL"
+                    + partesHistorial("traspasos_archivo", "archivados")
+                    + ") h "
+                    + "LEFT JOIN propietarios pv ON pv.id_propietario = h.id_vendedor "
+                    + "INNER JOIN propietarios pc ON pc.id_propietario = h.id_comprador "
+                    + "ORDER BY h.id_traspaso DESC LIMIT ?";
+
+            long tope = antesDe == null ? Long.MAX_VALUE : antesDe;
+
+            PreparedStatement pstmt = CacheSentencias.preparar(con, sql);
+            int i = 1;
+            for (int tabla = 0; tabla < 2; tabla++) {
+                pstmt.setInt(i++, idPropietario);
+                pstmt.setLong(i++, tope);
+                pstmt.setInt(i++, limite);
+                pstmt.setInt(i++, idPropietario);
+                pstmt.setInt(i++, idPropietario);
+                pstmt.setLong(i++, tope);
+                pstmt.setInt(i++, limite);
+            }
+            pstmt.setInt(i, limite);
+
+            return List.copyOf(leerTraspasos(pstmt));
+        });
+    }
+
+    /**
+     * Número e importe total de las compras y ventas de un propietario.
+     * Las sumas se resuelven solo con los índices (monto_centimos va en ellos),
+     * una por tabla, y se suman.
+     *
+     * @return totales a cero si el DNI no existe
+     */
+    public static Totales totalesPropietario(Connection con, String dni) throws SQLException {
+        return CacheResultados.obtener(con, "traspasos:totales", List.of(dni), TABLAS_HISTORIAL, () -> {
+            int idPropietario = obtenerIdPropietario(con, dni);
+            if (idPropietario == -1) {
+                return new Totales(0, Dinero.CERO, 0, Dinero.CERO);
+            }
+
+            long[] compras = contarYSumar(con, "id_comprador", idPropietario);
+            long[] ventas = contarYSumar(con, "id_vendedor", idPropietario);
+
+            return new Totales(compras[0], Dinero.deCentimos(compras[1]),
+                    ventas[0], Dinero.deCentimos(ventas[1]));
+        });
+    }
+
+
+    /**
+     * Todos los traspasos, archivados y recientes, como un Flow.Publisher. Las filas se
+     * leen a medida que el suscriptor las pide (ver PublicadorConsulta): sirve para
+     * exportar el histórico completo sin cargarlo en memoria.
+     *
+     * Sin ORDER BY, para que el motor no tenga que ordenar todo antes de la primera fila:
+     * cada tabla se recorre por su clave, así que en la práctica salen los archivados y
+     * después los recientes, cada parte por id_traspaso.
+     *
+     * @param con Conexión que se usará durante toda la suscripción
+     */
+    public static Flow.Publisher<Traspaso> publicarTraspasos(Connection con) {
+        String sql = columnasExportacion("traspasos_archivo") + " UNION ALL " + columnasExportacion("traspasos");
+
+        return new PublicadorConsulta<>(con, sql, null, rs -> new Traspaso(
+                rs.getLong("id_traspaso"),
+                rs.getString("matricula_coche"),
+                rs.getString("dni_vendedor"),
+                rs.getString("dni_comprador"),
+                Dinero.deCentimos(rs.getLong("monto_centimos"))));
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    /**
+     * Suma una venta a ventas_diarias y ventas_mensuales de la marca del coche.
+     * Upsert: la primera venta del día/mes crea la fila, las siguientes la incrementan.
+     */
+    private static void actualizarResumenesVentas(Connection con, String matricula,
+                                                  LocalDateTime fechaVenta, Dinero monto) throws SQLException {
+        int idMarca;
+        PreparedStatement marca = CacheSentencias.preparar(con, "SELECT id_marca FROM coches WHERE matricula = ?");
+        marca.setString(1, matricula);
+        try (ResultSet rs = marca.executeQuery()) {
+            if (!rs.next()) {
+                throw new SQLException("No existe ningún coche con matrícula: " + matricula);
+            }
+            idMarca = rs.getInt(1);
+        }
+
+        String dia = fechaVenta.toLocalDate().toString();                 // AAAA-MM-DD
+        sumarVenta(con, "ventas_diarias", "dia", dia, idMarca, monto);
+        sumarVenta(con, "ventas_mensuales", "mes", dia.substring(0, 7), idMarca, monto);  // AAAA-MM
+    }
+
+    private static void sumarVenta(Connection con, String tabla, String columnaPeriodo, String periodo,
+                                   int idMarca, Dinero monto) throws SQLException {
+        String sql = "INSERT INTO " + tabla + " (" + columnaPeriodo + ", id_marca, ventas, importe_centimos) "
+                + "VALUES (?, ?, 1, ?) "
+                + (TipoMotor.detectar(con) == TipoMotor.MYSQL
+                    ? "ON DUPLICATE KEY UPDATE ventas = ventas + 1, "
+                    + "importe_centimos = importe_centimos + VALUES(importe_centimos)"
+                    : "ON CONFLICT(" + columnaPeriodo + ", id_marca) DO UPDATE SET ventas = ventas + 1, "
+                    + "importe_centimos = importe_centimos + excluded.importe_centimos");
+
+        PreparedStatement pstmt = CacheSentencias.preparar(con, sql);
+        pstmt.setString(1, periodo);
+        pstmt.setInt(2, idMarca);
+        pstmt.setLong(3, monto.centimos());
+        pstmt.executeUpdate();
+    }
+
+    private static void validarLimite(int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+    }
+
+    /**
+     * Lee filas (id_traspaso, matricula_coche, dni_vendedor, dni_comprador, monto_centimos).
+     * La sentencia viene de CacheSentencias: se cierra el ResultSet, no la sentencia.
+     */
+    private static List<Traspaso> leerTraspasos(PreparedStatement pstmt) throws SQLException {
+        List<Traspaso> traspasos = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                traspasos.add(new Traspaso(
+                        rs.getLong("id_traspaso"),
+                        rs.getString("matricula_coche"),
+                        rs.getString("dni_vendedor"),
+                        rs.getString("dni_comprador"),
+                        Dinero.deCentimos(rs.getLong("monto_centimos"))));
+            }
+        }
+        return traspasos;
+    }
+
+    private static String columnasExportacion(String tabla) {
+        return "SELECT t.id_traspaso, t.matricula_coche, pv.dni AS dni_vendedor, pc.dni AS dni_comprador, t.monto_centimos "
+                + "FROM " + tabla + " t "
+                + "LEFT JOIN propietarios pv ON pv.id_propietario = t.id_vendedor "
+                + "INNER JOIN propietarios pc ON pc.id_propietario = t.id_comprador";
+    }
+
+    /**
+     * Compras y ventas de una tabla de traspasos, cada mitad con su LIMIT.
+     * Parámetros: comprador, tope, límite, vendedor, comprador (distinto), tope, límite.
+     */
+    private static String partesHistorial(String tabla, String alias) {
+        String columnas = "SELECT id_traspaso, matricula_coche, id_vendedor, id_comprador, monto_centimos FROM " + tabla + " ";
+        return " SELECT * FROM (" + columnas
+                + "   WHERE id_comprador = ? AND id_traspaso < ? ORDER BY id_traspaso DESC LIMIT ?) compras_" + alias
+                + " UNION ALL"
+                // id_comprador <> ?: un traspaso a sí mismo saldría dos veces
+                + " SELECT * FROM (" + columnas
+                + "   WHERE id_vendedor = ? AND id_comprador <> ? AND id_traspaso < ? ORDER BY id_traspaso DESC LIMIT ?) ventas_" + alias;
+    }
+
+    /**
+     * Número de traspasos e importe total con el propietario en 'columna',
+     * sumando traspasos y traspasos_archivo.
+     */
+    private static long[] contarYSumar(Connection con, String columna, int idPropietario) throws SQLException {
+        String sql = "SELECT COALESCE(SUM(n), 0), COALESCE(SUM(importe), 0) FROM ("
+                + "SELECT COUNT(*) AS n, SUM(monto_centimos) AS importe FROM traspasos WHERE " + columna + " = ?"
+                + " UNION ALL "
+                + "SELECT COUNT(*), SUM(monto_centimos) FROM traspasos_archivo WHERE " + columna + " = ?"
+                + ") t";
+        PreparedStatement pstmt = CacheSentencias.preparar(con, sql);
+        pstmt.setInt(1, idPropietario);
+        pstmt.setInt(2, idPropietario);
+
+        try (ResultSet rs = pstmt.executeQuery()) {
+            rs.next();
+            return new long[]{rs.getLong(1), rs.getLong(2)};
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package model;
+
+import util.ConfigProperties;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trie en memoria para autocompletar propietarios mientras se escribe en el mostrador.
+ *
+ * ¿POR QUÉ?
+ * Cada tecla pulsada es una búsqueda. Con el índice de V9 cada una cuesta una consulta
+ * (décimas de milisegundo más la ida y vuelta a MySQL); recorrer un trie en memoria
+ * cuesta microsegundos y ordena por orden alfabético sin ordenar nada.
+ *
+ * ¿CÓMO FUNCIONA?
+ * - Trie compacto (radix): cada nodo guarda un trozo de texto, no una sola letra, así
+ *   que los finales únicos ("...ez") no crean una cadena de nodos
+ * - Cada propietario entra con varias claves: DNI, nombre, apellidos y el segundo
+ *   apellido suelto (para encontrar "López" en "García López")
+ * - Las claves se guardan en minúsculas y sin tildes: "garcia" encuentra "García"
+ * - Se carga la primera vez que se pide una sugerencia con los propietarios más
+ *   recientes (hasta propietarios.trie.maximo; 0 = desactivado)
+ * - PropietarioDAO añade cada alta; una importación masiva lo invalida y se recarga
+ * - Lo escrito sin pasar por PropietarioDAO (scripts SQL, otro proceso): los scripts lo
+ *   invalidan (DatabaseManager.invalidarCachesDerivadas) y, como mucho una vez por
+ *   segundo, una sugerencia lee los propietarios con id mayor que el último cargado
+ *   (búsqueda por la clave primaria). Las bajas y cambios de otro proceso no se ven
+ *   hasta la próxima recarga
+ *
+ * IMPORTANTE:
+ * - Si la tabla tiene más propietarios que el máximo, el trie solo contiene una parte
+ *   (estaCompleto() = false) y PropietarioDAO.sugerir completa con SQL. Desde ese momento
+ *   el trie se queda como está: ni recibe altas ni se pone al día (crecería sin límite o
+ *   se recargaría entero en cada comprobación); las nuevas salen por SQL
+ * - Memoria: del orden de 300 bytes por propietario (100.000 → ~30 MB)
+ */
+public class TriePropietarios {
+
+    private static final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+
+    private static Nodo raiz = null;                  // null = sin cargar
+    private static final Map<Integer, Propietario> propietarios = new HashMap<>();
+    private static boolean completo = false;
+    private static boolean desactivado = false;
+    private static int ultimoId = 0;                  // mayor id_propietario del trie
+    private static Integer maximoFijado = null;       // null = propietarios.trie.maximo
+
+    // Altas hechas por fuera de PropietarioDAO: se buscan como mucho una vez por segundo
+    private static final long INTERVALO_COMPROBACION = TimeUnit.SECONDS.toNanos(1);
+    private static volatile long proximaComprobacion = 0;
+
+
+    // ============================================
+    // CONSULTAS
+    // ============================================
+
+    /**
+     * Hasta 'limite' propietarios con alguna clave que empiece por 'prefijo',
+     * en orden alfabético de la clave.
+     * @return lista vacía si el trie está desactivado
+     */
+    public static List<Propietario> sugerir(Connection con, String prefijo, int limite) throws SQLException {
+        cargarSiHaceFalta(con);
+        ponerAlDia(con);
+
+        cerrojo.readLock().lock();
+        try {
+            List<Propietario> resultado = new ArrayList<>();
+            if (raiz == null) {
+                return resultado;
+            }
+
+            Nodo nodo = buscarNodo(normalizar(prefijo));
+            if (nodo != null) {
+                Set<Integer> ids = new LinkedHashSet<>();
+                recoger(nodo, ids, limite);
+                for (int id : ids) {
+                    resultado.add(propietarios.get(id));
+                }
+            }
+            return resultado;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * true si el trie contiene todos los propietarios de la BD (sus sugerencias no
+     * necesitan completarse con SQL).
+     */
+    public static boolean estaCompleto() {
+        cerrojo.readLock().lock();
+        try {
+            return raiz != null && completo;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+
+    // ============================================
+    // MANTENIMIENTO (desde PropietarioDAO)
+    // ============================================
+
+    /**
+     * Añade un propietario recién registrado (si el trie no está cargado no hace nada:
+     * lo leerá la carga). Si ya no cabe, el trie deja de estar completo.
+     */
+    public static void registrar(Propietario propietario) {
+        cerrojo.writeLock().lock();
+        try {
+            if (raiz == null || !completo) {
+                return;
+            }
+            if (propietarios.size() >= maximo()) {
+                completo = false;
+                return;
+            }
+            anadir(propietario);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Olvida el contenido; se recargará en la próxima sugerencia.
+     */
+    public static void invalidar() {
+        cerrojo.writeLock().lock();
+        try {
+            raiz = null;
+            propietarios.clear();
+            completo = false;
+            desactivado = false;
+            ultimoId = 0;
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sustituye propietarios.trie.maximo (pruebas); null vuelve al de la configuración.
+     * El trie se vacía para cargarse con el nuevo máximo.
+     */
+    static void fijarMaximo(Integer maximo) {
+        maximoFijado = maximo;
+        invalidar();
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    private static int maximo() {
+        return maximoFijado != null ? maximoFijado : ConfigProperties.getIntProperty("propietarios.trie.maximo", 100000);
+    }
+
+    private static void cargarSiHaceFalta(Connection con) throws SQLException {
+        cerrojo.readLock().lock();
+        try {
+            if (raiz != null || desactivado) {
+                return;
+            }
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+
+        cerrojo.writeLock().lock();
+        try {
+            if (raiz == null && !desactivado) {
+                cargar(con);
+            }
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Añade los propietarios con id mayor que el último cargado (altas de scripts u otros
+     * procesos). Si ya no caben en el máximo no se añade ninguno y el trie deja de estar
+     * completo; uno incompleto no se pone al día (sus huecos los cubre el SQL).
+     */
+    private static void ponerAlDia(Connection con) throws SQLException {
+        long ahora = System.nanoTime();
+        if (ahora - proximaComprobacion < 0) {
+            return;
+        }
+        proximaComprobacion = ahora + INTERVALO_COMPROBACION;
+
+        cerrojo.writeLock().lock();
+        try {
+            if (raiz == null || !completo) {
+                return;
+            }
+
+            // Uno más de los que caben, para saber si caben todos
+            int caben = maximo() - propietarios.size();
+            List<Propietario> nuevos = new ArrayList<>();
+            String sql = "SELECT id_propietario, dni, nombre, apellidos, telefono FROM propietarios "
+                    + "WHERE id_propietario > ? ORDER BY id_propietario LIMIT ?";
+            try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+                pstmt.setInt(1, ultimoId);
+                pstmt.setInt(2, caben + 1);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        nuevos.add(new Propietario(rs.getInt(1), rs.getString(2), rs.getString(3),
+                                rs.getString(4), rs.getString(5)));
+                    }
+                }
+            }
+
+            if (nuevos.size() > caben) {
+                completo = false;
+                return;
+            }
+            nuevos.forEach(TriePropietarios::anadir);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lee los propietarios más recientes (uno más del máximo, para saber si caben todos).
+     */
+    private static void cargar(Connection con) throws SQLException {
+        int maximo = maximo();
+        if (maximo <= 0) {
+            desactivado = true;
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        String sql = "SELECT id_propietario, dni, nombre, apellidos, telefono FROM propietarios "
+                + "ORDER BY id_propietario DESC LIMIT ?";
+
+        raiz = new Nodo("");
+        propietarios.clear();
+        ultimoId = 0;
+        int leidos = 0;
+
+        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+            pstmt.setInt(1, maximo + 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (leidos < maximo && rs.next()) {
+                    anadir(new Propietario(rs.getInt(1), rs.getString(2), rs.getString(3),
+                            rs.getString(4), rs.getString(5)));
+                    leidos++;
+                }
+                completo = leidos < maximo || !rs.next();
+            }
+        } catch (SQLException e) {
+            raiz = null;
+            propietarios.clear();
+            throw e;
+        }
+
+        System.out.println("Sugerencias de propietarios cargadas: " + leidos
+                + (completo ? "" : " más recientes") + " (" + (System.nanoTime() - inicio) / 1_000_000 + " ms)");
+    }
+
+    private static void anadir(Propietario propietario) {
+        propietarios.put(propietario.idPropietario(), propietario);
+        int id = propietario.idPropietario();
+        ultimoId = Math.max(ultimoId, id);
+
+        insertar(normalizar(propietario.dni()), id);
+        insertar(normalizar(propietario.nombre()), id);
+
+        String apellidos = normalizar(propietario.apellidos());
+        insertar(apellidos, id);
+        // Segundo apellido (y siguientes palabras) como claves propias
+        int espacio = apellidos.indexOf(' ');
+        while (espacio >= 0) {
+            insertar(apellidos.substring(espacio + 1), id);
+            espacio = apellidos.indexOf(' ', espacio + 1);
+        }
+    }
+
+    /**
+     * Minúsculas, sin tildes y con los espacios interiores reducidos a uno.
+     * La descomposición Unicode (lenta) solo se hace si hay caracteres no ASCII.
+     * PropietarioDAO.sugerir normaliza igual el prefijo que busca por SQL.
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) > 127) {
+                texto = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+                break;
+            }
+        }
+
+        StringBuilder normalizado = new StringBuilder(texto.length());
+        boolean espacioPendiente = false;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (Character.isWhitespace(c)) {
+                espacioPendiente = normalizado.length() > 0;
+            } else {
+                if (espacioPendiente) {
+                    normalizado.append(' ');
+                    espacioPendiente = false;
+                }
+                normalizado.append(Character.toLowerCase(c));
+            }
+        }
+        return normalizado.toString();
+    }
+
+    private static void insertar(String clave, int id) {
+        if (clave.isEmpty()) {
+            return;
+        }
+
+        Nodo nodo = raiz;
+        int posicion = 0;
+        while (posicion < clave.length()) {
+            int i = nodo.buscarHijo(clave.charAt(posicion));
+            if (i < 0) {
+                // Ninguna clave sigue por aquí: el resto de la clave es un nodo nuevo
+                Nodo hoja = new Nodo(clave.substring(posicion));
+                nodo.insertarHijo(-(i + 1), hoja);
+                nodo = hoja;
+                break;
+            }
+
+            Nodo hijo = nodo.hijos[i];
+            int comun = prefijoComun(hijo.etiqueta, clave, posicion);
+            if (comun < hijo.etiqueta.length()) {
+                // La clave se separa a mitad de la etiqueta: se parte el nodo en dos
+                Nodo medio = new Nodo(hijo.etiqueta.substring(0, comun));
+                hijo.etiqueta = hijo.etiqueta.substring(comun);
+                medio.hijos = new Nodo[]{hijo};
+                nodo.hijos[i] = medio;
+                hijo = medio;
+            }
+            nodo = hijo;
+            posicion += comun;
+        }
+        nodo.anadirId(id);
+    }
+
+    /**
+     * Nodo donde acaba 'prefijo' (puede acabar a mitad de su etiqueta), o null.
+     */
+    private static Nodo buscarNodo(String prefijo) {
+        Nodo nodo = raiz;
+        int posicion = 0;
+        while (posicion < prefijo.length()) {
+            int i = nodo.buscarHijo(prefijo.charAt(posicion));
+            if (i < 0) {
+                return null;
+            }
+            Nodo hijo = nodo.hijos[i];
+            int longitud = Math.min(hijo.etiqueta.length(), prefijo.length() - posicion);
+            if (!prefijo.regionMatches(posicion, hijo.etiqueta, 0, longitud)) {
+                return null;
+            }
+            nodo = hijo;
+            posicion += longitud;
+        }
+        return nodo;
+    }
+
+    /**
+     * Recorrido en profundidad en orden alfabético hasta reunir 'limite' propietarios.
+     */
+    private static void recoger(Nodo nodo, Set<Integer> ids, int limite) {
+        for (int i = 0; i < nodo.totalIds && ids.size() < limite; i++) {
+            ids.add(nodo.ids[i]);
+        }
+        for (Nodo hijo : nodo.hijos) {
+            if (ids.size() >= limite) {
+                return;
+            }
+            recoger(hijo, ids, limite);
+        }
+    }
+
+    private static int prefijoComun(String etiqueta, String clave, int desde) {
+        int maximo = Math.min(etiqueta.length(), clave.length() - desde);
+        int i = 0;
+        while (i < maximo && etiqueta.charAt(i) == clave.charAt(desde + i)) {
+            i++;
+        }
+        return i;
+    }
+
+
+    /**
+     * Nodo del trie: un trozo de clave, los hijos ordenados por su primera letra y
+     * los propietarios cuya clave termina exactamente aquí.
+     */
+    private static final class Nodo {
+        private static final Nodo[] SIN_HIJOS = new Nodo[0];
+
+        private String etiqueta;
+        private Nodo[] hijos = SIN_HIJOS;
+        private int[] ids = null;
+        private int totalIds = 0;
+
+        Nodo(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+
+        /**
+         * Búsqueda binaria por la primera letra de la etiqueta (como Arrays.binarySearch:
+         * si no está, devuelve -(posición de inserción) - 1).
+         */
+        int buscarHijo(char letra) {
+            int bajo = 0, alto = hijos.length - 1;
+            while (bajo <= alto) {
+                int medio = (bajo + alto) >>> 1;
+                char otra = hijos[medio].etiqueta.charAt(0);
+                if (otra < letra) {
+                    bajo = medio + 1;
+                } else if (otra > letra) {
+                    alto = medio - 1;
+                } else {
+                    return medio;
+                }
+            }
+            return -(bajo + 1);
+        }
+
+        void insertarHijo(int posicion, Nodo hijo) {
+            Nodo[] nuevos = new Nodo[hijos.length + 1];
+            System.arraycopy(hijos, 0, nuevos, 0, posicion);
+            nuevos[posicion] = hijo;
+            System.arraycopy(hijos, posicion, nuevos, posicion + 1, hijos.length - posicion);
+            hijos = nuevos;
+        }
+
+        void anadirId(int id) {
+            if (ids == null) {
+                ids = new int[1];
+            } else if (totalIds == ids.length) {
+                ids = Arrays.copyOf(ids, totalIds * 2);
+            }
+            ids[totalIds++] = id;
+        }
+    }
+}
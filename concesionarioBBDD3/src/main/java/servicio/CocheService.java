@@ -0,0 +1,88 @@
+package servicio;
+
+import model.BusquedaCocheDAO;
+import model.Coche;
+import model.CocheDAO;
+import model.ConsultaCoches;
+import model.Dinero;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asíncrona de CocheDAO, ConsultaCoches y BusquedaCocheDAO.
+ * Cada método se ejecuta en un hilo virtual con una conexión del pool (ver EjecutorServicios).
+ *
+ * USO:
+ *   CocheService.insertarCoche("1234ABC", "Seat", "León", "GPS", Dinero.parse("18500"))
+ *           .thenAccept(r -> System.out.println(r == CocheDAO.Resultado.HECHO ? "Alta hecha" : "Matrícula repetida"));
+ *
+ * Las escrituras devuelven CocheDAO.Resultado; un error de la BD completa el futuro con la SQLException.
+ */
+public class CocheService {
+
+    private CocheService() {
+    }
+
+
+    // ============================================
+    // ESCRITURAS
+    // ============================================
+
+    /**
+     * @see CocheDAO#insertar
+     */
+    public static CompletableFuture<CocheDAO.Resultado> insertarCoche(String matricula, String marca, String modelo,
+                                                                      String extras, Dinero precio) {
+        return EjecutorServicios.escribir(con -> CocheDAO.insertar(con, matricula, marca, modelo, extras, precio));
+    }
+
+    /**
+     * @see CocheDAO#modificar
+     */
+    public static CompletableFuture<CocheDAO.Resultado> modificarCoche(String matricula, String marca, String modelo,
+                                                                       String extras, Dinero precio) {
+        return EjecutorServicios.escribir(con -> CocheDAO.modificar(con, matricula, marca, modelo, extras, precio));
+    }
+
+    /**
+     * @see CocheDAO#borrar
+     */
+    public static CompletableFuture<CocheDAO.Resultado> borrarCoche(String matricula) {
+        return EjecutorServicios.escribir(con -> CocheDAO.borrar(con, matricula));
+    }
+
+    /**
+     * @see CocheDAO#importarDesdeCsv
+     */
+    public static CompletableFuture<Boolean> importarDesdeCsv(String rutaCSV) {
+        return EjecutorServicios.escribir(con -> CocheDAO.importarDesdeCsv(con, rutaCSV));
+    }
+
+
+    // ============================================
+    // CONSULTAS
+    // ============================================
+
+    /**
+     * @see CocheDAO#obtenerCoche
+     */
+    public static CompletableFuture<Coche> obtenerCoche(String matricula) {
+        return EjecutorServicios.leer(con -> CocheDAO.obtenerCoche(con, matricula));
+    }
+
+    /**
+     * Ejecuta una consulta con filtros. La consulta no debe modificarse hasta que
+     * el futuro se complete.
+     */
+    public static CompletableFuture<List<Coche>> consultar(ConsultaCoches consulta) {
+        return EjecutorServicios.leer(consulta::ejecutar);
+    }
+
+    /**
+     * @see BusquedaCocheDAO#buscar
+     */
+    public static CompletableFuture<List<String>> buscar(String texto, int pagina, int tamanoPagina) {
+        return EjecutorServicios.leer(con -> BusquedaCocheDAO.buscar(con, texto, pagina, tamanoPagina));
+    }
+}
@@ -0,0 +1,161 @@
+package servicio;
+
+import database.DatabaseManager;
+import database.PoolConexiones;
+import database.TipoMotor;
+import util.ConfigProperties;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Infraestructura común de los servicios asíncronos (CocheService, TraspasoService, InformeService).
+ *
+ * ¿POR QUÉ?
+ * Los DAO son estáticos y bloqueantes: quien los llama se queda esperando a la BD.
+ * Con un hilo virtual por petición, miles de peticiones pueden esperar a la vez
+ * (a la BD o a una conexión libre) sin ocupar un hilo del sistema cada una.
+ *
+ * ¿CÓMO FUNCIONA?
+ * - Cada operación se ejecuta en su propio hilo virtual y devuelve un CompletableFuture
+ * - Escrituras: pool propio de conexiones auxiliares (servicios.escritores; por defecto
+ *   db.pool.maxTotal en MySQL y 1 en SQLite, que solo admite un escritor)
+ * - Lecturas: el pool de lectura de SQLite en WAL o, si no lo hay, el de escrituras
+ *   (la conexión activa del menú nunca se comparte entre hilos)
+ * - Las peticiones que no encuentran conexión libre esperan en el pool (PoolConexiones
+ *   usa una cola bloqueante, que no fija el hilo virtual a su hilo del sistema)
+ * - Se arranca sola con la primera operación y se detiene al cerrar la conexión
+ *   (DatabaseManager.cerrarConexion)
+ *
+ * IMPORTANTE:
+ * - Necesita una BD en archivo o MySQL: una BD SQLite en memoria no admite más conexiones
+ * - Un error en la operación completa el futuro con una CompletionException que lo envuelve
+ */
+public class EjecutorServicios {
+
+    /**
+     * Operación de BD que se ejecuta con una conexión prestada.
+     */
+    @FunctionalInterface
+    public interface OperacionBD<T> {
+        T ejecutar(Connection con) throws Exception;
+    }
+
+    private static ExecutorService hilos = null;
+    private static PoolConexiones escritores = null;
+
+
+    /**
+     * Arranca el ejecutor y el pool de escritura sobre la BD conectada en DatabaseManager.
+     * No hace nada si ya estaba en marcha.
+     */
+    public static synchronized void iniciar() throws SQLException {
+        if (hilos != null) {
+            return;
+        }
+
+        int porDefecto = DatabaseManager.getTipoMotor() == TipoMotor.MYSQL
+                ? ConfigProperties.getIntProperty("db.pool.maxTotal", 20) : 1;
+        escritores = new PoolConexiones("escritura servicios",
+                ConfigProperties.getIntProperty("servicios.escritores", porDefecto),
+                ConfigProperties.getIntProperty("servicios.espera_ms", 60_000),
+                DatabaseManager::abrirConexionAuxiliar);
+        hilos = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Deja de aceptar operaciones, espera a las que están en marcha y cierra el pool.
+     *
+     * @return true si estaba en marcha
+     */
+    public static synchronized boolean detener() {
+        if (hilos == null) {
+            return false;
+        }
+
+        hilos.shutdown();
+        try {
+            if (!hilos.awaitTermination(30, TimeUnit.SECONDS)) {
+                System.err.println("Los servicios asíncronos no terminaron a tiempo");
+                hilos.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        escritores.cerrar();
+        hilos = null;
+        escritores = null;
+        return true;
+    }
+
+
+    // ============================================
+    // EJECUCIÓN (para los servicios)
+    // ============================================
+
+    /**
+     * Ejecuta una operación de escritura con una conexión del pool de escritura.
+     */
+    static <T> CompletableFuture<T> escribir(OperacionBD<T> operacion) {
+        return enviar(operacion, true);
+    }
+
+    /**
+     * Ejecuta una consulta con una conexión de lectura.
+     */
+    static <T> CompletableFuture<T> leer(OperacionBD<T> operacion) {
+        return enviar(operacion, false);
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    private static <T> CompletableFuture<T> enviar(OperacionBD<T> operacion, boolean escritura) {
+        ExecutorService ejecutor;
+        PoolConexiones pool;
+        synchronized (EjecutorServicios.class) {
+            try {
+                iniciar();
+            } catch (SQLException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            ejecutor = hilos;
+            pool = escritores;
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return conConexion(operacion, pool, escritura || !DatabaseManager.tienePoolLectura());
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, ejecutor);
+        } catch (RejectedExecutionException e) {
+            // detener() llegó entre medias
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static <T> T conConexion(OperacionBD<T> operacion, PoolConexiones pool, boolean delPool)
+            throws Exception {
+        Connection con = delPool ? pool.obtener() : DatabaseManager.obtenerConexionLectura();
+        try {
+            return operacion.ejecutar(con);
+        } finally {
+            if (delPool) {
+                pool.liberar(con);
+            } else {
+                DatabaseManager.liberarConexionLectura(con);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package servicio;
+
+import model.InformeDAO;
+import model.ProcedimientoDAO;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asíncrona de InformeDAO: el informe se genera en un hilo virtual con una
+ * conexión de lectura (ver EjecutorServicios) y quien lo pide no se queda esperando.
+ *
+ * USO:
+ *   InformeService.generarInformeResumen("informe.txt")
+ *           .thenAccept(ok -> System.out.println(ok ? "Informe listo" : "Error en el informe"));
+ */
+public class InformeService {
+
+    private InformeService() {
+    }
+
+
+    /**
+     * @see InformeDAO#generarInformeResumen
+     */
+    public static CompletableFuture<Boolean> generarInformeResumen(String rutaArchivo) {
+        return EjecutorServicios.leer(con -> InformeDAO.generarInformeResumen(con, rutaArchivo));
+    }
+
+    /**
+     * @see InformeDAO#generarInformeAproximado
+     */
+    public static CompletableFuture<Boolean> generarInformeAproximado(String rutaArchivo) {
+        return EjecutorServicios.leer(con -> InformeDAO.generarInformeAproximado(con, rutaArchivo));
+    }
+
+    /**
+     * @see ProcedimientoDAO#cochesPorMarca
+     */
+    public static CompletableFuture<List<ProcedimientoDAO.EstadisticaMarca>> cochesPorMarca() {
+        return EjecutorServicios.leer(ProcedimientoDAO::cochesPorMarca);
+    }
+}
@@ -0,0 +1,62 @@
+package servicio;
+
+import model.Dinero;
+import model.Traspaso;
+import model.TraspasoDAO;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asíncrona de TraspasoDAO.
+ * Cada método se ejecuta en un hilo virtual con una conexión del pool (ver EjecutorServicios).
+ *
+ * USO:
+ *   TraspasoService.historialPropietario("12345678Z", null, 20)
+ *           .thenAccept(pagina -> pagina.forEach(System.out::println));
+ */
+public class TraspasoService {
+
+    private TraspasoService() {
+    }
+
+
+    // ============================================
+    // ESCRITURAS
+    // ============================================
+
+    /**
+     * @see TraspasoDAO#realizarTraspaso(java.sql.Connection, String, String, Dinero)
+     */
+    public static CompletableFuture<Boolean> realizarTraspaso(String dniComprador, String matriculaCoche,
+                                                              Dinero montoEconomico) {
+        return EjecutorServicios.escribir(con -> TraspasoDAO.realizarTraspaso(con, dniComprador,
+                matriculaCoche, montoEconomico));
+    }
+
+
+    // ============================================
+    // CONSULTAS
+    // ============================================
+
+    /**
+     * @see TraspasoDAO#historialPropietario
+     */
+    public static CompletableFuture<List<Traspaso>> historialPropietario(String dni, Long antesDe, int limite) {
+        return EjecutorServicios.leer(con -> TraspasoDAO.historialPropietario(con, dni, antesDe, limite));
+    }
+
+    /**
+     * @see TraspasoDAO#cadenaPropiedad
+     */
+    public static CompletableFuture<List<Traspaso>> cadenaPropiedad(String matricula, Long despuesDe, int limite) {
+        return EjecutorServicios.leer(con -> TraspasoDAO.cadenaPropiedad(con, matricula, despuesDe, limite));
+    }
+
+    /**
+     * @see TraspasoDAO#totalesPropietario
+     */
+    public static CompletableFuture<TraspasoDAO.Totales> totalesPropietario(String dni) {
+        return EjecutorServicios.leer(con -> TraspasoDAO.totalesPropietario(con, dni));
+    }
+}
@@ -0,0 +1,204 @@
+package servidor;
+
+import model.Coche;
+import model.CocheDAO;
+import model.ConsultaCoches;
+import model.Dinero;
+import servicio.CocheService;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Rutas de coches y de búsqueda.
+ *
+ *   GET    /coches                 listado con filtros (ConsultaCoches), paginado por clave:
+ *                                  ?marca= &precioDesde= &precioHasta= &estado=todos|en_stock|vendidos
+ *                                  &propietario=DNI &extra= (repetible) &limite= &despuesDe=MATRÍCULA
+ *   POST   /coches                 alta: {"matricula", "marca", "modelo", "extras", "precio"}
+ *   GET    /coches/{matricula}     un coche
+ *   PUT    /coches/{matricula}     modificación: {"marca", "modelo", "extras", "precio"}
+ *   DELETE /coches/{matricula}     baja (204)
+ *   GET    /busqueda?q=&pagina=&tamano=   búsqueda por texto libre (matrículas por relevancia)
+ */
+class ApiCoches {
+
+    // Tope de filas por página, el mismo que el de los historiales de TraspasoDAO
+    private static final int LIMITE_MAXIMO = 500;
+
+    private ApiCoches() {
+    }
+
+    static void registrar(Enrutador rutas) {
+        rutas.agregar("GET", "/coches", ApiCoches::listar);
+        rutas.agregar("POST", "/coches", ApiCoches::insertar);
+        rutas.agregar("GET", "/coches/{matricula}", ApiCoches::obtener);
+        rutas.agregar("PUT", "/coches/{matricula}", ApiCoches::modificar);
+        rutas.agregar("DELETE", "/coches/{matricula}", ApiCoches::borrar);
+        rutas.agregar("GET", "/busqueda", ApiCoches::buscar);
+    }
+
+
+    // ============================================
+    // MANEJADORES
+    // ============================================
+
+    private static Object listar(Peticion peticion) {
+        int limite = limite(peticion, 50);
+        ConsultaCoches consulta = ConsultaCoches.nueva()
+                .marca(peticion.parametro("marca"))
+                .precioDesde(peticion.dinero("precioDesde"))
+                .precioHasta(peticion.dinero("precioHasta"))
+                .estado(estado(peticion.parametro("estado")))
+                .propietario(peticion.parametro("propietario"))
+                .limite(limite);
+        for (String extra : peticion.parametros("extra")) {
+            consulta.conExtra(extra);
+        }
+
+        // La página siguiente necesita el coche entero (precio incluido) para su clave
+        String despuesDe = peticion.parametro("despuesDe");
+        if (despuesDe != null) {
+            Coche ultimo = CocheService.obtenerCoche(despuesDe).join();
+            if (ultimo == null) {
+                throw new IllegalArgumentException("despuesDe: no existe ningún coche con la matrícula " + despuesDe);
+            }
+            consulta.despuesDe(ultimo);
+        }
+
+        List<Coche> coches = CocheService.consultar(consulta).join();
+
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("coches", coches.stream().map(ApiCoches::aJson).toList());
+        respuesta.put("siguiente", coches.size() == limite ? coches.get(coches.size() - 1).matricula() : null);
+        return respuesta;
+    }
+
+    private static Object insertar(Peticion peticion) {
+        String matricula = peticion.campo("matricula");
+        CocheDAO.Resultado resultado = CocheService.insertarCoche(matricula, peticion.campo("marca"),
+                peticion.campo("modelo"), extras(peticion), peticion.campoDinero("precio")).join();
+        if (resultado == CocheDAO.Resultado.MATRICULA_REPETIDA) {
+            throw new ErrorHttp(409, "Ya existe un coche con la matrícula " + matricula);
+        }
+
+        peticion.estado(201);
+        return aJson(CocheService.obtenerCoche(matricula).join());
+    }
+
+    private static Object obtener(Peticion peticion) {
+        return aJson(buscarCoche(peticion.ruta("matricula")));
+    }
+
+    private static Object modificar(Peticion peticion) {
+        String matricula = peticion.ruta("matricula");
+        String marca = peticion.campo("marca");
+        String modelo = peticion.campo("modelo");
+        Dinero precio = peticion.campoDinero("precio");
+
+        comprobar(CocheService.modificarCoche(matricula, marca, modelo, extras(peticion), precio).join(), matricula);
+        return aJson(CocheService.obtenerCoche(matricula).join());
+    }
+
+    private static Object borrar(Peticion peticion) {
+        String matricula = peticion.ruta("matricula");
+        comprobar(CocheService.borrarCoche(matricula).join(), matricula);
+        return null;
+    }
+
+    private static Object buscar(Peticion peticion) {
+        String texto = peticion.parametro("q");
+        if (texto == null) {
+            throw new IllegalArgumentException("Falta el parámetro 'q'");
+        }
+        int pagina = peticion.entero("pagina", 1);
+        int tamano = limite(peticion, "tamano", 20);
+
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("pagina", pagina);
+        respuesta.put("tamano", tamano);
+        respuesta.put("matriculas", CocheService.buscar(texto, pagina, tamano).join());
+        return respuesta;
+    }
+
+
+    // ============================================
+    // CONVERSIONES (también para ApiTraspasos)
+    // ============================================
+
+    static Map<String, Object> aJson(Coche coche) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("matricula", coche.matricula());
+        json.put("marca", coche.marca());
+        json.put("modelo", coche.modelo());
+        json.put("extras", coche.extras());
+        json.put("precio", importe(coche.precio()));
+        json.put("propietario", coche.dniPropietario());
+        json.put("enStock", coche.enStock());
+        return json;
+    }
+
+    /**
+     * Importe como número JSON con dos decimales (18500.00), sin pasar por double.
+     */
+    static BigDecimal importe(Dinero dinero) {
+        return BigDecimal.valueOf(dinero.centimos(), 2);
+    }
+
+    /**
+     * ?limite= entre 1 y LIMITE_MAXIMO.
+     */
+    static int limite(Peticion peticion, int porDefecto) {
+        return limite(peticion, "limite", porDefecto);
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    private static int limite(Peticion peticion, String nombre, int porDefecto) {
+        int limite = peticion.entero(nombre, porDefecto);
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("'" + nombre + "' debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        return limite;
+    }
+
+    private static Coche buscarCoche(String matricula) {
+        Coche coche = CocheService.obtenerCoche(matricula).join();
+        if (coche == null) {
+            throw new ErrorHttp(404, "No existe ningún coche con la matrícula " + matricula);
+        }
+        return coche;
+    }
+
+    /**
+     * Un coche que no existe (o que otro borró entretanto) es un 404; los errores de la BD
+     * llegan como excepción y el servidor responde 500.
+     */
+    private static void comprobar(CocheDAO.Resultado resultado, String matricula) {
+        if (resultado == CocheDAO.Resultado.NO_EXISTE) {
+            throw new ErrorHttp(404, "No existe ningún coche con la matrícula " + matricula);
+        }
+    }
+
+    private static String extras(Peticion peticion) {
+        String extras = peticion.campoOpcional("extras");
+        return extras == null ? "" : extras;
+    }
+
+    private static ConsultaCoches.Estado estado(String valor) {
+        if (valor == null) {
+            return ConsultaCoches.Estado.TODOS;
+        }
+        try {
+            return ConsultaCoches.Estado.valueOf(valor.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("'estado' debe ser todos, en_stock o vendidos");
+        }
+    }
+}
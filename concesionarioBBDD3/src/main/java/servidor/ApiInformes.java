@@ -0,0 +1,81 @@
+package servidor;
+
+import model.ProcedimientoDAO;
+import servicio.InformeService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Rutas de informes. InformeDAO escribe en un archivo: se genera en uno temporal,
+ * se devuelve su texto y se borra.
+ *
+ *   GET /informes/resumen       informe completo (consulta las tablas)
+ *   GET /informes/aproximado    informe con sketches (coste constante)
+ *   GET /informes/marcas        estadísticas por marca (sp_coches_por_marca o su vista)
+ *
+ * Respuesta: {"informe": "resumen", "contenido": "...texto del informe..."}
+ * (marcas: {"marcas": [{"marca", "totalCoches", "precioPromedio", "precioMinimo", "precioMaximo"}]})
+ */
+class ApiInformes {
+
+    private ApiInformes() {
+    }
+
+    static void registrar(Enrutador rutas) {
+        rutas.agregar("GET", "/informes/resumen",
+                peticion -> generar("resumen", InformeService::generarInformeResumen));
+        rutas.agregar("GET", "/informes/aproximado",
+                peticion -> generar("aproximado", InformeService::generarInformeAproximado));
+        rutas.agregar("GET", "/informes/marcas", ApiInformes::marcas);
+    }
+
+
+    // ============================================
+    // MANEJADORES
+    // ============================================
+
+    private static Object marcas(Peticion peticion) {
+        List<Map<String, Object>> marcas = new ArrayList<>();
+        for (ProcedimientoDAO.EstadisticaMarca estadistica : InformeService.cochesPorMarca().join()) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("marca", estadistica.marca());
+            json.put("totalCoches", estadistica.totalCoches());
+            json.put("precioPromedio", ApiCoches.importe(estadistica.precioPromedio()));
+            json.put("precioMinimo", ApiCoches.importe(estadistica.precioMinimo()));
+            json.put("precioMaximo", ApiCoches.importe(estadistica.precioMaximo()));
+            marcas.add(json);
+        }
+        return Map.of("marcas", marcas);
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    private static Object generar(String nombre, Function<String, CompletableFuture<Boolean>> generador)
+            throws IOException {
+        Path archivo = Files.createTempFile("informe_" + nombre + "_", ".txt");
+        try {
+            if (!generador.apply(archivo.toString()).join()) {
+                throw new ErrorHttp(500, "No se pudo generar el informe " + nombre);
+            }
+
+            Map<String, Object> respuesta = new LinkedHashMap<>();
+            respuesta.put("informe", nombre);
+            respuesta.put("contenido", Files.readString(archivo, StandardCharsets.UTF_8));
+            return respuesta;
+        } finally {
+            Files.deleteIfExists(archivo);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package servidor;
+
+import model.Dinero;
+import model.Traspaso;
+import model.TraspasoDAO;
+import servicio.TraspasoService;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rutas de traspasos.
+ *
+ *   POST /traspasos                          venta: {"dni" (comprador), "matricula", "importe"}
+ *   GET  /coches/{matricula}/traspasos       cadena de propietarios, en orden cronológico
+ *                                            (?despuesDe=ID &limite=)
+ *   GET  /propietarios/{dni}/traspasos       compras y ventas, de la más reciente a la más antigua
+ *                                            (?antesDe=ID &limite=)
+ *   GET  /propietarios/{dni}/totales         número e importe de compras y ventas
+ *
+ * Los listados se paginan por clave: "siguiente" es el id que se pasa en la página
+ * siguiente (null si no hay más).
+ */
+class ApiTraspasos {
+
+    private ApiTraspasos() {
+    }
+
+    static void registrar(Enrutador rutas) {
+        rutas.agregar("POST", "/traspasos", ApiTraspasos::realizar);
+        rutas.agregar("GET", "/coches/{matricula}/traspasos", ApiTraspasos::cadenaPropiedad);
+        rutas.agregar("GET", "/propietarios/{dni}/traspasos", ApiTraspasos::historial);
+        rutas.agregar("GET", "/propietarios/{dni}/totales", ApiTraspasos::totales);
+    }
+
+
+    // ============================================
+    // MANEJADORES
+    // ============================================
+
+    private static Object realizar(Peticion peticion) {
+        String dni = peticion.campo("dni");
+        String matricula = peticion.campo("matricula");
+        Dinero importe = peticion.campoDinero("importe");
+
+        // El DAO ya explica el motivo en el log (comprador o coche inexistente, ya es suyo...)
+        if (!TraspasoService.realizarTraspaso(dni, matricula, importe).join()) {
+            throw new ErrorHttp(409, "No se pudo traspasar el coche " + matricula + " a " + dni);
+        }
+
+        peticion.estado(201);
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("matricula", matricula);
+        respuesta.put("comprador", dni);
+        respuesta.put("importe", ApiCoches.importe(importe));
+        return respuesta;
+    }
+
+    private static Object cadenaPropiedad(Peticion peticion) {
+        int limite = ApiCoches.limite(peticion, 50);
+        List<Traspaso> pagina = TraspasoService.cadenaPropiedad(peticion.ruta("matricula"),
+                peticion.largo("despuesDe"), limite).join();
+        return pagina(pagina, limite);
+    }
+
+    private static Object historial(Peticion peticion) {
+        int limite = ApiCoches.limite(peticion, 50);
+        List<Traspaso> pagina = TraspasoService.historialPropietario(peticion.ruta("dni"),
+                peticion.largo("antesDe"), limite).join();
+        return pagina(pagina, limite);
+    }
+
+    private static Object totales(Peticion peticion) {
+        TraspasoDAO.Totales totales = TraspasoService.totalesPropietario(peticion.ruta("dni")).join();
+
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("dni", peticion.ruta("dni"));
+        respuesta.put("compras", totales.compras());
+        respuesta.put("totalComprado", ApiCoches.importe(totales.totalComprado()));
+        respuesta.put("ventas", totales.ventas());
+        respuesta.put("totalVendido", ApiCoches.importe(totales.totalVendido()));
+        return respuesta;
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    private static Map<String, Object> pagina(List<Traspaso> traspasos, int limite) {
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("traspasos", traspasos.stream().map(ApiTraspasos::aJson).toList());
+        respuesta.put("siguiente", traspasos.size() == limite
+                ? traspasos.get(traspasos.size() - 1).idTraspaso() : null);
+        return respuesta;
+    }
+
+    private static Map<String, Object> aJson(Traspaso traspaso) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", traspaso.idTraspaso());
+        json.put("matricula", traspaso.matricula());
+        json.put("vendedor", traspaso.dniVendedor());
+        json.put("comprador", traspaso.dniComprador());
+        json.put("importe", ApiCoches.importe(traspaso.monto()));
+        return json;
+    }
+}
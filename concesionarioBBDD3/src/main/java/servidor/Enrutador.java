@@ -0,0 +1,99 @@
+package servidor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tabla de rutas de la API: método + plantilla ("/coches/{matricula}") → manejador.
+ *
+ * Las plantillas se comparan por segmentos: un segmento {nombre} acepta cualquier
+ * valor (ya decodificado de la URL) y lo deja en la petición como variable de ruta.
+ * Si varias plantillas encajan gana la primera que se registró.
+ */
+class Enrutador {
+
+    private record Ruta(String metodo, String plantilla, String[] segmentos, ServidorHttp.Manejador manejador) {
+    }
+
+    /**
+     * Resultado de buscar una ruta. Si la ruta existe pero no con ese método,
+     * 'manejador' es null y 'permitidos' lista los métodos que sí acepta (para el 405).
+     */
+    record Encontrada(String plantilla, ServidorHttp.Manejador manejador, Map<String, String> variables,
+                      Set<String> permitidos) {
+    }
+
+    private final List<Ruta> rutas = new ArrayList<>();
+
+
+    void agregar(String metodo, String plantilla, ServidorHttp.Manejador manejador) {
+        rutas.add(new Ruta(metodo, plantilla, trocear(plantilla), manejador));
+    }
+
+    /**
+     * @param rutaCruda ruta de la URL sin decodificar (getRawPath)
+     * @return la ruta que encaja, o null si ninguna plantilla encaja (404)
+     */
+    Encontrada buscar(String metodo, String rutaCruda) {
+        String[] segmentos = trocear(rutaCruda);
+        for (int i = 0; i < segmentos.length; i++) {
+            segmentos[i] = Peticion.decodificar(segmentos[i]);
+        }
+
+        Set<String> permitidos = new LinkedHashSet<>();
+        String plantillaEncontrada = null;
+        for (Ruta ruta : rutas) {
+            Map<String, String> variables = encajar(ruta.segmentos(), segmentos);
+            if (variables == null) {
+                continue;
+            }
+            if (ruta.metodo().equals(metodo)) {
+                return new Encontrada(ruta.plantilla(), ruta.manejador(), variables, Set.of());
+            }
+            permitidos.add(ruta.metodo());
+            if (plantillaEncontrada == null) {
+                plantillaEncontrada = ruta.plantilla();
+            }
+        }
+
+        return plantillaEncontrada == null ? null
+                : new Encontrada(plantillaEncontrada, null, Map.of(), permitidos);
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    private static Map<String, String> encajar(String[] plantilla, String[] segmentos) {
+        if (plantilla.length != segmentos.length) {
+            return null;
+        }
+
+        Map<String, String> variables = new HashMap<>();
+        for (int i = 0; i < plantilla.length; i++) {
+            String parte = plantilla[i];
+            if (parte.startsWith("{") && parte.endsWith("}")) {
+                if (segmentos[i].isEmpty()) {
+                    return null;
+                }
+                variables.put(parte.substring(1, parte.length() - 1), segmentos[i]);
+            } else if (!parte.equals(segmentos[i])) {
+                return null;
+            }
+        }
+        return variables;
+    }
+
+    /**
+     * "/coches/1234ABC/" → ["coches", "1234ABC"] (sin barras al principio ni al final).
+     */
+    private static String[] trocear(String ruta) {
+        String limpia = ruta.replaceAll("^/+|/+$", "");
+        return limpia.isEmpty() ? new String[0] : limpia.split("/", -1);
+    }
+}
@@ -0,0 +1,21 @@
+package servidor;
+
+/**
+ * Error que se devuelve al cliente con un código HTTP concreto (404, 409...)
+ * y el mensaje como {"error": "..."}.
+ */
+public class ErrorHttp extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int estado;
+
+    public ErrorHttp(int estado, String mensaje) {
+        super(mensaje);
+        this.estado = estado;
+    }
+
+    public int getEstado() {
+        return estado;
+    }
+}
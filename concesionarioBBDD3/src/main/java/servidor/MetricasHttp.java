@@ -0,0 +1,105 @@
+package servidor;
+
+import database.CacheResultados;
+import util.HistogramaLatencias;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencia y códigos de respuesta de cada ruta de la API ("GET /coches/{matricula}").
+ *
+ * ¿QUÉ MIDE?
+ * - Desde que el servidor recibe la petición hasta que termina de enviar la respuesta,
+ *   en microsegundos (incluye la espera por una conexión libre del pool)
+ * - Peticiones por familia de código: 2xx, 4xx y 5xx
+ * - Las peticiones a rutas que no existen se agrupan en "(sin ruta)"
+ *
+ * Registrar es lock-free (HistogramaLatencias y LongAdder): los hilos virtuales de
+ * todas las peticiones registran a la vez sin esperarse.
+ */
+public class MetricasHttp {
+
+    static final String SIN_RUTA = "(sin ruta)";
+
+    private final Map<String, MetricasRuta> rutas = new ConcurrentHashMap<>();
+    private final long inicio = System.nanoTime();
+
+
+    private static class MetricasRuta {
+        final HistogramaLatencias latencias = new HistogramaLatencias();
+        final LongAdder correctas = new LongAdder();
+        final LongAdder erroresCliente = new LongAdder();
+        final LongAdder erroresServidor = new LongAdder();
+    }
+
+
+    public void registrar(String ruta, int estado, long nanos) {
+        MetricasRuta metricas = rutas.computeIfAbsent(ruta, r -> new MetricasRuta());
+        metricas.latencias.registrar(nanos / 1_000);
+        if (estado >= 500) {
+            metricas.erroresServidor.increment();
+        } else if (estado >= 400) {
+            metricas.erroresCliente.increment();
+        } else {
+            metricas.correctas.increment();
+        }
+    }
+
+    /**
+     * Estado actual, listo para Json.escribir (respuesta de GET /metricas).
+     */
+    public Map<String, Object> instantanea() {
+        Map<String, Object> porRuta = new LinkedHashMap<>();
+        for (Map.Entry<String, MetricasRuta> entrada : new TreeMap<>(rutas).entrySet()) {
+            MetricasRuta m = entrada.getValue();
+            Map<String, Object> datos = new LinkedHashMap<>();
+            datos.put("peticiones", m.latencias.total());
+            datos.put("2xx", m.correctas.sum());
+            datos.put("4xx", m.erroresCliente.sum());
+            datos.put("5xx", m.erroresServidor.sum());
+            datos.put("media_us", Math.round(m.latencias.media()));
+            datos.put("p50_us", m.latencias.percentil(50));
+            datos.put("p90_us", m.latencias.percentil(90));
+            datos.put("p99_us", m.latencias.percentil(99));
+            datos.put("max_us", m.latencias.maximo());
+            porRuta.put(entrada.getKey(), datos);
+        }
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("segundos_en_marcha", (System.nanoTime() - inicio) / 1_000_000_000L);
+        resultado.put("rutas", porRuta);
+
+        CacheResultados.Estadisticas cache = CacheResultados.estadisticas();
+        Map<String, Object> datosCache = new LinkedHashMap<>();
+        datosCache.put("aciertos", cache.aciertos());
+        datosCache.put("fallos", cache.fallos());
+        datosCache.put("entradas", cache.entradas());
+        resultado.put("cache_resultados", datosCache);
+        return resultado;
+    }
+
+    /**
+     * Resumen en consola (al detener el servidor), en milisegundos.
+     */
+    public void imprimir() {
+        if (rutas.isEmpty()) {
+            return;
+        }
+
+        System.out.println("\n--- PETICIONES HTTP ---");
+        System.out.printf("%-36s %9s %7s %7s %9s %9s %9s%n",
+                "Ruta", "Total", "4xx", "5xx", "p50 ms", "p99 ms", "máx ms");
+        for (Map.Entry<String, MetricasRuta> entrada : new TreeMap<>(rutas).entrySet()) {
+            MetricasRuta m = entrada.getValue();
+            System.out.printf("%-36s %9d %7d %7d %9.2f %9.2f %9.2f%n",
+                    entrada.getKey(), m.latencias.total(), m.erroresCliente.sum(), m.erroresServidor.sum(),
+                    m.latencias.percentil(50) / 1000.0, m.latencias.percentil(99) / 1000.0,
+                    m.latencias.maximo() / 1000.0);
+        }
+        System.out.println("-----------------------\n");
+    }
+}
@@ -0,0 +1,232 @@
+package servidor;
+
+import com.sun.net.httpserver.HttpExchange;
+import model.Dinero;
+import util.Json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lo que necesita un manejador de la API de una petición HTTP: parámetros de la ruta
+ * ({matricula}, {dni}), parámetros de la URL (?limite=20) y el cuerpo JSON.
+ *
+ * IMPORTANTE:
+ * - Los parámetros que faltan o no tienen el formato esperado lanzan
+ *   IllegalArgumentException, que el servidor convierte en un 400
+ * - El cuerpo se lee una sola vez y como mucho TAMANO_MAXIMO_CUERPO bytes (si no, 413)
+ */
+public class Peticion {
+
+    private static final int TAMANO_MAXIMO_CUERPO = 1024 * 1024;
+
+    private final HttpExchange intercambio;
+    private final Map<String, String> variablesRuta;
+    private final Map<String, List<String>> parametros;
+    private Map<String, Object> cuerpo = null;
+    private int estado = 200;
+
+
+    Peticion(HttpExchange intercambio, Map<String, String> variablesRuta) {
+        this.intercambio = intercambio;
+        this.variablesRuta = variablesRuta;
+        this.parametros = leerParametros(intercambio.getRequestURI().getRawQuery());
+    }
+
+
+    // ============================================
+    // RUTA Y PARÁMETROS DE LA URL
+    // ============================================
+
+    /**
+     * Valor de una variable de la ruta, por ejemplo "matricula" en /coches/{matricula}.
+     */
+    public String ruta(String nombre) {
+        return variablesRuta.get(nombre);
+    }
+
+    /**
+     * Primer valor del parámetro de la URL, o null si no viene (o viene vacío).
+     */
+    public String parametro(String nombre) {
+        List<String> valores = parametros.get(nombre);
+        if (valores == null || valores.get(0).isBlank()) {
+            return null;
+        }
+        return valores.get(0).trim();
+    }
+
+    /**
+     * Todos los valores del parámetro (?extra=GPS&extra=Techo), sin los vacíos.
+     */
+    public List<String> parametros(String nombre) {
+        List<String> valores = new ArrayList<>();
+        for (String valor : parametros.getOrDefault(nombre, List.of())) {
+            if (!valor.isBlank()) {
+                valores.add(valor.trim());
+            }
+        }
+        return valores;
+    }
+
+    public int entero(String nombre, int porDefecto) {
+        String valor = parametro(nombre);
+        if (valor == null) {
+            return porDefecto;
+        }
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El parámetro '" + nombre + "' debe ser un número entero");
+        }
+    }
+
+    /**
+     * @return el valor como Long, o null si no viene
+     */
+    public Long largo(String nombre) {
+        String valor = parametro(nombre);
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El parámetro '" + nombre + "' debe ser un número entero");
+        }
+    }
+
+    /**
+     * @return el importe, o null si no viene
+     */
+    public Dinero dinero(String nombre) {
+        String valor = parametro(nombre);
+        return valor == null ? null : importe(nombre, valor);
+    }
+
+
+    // ============================================
+    // CUERPO JSON
+    // ============================================
+
+    /**
+     * Campo de texto obligatorio del cuerpo.
+     */
+    public String campo(String nombre) {
+        String valor = campoOpcional(nombre);
+        if (valor == null) {
+            throw new IllegalArgumentException("Falta el campo '" + nombre + "'");
+        }
+        return valor;
+    }
+
+    /**
+     * Campo de texto del cuerpo, o null si no viene o está vacío.
+     * Los números y booleanos se aceptan y se devuelven como texto.
+     */
+    public String campoOpcional(String nombre) {
+        Object valor = cuerpo().get(nombre);
+        if (valor == null) {
+            return null;
+        }
+        if (valor instanceof Map || valor instanceof List) {
+            throw new IllegalArgumentException("El campo '" + nombre + "' no puede ser un objeto ni una lista");
+        }
+        String texto = valor.toString().trim();
+        return texto.isEmpty() ? null : texto;
+    }
+
+    /**
+     * Importe obligatorio del cuerpo: número (18500.5) o texto ("18500,50").
+     */
+    public Dinero campoDinero(String nombre) {
+        return importe(nombre, campo(nombre));
+    }
+
+    private Map<String, Object> cuerpo() {
+        if (cuerpo != null) {
+            return cuerpo;
+        }
+
+        byte[] bytes;
+        try (InputStream entrada = intercambio.getRequestBody()) {
+            bytes = entrada.readNBytes(TAMANO_MAXIMO_CUERPO + 1);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("No se pudo leer el cuerpo de la petición: " + e.getMessage());
+        }
+        if (bytes.length > TAMANO_MAXIMO_CUERPO) {
+            throw new ErrorHttp(413, "El cuerpo no puede superar " + TAMANO_MAXIMO_CUERPO + " bytes");
+        }
+        if (bytes.length == 0) {
+            throw new IllegalArgumentException("Falta el cuerpo JSON de la petición");
+        }
+
+        cuerpo = Json.leerObjeto(new String(bytes, StandardCharsets.UTF_8));
+        return cuerpo;
+    }
+
+
+    // ============================================
+    // RESPUESTA
+    // ============================================
+
+    /**
+     * Código de la respuesta si el manejador termina bien (200 por defecto; 201 en altas).
+     */
+    public void estado(int estado) {
+        this.estado = estado;
+    }
+
+    int getEstado() {
+        return estado;
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    private static Dinero importe(String nombre, String valor) {
+        try {
+            return Dinero.parse(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + nombre + "' no es un importe válido: " + e.getMessage());
+        }
+    }
+
+    /**
+     * "?a=1&a=2&b" → {a=[1, 2], b=[""]}. Los pares vacíos (&&) se saltan; un % mal formado
+     * lanza IllegalArgumentException (400).
+     */
+    static Map<String, List<String>> leerParametros(String consulta) {
+        Map<String, List<String>> parametros = new HashMap<>();
+        if (consulta == null || consulta.isEmpty()) {
+            return parametros;
+        }
+
+        for (String par : consulta.split("&")) {
+            if (par.isEmpty()) {
+                continue;
+            }
+            int igual = par.indexOf('=');
+            String nombre = decodificar(igual < 0 ? par : par.substring(0, igual));
+            String valor = igual < 0 ? "" : decodificar(par.substring(igual + 1));
+            parametros.computeIfAbsent(nombre, k -> new ArrayList<>()).add(valor);
+        }
+        return parametros;
+    }
+
+    static String decodificar(String texto) {
+        try {
+            return URLDecoder.decode(texto, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("URL mal codificada: " + texto);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package servidor;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import servicio.EjecutorServicios;
+import util.ConfigProperties;
+import util.Json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * API HTTP/JSON del concesionario sobre el HttpServer del JDK (com.sun.net.httpserver).
+ *
+ * USO:
+ *   java -cp ... Main servidor [sqlite|mysql] [puerto]
+ *
+ * ¿POR QUÉ?
+ * El menú de consola atiende a un único usuario. Con el servidor, los terminales de
+ * todas las sucursales comparten la misma BD a través de una única aplicación, que
+ * reparte las conexiones entre ellos (pools de EjecutorServicios).
+ *
+ * ¿CÓMO FUNCIONA?
+ * - Cada petición se atiende en su propio hilo virtual: mientras espera a la BD
+ *   no ocupa un hilo del sistema, así que miles de peticiones pueden estar en curso
+ * - Los manejadores (ApiCoches, ApiTraspasos, ApiInformes) llaman a los servicios
+ *   del paquete servicio y esperan su resultado; las conexiones salen de sus pools
+ * - Errores → {"error": "..."} con el código adecuado:
+ *     · 400 parámetros o JSON inválidos      · 404 no existe (ruta, coche...)
+ *     · 405 método no admitido en la ruta    · 409 el DAO rechazó la operación
+ *     · 413 cuerpo demasiado grande          · 500 error de BD o inesperado
+ *     · 503 el servidor se está deteniendo
+ * - Latencia y códigos de cada ruta en GET /metricas (MetricasHttp); al detener
+ *   el servidor se imprime un resumen
+ *
+ * IMPORTANTE:
+ * - No tiene autenticación ni TLS: pensado para la red interna de las sucursales
+ *   (servidor.direccion permite limitarlo a una interfaz concreta)
+ * - Necesita una BD en archivo o MySQL (ver EjecutorServicios)
+ */
+public class ServidorHttp {
+
+    /**
+     * Atiende una petición. Lo que devuelve se envía como JSON (null → 204 sin cuerpo).
+     */
+    @FunctionalInterface
+    public interface Manejador {
+        Object atender(Peticion peticion) throws Exception;
+    }
+
+    // Segundos que detener() espera a que terminen las peticiones en curso
+    private static final int ESPERA_CIERRE_S = 5;
+
+    private static HttpServer servidor = null;
+    private static ExecutorService hilos = null;
+    private static MetricasHttp metricas = null;
+
+
+    /**
+     * Arranca el servidor sobre la BD conectada en DatabaseManager.
+     *
+     * @param puerto puerto de escucha (0 = uno libre cualquiera)
+     * @return la dirección en la que escucha
+     */
+    public static synchronized InetSocketAddress iniciar(int puerto) throws IOException, SQLException {
+        if (servidor != null) {
+            return servidor.getAddress();
+        }
+
+        // Si la BD no admite los pools (SQLite en memoria), mejor fallar ahora que en la primera petición
+        EjecutorServicios.iniciar();
+
+        MetricasHttp nuevasMetricas = new MetricasHttp();
+        Enrutador rutas = new Enrutador();
+        ApiCoches.registrar(rutas);
+        ApiTraspasos.registrar(rutas);
+        ApiInformes.registrar(rutas);
+        rutas.agregar("GET", "/metricas", peticion -> nuevasMetricas.instantanea());
+
+        String direccion = ConfigProperties.getProperty("servidor.direccion", "0.0.0.0");
+        HttpServer nuevo = HttpServer.create(new InetSocketAddress(direccion, puerto), 0);
+        nuevo.createContext("/", intercambio -> atender(intercambio, rutas, nuevasMetricas));
+        hilos = Executors.newVirtualThreadPerTaskExecutor();
+        nuevo.setExecutor(hilos);
+        nuevo.start();
+
+        servidor = nuevo;
+        metricas = nuevasMetricas;
+        return servidor.getAddress();
+    }
+
+    /**
+     * Deja de aceptar conexiones, espera a las peticiones en curso e imprime las métricas.
+     *
+     * @return true si estaba en marcha
+     */
+    public static synchronized boolean detener() {
+        if (servidor == null) {
+            return false;
+        }
+
+        servidor.stop(ESPERA_CIERRE_S);
+        hilos.shutdown();
+        try {
+            if (!hilos.awaitTermination(ESPERA_CIERRE_S, TimeUnit.SECONDS)) {
+                hilos.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        metricas.imprimir();
+
+        servidor = null;
+        hilos = null;
+        metricas = null;
+        return true;
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    private static void atender(HttpExchange intercambio, Enrutador rutas, MetricasHttp metricas) {
+        long inicio = System.nanoTime();
+        String metodo = intercambio.getRequestMethod();
+        String rutaMetricas = MetricasHttp.SIN_RUTA;
+        int estado;
+        Object respuesta;
+
+        try {
+            Enrutador.Encontrada encontrada = rutas.buscar(metodo, intercambio.getRequestURI().getRawPath());
+            if (encontrada == null) {
+                throw new ErrorHttp(404, "No existe la ruta " + intercambio.getRequestURI().getPath());
+            }
+            rutaMetricas = metodo + " " + encontrada.plantilla();
+            if (encontrada.manejador() == null) {
+                intercambio.getResponseHeaders().set("Allow", String.join(", ", encontrada.permitidos()));
+                throw new ErrorHttp(405, "Método " + metodo + " no admitido en " + encontrada.plantilla());
+            }
+
+            Peticion peticion = new Peticion(intercambio, encontrada.variables());
+            respuesta = encontrada.manejador().atender(peticion);
+            estado = respuesta == null ? 204 : peticion.getEstado();
+
+        } catch (Exception e) {
+            Throwable causa = causaReal(e);
+            estado = estadoDeError(causa);
+            String mensaje = causa.getMessage();
+            if (estado == 500) {
+                System.err.println("Error en " + rutaMetricas + ": " + causa);
+                mensaje = causa instanceof SQLException ? "Error de base de datos" : "Error interno del servidor";
+            } else if (estado == 503) {
+                mensaje = "El servidor se está deteniendo";
+            }
+            respuesta = Map.of("error", mensaje == null ? causa.getClass().getSimpleName() : mensaje);
+        }
+
+        try {
+            responder(intercambio, estado, respuesta);
+        } catch (IOException e) {
+            // El cliente cortó la conexión: no hay a quién avisar
+        } finally {
+            intercambio.close();
+            metricas.registrar(rutaMetricas, estado, System.nanoTime() - inicio);
+        }
+    }
+
+    private static void responder(HttpExchange intercambio, int estado, Object respuesta) throws IOException {
+        if (respuesta == null) {
+            intercambio.sendResponseHeaders(estado, -1);
+            return;
+        }
+
+        byte[] cuerpo = Json.escribir(respuesta).getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        intercambio.sendResponseHeaders(estado, cuerpo.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(cuerpo);
+        }
+    }
+
+    /**
+     * Los servicios devuelven los errores envueltos (CompletionException): se busca el original.
+     */
+    private static Throwable causaReal(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    private static int estadoDeError(Throwable causa) {
+        if (causa instanceof ErrorHttp errorHttp) {
+            return errorHttp.getEstado();
+        } else if (causa instanceof IllegalArgumentException) {
+            // Incluye NumberFormatException (importes) y los límites de paginación de los DAO
+            return 400;
+        } else if (causa instanceof RejectedExecutionException) {
+            return 503;
+        }
+        return 500;
+    }
+}
@@ -50,4 +50,26 @@ public class ConfigProperties {
     }
 
 
+    // Igual que getProperty pero con valor por defecto si la clave no existe o está vacía
+    public static String getProperty(String key, String porDefecto) {
+        String valor = properties.getProperty(key);
+        return (valor == null || valor.isBlank()) ? porDefecto : valor.trim();
+    }
+
+
+    // Lee una propiedad numérica; si falta o no es un número se usa el valor por defecto
+    public static int getIntProperty(String key, int porDefecto) {
+        String valor = getProperty(key, null);
+        if (valor == null) {
+            return porDefecto;
+        }
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + key + ": " + valor + " (se usa " + porDefecto + ")");
+            return porDefecto;
+        }
+    }
+
+
 }
@@ -0,0 +1,113 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias con error relativo acotado (al estilo de HdrHistogram).
+ *
+ * ¿CÓMO FUNCIONA?
+ * - Los valores 0..127 tienen un contador cada uno (exactos)
+ * - A partir de ahí, cada potencia de dos [2^m, 2^(m+1)) se parte en 64 contadores
+ *   iguales: el error de cualquier percentil es < 1/64 (~1,6 %) sea cual sea la escala,
+ *   de microsegundos a horas
+ * - Unos 3.700 contadores en total (~30 KB) y registrar es un incremento atómico:
+ *   muchos hilos (virtuales) pueden registrar a la vez sin bloquearse
+ *
+ * IMPORTANTE:
+ * - La unidad la decide quien registra (PruebaCarga usa microsegundos)
+ * - Los percentiles devuelven el mayor valor del contador donde caen (nunca menos
+ *   que el real), recortado al máximo registrado
+ */
+public class HistogramaLatencias {
+
+    private static final int BITS_EXACTOS = 7;                      // 0..127 exactos
+    private static final int EXACTOS = 1 << BITS_EXACTOS;
+    private static final int SUBCONTADORES = EXACTOS / 2;           // 64 por potencia de dos
+    private static final int TOTAL_CONTADORES = EXACTOS + (63 - BITS_EXACTOS) * SUBCONTADORES;
+
+    private final AtomicLongArray contadores = new AtomicLongArray(TOTAL_CONTADORES);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+
+    /**
+     * Registra un valor (los negativos cuentan como 0).
+     */
+    public void registrar(long valor) {
+        valor = Math.max(0, valor);
+        contadores.incrementAndGet(indice(valor));
+        total.increment();
+        suma.add(valor);
+        if (valor > maximo.get()) {
+            maximo.accumulateAndGet(valor, Math::max);
+        }
+    }
+
+    public long total() {
+        return total.sum();
+    }
+
+    public double media() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) suma.sum() / n;
+    }
+
+    public long maximo() {
+        return maximo.get();
+    }
+
+    /**
+     * Valor por debajo del cual queda el 'percentil' % de los registros (0-100).
+     * @return 0 si no hay registros
+     */
+    public long percentil(double percentil) {
+        long n = total.sum();
+        if (n == 0) {
+            return 0;
+        }
+
+        long objetivo = Math.max(1, (long) Math.ceil(n * Math.min(100, Math.max(0, percentil)) / 100));
+        long acumulado = 0;
+        for (int i = 0; i < TOTAL_CONTADORES; i++) {
+            acumulado += contadores.get(i);
+            if (acumulado >= objetivo) {
+                return Math.min(mayorValor(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+
+    // ============================================
+    // MÉTODOS PRIVADOS (lógica interna)
+    // ============================================
+
+    /**
+     * Para valor ≥ 128 con bit más alto m: contador del bloque de m y sus 6 bits siguientes.
+     */
+    private static int indice(long valor) {
+        if (valor < EXACTOS) {
+            return (int) valor;
+        }
+        int m = 63 - Long.numberOfLeadingZeros(valor);
+        int desplazamiento = m - BITS_EXACTOS + 1;
+        int sub = (int) (valor >>> desplazamiento) - SUBCONTADORES;           // 0..63
+        return EXACTOS + (m - BITS_EXACTOS) * SUBCONTADORES + sub;
+    }
+
+    /**
+     * Mayor valor que cae en el contador i.
+     */
+    private static long mayorValor(int i) {
+        if (i < EXACTOS) {
+            return i;
+        }
+        int m = (i - EXACTOS) / SUBCONTADORES + BITS_EXACTOS;
+        int sub = (i - EXACTOS) % SUBCONTADORES + SUBCONTADORES;
+        int desplazamiento = m - BITS_EXACTOS + 1;
+        return ((long) (sub + 1) << desplazamiento) - 1;
+    }
+}
@@ -0,0 +1,342 @@
+package util;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON mínimo para la API HTTP (sin dependencias externas).
+ *
+ * ¿QUÉ ADMITE?
+ * - escribir(): null, String, Number, Boolean, Map (claves como texto) y Iterable / arrays
+ *   de Object, anidados a cualquier profundidad. Cualquier otro objeto se escribe con toString()
+ * - leer(): el JSON completo (RFC 8259). Objetos → LinkedHashMap (conserva el orden),
+ *   arrays → ArrayList, números enteros → Long, con decimales o exponente → BigDecimal
+ *
+ * IMPORTANTE:
+ * - leer() lanza IllegalArgumentException con la posición del error si el texto no es JSON válido
+ * - Los Double/Float NaN o infinitos no existen en JSON: se escriben como null
+ */
+public class Json {
+
+    private static final int PROFUNDIDAD_MAXIMA = 64;
+
+    private Json() {
+    }
+
+
+    // ============================================
+    // ESCRITURA
+    // ============================================
+
+    public static String escribir(Object valor) {
+        StringBuilder sb = new StringBuilder();
+        escribir(sb, valor);
+        return sb.toString();
+    }
+
+    private static void escribir(StringBuilder sb, Object valor) {
+        if (valor == null) {
+            sb.append("null");
+        } else if (valor instanceof String texto) {
+            escribirTexto(sb, texto);
+        } else if (valor instanceof Double d && (d.isNaN() || d.isInfinite())
+                || valor instanceof Float f && (f.isNaN() || f.isInfinite())) {
+            sb.append("null");
+        } else if (valor instanceof BigDecimal decimal) {
+            sb.append(decimal.toPlainString());
+        } else if (valor instanceof Number || valor instanceof Boolean) {
+            sb.append(valor);
+        } else if (valor instanceof Map<?, ?> mapa) {
+            sb.append('{');
+            boolean primero = true;
+            for (Map.Entry<?, ?> entrada : mapa.entrySet()) {
+                if (!primero) {
+                    sb.append(',');
+                }
+                primero = false;
+                escribirTexto(sb, String.valueOf(entrada.getKey()));
+                sb.append(':');
+                escribir(sb, entrada.getValue());
+            }
+            sb.append('}');
+        } else if (valor instanceof Iterable<?> lista) {
+            sb.append('[');
+            boolean primero = true;
+            for (Object elemento : lista) {
+                if (!primero) {
+                    sb.append(',');
+                }
+                primero = false;
+                escribir(sb, elemento);
+            }
+            sb.append(']');
+        } else if (valor instanceof Object[] array) {
+            escribir(sb, List.of(array));
+        } else {
+            escribirTexto(sb, valor.toString());
+        }
+    }
+
+    private static void escribirTexto(StringBuilder sb, String texto) {
+        sb.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                case '\b' -> sb.append("\\b");
+                case '\f' -> sb.append("\\f");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+
+    // ============================================
+    // LECTURA
+    // ============================================
+
+    /**
+     * Convierte un texto JSON en Map / List / String / Long / BigDecimal / Boolean / null.
+     * @throws IllegalArgumentException si el texto no es JSON válido
+     */
+    public static Object leer(String texto) {
+        Lector lector = new Lector(texto);
+        lector.saltarEspacios();
+        Object valor = lector.valor(0);
+        lector.saltarEspacios();
+        if (lector.posicion < texto.length()) {
+            throw lector.error("contenido sobrante");
+        }
+        return valor;
+    }
+
+    /**
+     * Como leer(), pero exige que el JSON sea un objeto.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> leerObjeto(String texto) {
+        Object valor = leer(texto);
+        if (!(valor instanceof Map)) {
+            throw new IllegalArgumentException("JSON inválido: se esperaba un objeto");
+        }
+        return (Map<String, Object>) valor;
+    }
+
+
+    /**
+     * Analizador descendente recursivo sobre el texto completo.
+     */
+    private static class Lector {
+
+        private final String texto;
+        private int posicion = 0;
+
+        Lector(String texto) {
+            this.texto = texto;
+        }
+
+        Object valor(int profundidad) {
+            if (profundidad > PROFUNDIDAD_MAXIMA) {
+                throw error("anidamiento excesivo");
+            }
+            if (posicion >= texto.length()) {
+                throw error("fin inesperado");
+            }
+
+            char c = texto.charAt(posicion);
+            return switch (c) {
+                case '{' -> objeto(profundidad);
+                case '[' -> array(profundidad);
+                case '"' -> texto();
+                case 't' -> literal("true", Boolean.TRUE);
+                case 'f' -> literal("false", Boolean.FALSE);
+                case 'n' -> literal("null", null);
+                default -> {
+                    if (c == '-' || (c >= '0' && c <= '9')) {
+                        yield numero();
+                    }
+                    throw error("carácter inesperado '" + c + "'");
+                }
+            };
+        }
+
+        private Map<String, Object> objeto(int profundidad) {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            posicion++;
+            saltarEspacios();
+            if (consumir('}')) {
+                return mapa;
+            }
+            do {
+                saltarEspacios();
+                if (posicion >= texto.length() || texto.charAt(posicion) != '"') {
+                    throw error("se esperaba una clave entre comillas");
+                }
+                String clave = texto();
+                saltarEspacios();
+                if (!consumir(':')) {
+                    throw error("se esperaba ':'");
+                }
+                saltarEspacios();
+                mapa.put(clave, valor(profundidad + 1));
+                saltarEspacios();
+            } while (consumir(','));
+
+            if (!consumir('}')) {
+                throw error("se esperaba ',' o '}'");
+            }
+            return mapa;
+        }
+
+        private List<Object> array(int profundidad) {
+            List<Object> lista = new ArrayList<>();
+            posicion++;
+            saltarEspacios();
+            if (consumir(']')) {
+                return lista;
+            }
+            do {
+                saltarEspacios();
+                lista.add(valor(profundidad + 1));
+                saltarEspacios();
+            } while (consumir(','));
+
+            if (!consumir(']')) {
+                throw error("se esperaba ',' o ']'");
+            }
+            return lista;
+        }
+
+        private String texto() {
+            StringBuilder sb = new StringBuilder();
+            posicion++;
+            while (posicion < texto.length()) {
+                char c = texto.charAt(posicion++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c < 0x20) {
+                    throw error("carácter de control sin escapar en un texto");
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (posicion >= texto.length()) {
+                    break;
+                }
+                char escape = texto.charAt(posicion++);
+                switch (escape) {
+                    case '"' -> sb.append('"');
+                    case '\\' -> sb.append('\\');
+                    case '/' -> sb.append('/');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (posicion + 4 > texto.length()) {
+                            throw error("escape \\u incompleto");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(texto.substring(posicion, posicion + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("escape \\u inválido");
+                        }
+                        posicion += 4;
+                    }
+                    default -> throw error("escape inválido \\" + escape);
+                }
+            }
+            throw error("texto sin cerrar");
+        }
+
+        private Object numero() {
+            int inicio = posicion;
+            boolean decimal = false;
+            consumir('-');
+            if (!digitos()) {
+                throw error("número inválido");
+            }
+            if (consumir('.')) {
+                decimal = true;
+                if (!digitos()) {
+                    throw error("número inválido");
+                }
+            }
+            if (consumir('e') || consumir('E')) {
+                decimal = true;
+                if (!consumir('+')) {
+                    consumir('-');
+                }
+                if (!digitos()) {
+                    throw error("número inválido");
+                }
+            }
+
+            String numero = texto.substring(inicio, posicion);
+            if (!decimal) {
+                try {
+                    return Long.parseLong(numero);
+                } catch (NumberFormatException e) {
+                    // Entero que no cabe en un long: se queda como BigDecimal
+                }
+            }
+            return new BigDecimal(numero);
+        }
+
+        private boolean digitos() {
+            int inicio = posicion;
+            while (posicion < texto.length() && Character.isDigit(texto.charAt(posicion))
+                    && texto.charAt(posicion) < 128) {
+                posicion++;
+            }
+            return posicion > inicio;
+        }
+
+        private Object literal(String palabra, Object valor) {
+            if (!texto.startsWith(palabra, posicion)) {
+                throw error("literal inválido");
+            }
+            posicion += palabra.length();
+            return valor;
+        }
+
+        private boolean consumir(char c) {
+            if (posicion < texto.length() && texto.charAt(posicion) == c) {
+                posicion++;
+                return true;
+            }
+            return false;
+        }
+
+        void saltarEspacios() {
+            while (posicion < texto.length()) {
+                char c = texto.charAt(posicion);
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                    return;
+                }
+                posicion++;
+            }
+        }
+
+        IllegalArgumentException error(String motivo) {
+            return new IllegalArgumentException("JSON inválido en la posición " + posicion + ": " + motivo);
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package util;
 
+import database.ArchivadorTraspasos;
 import database.DatabaseManager;
 import database.DatabaseInitializer;
+import database.EjecutorScriptSQL;
+import database.PerfilAlmacenamientoSQLite;
+import database.TipoMotor;
 import model.*;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Scanner;
 
 public class MenuPrincipal {
@@ -30,6 +37,14 @@ public class MenuPrincipal {
         System.out.println("11) Crear Procedimiento");
         System.out.println("12) Ejecutar Procedimiento Almacenado");
         System.out.println("13) Generar Informe Resumen");
+        System.out.println("14) Ejecutar Script SQL (fichero)");
+        System.out.println("15) Aplicar Perfil Compacto (SQLite)");
+        System.out.println("16) Buscar Coches (texto libre)");
+        System.out.println("17) Consultar Inventario (filtros)");
+        System.out.println("18) Historial de Traspasos");
+        System.out.println("19) Archivar Traspasos Antiguos");
+        System.out.println("20) Importar Propietarios (CSV)");
+        System.out.println("21) Buscar Propietarios");
         System.out.println("0)  Salir");
         System.out.print("Elija una opción: ");
     }
@@ -61,6 +76,14 @@ public class MenuPrincipal {
                 case 11 -> opcionCrearProcedimiento();
                 case 12 -> opcionEjecutarProcedimiento();
                 case 13 -> opcionGenerarInforme();
+                case 14 -> opcionEjecutarScript();
+                case 15 -> opcionPerfilCompacto();
+                case 16 -> opcionBuscarCoches();
+                case 17 -> opcionConsultarInventario();
+                case 18 -> opcionHistorialTraspasos();
+                case 19 -> opcionArchivarTraspasos();
+                case 20 -> opcionImportarPropietariosCSV();
+                case 21 -> opcionBuscarPropietarios();
 
                 case 0 -> {
                     System.out.println("\n→ Cerrando conexión a la base de datos...");
@@ -114,6 +137,12 @@ public class MenuPrincipal {
 
                 System.out.println("Conexión establecida correctamente");
 
+                // Aplicar migraciones pendientes (una sola consulta si el esquema ya está al día)
+                DatabaseInitializer.crearTablas(DatabaseManager.getConnection());
+
+                // Con el esquema al día (traspasos_archivo existe), archivado en segundo plano
+                ArchivadorTraspasos.iniciar();
+
             } else {
 
                 System.err.println("Error al establecer la conexión");
@@ -235,7 +264,7 @@ public class MenuPrincipal {
             String extras = sc.nextLine().trim();
 
             System.out.print("Precio: ");
-            double precio = Double.parseDouble(sc.nextLine().trim());
+            Dinero precio = Dinero.parse(sc.nextLine());
 
             // Obtener conexión y llamar al DAO
             Connection con = DatabaseManager.getConnection();
@@ -299,8 +328,13 @@ public class MenuPrincipal {
         }
 
         try {
-            Connection con = DatabaseManager.getConnection();
-            CocheDAO.listarCochesConcesionario(con);
+            // Consulta de solo lectura: en modo WAL no bloquea a las escrituras
+            Connection con = DatabaseManager.obtenerConexionLectura();
+            try {
+                CocheDAO.listarCochesConcesionario(con);
+            } finally {
+                DatabaseManager.liberarConexionLectura(con);
+            }
 
         } catch (SQLException e) {
             System.err.println("Error al listar coches: " + e.getMessage());
@@ -320,8 +354,13 @@ public class MenuPrincipal {
         }
 
         try {
-            Connection con = DatabaseManager.getConnection();
-            CocheDAO.listarCochesPropietarios(con);
+            // Consulta de solo lectura: en modo WAL no bloquea a las escrituras
+            Connection con = DatabaseManager.obtenerConexionLectura();
+            try {
+                CocheDAO.listarCochesPropietarios(con);
+            } finally {
+                DatabaseManager.liberarConexionLectura(con);
+            }
 
         } catch (SQLException e) {
             System.err.println("Error al listar coches: " + e.getMessage());
@@ -366,7 +405,7 @@ public class MenuPrincipal {
             String extras = sc.nextLine().trim();
 
             System.out.print("Nuevo Precio: ");
-            double precio = Double.parseDouble(sc.nextLine().trim());
+            Dinero precio = Dinero.parse(sc.nextLine());
 
             // Confirmar modificación
             System.out.print("\n¿Confirmar modificación? (S/N): ");
@@ -463,7 +502,7 @@ public class MenuPrincipal {
             String matriculaCoche = sc.nextLine().trim();
 
             System.out.print("Monto económico de la transacción: ");
-            double montoEconomico = Double.parseDouble(sc.nextLine().trim());
+            Dinero montoEconomico = Dinero.parse(sc.nextLine());
 
             // Confirmar operación
             System.out.print("\n¿Confirmar traspaso? (S/N): ");
@@ -497,7 +536,7 @@ public class MenuPrincipal {
 
 
     /**
-     * Opción 11: Ejecutar procedimiento almacenado (solo MySQL)
+     * Opción 12: Estadísticas por marca (procedimiento almacenado en MySQL, vista en SQLite)
      */
     private void opcionEjecutarProcedimiento() {
         if (!DatabaseManager.isConectado()) {
@@ -507,8 +546,12 @@ public class MenuPrincipal {
         }
 
         try {
-            Connection con = DatabaseManager.getConnection();
-            ProcedimientoDAO.ejecutarCochesPorMarca(con);
+            Connection con = DatabaseManager.obtenerConexionLectura();
+            try {
+                ProcedimientoDAO.ejecutarCochesPorMarca(con);
+            } finally {
+                DatabaseManager.liberarConexionLectura(con);
+            }
 
         } catch (SQLException e) {
             System.err.println("Error al ejecutar procedimiento: " + e.getMessage());
@@ -562,8 +605,20 @@ public class MenuPrincipal {
                 System.out.println("Usando nombre por defecto: " + rutaArchivo);
             }
 
-            Connection con = DatabaseManager.getConnection();
-            boolean exito = InformeDAO.generarInformeResumen(con, rutaArchivo);
+            // El aproximado no recorre las tablas: pensado para refrescar a menudo
+            System.out.print("¿Informe aproximado (sketches, no recorre la BD)? (s/N): ");
+            boolean aproximado = sc.nextLine().trim().equalsIgnoreCase("s");
+
+            // El informe solo lee: en modo WAL no congela las ventas mientras se genera
+            Connection con = DatabaseManager.obtenerConexionLectura();
+            boolean exito;
+            try {
+                exito = aproximado
+                        ? InformeDAO.generarInformeAproximado(con, rutaArchivo)
+                        : InformeDAO.generarInformeResumen(con, rutaArchivo);
+            } finally {
+                DatabaseManager.liberarConexionLectura(con);
+            }
 
             if (!exito) {
                 System.err.println("✗ No se pudo generar el informe");
@@ -573,9 +628,459 @@ public class MenuPrincipal {
             System.err.println("Error al generar informe: " + e.getMessage());
         }
     }
-}
 
 
 
+    /**
+     * Opción 14: Ejecutar un script SQL desde fichero (por ejemplo un volcado de datos)
+     * Se procesa en streaming, con INSERTs en lote y COMMIT cada N sentencias.
+     */
+    private void opcionEjecutarScript() {
+        if (!DatabaseManager.isConectado()) {
+            System.err.println("No hay conexión activa.");
+            System.err.println("Primero debe conectar (Opción 1)");
+            return;
+        }
+
+        try {
+            System.out.println("\n=== EJECUTAR SCRIPT SQL ===");
+
+            System.out.print("Ruta del script (ejemplo: Recursos/sakila-db/sakila-data.sql): ");
+            String rutaScript = sc.nextLine().trim();
+
+            Connection con = DatabaseManager.getConnection();
+            new EjecutorScriptSQL(con).ejecutarFichero(Path.of(rutaScript));
+
+            System.out.println("✓ Script ejecutado correctamente");
+
+        } catch (SQLException | IOException e) {
+            System.err.println("Error al ejecutar script: " + e.getMessage());
+        }
+    }
+
+
+
+    /**
+     * Opción 15: Convertir la BD SQLite al perfil de almacenamiento compacto
+     * (coches WITHOUT ROWID + page_size ajustado + VACUUM)
+     */
+    private void opcionPerfilCompacto() {
+        if (!DatabaseManager.isConectado()) {
+            System.err.println("No hay conexión activa.");
+            System.err.println("Primero debe conectar (Opción 1)");
+            return;
+        }
+
+        try {
+            if (DatabaseManager.getTipoMotor() != TipoMotor.SQLITE) {
+                System.err.println("El perfil compacto solo está disponible en SQLite");
+                return;
+            }
+
+            System.out.print("\nSe reconstruirá la tabla coches y el fichero completo. ¿Continuar? (S/N): ");
+            String confirmacion = sc.nextLine().trim().toUpperCase();
+
+            if (!confirmacion.equals("S")) {
+                System.out.println("Operación cancelada");
+                return;
+            }
+
+            // Cambiar page_size requiere que no haya lectores abiertos
+            DatabaseManager.ejecutarEnExclusiva(PerfilAlmacenamientoSQLite::migrarAPerfilCompacto);
+
+        } catch (SQLException e) {
+            System.err.println("Error al aplicar el perfil compacto: " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * Opción 16: Búsqueda de texto completo en el inventario
+     * Muestra las matrículas más relevantes, página a página
+     */
+    private void opcionBuscarCoches() {
+        if (!DatabaseManager.isConectado()) {
+            System.err.println("No hay conexión activa.");
+            System.err.println("Primero debe conectar (Opción 1)");
+            return;
+        }
+
+        final int tamanoPagina = 10;
+
+        try {
+            System.out.print("\nTexto a buscar (ej: seat leon gps): ");
+            String texto = sc.nextLine().trim();
+
+            Connection con = DatabaseManager.obtenerConexionLectura();
+            try {
+                int pagina = 1;
+                while (true) {
+                    List<String> matriculas = BusquedaCocheDAO.buscar(con, texto, pagina, tamanoPagina);
+
+                    if (matriculas.isEmpty()) {
+                        System.out.println(pagina == 1 ? "No se encontraron coches" : "No hay más resultados");
+                        return;
+                    }
+
+                    System.out.println("\n=== RESULTADOS (página " + pagina + ") ===");
+                    for (int i = 0; i < matriculas.size(); i++) {
+                        System.out.printf("%3d. %s%n", (pagina - 1) * tamanoPagina + i + 1, matriculas.get(i));
+                    }
+
+                    if (matriculas.size() < tamanoPagina) {
+                        return;
+                    }
+
+                    System.out.print("¿Ver la siguiente página? (S/N): ");
+                    if (!sc.nextLine().trim().equalsIgnoreCase("S")) {
+                        return;
+                    }
+                    pagina++;
+                }
+            } finally {
+                DatabaseManager.liberarConexionLectura(con);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error al buscar coches: " + e.getMessage());
+        }
+    }
+
 
+    /**
+     * Opción 17: Consulta del inventario combinando filtros
+     * Todos los filtros son opcionales (Enter = sin filtro). Paginación por clave.
+     */
+    private void opcionConsultarInventario() {
+        if (!DatabaseManager.isConectado()) {
+            System.err.println("No hay conexión activa.");
+            System.err.println("Primero debe conectar (Opción 1)");
+            return;
+        }
+
+        final int tamanoPagina = 20;
+
+        try {
+            ConsultaCoches consulta = ConsultaCoches.nueva().limite(tamanoPagina);
+
+            System.out.print("\nMarca: ");
+            String marca = sc.nextLine().trim();
+            if (!marca.isEmpty()) {
+                consulta.marca(marca);
+            }
+
+            System.out.print("Precio mínimo: ");
+            String minimo = sc.nextLine().trim();
+            if (!minimo.isEmpty()) {
+                consulta.precioDesde(Dinero.parse(minimo));
+            }
+
+            System.out.print("Precio máximo: ");
+            String maximo = sc.nextLine().trim();
+            if (!maximo.isEmpty()) {
+                consulta.precioHasta(Dinero.parse(maximo));
+            }
+
+            System.out.print("Estado (S = en stock, V = vendidos, Enter = todos): ");
+            String estado = sc.nextLine().trim().toUpperCase();
+            if (estado.equals("S")) {
+                consulta.enStock();
+            } else if (estado.equals("V")) {
+                consulta.vendidos();
+            }
+
+            System.out.print("DNI del propietario: ");
+            String dni = sc.nextLine().trim();
+            if (!dni.isEmpty()) {
+                consulta.propietario(dni);
+            }
+
+            System.out.print("Extras (separados por |): ");
+            for (String extra : sc.nextLine().split("\\|")) {
+                if (!extra.isBlank()) {
+                    consulta.conExtra(extra.trim());
+                }
+            }
 
+            Connection con = DatabaseManager.obtenerConexionLectura();
+            try {
+                while (true) {
+                    List<Coche> coches = consulta.ejecutar(con);
+
+                    if (coches.isEmpty()) {
+                        System.out.println("No hay (más) coches con esos filtros");
+                        return;
+                    }
+
+                    System.out.println("─".repeat(110));
+                    System.out.printf("%-12s %-15s %-15s %-35s %10s  %-12s%n",
+                            "MATRÍCULA", "MARCA", "MODELO", "EXTRAS", "PRECIO", "PROPIETARIO");
+                    System.out.println("─".repeat(110));
+                    for (Coche coche : coches) {
+                        System.out.printf("%-12s %-15s %-15s %-35s %10s€ %-12s%n",
+                                coche.matricula(), coche.marca(), coche.modelo(), coche.extras(), coche.precio(),
+                                coche.enStock() ? "(stock)" : coche.dniPropietario());
+                    }
+
+                    if (coches.size() < tamanoPagina) {
+                        return;
+                    }
+
+                    System.out.print("¿Ver la siguiente página? (S/N): ");
+                    if (!sc.nextLine().trim().equalsIgnoreCase("S")) {
+                        return;
+                    }
+                    consulta.despuesDe(coches.get(coches.size() - 1));
+                }
+            } finally {
+                DatabaseManager.liberarConexionLectura(con);
+            }
+
+        } catch (NumberFormatException e) {
+            System.err.println("Precio inválido: " + e.getMessage());
+        } catch (SQLException e) {
+            System.err.println("Error al consultar el inventario: " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * Opción 18: Historial de traspasos
+     * Cadena de propiedad de un coche, o compras/ventas de un propietario con sus totales.
+     * Paginación por clave (id_traspaso del último traspaso mostrado).
+     */
+    private void opcionHistorialTraspasos() {
+        if (!DatabaseManager.isConectado()) {
+            System.err.println("No hay conexión activa.");
+            System.err.println("Primero debe conectar (Opción 1)");
+            return;
+        }
+
+        final int tamanoPagina = 20;
+
+        System.out.println("1 -> Cadena de propiedad de un coche");
+        System.out.println("2 -> Compras y ventas de un propietario");
+        System.out.print("Elija una opción: ");
+        String tipo = sc.nextLine().trim();
+
+        if (!tipo.equals("1") && !tipo.equals("2")) {
+            System.err.println("Opción no válida. Debe ser 1 o 2.");
+            return;
+        }
+        boolean porCoche = tipo.equals("1");
+
+        System.out.print(porCoche ? "Matrícula: " : "DNI: ");
+        String clave = sc.nextLine().trim();
+        if (clave.isEmpty()) {
+            System.err.println("Error: El valor no puede estar vacío");
+            return;
+        }
+
+        try {
+            Connection con = DatabaseManager.obtenerConexionLectura();
+            try {
+                if (!porCoche) {
+                    TraspasoDAO.Totales totales = TraspasoDAO.totalesPropietario(con, clave);
+                    System.out.println("\nCompras: " + totales.compras() + " (" + totales.totalComprado() + "€)"
+                            + "   Ventas: " + totales.ventas() + " (" + totales.totalVendido() + "€)");
+                }
+
+                Long ultimo = null;
+                while (true) {
+                    List<Traspaso> traspasos = porCoche
+                            ? TraspasoDAO.cadenaPropiedad(con, clave, ultimo, tamanoPagina)
+                            : TraspasoDAO.historialPropietario(con, clave, ultimo, tamanoPagina);
+
+                    if (traspasos.isEmpty()) {
+                        System.out.println("No hay (más) traspasos");
+                        return;
+                    }
+
+                    System.out.println("─".repeat(70));
+                    System.out.printf("%-10s %-12s %-14s %-14s %12s%n",
+                            "ID", "MATRÍCULA", "VENDEDOR", "COMPRADOR", "IMPORTE");
+                    System.out.println("─".repeat(70));
+                    for (Traspaso traspaso : traspasos) {
+                        System.out.printf("%-10d %-12s %-14s %-14s %11s€%n",
+                                traspaso.idTraspaso(), traspaso.matricula(),
+                                traspaso.ventaDelConcesionario() ? "(concesionario)" : traspaso.dniVendedor(),
+                                traspaso.dniComprador(), traspaso.monto());
+                    }
+
+                    if (traspasos.size() < tamanoPagina) {
+                        return;
+                    }
+
+                    System.out.print("¿Ver la siguiente página? (S/N): ");
+                    if (!sc.nextLine().trim().equalsIgnoreCase("S")) {
+                        return;
+                    }
+                    ultimo = traspasos.get(traspasos.size() - 1).idTraspaso();
+                }
+            } finally {
+                DatabaseManager.liberarConexionLectura(con);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error al consultar el historial: " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * Opción 19: Archivar traspasos antiguos
+     * Pasada manual del archivador con la conexión activa (sin esperar al hilo en
+     * segundo plano). El historial sigue mostrando los traspasos archivados.
+     */
+    private void opcionArchivarTraspasos() {
+        if (!DatabaseManager.isConectado()) {
+            System.err.println("No hay conexión activa.");
+            System.err.println("Primero debe conectar (Opción 1)");
+            return;
+        }
+
+        int diasPorDefecto = ConfigProperties.getIntProperty("archivo.dias", 365);
+        System.out.print("Archivar traspasos con más de cuántos días (Enter = " + diasPorDefecto + "): ");
+        String entrada = sc.nextLine().trim();
+
+        int dias;
+        try {
+            dias = entrada.isEmpty() ? diasPorDefecto : Integer.parseInt(entrada);
+        } catch (NumberFormatException e) {
+            System.err.println("Entrada inválida. Debe ser un número.");
+            return;
+        }
+        if (dias < 0) {
+            System.err.println("Error: Los días no pueden ser negativos");
+            return;
+        }
+
+        try {
+            int archivados = ArchivadorTraspasos.archivar(DatabaseManager.getConnection(),
+                    LocalDateTime.now().minusDays(dias),
+                    ConfigProperties.getIntProperty("archivo.lote", 500),
+                    ConfigProperties.getIntProperty("archivo.pausa_ms", 200));
+            if (archivados == 0) {
+                System.out.println("No hay traspasos que archivar");
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al archivar traspasos: " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * Opción 20: Importar propietarios desde CSV (dni;nombre;apellidos;telefono)
+     * Carga masiva por lotes; los DNI repetidos en el archivo se descartan y los que ya
+     * existen en la BD se omiten o se actualizan según elija el usuario.
+     */
+    private void opcionImportarPropietariosCSV() {
+        if (!DatabaseManager.isConectado()) {
+            System.err.println("No hay conexión activa.");
+            System.err.println("Primero debe conectar (Opción 1)");
+            return;
+        }
+
+        System.out.println("\n=== IMPORTAR PROPIETARIOS DESDE CSV ===");
+
+        System.out.print("Ruta del archivo CSV: ");
+        String rutaCSV = sc.nextLine().trim();
+
+        System.out.print("¿Actualizar los DNI que ya existen? (s = actualizar / N = omitir): ");
+        PropietarioDAO.ModoConflicto modo = sc.nextLine().trim().equalsIgnoreCase("S")
+                ? PropietarioDAO.ModoConflicto.ACTUALIZAR
+                : PropietarioDAO.ModoConflicto.OMITIR;
+
+        try {
+            Connection con = DatabaseManager.getConnection();
+            if (PropietarioDAO.importarDesdeCsv(con, rutaCSV, modo) == null) {
+                System.err.println("✗ La importación se interrumpió (lo confirmado antes del error se conserva)");
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error al importar propietarios: " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * Opción 21: Buscar propietarios por el principio de los apellidos, el nombre o el DNI
+     * (paginado), o sugerencias rápidas en memoria sobre todos los campos a la vez.
+     */
+    private void opcionBuscarPropietarios() {
+        if (!DatabaseManager.isConectado()) {
+            System.err.println("No hay conexión activa.");
+            System.err.println("Primero debe conectar (Opción 1)");
+            return;
+        }
+
+        final int tamanoPagina = 20;
+
+        System.out.println("1 -> Por apellidos");
+        System.out.println("2 -> Por nombre");
+        System.out.println("3 -> Por DNI");
+        System.out.println("4 -> Sugerencias rápidas (cualquier campo)");
+        System.out.print("Elija una opción: ");
+        String tipo = sc.nextLine().trim();
+
+        PropietarioDAO.CampoBusqueda campo = switch (tipo) {
+            case "1" -> PropietarioDAO.CampoBusqueda.APELLIDOS;
+            case "2" -> PropietarioDAO.CampoBusqueda.NOMBRE;
+            case "3" -> PropietarioDAO.CampoBusqueda.DNI;
+            default -> null;
+        };
+        if (campo == null && !tipo.equals("4")) {
+            System.err.println("Opción no válida. Debe ser 1, 2, 3 o 4.");
+            return;
+        }
+
+        System.out.print("Empieza por: ");
+        String prefijo = sc.nextLine().trim();
+
+        try {
+            Connection con = DatabaseManager.obtenerConexionLectura();
+            try {
+                Propietario ultimo = null;
+                while (true) {
+                    long inicio = System.nanoTime();
+                    List<Propietario> propietarios = campo == null
+                            ? PropietarioDAO.sugerir(con, prefijo, tamanoPagina)
+                            : PropietarioDAO.buscarPorPrefijo(con, campo, prefijo, ultimo, tamanoPagina);
+                    long micros = (System.nanoTime() - inicio) / 1000;
+
+                    if (propietarios.isEmpty()) {
+                        System.out.println("No hay (más) propietarios");
+                        return;
+                    }
+
+                    System.out.println("─".repeat(78));
+                    System.out.printf("%-8s %-12s %-20s %-25s %-10s%n",
+                            "ID", "DNI", "NOMBRE", "APELLIDOS", "TELÉFONO");
+                    System.out.println("─".repeat(78));
+                    for (Propietario propietario : propietarios) {
+                        System.out.printf("%-8d %-12s %-20s %-25s %-10s%n",
+                                propietario.idPropietario(), propietario.dni(), propietario.nombre(),
+                                propietario.apellidos(), propietario.telefono() == null ? "" : propietario.telefono());
+                    }
+                    System.out.println(propietarios.size() + " propietarios (" + micros + " µs)");
+
+                    // Las sugerencias son una sola página
+                    if (campo == null || propietarios.size() < tamanoPagina) {
+                        return;
+                    }
+
+                    System.out.print("¿Ver la siguiente página? (S/N): ");
+                    if (!sc.nextLine().trim().equalsIgnoreCase("S")) {
+                        return;
+                    }
+                    ultimo = propietarios.get(propietarios.size() - 1);
+                }
+            } finally {
+                DatabaseManager.liberarConexionLectura(con);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error al buscar propietarios: " + e.getMessage());
+        }
+    }
+}
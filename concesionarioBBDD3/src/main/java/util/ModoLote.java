@@ -0,0 +1,472 @@
+package util;
+
+import database.ArchivadorTraspasos;
+import database.DatabaseInitializer;
+import database.DatabaseManager;
+import database.EjecutorScriptSQL;
+import model.CocheDAO;
+import model.Dinero;
+import model.InformeDAO;
+import model.PropietarioDAO;
+import model.TraspasoDAO;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Modo por lotes: ejecuta operaciones sin menú ni preguntas, para tareas programadas (cron).
+ *
+ * USO:
+ *   java Main lote sqlite|mysql [--seguir] comando [argumentos...]
+ *   java Main lote sqlite|mysql [--seguir] -f comandos.txt      (-f - = entrada estándar)
+ *
+ * COMANDOS:
+ *   propietario <dni> <nombre> <apellidos> [telefono]
+ *   coche <matricula> <marca> <modelo> <extras> <precio>
+ *   modificar-coche <matricula> <marca> <modelo> <extras> <precio>
+ *   borrar-coche <matricula>
+ *   traspaso <dni_comprador> <matricula> <importe>
+ *   importar-coches <csv>                        (formato de la opción 5)
+ *   importar-propietarios <csv> [actualizar]     (formato de la opción 20)
+ *   importar-traspasos <csv>                     (matricula;dni_vendedor;dni_comprador;importe[;fecha])
+ *   informe <ruta> / informe-aproximado <ruta>
+ *   archivar [dias]
+ *   script <fichero.sql>
+ *
+ * En el archivo: un comando por línea, argumentos separados por espacios y entre comillas
+ * si los llevan ("Seat León"); las líneas vacías y las que empiezan por # se ignoran.
+ *
+ * ¿CÓMO FUNCIONA?
+ * - Primero se comprueba TODO el archivo (comandos y número de argumentos): una errata
+ *   en la última línea no deja el trabajo a medias
+ * - Una sola conexión para todo el lote: sentencias preparadas (CacheSentencias),
+ *   catálogo de marcas e índices en memoria se cargan una vez y se reutilizan
+ * - Por defecto se detiene en el primer comando que falla (como un script con set -e);
+ *   con --seguir ejecuta todos y al final informa de los fallidos
+ * - Sin archivado en segundo plano: para eso está el comando 'archivar'
+ *
+ * CÓDIGOS DE SALIDA:
+ *   0 todo correcto · 1 algún comando falló · 2 uso incorrecto (comando, argumentos o
+ *   archivo de comandos) · 3 sin conexión o sin esquema
+ */
+public class ModoLote {
+
+    public static final int OK = 0;
+    public static final int FALLO_COMANDO = 1;
+    public static final int USO_INCORRECTO = 2;
+    public static final int SIN_CONEXION = 3;
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Marca de orden de bytes con la que algunos editores empiezan los CSV en UTF-8
+    private static final String BOM = "\uFEFF";
+
+    private enum Comando {
+        PROPIETARIO("propietario", 3, 4, "<dni> <nombre> <apellidos> [telefono]"),
+        COCHE("coche", 5, 5, "<matricula> <marca> <modelo> <extras> <precio>"),
+        MODIFICAR_COCHE("modificar-coche", 5, 5, "<matricula> <marca> <modelo> <extras> <precio>"),
+        BORRAR_COCHE("borrar-coche", 1, 1, "<matricula>"),
+        TRASPASO("traspaso", 3, 3, "<dni_comprador> <matricula> <importe>"),
+        IMPORTAR_COCHES("importar-coches", 1, 1, "<csv>"),
+        IMPORTAR_PROPIETARIOS("importar-propietarios", 1, 2, "<csv> [actualizar]"),
+        IMPORTAR_TRASPASOS("importar-traspasos", 1, 1, "<csv>"),
+        INFORME("informe", 1, 1, "<ruta>"),
+        INFORME_APROXIMADO("informe-aproximado", 1, 1, "<ruta>"),
+        ARCHIVAR("archivar", 0, 1, "[dias]"),
+        SCRIPT("script", 1, 1, "<fichero.sql>");
+
+        final String nombre;
+        final int minimo;
+        final int maximo;
+        final String uso;
+
+        Comando(String nombre, int minimo, int maximo, String uso) {
+            this.nombre = nombre;
+            this.minimo = minimo;
+            this.maximo = maximo;
+            this.uso = uso;
+        }
+
+        static Comando buscar(String nombre) {
+            for (Comando comando : values()) {
+                if (comando.nombre.equalsIgnoreCase(nombre)) {
+                    return comando;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Un comando ya comprobado, con la línea del archivo de la que sale (0 = línea de órdenes).
+     */
+    private record Orden(int linea, Comando comando, List<String> argumentos) {
+
+        String descripcion() {
+            StringBuilder sb = new StringBuilder(comando.nombre);
+            for (String argumento : argumentos) {
+                boolean comillas = argumento.isEmpty() || argumento.chars().anyMatch(Character::isWhitespace);
+                sb.append(' ').append(comillas ? "\"" + argumento + "\"" : argumento);
+            }
+            return sb.toString();
+        }
+    }
+
+
+    private ModoLote() {
+    }
+
+    /**
+     * @param args argumentos que siguen a "lote" en la línea de órdenes
+     * @return código de salida del proceso
+     */
+    public static int ejecutar(String[] args) {
+        if (args.length < 2) {
+            imprimirUso();
+            return USO_INCORRECTO;
+        }
+
+        String motor = args[0].toLowerCase();
+        if (!motor.equals("sqlite") && !motor.equals("mysql")) {
+            System.err.println("Motor no válido: " + args[0] + " (sqlite | mysql)");
+            return USO_INCORRECTO;
+        }
+        boolean seguir = false;
+        String archivo = null;
+        int i = 1;
+        while (i < args.length && args[i].startsWith("-")) {
+            if (args[i].equals("--seguir")) {
+                seguir = true;
+                i++;
+            } else if (args[i].equals("-f") && i + 1 < args.length) {
+                archivo = args[i + 1];
+                i += 2;
+            } else {
+                System.err.println("Opción desconocida: " + args[i]);
+                imprimirUso();
+                return USO_INCORRECTO;
+            }
+        }
+
+        List<Orden> ordenes;
+        try {
+            if (archivo != null) {
+                if (i < args.length) {
+                    System.err.println("Con -f no se admiten más comandos en la línea de órdenes");
+                    return USO_INCORRECTO;
+                }
+                ordenes = leerArchivo(archivo);
+            } else if (i < args.length) {
+                ordenes = List.of(comprobar(0, Arrays.asList(args).subList(i, args.length)));
+            } else {
+                imprimirUso();
+                return USO_INCORRECTO;
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return USO_INCORRECTO;
+        } catch (IOException e) {
+            System.err.println("No se pudo leer el archivo de comandos: " + e.getMessage());
+            return USO_INCORRECTO;
+        }
+
+        if (!conectar(motor)) {
+            return SIN_CONEXION;
+        }
+        try {
+            return ejecutarOrdenes(ordenes, seguir);
+        } finally {
+            DatabaseManager.cerrarConexion();
+        }
+    }
+
+
+    // ============================================
+    // LECTURA Y COMPROBACIÓN DE COMANDOS
+    // ============================================
+
+    private static List<Orden> leerArchivo(String archivo) throws IOException {
+        List<Orden> ordenes = new ArrayList<>();
+        List<String> errores = new ArrayList<>();
+
+        try (BufferedReader br = archivo.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Path.of(archivo))) {
+
+            String linea;
+            int numero = 0;
+            while ((linea = br.readLine()) != null) {
+                numero++;
+                String limpia = linea.strip();
+                if (limpia.isEmpty() || limpia.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    ordenes.add(comprobar(numero, trocear(limpia)));
+                } catch (IllegalArgumentException e) {
+                    errores.add(e.getMessage());
+                }
+            }
+        } catch (NoSuchFileException e) {
+            throw new IOException("no existe " + archivo);
+        }
+
+        if (!errores.isEmpty()) {
+            throw new IllegalArgumentException("El archivo de comandos tiene errores (no se ha ejecutado nada):\n  "
+                    + String.join("\n  ", errores));
+        }
+        if (ordenes.isEmpty()) {
+            throw new IllegalArgumentException("El archivo de comandos no tiene ningún comando");
+        }
+        return ordenes;
+    }
+
+    private static Orden comprobar(int linea, List<String> partes) {
+        String donde = linea == 0 ? "" : "Línea " + linea + ": ";
+        Comando comando = Comando.buscar(partes.get(0));
+        if (comando == null) {
+            throw new IllegalArgumentException(donde + "comando desconocido '" + partes.get(0) + "'");
+        }
+
+        List<String> argumentos = List.copyOf(partes.subList(1, partes.size()));
+        if (argumentos.size() < comando.minimo || argumentos.size() > comando.maximo) {
+            throw new IllegalArgumentException(donde + "uso: " + comando.nombre + " " + comando.uso);
+        }
+        return new Orden(linea, comando, argumentos);
+    }
+
+    /**
+     * Separa una línea en palabras; lo que va entre comillas dobles es una sola palabra
+     * ("" = argumento vacío).
+     */
+    private static List<String> trocear(String linea) {
+        List<String> partes = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        boolean hayPalabra = false;
+
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (c == '"') {
+                entreComillas = !entreComillas;
+                hayPalabra = true;
+            } else if (Character.isWhitespace(c) && !entreComillas) {
+                if (hayPalabra) {
+                    partes.add(actual.toString());
+                    actual.setLength(0);
+                    hayPalabra = false;
+                }
+            } else {
+                actual.append(c);
+                hayPalabra = true;
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("comillas sin cerrar: " + linea);
+        }
+        if (hayPalabra) {
+            partes.add(actual.toString());
+        }
+        return partes;
+    }
+
+
+    // ============================================
+    // EJECUCIÓN
+    // ============================================
+
+    private static boolean conectar(String motor) {
+        boolean conectado = motor.equals("mysql") ? DatabaseManager.conectarMySQL() : DatabaseManager.conectarSQLite();
+        if (!conectado) {
+            return false;
+        }
+
+        try {
+            DatabaseInitializer.crearTablas(DatabaseManager.getConnection());
+            return true;
+        } catch (SQLException | IOException e) {
+            System.err.println("No se pudo preparar el esquema: " + e.getMessage());
+            DatabaseManager.cerrarConexion();
+            return false;
+        }
+    }
+
+    private static int ejecutarOrdenes(List<Orden> ordenes, boolean seguir) {
+        long inicioLote = System.nanoTime();
+        int fallidos = 0;
+        int ejecutados = 0;
+
+        for (Orden orden : ordenes) {
+            ejecutados++;
+            String prefijo = orden.linea() == 0 ? "" : "[línea " + orden.linea() + "] ";
+            System.out.println("→ " + prefijo + orden.descripcion());
+
+            long inicio = System.nanoTime();
+            boolean ok;
+            try {
+                ok = ejecutar(DatabaseManager.getConnection(), orden);
+            } catch (SQLException | IOException | IllegalArgumentException | DateTimeParseException e) {
+                // IllegalArgumentException incluye los importes mal escritos (NumberFormatException)
+                System.err.println("Error: " + e.getMessage());
+                ok = false;
+            }
+            long ms = (System.nanoTime() - inicio) / 1_000_000;
+
+            if (ok) {
+                System.out.println("✓ " + prefijo + orden.comando().nombre + " (" + ms + " ms)");
+            } else {
+                fallidos++;
+                System.err.println("✗ " + prefijo + orden.comando().nombre + " falló (" + ms + " ms)");
+                if (!seguir) {
+                    break;
+                }
+            }
+        }
+
+        long total = (System.nanoTime() - inicioLote) / 1_000_000;
+        System.out.println("\nLote terminado: " + ejecutados + " de " + ordenes.size() + " comandos ejecutados, "
+                + fallidos + " fallidos, " + total + " ms");
+        return fallidos == 0 ? OK : FALLO_COMANDO;
+    }
+
+    private static boolean ejecutar(Connection con, Orden orden) throws SQLException, IOException {
+        List<String> a = orden.argumentos();
+        return switch (orden.comando()) {
+            case PROPIETARIO -> PropietarioDAO.registrarPropietario(con, a.get(0), a.get(1), a.get(2),
+                    a.size() > 3 ? a.get(3) : null);
+            case COCHE -> CocheDAO.insertarCoche(con, a.get(0), a.get(1), a.get(2), a.get(3), Dinero.parse(a.get(4)));
+            case MODIFICAR_COCHE -> CocheDAO.modificarCoche(con, a.get(0), a.get(1), a.get(2), a.get(3),
+                    Dinero.parse(a.get(4)));
+            case BORRAR_COCHE -> CocheDAO.borrarCoche(con, a.get(0));
+            case TRASPASO -> TraspasoDAO.realizarTraspaso(con, a.get(0), a.get(1), Dinero.parse(a.get(2)));
+            case IMPORTAR_COCHES -> CocheDAO.importarDesdeCsv(con, a.get(0));
+            case IMPORTAR_PROPIETARIOS -> importarPropietarios(con, a);
+            case IMPORTAR_TRASPASOS -> importarTraspasos(con, a.get(0));
+            case INFORME -> InformeDAO.generarInformeResumen(con, a.get(0));
+            case INFORME_APROXIMADO -> InformeDAO.generarInformeAproximado(con, a.get(0));
+            case ARCHIVAR -> archivar(con, a);
+            case SCRIPT -> {
+                new EjecutorScriptSQL(con).ejecutarFichero(Path.of(a.get(0)));
+                yield true;
+            }
+        };
+    }
+
+    private static boolean importarPropietarios(Connection con, List<String> a) {
+        if (a.size() > 1 && !a.get(1).equalsIgnoreCase("actualizar")) {
+            throw new IllegalArgumentException("El segundo argumento solo puede ser 'actualizar'");
+        }
+        PropietarioDAO.ModoConflicto modo = a.size() > 1
+                ? PropietarioDAO.ModoConflicto.ACTUALIZAR
+                : PropietarioDAO.ModoConflicto.OMITIR;
+
+        // Como en la opción 20: las líneas inválidas se cuentan en el resumen, no hacen fallar el comando
+        return PropietarioDAO.importarDesdeCsv(con, a.get(0), modo) != null;
+    }
+
+    private static boolean archivar(Connection con, List<String> a) throws SQLException {
+        int dias = a.isEmpty() ? ConfigProperties.getIntProperty("archivo.dias", 365) : Integer.parseInt(a.get(0));
+        if (dias < 0) {
+            throw new IllegalArgumentException("Los días no pueden ser negativos");
+        }
+
+        int archivados = ArchivadorTraspasos.archivar(con, LocalDateTime.now().minusDays(dias),
+                ConfigProperties.getIntProperty("archivo.lote", 500),
+                ConfigProperties.getIntProperty("archivo.pausa_ms", 200));
+        System.out.println(archivados + " traspasos archivados");
+        return true;
+    }
+
+    /**
+     * Traspasos desde un CSV con el formato de GeneradorDatos (traspasos.csv):
+     * matricula;dni_vendedor;dni_comprador;importe[;fecha_venta "AAAA-MM-DD HH:MM:SS"]
+     *
+     * Cada fila es un traspaso completo (TraspasoDAO.realizarTraspaso, con sus comprobaciones
+     * y su transacción), en el orden del archivo. La columna dni_vendedor no se usa: vende
+     * siempre el propietario actual, como en la opción 10.
+     * Las filas rechazadas se cuentan y no detienen la importación.
+     *
+     * @return true si se hicieron todos los traspasos
+     */
+    private static boolean importarTraspasos(Connection con, String rutaCSV) throws IOException, SQLException {
+        long leidas = 0;
+        long realizados = 0;
+        long rechazados = 0;
+        long inicio = System.nanoTime();
+
+        // realizarTraspaso cuenta cada venta por consola: con miles de filas, solo el resumen
+        PrintStream consola = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try (BufferedReader br = Files.newBufferedReader(Path.of(rutaCSV))) {
+            String linea;
+            long numeroLinea = 0;
+            while ((linea = br.readLine()) != null) {
+                numeroLinea++;
+                // Sin quitarla, la cabecera no se reconoce y la primera matrícula lleva la marca delante
+                if (numeroLinea == 1 && linea.startsWith(BOM)) {
+                    linea = linea.substring(BOM.length());
+                }
+                if (linea.isBlank() || (leidas == 0 && linea.startsWith("matricula;"))) {
+                    continue;
+                }
+                leidas++;
+
+                String[] campos = linea.split(";", -1);
+                if (campos.length < 4 || campos.length > 5) {
+                    System.err.println("Línea inválida (se esperan 4 o 5 campos): " + linea);
+                    rechazados++;
+                    continue;
+                }
+
+                try {
+                    Dinero importe = Dinero.parse(campos[3]);
+                    LocalDateTime fecha = campos.length == 5 && !campos[4].isBlank()
+                            ? LocalDateTime.parse(campos[4].trim(), FORMATO_FECHA)
+                            : LocalDateTime.now();
+
+                    if (TraspasoDAO.realizarTraspaso(con, campos[2].trim(), campos[0].trim(), importe, fecha)) {
+                        realizados++;
+                    } else {
+                        rechazados++;
+                    }
+                } catch (NumberFormatException | DateTimeParseException e) {
+                    System.err.println("Línea inválida (" + e.getMessage() + "): " + linea);
+                    rechazados++;
+                }
+            }
+        } catch (NoSuchFileException e) {
+            throw new IOException("No se encontró el archivo CSV: " + rutaCSV);
+        } finally {
+            System.setOut(consola);
+        }
+
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        System.out.println(leidas + " filas: " + realizados + " traspasos realizados, " + rechazados
+                + " rechazados (" + ms + " ms, " + (ms == 0 ? leidas : leidas * 1000 / ms) + " filas/s)");
+        return rechazados == 0;
+    }
+
+    private static void imprimirUso() {
+        System.err.println("Uso: java Main lote sqlite|mysql [--seguir] comando [argumentos...]");
+        System.err.println("     java Main lote sqlite|mysql [--seguir] -f comandos.txt   (-f - = entrada estándar)");
+        System.err.println("Comandos:");
+        for (Comando comando : Comando.values()) {
+            System.err.println("  " + comando.nombre + " " + comando.uso);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+-- ============================================
+-- V10 (MySQL) - Vista equivalente a sp_coches_por_marca
+-- ============================================
+-- Misma consulta que el procedimiento (schema-procedures.sql). ProcedimientoDAO.cochesPorMarca
+-- llama al procedimiento y solo usa la vista si todavía no se ha creado (opción 11):
+-- así las estadísticas por marca funcionan en cualquier BD migrada.
+--
+-- idx_coches_marca_precio (id_marca, precio_centimos, matricula) de V5 cubre la subconsulta.
+
+CREATE OR REPLACE VIEW v_coches_por_marca AS
+SELECT
+    m.nombre AS marca,
+    t.total_coches,
+    t.suma_centimos,
+    t.precio_minimo_centimos,
+    t.precio_maximo_centimos
+FROM (
+    SELECT
+        id_marca,
+        COUNT(*) AS total_coches,
+        SUM(precio_centimos) AS suma_centimos,
+        MIN(precio_centimos) AS precio_minimo_centimos,
+        MAX(precio_centimos) AS precio_maximo_centimos
+    FROM coches
+    GROUP BY id_marca
+) t
+INNER JOIN marcas m ON m.id_marca = t.id_marca;
@@ -1,5 +1,5 @@
 -- ============================================
--- DDL para MySQL - Concesionario
+-- V1 (MySQL) - Esquema inicial del concesionario
 -- ============================================
 -- Este archivo contiene SOLO las sentencias CREATE TABLE
 -- NO incluye CREATE DATABASE (eso lo hace DatabaseManager)
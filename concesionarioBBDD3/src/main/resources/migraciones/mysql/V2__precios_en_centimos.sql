@@ -0,0 +1,18 @@
+-- ============================================
+-- V2 (MySQL) - Importes en céntimos (punto fijo)
+-- ============================================
+-- precio y monto_economico pasan de DECIMAL(10,2) a BIGINT de céntimos:
+-- SUM/AVG/MIN/MAX trabajan con enteros exactos.
+-- Los datos existentes se convierten sin pérdida (DECIMAL ya tenía 2 decimales).
+
+ALTER TABLE coches ADD COLUMN precio_centimos BIGINT NOT NULL DEFAULT 0;
+UPDATE coches SET precio_centimos = ROUND(precio * 100);
+ALTER TABLE coches DROP COLUMN precio;
+
+ALTER TABLE traspasos ADD COLUMN monto_centimos BIGINT NOT NULL DEFAULT 0;
+UPDATE traspasos SET monto_centimos = ROUND(monto_economico * 100);
+ALTER TABLE traspasos DROP COLUMN monto_economico;
+
+-- El procedimiento anterior usaba la columna precio: se borra para que
+-- se vuelva a crear con la versión actual (opción 11 del menú)
+DROP PROCEDURE IF EXISTS sp_coches_por_marca;
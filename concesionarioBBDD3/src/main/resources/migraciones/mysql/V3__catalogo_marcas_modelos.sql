@@ -0,0 +1,53 @@
+-- ============================================
+-- V3 (MySQL) - Catálogo de marcas y modelos
+-- ============================================
+-- marca y modelo repetían los mismos textos en cada coche.
+-- Ahora coches guarda claves enteras (id_marca, id_modelo) que apuntan
+-- a dos tablas pequeñas; los nombres se traducen en Java (CatalogoMarcas).
+
+CREATE TABLE IF NOT EXISTS marcas (
+    id_marca SMALLINT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
+    nombre VARCHAR(50) NOT NULL UNIQUE
+    ) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS modelos (
+    id_modelo INT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
+    id_marca SMALLINT UNSIGNED NOT NULL,
+    nombre VARCHAR(50) NOT NULL,
+    CONSTRAINT uq_modelos_marca_nombre UNIQUE (id_marca, nombre),
+    CONSTRAINT fk_modelos_marcas
+    FOREIGN KEY (id_marca)
+    REFERENCES marcas(id_marca)
+    ) ENGINE=InnoDB;
+
+-- Rellenar el catálogo con los valores que ya existen
+INSERT INTO marcas (nombre)
+SELECT DISTINCT marca FROM coches ORDER BY marca;
+
+INSERT INTO modelos (id_marca, nombre)
+SELECT DISTINCT m.id_marca, c.modelo
+FROM coches c
+INNER JOIN marcas m ON m.nombre = c.marca
+ORDER BY m.id_marca, c.modelo;
+
+-- Sustituir los textos por las claves
+ALTER TABLE coches
+    ADD COLUMN id_marca SMALLINT UNSIGNED NULL,
+    ADD COLUMN id_modelo INT UNSIGNED NULL;
+
+UPDATE coches c
+INNER JOIN marcas m ON m.nombre = c.marca
+INNER JOIN modelos mo ON mo.id_marca = m.id_marca AND mo.nombre = c.modelo
+SET c.id_marca = m.id_marca, c.id_modelo = mo.id_modelo;
+
+ALTER TABLE coches
+    MODIFY id_marca SMALLINT UNSIGNED NOT NULL,
+    MODIFY id_modelo INT UNSIGNED NOT NULL,
+    DROP COLUMN marca,
+    DROP COLUMN modelo,
+    ADD INDEX idx_coches_marca (id_marca),
+    ADD CONSTRAINT fk_coches_marcas FOREIGN KEY (id_marca) REFERENCES marcas(id_marca),
+    ADD CONSTRAINT fk_coches_modelos FOREIGN KEY (id_modelo) REFERENCES modelos(id_modelo);
+
+-- El procedimiento anterior agrupaba por el texto de la marca
+DROP PROCEDURE IF EXISTS sp_coches_por_marca;
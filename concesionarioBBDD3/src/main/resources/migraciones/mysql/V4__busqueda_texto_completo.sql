@@ -0,0 +1,22 @@
+-- ============================================
+-- V4 (MySQL) - Búsqueda de texto completo (FULLTEXT)
+-- ============================================
+-- coches_busqueda guarda el texto buscable de cada coche (marca, modelo, extras)
+-- con un índice FULLTEXT. CocheDAO la mantiene al día en cada escritura.
+
+CREATE TABLE IF NOT EXISTS coches_busqueda (
+    matricula VARCHAR(10) PRIMARY KEY,
+    marca VARCHAR(50) NOT NULL,
+    modelo VARCHAR(50) NOT NULL,
+    extras VARCHAR(255)
+    ) ENGINE=InnoDB;
+
+-- Indexar los coches que ya existen (antes de crear el índice: es más rápido)
+INSERT INTO coches_busqueda (matricula, marca, modelo, extras)
+SELECT c.matricula, m.nombre, mo.nombre, c.extras
+FROM coches c
+INNER JOIN marcas m ON m.id_marca = c.id_marca
+INNER JOIN modelos mo ON mo.id_modelo = c.id_modelo;
+
+ALTER TABLE coches_busqueda
+    ADD FULLTEXT INDEX ft_coches_busqueda (marca, modelo, extras);
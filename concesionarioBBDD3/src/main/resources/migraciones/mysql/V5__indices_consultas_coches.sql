@@ -0,0 +1,17 @@
+-- ============================================
+-- V5 (MySQL) - Índices para las consultas con filtros (ConsultaCoches)
+-- ============================================
+-- Cada índice termina en las columnas por las que ConsultaCoches ordena y pagina,
+-- así el motor lee las filas ya ordenadas y se detiene al llenar la página:
+--   marca                → (id_marca, matricula)             ORDER BY matricula
+--   marca + precio       → (id_marca, precio_centimos, matricula)  ORDER BY precio, matricula
+--   precio               → (precio_centimos, matricula)      ORDER BY precio, matricula
+--   stock / propietario  → índice de fk_coches_propietarios (InnoDB añade la
+--                          clave primaria, matricula, al final de cada índice secundario)
+-- idx_coches_marca (V3) se rehace con matricula para que coincida con SQLite.
+
+ALTER TABLE coches
+    ADD INDEX idx_coches_marca_precio (id_marca, precio_centimos, matricula),
+    ADD INDEX idx_coches_precio (precio_centimos, matricula),
+    DROP INDEX idx_coches_marca,
+    ADD INDEX idx_coches_marca (id_marca, matricula);
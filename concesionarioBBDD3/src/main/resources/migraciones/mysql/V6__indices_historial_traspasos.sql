@@ -0,0 +1,22 @@
+-- ============================================
+-- V6 (MySQL) - Índices para el historial de traspasos (TraspasoDAO)
+-- ============================================
+-- Cada índice empieza por las columnas del filtro y sigue con id_traspaso, el orden
+-- en que se pagina:
+--   cadena de propiedad de un coche → (matricula_coche, id_vendedor, id_traspaso)
+--       cada eslabón busca "el siguiente traspaso de este coche en el que vende
+--       el dueño actual": con las tres columnas es una sola búsqueda exacta
+--   compras de un propietario       → (id_comprador, id_traspaso, monto_centimos)
+--   ventas de un propietario        → (id_vendedor, id_traspaso, monto_centimos)
+-- monto_centimos al final hace que el total comprado/vendido se calcule
+-- solo con el índice (covering index).
+-- Los índices que InnoDB creó para las claves foráneas empiezan por la misma
+-- columna: se borran, las claves foráneas pasan a usar los nuevos.
+
+ALTER TABLE traspasos
+    ADD INDEX idx_traspasos_coche (matricula_coche, id_vendedor, id_traspaso),
+    ADD INDEX idx_traspasos_comprador (id_comprador, id_traspaso, monto_centimos),
+    ADD INDEX idx_traspasos_vendedor (id_vendedor, id_traspaso, monto_centimos),
+    DROP INDEX fk_traspasos_coches,
+    DROP INDEX fk_traspasos_comprador,
+    DROP INDEX fk_traspasos_vendedor;
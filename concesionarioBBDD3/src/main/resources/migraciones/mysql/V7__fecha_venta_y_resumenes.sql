@@ -0,0 +1,30 @@
+-- ============================================
+-- V7 (MySQL) - Fecha de venta y resúmenes de ventas por día y mes
+-- ============================================
+-- Los traspasos anteriores a esta migración no tienen fecha (NULL) y no
+-- aparecen en los resúmenes.
+--
+-- ventas_diarias / ventas_mensuales: una fila por (día o mes, marca) con el
+-- número de ventas y el importe total. TraspasoDAO las actualiza en la misma
+-- transacción que cada venta, así los informes leen unas pocas filas en lugar
+-- de agrupar millones de traspasos.
+
+ALTER TABLE traspasos
+    ADD COLUMN fecha_venta DATETIME NULL,
+    ADD INDEX idx_traspasos_fecha (fecha_venta);
+
+CREATE TABLE IF NOT EXISTS ventas_diarias (
+    dia DATE NOT NULL,
+    id_marca INT NOT NULL,
+    ventas INT NOT NULL,
+    importe_centimos BIGINT NOT NULL,
+    PRIMARY KEY (dia, id_marca)
+    ) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS ventas_mensuales (
+    mes CHAR(7) NOT NULL,
+    id_marca INT NOT NULL,
+    ventas INT NOT NULL,
+    importe_centimos BIGINT NOT NULL,
+    PRIMARY KEY (mes, id_marca)
+    ) ENGINE=InnoDB;
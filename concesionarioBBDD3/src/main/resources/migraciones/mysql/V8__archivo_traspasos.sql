@@ -0,0 +1,32 @@
+-- ============================================
+-- V8 (MySQL) - Archivo de traspasos antiguos
+-- ============================================
+-- ArchivadorTraspasos mueve a traspasos_archivo, por lotes pequeños, los
+-- traspasos con fecha_venta anterior a archivo.dias. Así la tabla "caliente"
+-- y sus índices se mantienen pequeños (caben en el buffer pool) y cada venta
+-- nueva sigue siendo rápida.
+--
+-- Misma estructura que traspasos, sin AUTO_INCREMENT (los id vienen de
+-- traspasos) y sin claves foráneas.
+-- Los mismos índices que V6/V7 para que el historial consulte las dos tablas igual.
+
+CREATE TABLE IF NOT EXISTS traspasos_archivo (
+    id_traspaso INT PRIMARY KEY,
+    matricula_coche VARCHAR(10) NOT NULL,
+    id_vendedor INT NULL,
+    id_comprador INT NOT NULL,
+    monto_centimos BIGINT NOT NULL,
+    fecha_venta DATETIME NULL,
+    INDEX idx_traspasos_archivo_coche (matricula_coche, id_vendedor, id_traspaso),
+    INDEX idx_traspasos_archivo_comprador (id_comprador, id_traspaso, monto_centimos),
+    INDEX idx_traspasos_archivo_vendedor (id_vendedor, id_traspaso, monto_centimos),
+    INDEX idx_traspasos_archivo_fecha (fecha_venta)
+    ) ENGINE=InnoDB;
+
+-- Todos los traspasos, recientes y archivados (para consultas puntuales).
+-- MySQL materializa las vistas con UNION: TraspasoDAO no la usa, consulta
+-- cada tabla por su índice y une los resultados.
+CREATE OR REPLACE VIEW traspasos_todos AS
+SELECT id_traspaso, matricula_coche, id_vendedor, id_comprador, monto_centimos, fecha_venta FROM traspasos
+UNION ALL
+SELECT id_traspaso, matricula_coche, id_vendedor, id_comprador, monto_centimos, fecha_venta FROM traspasos_archivo;
@@ -0,0 +1,12 @@
+-- ============================================
+-- V9 (MySQL) - Índices para buscar propietarios por prefijo
+-- ============================================
+-- PropietarioDAO.buscarPorPrefijo busca con LIKE 'prefijo%' en apellidos, nombre o DNI.
+-- La intercalación por defecto (utf8mb4_0900_ai_ci) ya ignora mayúsculas y tildes,
+-- así que un índice normal sirve para el rango. InnoDB añade la clave primaria
+-- (id_propietario) al final de cada índice: sirve de desempate para la paginación.
+-- dni ya tiene su índice UNIQUE desde V1.
+
+ALTER TABLE propietarios
+    ADD INDEX idx_propietarios_apellidos (apellidos),
+    ADD INDEX idx_propietarios_nombre (nombre);
@@ -0,0 +1,29 @@
+-- ============================================
+-- V10 (SQLite) - Vista equivalente a sp_coches_por_marca
+-- ============================================
+-- SQLite no tiene procedimientos almacenados: ProcedimientoDAO.cochesPorMarca lee esta
+-- vista, con las mismas columnas que devuelve el procedimiento en MySQL.
+--
+-- Se agrupa primero por id_marca y solo después se une con marcas (como el procedimiento).
+-- idx_coches_marca_precio (id_marca, precio_centimos, matricula) de V5 cubre la subconsulta:
+-- una sola pasada por el índice, ya agrupado por marca, sin leer la tabla ni ordenar.
+-- El orden de las filas lo pone quien consulta (una vista no garantiza ninguno).
+
+CREATE VIEW IF NOT EXISTS v_coches_por_marca AS
+SELECT
+    m.nombre AS marca,
+    t.total_coches,
+    t.suma_centimos,
+    t.precio_minimo_centimos,
+    t.precio_maximo_centimos
+FROM (
+    SELECT
+        id_marca,
+        COUNT(*) AS total_coches,
+        SUM(precio_centimos) AS suma_centimos,
+        MIN(precio_centimos) AS precio_minimo_centimos,
+        MAX(precio_centimos) AS precio_maximo_centimos
+    FROM coches
+    GROUP BY id_marca
+) t
+INNER JOIN marcas m ON m.id_marca = t.id_marca;
@@ -0,0 +1,100 @@
+-- ============================================
+-- V11 (SQLite) - Nombres de marca y modelo sin distinguir mayúsculas
+-- ============================================
+-- En MySQL marcas.nombre y modelos.nombre comparan con la colación _ci de la tabla:
+-- "Seat" y "seat" son la misma marca. En SQLite (V3) la comparación era binaria y
+-- daban dos marcas distintas (dos filas en las estadísticas y en el informe).
+--
+-- SQLite no puede cambiar la colación de una columna: se crean las dos tablas de nuevo
+-- con COLLATE NOCASE y se unifican los duplicados que ya existan (se conserva el id más
+-- bajo y los coches pasan a él). NOCASE solo iguala mayúsculas ASCII; las claves en
+-- memoria de CatalogoMarcas se normalizan igual.
+-- MySQL no necesita esta migración.
+
+-- La vista de V10 depende de marcas: se quita durante el cambio y se vuelve a crear al final
+DROP VIEW IF EXISTS v_coches_por_marca;
+
+CREATE TABLE marcas_nueva (
+    id_marca INTEGER PRIMARY KEY AUTOINCREMENT,
+    nombre TEXT NOT NULL COLLATE NOCASE UNIQUE
+);
+
+-- Con MIN() el nombre sale de la fila del id más bajo de cada grupo
+INSERT INTO marcas_nueva (id_marca, nombre)
+SELECT MIN(id_marca), nombre
+FROM marcas
+GROUP BY nombre COLLATE NOCASE;
+
+CREATE TEMP TABLE mapa_marcas AS
+SELECT m.id_marca AS anterior, n.id_marca AS nuevo
+FROM marcas m
+INNER JOIN marcas_nueva n ON n.nombre = m.nombre COLLATE NOCASE;
+
+CREATE TABLE modelos_nueva (
+    id_modelo INTEGER PRIMARY KEY AUTOINCREMENT,
+    id_marca INTEGER NOT NULL,
+    nombre TEXT NOT NULL COLLATE NOCASE,
+    UNIQUE (id_marca, nombre),
+    FOREIGN KEY (id_marca)
+    REFERENCES marcas(id_marca)
+);
+
+INSERT INTO modelos_nueva (id_modelo, id_marca, nombre)
+SELECT MIN(mo.id_modelo), mm.nuevo, mo.nombre
+FROM modelos mo
+INNER JOIN mapa_marcas mm ON mm.anterior = mo.id_marca
+GROUP BY mm.nuevo, mo.nombre COLLATE NOCASE;
+
+CREATE TEMP TABLE mapa_modelos AS
+SELECT mo.id_modelo AS anterior, n.id_modelo AS nuevo
+FROM modelos mo
+INNER JOIN mapa_marcas mm ON mm.anterior = mo.id_marca
+INNER JOIN modelos_nueva n ON n.id_marca = mm.nuevo AND n.nombre = mo.nombre COLLATE NOCASE;
+
+-- El texto buscable de los coches afectados pasa a los nombres que se conservan
+-- (antes de cambiar sus claves, que es lo que los identifica)
+UPDATE coches_busqueda
+SET marca = (SELECT n.nombre FROM coches c
+             INNER JOIN mapa_marcas mm ON mm.anterior = c.id_marca
+             INNER JOIN marcas_nueva n ON n.id_marca = mm.nuevo
+             WHERE c.matricula = coches_busqueda.matricula),
+    modelo = (SELECT n.nombre FROM coches c
+              INNER JOIN mapa_modelos mm ON mm.anterior = c.id_modelo
+              INNER JOIN modelos_nueva n ON n.id_modelo = mm.nuevo
+              WHERE c.matricula = coches_busqueda.matricula)
+WHERE matricula IN (SELECT matricula FROM coches
+                    WHERE id_marca IN (SELECT anterior FROM mapa_marcas WHERE anterior <> nuevo)
+                       OR id_modelo IN (SELECT anterior FROM mapa_modelos WHERE anterior <> nuevo));
+
+UPDATE coches
+SET id_marca = (SELECT nuevo FROM mapa_marcas WHERE anterior = coches.id_marca),
+    id_modelo = (SELECT nuevo FROM mapa_modelos WHERE anterior = coches.id_modelo)
+WHERE id_marca IN (SELECT anterior FROM mapa_marcas WHERE anterior <> nuevo)
+   OR id_modelo IN (SELECT anterior FROM mapa_modelos WHERE anterior <> nuevo);
+
+DROP TABLE mapa_modelos;
+DROP TABLE mapa_marcas;
+
+DROP TABLE modelos;
+DROP TABLE marcas;
+ALTER TABLE marcas_nueva RENAME TO marcas;
+ALTER TABLE modelos_nueva RENAME TO modelos;
+
+CREATE VIEW IF NOT EXISTS v_coches_por_marca AS
+SELECT
+    m.nombre AS marca,
+    t.total_coches,
+    t.suma_centimos,
+    t.precio_minimo_centimos,
+    t.precio_maximo_centimos
+FROM (
+    SELECT
+        id_marca,
+        COUNT(*) AS total_coches,
+        SUM(precio_centimos) AS suma_centimos,
+        MIN(precio_centimos) AS precio_minimo_centimos,
+        MAX(precio_centimos) AS precio_maximo_centimos
+    FROM coches
+    GROUP BY id_marca
+) t
+INNER JOIN marcas m ON m.id_marca = t.id_marca;
@@ -0,0 +1,55 @@
+-- ============================================
+-- V12 (SQLite) - Apellidos sin tildes para buscar propietarios por prefijo
+-- ============================================
+-- Las sugerencias de propietarios (TriePropietarios) no distinguen tildes: "garcia"
+-- encuentra "García". Cuando el trie no tiene a todos, PropietarioDAO.sugerir completa
+-- con SQL, y con COLLATE NOCASE (V9) "garcia" no encontraba "García": el resultado
+-- dependía de si el propietario estaba en el trie.
+--
+-- SQLite no tiene una intercalación que ignore tildes. Se añade una columna generada
+-- (VIRTUAL: no ocupa espacio en la tabla, solo en el índice) con los apellidos en
+-- minúsculas y sin las tildes del español y del catalán (también ü, ñ y ç), y un índice
+-- para buscar por rango como en V9. La calcula SQLite, así que también vale para lo
+-- escrito con scripts u otros procesos.
+-- MySQL no necesita esta migración: la intercalación _ci ya ignora mayúsculas y tildes.
+
+ALTER TABLE propietarios ADD COLUMN apellidos_sin_tildes TEXT GENERATED ALWAYS AS (
+    lower(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(replace(apellidos
+        , 'á', 'a')
+        , 'Á', 'a')
+        , 'à', 'a')
+        , 'À', 'a')
+        , 'ä', 'a')
+        , 'Ä', 'a')
+        , 'é', 'e')
+        , 'É', 'e')
+        , 'è', 'e')
+        , 'È', 'e')
+        , 'ë', 'e')
+        , 'Ë', 'e')
+        , 'í', 'i')
+        , 'Í', 'i')
+        , 'ì', 'i')
+        , 'Ì', 'i')
+        , 'ï', 'i')
+        , 'Ï', 'i')
+        , 'ó', 'o')
+        , 'Ó', 'o')
+        , 'ò', 'o')
+        , 'Ò', 'o')
+        , 'ö', 'o')
+        , 'Ö', 'o')
+        , 'ú', 'u')
+        , 'Ú', 'u')
+        , 'ù', 'u')
+        , 'Ù', 'u')
+        , 'ü', 'u')
+        , 'Ü', 'u')
+        , 'ñ', 'n')
+        , 'Ñ', 'n')
+        , 'ç', 'c')
+        , 'Ç', 'c')
+    )
+) VIRTUAL;
+
+CREATE INDEX IF NOT EXISTS idx_propietarios_apellidos_sin_tildes ON propietarios(apellidos_sin_tildes);
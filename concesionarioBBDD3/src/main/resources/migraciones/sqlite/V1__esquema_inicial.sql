@@ -1,5 +1,5 @@
 -- ============================================
--- DDL para SQLite - Concesionario
+-- V1 (SQLite) - Esquema inicial del concesionario
 -- ============================================
 -- Este archivo contiene SOLO las sentencias CREATE TABLE
 -- SQLite crea automáticamente el archivo .db si no existe
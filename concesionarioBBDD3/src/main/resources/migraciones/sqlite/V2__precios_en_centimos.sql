@@ -0,0 +1,14 @@
+-- ============================================
+-- V2 (SQLite) - Importes en céntimos (punto fijo)
+-- ============================================
+-- precio y monto_economico pasan de REAL a INTEGER de céntimos:
+-- SUM/AVG/MIN/MAX trabajan con enteros exactos.
+-- Los datos existentes se convierten redondeando al céntimo.
+
+ALTER TABLE coches ADD COLUMN precio_centimos INTEGER NOT NULL DEFAULT 0;
+UPDATE coches SET precio_centimos = CAST(ROUND(precio * 100) AS INTEGER);
+ALTER TABLE coches DROP COLUMN precio;
+
+ALTER TABLE traspasos ADD COLUMN monto_centimos INTEGER NOT NULL DEFAULT 0;
+UPDATE traspasos SET monto_centimos = CAST(ROUND(monto_economico * 100) AS INTEGER);
+ALTER TABLE traspasos DROP COLUMN monto_economico;
@@ -0,0 +1,43 @@
+-- ============================================
+-- V3 (SQLite) - Catálogo de marcas y modelos
+-- ============================================
+-- marca y modelo repetían los mismos textos en cada coche.
+-- Ahora coches guarda claves enteras (id_marca, id_modelo) que apuntan
+-- a dos tablas pequeñas; los nombres se traducen en Java (CatalogoMarcas).
+
+CREATE TABLE IF NOT EXISTS marcas (
+    id_marca INTEGER PRIMARY KEY AUTOINCREMENT,
+    nombre TEXT NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS modelos (
+    id_modelo INTEGER PRIMARY KEY AUTOINCREMENT,
+    id_marca INTEGER NOT NULL,
+    nombre TEXT NOT NULL,
+    UNIQUE (id_marca, nombre),
+    FOREIGN KEY (id_marca)
+    REFERENCES marcas(id_marca)
+);
+
+-- Rellenar el catálogo con los valores que ya existen
+INSERT INTO marcas (nombre)
+SELECT DISTINCT marca FROM coches ORDER BY marca;
+
+INSERT INTO modelos (id_marca, nombre)
+SELECT DISTINCT m.id_marca, c.modelo
+FROM coches c
+INNER JOIN marcas m ON m.nombre = c.marca
+ORDER BY m.id_marca, c.modelo;
+
+-- Sustituir los textos por las claves
+ALTER TABLE coches ADD COLUMN id_marca INTEGER REFERENCES marcas(id_marca);
+ALTER TABLE coches ADD COLUMN id_modelo INTEGER REFERENCES modelos(id_modelo);
+
+UPDATE coches SET id_marca = (SELECT m.id_marca FROM marcas m WHERE m.nombre = coches.marca);
+UPDATE coches SET id_modelo = (SELECT mo.id_modelo FROM modelos mo
+                               WHERE mo.id_marca = coches.id_marca AND mo.nombre = coches.modelo);
+
+ALTER TABLE coches DROP COLUMN marca;
+ALTER TABLE coches DROP COLUMN modelo;
+
+CREATE INDEX IF NOT EXISTS idx_coches_marca ON coches(id_marca);
@@ -0,0 +1,53 @@
+-- ============================================
+-- V4 (SQLite) - Búsqueda de texto completo (FTS5)
+-- ============================================
+-- coches_busqueda guarda el texto buscable de cada coche (marca, modelo, extras).
+-- coches_busqueda_fts es un índice FTS5 de "contenido externo" sobre esa tabla:
+-- no duplica el texto, solo guarda el índice invertido.
+-- Los triggers mantienen el índice FTS al día; CocheDAO solo escribe en coches_busqueda.
+
+CREATE TABLE IF NOT EXISTS coches_busqueda (
+    id INTEGER PRIMARY KEY,
+    matricula TEXT NOT NULL UNIQUE,
+    marca TEXT NOT NULL,
+    modelo TEXT NOT NULL,
+    extras TEXT
+);
+
+-- unicode61 + remove_diacritics: "climatizacion" encuentra "climatización"
+-- prefix: índices extra para búsquedas por prefijo ("volk*") de 2 y 3 letras
+CREATE VIRTUAL TABLE IF NOT EXISTS coches_busqueda_fts USING fts5(
+    marca, modelo, extras,
+    content = 'coches_busqueda',
+    content_rowid = 'id',
+    tokenize = 'unicode61 remove_diacritics 2',
+    prefix = '2 3'
+);
+
+DELIMITER //
+
+CREATE TRIGGER IF NOT EXISTS coches_busqueda_ai AFTER INSERT ON coches_busqueda BEGIN
+    INSERT INTO coches_busqueda_fts (rowid, marca, modelo, extras)
+    VALUES (new.id, new.marca, new.modelo, new.extras);
+END//
+
+CREATE TRIGGER IF NOT EXISTS coches_busqueda_ad AFTER DELETE ON coches_busqueda BEGIN
+    INSERT INTO coches_busqueda_fts (coches_busqueda_fts, rowid, marca, modelo, extras)
+    VALUES ('delete', old.id, old.marca, old.modelo, old.extras);
+END//
+
+CREATE TRIGGER IF NOT EXISTS coches_busqueda_au AFTER UPDATE ON coches_busqueda BEGIN
+    INSERT INTO coches_busqueda_fts (coches_busqueda_fts, rowid, marca, modelo, extras)
+    VALUES ('delete', old.id, old.marca, old.modelo, old.extras);
+    INSERT INTO coches_busqueda_fts (rowid, marca, modelo, extras)
+    VALUES (new.id, new.marca, new.modelo, new.extras);
+END//
+
+DELIMITER ;
+
+-- Indexar los coches que ya existen
+INSERT INTO coches_busqueda (matricula, marca, modelo, extras)
+SELECT c.matricula, m.nombre, mo.nombre, c.extras
+FROM coches c
+INNER JOIN marcas m ON m.id_marca = c.id_marca
+INNER JOIN modelos mo ON mo.id_modelo = c.id_modelo;
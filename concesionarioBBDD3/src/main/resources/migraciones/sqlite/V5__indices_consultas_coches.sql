@@ -0,0 +1,19 @@
+-- ============================================
+-- V5 (SQLite) - Índices para las consultas con filtros (ConsultaCoches)
+-- ============================================
+-- Cada índice termina en las columnas por las que ConsultaCoches ordena y pagina,
+-- así el motor lee las filas ya ordenadas y se detiene al llenar la página
+-- (sin ordenar en una tabla temporal todas las coincidencias):
+--   marca                → (id_marca, matricula)             ORDER BY matricula
+--   marca + precio       → (id_marca, precio_centimos, matricula)  ORDER BY precio, matricula
+--   precio               → (precio_centimos, matricula)      ORDER BY precio, matricula
+--   stock / propietario  → (id_propietario, matricula)       ORDER BY matricula
+-- idx_coches_marca (V3) queda cubierto por los dos primeros.
+
+DROP INDEX IF EXISTS idx_coches_marca;
+
+CREATE INDEX IF NOT EXISTS idx_coches_marca ON coches(id_marca, matricula);
+CREATE INDEX IF NOT EXISTS idx_coches_marca_precio ON coches(id_marca, precio_centimos, matricula);
+CREATE INDEX IF NOT EXISTS idx_coches_precio ON coches(precio_centimos, matricula);
+CREATE INDEX IF NOT EXISTS idx_coches_propietario ON coches(id_propietario, matricula);
+
@@ -0,0 +1,17 @@
+-- ============================================
+-- V6 (SQLite) - Índices para el historial de traspasos (TraspasoDAO)
+-- ============================================
+-- Cada índice empieza por las columnas del filtro y sigue con id_traspaso, el orden
+-- en que se pagina: el motor lee solo la página pedida, tenga la tabla 1.000 o
+-- 100 millones de filas.
+--   cadena de propiedad de un coche → (matricula_coche, id_vendedor, id_traspaso)
+--       cada eslabón busca "el siguiente traspaso de este coche en el que vende
+--       el dueño actual": con las tres columnas es una sola búsqueda exacta
+--   compras de un propietario       → (id_comprador, id_traspaso, monto_centimos)
+--   ventas de un propietario        → (id_vendedor, id_traspaso, monto_centimos)
+-- monto_centimos al final hace que el total comprado/vendido se calcule
+-- solo con el índice, sin leer la tabla.
+
+CREATE INDEX IF NOT EXISTS idx_traspasos_coche ON traspasos(matricula_coche, id_vendedor, id_traspaso);
+CREATE INDEX IF NOT EXISTS idx_traspasos_comprador ON traspasos(id_comprador, id_traspaso, monto_centimos);
+CREATE INDEX IF NOT EXISTS idx_traspasos_vendedor ON traspasos(id_vendedor, id_traspaso, monto_centimos);
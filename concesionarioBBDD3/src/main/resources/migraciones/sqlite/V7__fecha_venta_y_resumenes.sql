@@ -0,0 +1,31 @@
+-- ============================================
+-- V7 (SQLite) - Fecha de venta y resúmenes de ventas por día y mes
+-- ============================================
+-- fecha_venta: 'AAAA-MM-DD HH:MM:SS' (texto ISO, se ordena igual que la fecha).
+-- Los traspasos anteriores a esta migración no tienen fecha (NULL) y no
+-- aparecen en los resúmenes.
+--
+-- ventas_diarias / ventas_mensuales: una fila por (día o mes, marca) con el
+-- número de ventas y el importe total. TraspasoDAO las actualiza en la misma
+-- transacción que cada venta, así los informes leen unas pocas filas en lugar
+-- de agrupar millones de traspasos.
+
+ALTER TABLE traspasos ADD COLUMN fecha_venta TEXT;
+
+CREATE INDEX IF NOT EXISTS idx_traspasos_fecha ON traspasos(fecha_venta);
+
+CREATE TABLE IF NOT EXISTS ventas_diarias (
+    dia TEXT NOT NULL,
+    id_marca INTEGER NOT NULL,
+    ventas INTEGER NOT NULL,
+    importe_centimos INTEGER NOT NULL,
+    PRIMARY KEY (dia, id_marca)
+) WITHOUT ROWID;
+
+CREATE TABLE IF NOT EXISTS ventas_mensuales (
+    mes TEXT NOT NULL,
+    id_marca INTEGER NOT NULL,
+    ventas INTEGER NOT NULL,
+    importe_centimos INTEGER NOT NULL,
+    PRIMARY KEY (mes, id_marca)
+) WITHOUT ROWID;
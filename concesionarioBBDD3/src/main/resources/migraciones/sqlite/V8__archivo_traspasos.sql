@@ -0,0 +1,31 @@
+-- ============================================
+-- V8 (SQLite) - Archivo de traspasos antiguos
+-- ============================================
+-- ArchivadorTraspasos mueve a traspasos_archivo, por lotes pequeños, los
+-- traspasos con fecha_venta anterior a archivo.dias. Así la tabla "caliente"
+-- y sus índices se mantienen pequeños y cada venta nueva sigue siendo rápida.
+--
+-- Misma estructura que traspasos, sin AUTOINCREMENT (los id vienen de
+-- traspasos, que nunca reutiliza un id) y sin claves foráneas.
+-- Los mismos índices que V6/V7 para que el historial consulte las dos tablas igual.
+
+CREATE TABLE IF NOT EXISTS traspasos_archivo (
+    id_traspaso INTEGER PRIMARY KEY,
+    matricula_coche TEXT NOT NULL,
+    id_vendedor INTEGER NULL,
+    id_comprador INTEGER NOT NULL,
+    monto_centimos INTEGER NOT NULL,
+    fecha_venta TEXT
+);
+
+CREATE INDEX IF NOT EXISTS idx_traspasos_archivo_coche ON traspasos_archivo(matricula_coche, id_vendedor, id_traspaso);
+CREATE INDEX IF NOT EXISTS idx_traspasos_archivo_comprador ON traspasos_archivo(id_comprador, id_traspaso, monto_centimos);
+CREATE INDEX IF NOT EXISTS idx_traspasos_archivo_vendedor ON traspasos_archivo(id_vendedor, id_traspaso, monto_centimos);
+CREATE INDEX IF NOT EXISTS idx_traspasos_archivo_fecha ON traspasos_archivo(fecha_venta);
+
+-- Todos los traspasos, recientes y archivados (para consultas puntuales;
+-- TraspasoDAO consulta cada tabla por su índice y une los resultados)
+CREATE VIEW IF NOT EXISTS traspasos_todos AS
+SELECT id_traspaso, matricula_coche, id_vendedor, id_comprador, monto_centimos, fecha_venta FROM traspasos
+UNION ALL
+SELECT id_traspaso, matricula_coche, id_vendedor, id_comprador, monto_centimos, fecha_venta FROM traspasos_archivo;
@@ -0,0 +1,14 @@
+-- ============================================
+-- V9 (SQLite) - Índices para buscar propietarios por prefijo
+-- ============================================
+-- PropietarioDAO.buscarPorPrefijo busca por el principio de apellidos, nombre o DNI
+-- sin distinguir mayúsculas ("garc" encuentra "García"). Para que SQLite lo resuelva
+-- con una búsqueda por rango en el índice, el índice debe usar COLLATE NOCASE, la misma
+-- intercalación que la consulta. El rowid (id_propietario) va implícito al final de
+-- cada índice: sirve de desempate para la paginación.
+--
+-- NOCASE solo ignora mayúsculas ASCII: "garcía" no encuentra "GARCÍA" (en MySQL sí).
+
+CREATE INDEX IF NOT EXISTS idx_propietarios_apellidos ON propietarios(apellidos COLLATE NOCASE);
+CREATE INDEX IF NOT EXISTS idx_propietarios_nombre ON propietarios(nombre COLLATE NOCASE);
+CREATE INDEX IF NOT EXISTS idx_propietarios_dni_nocase ON propietarios(dni COLLATE NOCASE);
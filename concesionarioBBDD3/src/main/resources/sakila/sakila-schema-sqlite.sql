@@ -0,0 +1,179 @@
+-- ============================================
+-- Sakila (SQLite) - Esquema para BenchmarkSakila
+-- ============================================
+-- Traducción de Recursos/sakila-db/sakila-schema.sql (MySQL) a SQLite:
+-- - Las tablas se crean en la BD adjunta 'sakila' (ATTACH ... AS sakila)
+-- - address sin la columna location (GEOMETRY): en SQLite el lector descarta los
+--   comentarios /*!50705 ... */ del script de datos, igual que un MySQL < 5.7.5
+-- - ENUM / SET → TEXT, DECIMAL → NUMERIC, sin UNSIGNED ni ON UPDATE CURRENT_TIMESTAMP
+-- - Solo el trigger que rellena film_text; las vistas y procedimientos no se traducen
+
+CREATE TABLE sakila.actor (
+    actor_id INTEGER PRIMARY KEY,
+    first_name TEXT NOT NULL,
+    last_name TEXT NOT NULL,
+    last_update TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX sakila.idx_actor_last_name ON actor (last_name);
+
+CREATE TABLE sakila.country (
+    country_id INTEGER PRIMARY KEY,
+    country TEXT NOT NULL,
+    last_update TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE sakila.city (
+    city_id INTEGER PRIMARY KEY,
+    city TEXT NOT NULL,
+    country_id INTEGER NOT NULL REFERENCES country (country_id),
+    last_update TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX sakila.idx_fk_country_id ON city (country_id);
+
+CREATE TABLE sakila.address (
+    address_id INTEGER PRIMARY KEY,
+    address TEXT NOT NULL,
+    address2 TEXT DEFAULT NULL,
+    district TEXT NOT NULL,
+    city_id INTEGER NOT NULL REFERENCES city (city_id),
+    postal_code TEXT DEFAULT NULL,
+    phone TEXT NOT NULL,
+    last_update TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX sakila.idx_fk_city_id ON address (city_id);
+
+CREATE TABLE sakila.category (
+    category_id INTEGER PRIMARY KEY,
+    name TEXT NOT NULL,
+    last_update TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE sakila.language (
+    language_id INTEGER PRIMARY KEY,
+    name TEXT NOT NULL,
+    last_update TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE sakila.staff (
+    staff_id INTEGER PRIMARY KEY,
+    first_name TEXT NOT NULL,
+    last_name TEXT NOT NULL,
+    address_id INTEGER NOT NULL REFERENCES address (address_id),
+    picture BLOB DEFAULT NULL,
+    email TEXT DEFAULT NULL,
+    store_id INTEGER NOT NULL,
+    active INTEGER NOT NULL DEFAULT 1,
+    username TEXT NOT NULL,
+    password TEXT DEFAULT NULL,
+    last_update TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX sakila.idx_fk_staff_store_id ON staff (store_id);
+CREATE INDEX sakila.idx_fk_staff_address_id ON staff (address_id);
+
+CREATE TABLE sakila.store (
+    store_id INTEGER PRIMARY KEY,
+    manager_staff_id INTEGER NOT NULL UNIQUE REFERENCES staff (staff_id),
+    address_id INTEGER NOT NULL REFERENCES address (address_id),
+    last_update TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX sakila.idx_fk_store_address_id ON store (address_id);
+
+CREATE TABLE sakila.customer (
+    customer_id INTEGER PRIMARY KEY,
+    store_id INTEGER NOT NULL REFERENCES store (store_id),
+    first_name TEXT NOT NULL,
+    last_name TEXT NOT NULL,
+    email TEXT DEFAULT NULL,
+    address_id INTEGER NOT NULL REFERENCES address (address_id),
+    active INTEGER NOT NULL DEFAULT 1,
+    create_date TEXT NOT NULL,
+    last_update TEXT DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX sakila.idx_fk_customer_store_id ON customer (store_id);
+CREATE INDEX sakila.idx_fk_customer_address_id ON customer (address_id);
+CREATE INDEX sakila.idx_last_name ON customer (last_name);
+
+CREATE TABLE sakila.film (
+    film_id INTEGER PRIMARY KEY,
+    title TEXT NOT NULL,
+    description TEXT DEFAULT NULL,
+    release_year INTEGER DEFAULT NULL,
+    language_id INTEGER NOT NULL REFERENCES language (language_id),
+    original_language_id INTEGER DEFAULT NULL REFERENCES language (language_id),
+    rental_duration INTEGER NOT NULL DEFAULT 3,
+    rental_rate NUMERIC NOT NULL DEFAULT 4.99,
+    length INTEGER DEFAULT NULL,
+    replacement_cost NUMERIC NOT NULL DEFAULT 19.99,
+    rating TEXT DEFAULT 'G',
+    special_features TEXT DEFAULT NULL,
+    last_update TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX sakila.idx_title ON film (title);
+CREATE INDEX sakila.idx_fk_language_id ON film (language_id);
+CREATE INDEX sakila.idx_fk_original_language_id ON film (original_language_id);
+
+CREATE TABLE sakila.film_actor (
+    actor_id INTEGER NOT NULL REFERENCES actor (actor_id),
+    film_id INTEGER NOT NULL REFERENCES film (film_id),
+    last_update TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (actor_id, film_id)
+);
+CREATE INDEX sakila.idx_fk_film_actor_film_id ON film_actor (film_id);
+
+CREATE TABLE sakila.film_category (
+    film_id INTEGER NOT NULL REFERENCES film (film_id),
+    category_id INTEGER NOT NULL REFERENCES category (category_id),
+    last_update TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (film_id, category_id)
+);
+
+CREATE TABLE sakila.film_text (
+    film_id INTEGER PRIMARY KEY,
+    title TEXT NOT NULL,
+    description TEXT
+);
+
+DELIMITER //
+
+CREATE TRIGGER sakila.ins_film AFTER INSERT ON film BEGIN
+    INSERT INTO film_text (film_id, title, description)
+    VALUES (new.film_id, new.title, new.description);
+END//
+
+DELIMITER ;
+
+CREATE TABLE sakila.inventory (
+    inventory_id INTEGER PRIMARY KEY,
+    film_id INTEGER NOT NULL REFERENCES film (film_id),
+    store_id INTEGER NOT NULL REFERENCES store (store_id),
+    last_update TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX sakila.idx_fk_inventory_film_id ON inventory (film_id);
+CREATE INDEX sakila.idx_store_id_film_id ON inventory (store_id, film_id);
+
+CREATE TABLE sakila.rental (
+    rental_id INTEGER PRIMARY KEY,
+    rental_date TEXT NOT NULL,
+    inventory_id INTEGER NOT NULL REFERENCES inventory (inventory_id),
+    customer_id INTEGER NOT NULL REFERENCES customer (customer_id),
+    return_date TEXT DEFAULT NULL,
+    staff_id INTEGER NOT NULL REFERENCES staff (staff_id),
+    last_update TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (rental_date, inventory_id, customer_id)
+);
+CREATE INDEX sakila.idx_fk_inventory_id ON rental (inventory_id);
+CREATE INDEX sakila.idx_fk_rental_customer_id ON rental (customer_id);
+CREATE INDEX sakila.idx_fk_rental_staff_id ON rental (staff_id);
+
+CREATE TABLE sakila.payment (
+    payment_id INTEGER PRIMARY KEY,
+    customer_id INTEGER NOT NULL REFERENCES customer (customer_id),
+    staff_id INTEGER NOT NULL REFERENCES staff (staff_id),
+    rental_id INTEGER DEFAULT NULL REFERENCES rental (rental_id),
+    amount NUMERIC NOT NULL,
+    payment_date TEXT NOT NULL,
+    last_update TEXT DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX sakila.idx_fk_payment_staff_id ON payment (staff_id);
+CREATE INDEX sakila.idx_fk_payment_customer_id ON payment (customer_id);
+CREATE INDEX sakila.idx_fk_payment_rental_id ON payment (rental_id);
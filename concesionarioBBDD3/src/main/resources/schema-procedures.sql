@@ -1,5 +1,9 @@
 -- Procedimiento almacenado para contar coches por marca
 -- Solo funciona en MySQL
+-- Los importes se devuelven en céntimos (enteros): la media se calcula
+-- en Java a partir de suma_centimos / total_coches
+-- La vista v_coches_por_marca (migración V10) es la misma consulta, para SQLite
+-- y para las BD MySQL en las que aún no se ha creado el procedimiento
 
 DELIMITER //
 
@@ -7,15 +11,26 @@ DROP PROCEDURE IF EXISTS sp_coches_por_marca//
 
 CREATE PROCEDURE sp_coches_por_marca()
 BEGIN
+-- Se agrupa por la clave entera (índice idx_coches_marca) y solo
+-- después se une con marcas para obtener el nombre
 SELECT
-    marca,
-    COUNT(*) AS total_coches,
-    AVG(precio) AS precio_promedio,
-    MIN(precio) AS precio_minimo,
-    MAX(precio) AS precio_maximo
-FROM coches
-GROUP BY marca
-ORDER BY total_coches DESC;
+    m.nombre AS marca,
+    t.total_coches,
+    t.suma_centimos,
+    t.precio_minimo_centimos,
+    t.precio_maximo_centimos
+FROM (
+    SELECT
+        id_marca,
+        COUNT(*) AS total_coches,
+        SUM(precio_centimos) AS suma_centimos,
+        MIN(precio_centimos) AS precio_minimo_centimos,
+        MAX(precio_centimos) AS precio_maximo_centimos
+    FROM coches
+    GROUP BY id_marca
+) t
+INNER JOIN marcas m ON m.id_marca = t.id_marca
+ORDER BY t.total_coches DESC, m.nombre;
 END//
 
-DELIMITER ;
\ No newline at end of file
+DELIMITER ;
@@ -0,0 +1,109 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Caché de resultados: se invalida al subir la versión de una tabla, caduca, expulsa
+ * la entrada menos usada y no mezcla resultados de bases de datos distintas.
+ * Cada cálculo devuelve un número nuevo: si se repite, la entrada no se sirvió.
+ */
+class CacheResultadosTest {
+
+    private final AtomicInteger calculos = new AtomicInteger();
+    private Connection con;
+
+    @BeforeEach
+    void preparar() throws SQLException {
+        CacheResultados.fijarLimites(3, Duration.ofMinutes(5));
+        con = DriverManager.getConnection("jdbc:sqlite::memory:");
+    }
+
+    @AfterEach
+    void cerrar() throws SQLException {
+        con.close();
+        CacheResultados.fijarLimites(null, null);
+    }
+
+    @Test
+    void sirveLoGuardadoMientrasNoCambienLasTablas() throws SQLException {
+        int primero = obtener(con, "SELECT * FROM coches", "coches");
+
+        assertEquals(primero, obtener(con, "SELECT *\n    FROM coches", "coches"));
+        assertEquals(1, calculos.get());
+    }
+
+    @Test
+    void subirLaVersionDeUnaTablaInvalidaSoloLoQueDependeDeElla() throws SQLException {
+        int coches = obtener(con, "consulta:coches", "coches");
+        int propietarios = obtener(con, "consulta:propietarios", "propietarios");
+
+        CacheResultados.tablasModificadas("coches");
+
+        assertEquals(coches + 2, obtener(con, "consulta:coches", "coches"));
+        assertEquals(propietarios, obtener(con, "consulta:propietarios", "propietarios"));
+    }
+
+    @Test
+    void lasEntradasCaducan() throws Exception {
+        CacheResultados.fijarLimites(3, Duration.ofMillis(20));
+        int primero = obtener(con, "consulta:coches", "coches");
+        assertEquals(primero, obtener(con, "consulta:coches", "coches"));
+
+        Thread.sleep(40);
+
+        assertEquals(primero + 1, obtener(con, "consulta:coches", "coches"));
+    }
+
+    @Test
+    void conMasDelMaximoSaleLaMenosUsada() throws SQLException {
+        int a = obtener(con, "consulta:a", "coches");
+        int b = obtener(con, "consulta:b", "coches");
+        int c = obtener(con, "consulta:c", "coches");
+        obtener(con, "consulta:a", "coches");        // 'a' pasa a ser la más reciente
+
+        obtener(con, "consulta:d", "coches");        // cuarta entrada: sale 'b'
+
+        assertEquals(3, CacheResultados.estadisticas().entradas());
+        assertEquals(4, calculos.get());
+        assertEquals(a, obtener(con, "consulta:a", "coches"));
+        assertEquals(c, obtener(con, "consulta:c", "coches"));
+        assertNotEquals(b, obtener(con, "consulta:b", "coches"));
+    }
+
+    @Test
+    void distintasBasesDeDatosNoCompartenResultados(@TempDir Path directorio) throws SQLException {
+        String url = "jdbc:sqlite:" + directorio.resolve("otra.db");
+        try (Connection otra = DriverManager.getConnection(url);
+             Connection misma = DriverManager.getConnection(url);
+             Connection enMemoria = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+
+            int deCon = obtener(con, "consulta:coches", "coches");
+            int deOtra = obtener(otra, "consulta:coches", "coches");
+            int deEnMemoria = obtener(enMemoria, "consulta:coches", "coches");
+
+            assertEquals(3, calculos.get());
+            assertEquals(deCon, obtener(con, "consulta:coches", "coches"));
+            assertEquals(deEnMemoria, obtener(enMemoria, "consulta:coches", "coches"));
+            // Otra conexión al mismo fichero es la misma BD
+            assertEquals(deOtra, obtener(misma, "consulta:coches", "coches"));
+        }
+    }
+
+    private int obtener(Connection conexion, String sql, String tabla) throws SQLException {
+        return CacheResultados.obtener(conexion, sql, List.of(), List.of(tabla), calculos::incrementAndGet);
+    }
+}
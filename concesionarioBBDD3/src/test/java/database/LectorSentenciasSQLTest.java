@@ -0,0 +1,107 @@
+package database;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Corte de scripts en sentencias: literales, comentarios, bloques DELIMITER y última sentencia sin ;.
+ */
+class LectorSentenciasSQLTest {
+
+    @Test
+    void unPuntoYComaEntreComillasNoCorta() throws IOException {
+        String script = "INSERT INTO t VALUES ('a;b', \"c;d\", 'it''s;');\n"
+                + "SELECT `raro;nombre` FROM t;";
+
+        assertEquals(List.of("INSERT INTO t VALUES ('a;b', \"c;d\", 'it''s;')", "SELECT `raro;nombre` FROM t"),
+                sentencias(script, TipoMotor.SQLITE));
+    }
+
+    @Test
+    void enMySQLLaBarraInvertidaEscapaLaComilla() throws IOException {
+        assertEquals(List.of("SELECT 'a\\';b'", "SELECT 2"),
+                sentencias("SELECT 'a\\';b'; SELECT 2", TipoMotor.MYSQL));
+    }
+
+    @Test
+    void losComentariosDentroDeUnLiteralSeConservan() throws IOException {
+        String script = "INSERT INTO t VALUES ('-- no es comentario', '/* tampoco; */');\nSELECT 2;";
+
+        assertEquals(List.of("INSERT INTO t VALUES ('-- no es comentario', '/* tampoco; */')", "SELECT 2"),
+                sentencias(script, TipoMotor.SQLITE));
+    }
+
+    @Test
+    void losComentariosSeEliminanAunqueLlevenPuntoYComa() throws IOException {
+        String script = "-- cabecera; con punto y coma\n"
+                + "SELECT 1 -- detrás; de la sentencia\n;\n"
+                + "SELECT /* en; medio */ 2;\n"
+                + "# solo en MySQL; \n"
+                + "SELECT 3;";
+
+        assertEquals(List.of("SELECT 1", "SELECT   2", "SELECT 3"), sentencias(script, TipoMotor.MYSQL));
+    }
+
+    @Test
+    void enMySQLDosGuionesSinEspacioNoSonComentario() throws IOException {
+        assertEquals(List.of("SELECT 5--3", "SELECT 1"),
+                sentencias("SELECT 5--3; SELECT 1 --\tcomentario\n;", TipoMotor.MYSQL));
+        assertEquals(List.of("SELECT 4"), sentencias("SELECT 4;\n--", TipoMotor.MYSQL));
+    }
+
+    @Test
+    void enSQLiteDosGuionesSiempreSonComentario() throws IOException {
+        assertEquals(List.of("SELECT 5", "SELECT 1"),
+                sentencias("SELECT 5--3\n; SELECT 1", TipoMotor.SQLITE));
+    }
+
+    @Test
+    void losPuntoYComaDeUnTriggerVanEnSuBloqueDelimiter() throws IOException {
+        String script = "CREATE TABLE t (id INTEGER);\n"
+                + "DELIMITER //\n"
+                + "CREATE TRIGGER t_ai AFTER INSERT ON t BEGIN\n"
+                + "    INSERT INTO log VALUES (new.id);\n"
+                + "    UPDATE contador SET n = n + 1;\n"
+                + "END//\n"
+                + "DELIMITER ;\n"
+                + "SELECT 1;";
+
+        assertEquals(List.of(
+                "CREATE TABLE t (id INTEGER)",
+                "CREATE TRIGGER t_ai AFTER INSERT ON t BEGIN\n"
+                        + "    INSERT INTO log VALUES (new.id);\n"
+                        + "    UPDATE contador SET n = n + 1;\n"
+                        + "END",
+                "SELECT 1"), sentencias(script, TipoMotor.SQLITE));
+    }
+
+    @Test
+    void laUltimaSentenciaSinPuntoYComaTambienSale() throws IOException {
+        assertEquals(List.of("SELECT 1", "SELECT 2"), sentencias("SELECT 1;\n  SELECT 2  \n", TipoMotor.SQLITE));
+        assertEquals(List.of(), sentencias(" ;\n-- solo un comentario\n", TipoMotor.SQLITE));
+    }
+
+    @Test
+    void unLiteralSinCerrarEsUnError() {
+        assertThrows(IOException.class, () -> sentencias("SELECT 'sin cerrar;", TipoMotor.SQLITE));
+        assertThrows(IOException.class, () -> sentencias("SELECT 1 /* sin cerrar", TipoMotor.SQLITE));
+    }
+
+    private static List<String> sentencias(String script, TipoMotor tipo) throws IOException {
+        List<String> resultado = new ArrayList<>();
+        try (LectorSentenciasSQL lector = new LectorSentenciasSQL(new StringReader(script), tipo)) {
+            String sentencia;
+            while ((sentencia = lector.siguiente()) != null) {
+                resultado.add(sentencia);
+            }
+        }
+        return resultado;
+    }
+}
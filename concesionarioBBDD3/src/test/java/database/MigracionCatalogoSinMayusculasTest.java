@@ -0,0 +1,81 @@
+package database;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * V11 (SQLite): marcas y modelos que solo difieren en mayúsculas se unifican
+ * y a partir de ahí la BD no admite otro igual.
+ */
+class MigracionCatalogoSinMayusculasTest {
+
+    @Test
+    void unificaDuplicadosDeMarcaYModelo() throws Exception {
+        try (Connection con = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            aplicarHasta(con, 10);
+
+            try (Statement stmt = con.createStatement()) {
+                stmt.executeUpdate("INSERT INTO marcas (nombre) VALUES ('Seat'), ('seat'), ('Toyota')");
+                stmt.executeUpdate("INSERT INTO modelos (id_marca, nombre) VALUES (1, 'Leon'), (2, 'LEON'), (2, 'Ibiza'), (3, 'Yaris')");
+                stmt.executeUpdate("INSERT INTO coches (matricula, id_marca, id_modelo, extras, precio_centimos) VALUES "
+                        + "('1111AAA', 1, 1, '', 1000000), ('2222BBB', 2, 2, '', 2000000), "
+                        + "('3333CCC', 2, 3, '', 3000000), ('4444DDD', 3, 4, '', 4000000)");
+                stmt.executeUpdate("INSERT INTO coches_busqueda (matricula, marca, modelo, extras) VALUES "
+                        + "('2222BBB', 'seat', 'LEON', '')");
+            }
+
+            // V11 y las que vengan detrás
+            assertEquals(MigradorEsquema.cargarMigraciones(TipoMotor.SQLITE).size() - 10, MigradorEsquema.migrar(con));
+
+            assertEquals(2, contar(con, "SELECT COUNT(*) FROM marcas"));
+            assertEquals(3, contar(con, "SELECT COUNT(*) FROM modelos"));
+            assertEquals(3, contar(con, "SELECT COUNT(*) FROM coches WHERE id_marca = 1"));
+            assertEquals(2, contar(con, "SELECT COUNT(*) FROM coches WHERE id_modelo = 1"));
+            assertEquals(2, contar(con, "SELECT COUNT(*) FROM v_coches_por_marca"));
+            assertEquals(1, contar(con, "SELECT COUNT(*) FROM coches_busqueda WHERE marca = 'Seat' AND modelo = 'Leon'"));
+
+            // La restricción UNIQUE ya no distingue mayúsculas
+            try (Statement stmt = con.createStatement()) {
+                assertEquals(0, stmt.executeUpdate("INSERT OR IGNORE INTO marcas (nombre) VALUES ('SEAT')"));
+            }
+        }
+    }
+
+    /**
+     * Aplica las migraciones hasta la versión indicada, como lo haría una versión anterior del programa.
+     */
+    private static void aplicarHasta(Connection con, int ultima) throws Exception {
+        try (Statement stmt = con.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE schema_version (version INTEGER NOT NULL PRIMARY KEY, "
+                    + "descripcion VARCHAR(200) NOT NULL, checksum BIGINT NOT NULL, fecha_aplicacion VARCHAR(30) NOT NULL)");
+        }
+        for (MigradorEsquema.Migracion migracion : MigradorEsquema.cargarMigraciones(TipoMotor.SQLITE)) {
+            if (migracion.version() > ultima) {
+                break;
+            }
+            DatabaseInitializer.ejecutarScript(con, migracion.contenido());
+            try (PreparedStatement pstmt = con.prepareStatement(
+                    "INSERT INTO schema_version VALUES (?, ?, ?, 'prueba')")) {
+                pstmt.setInt(1, migracion.version());
+                pstmt.setString(2, migracion.descripcion());
+                pstmt.setLong(3, migracion.checksum());
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    private static int contar(Connection con, String sql) throws SQLException {
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package database;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Solo la falta de schema_version cuenta como primera ejecución; otro error al leerla se lanza.
+ */
+class MigradorEsquemaTest {
+
+    @Test
+    void sinTablaDeVersionesLasAplicaTodas() throws Exception {
+        try (Connection con = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            assertEquals(MigradorEsquema.cargarMigraciones(TipoMotor.SQLITE).size(), MigradorEsquema.migrar(con));
+            assertEquals(0, MigradorEsquema.migrar(con));
+        }
+    }
+
+    @Test
+    void otroErrorAlLeerLasVersionesSeLanza() throws Exception {
+        try (Connection con = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            try (Statement stmt = con.createStatement()) {
+                stmt.executeUpdate("CREATE TABLE schema_version (otra_columna INTEGER)");
+            }
+
+            SQLException e = assertThrows(SQLException.class, () -> MigradorEsquema.migrar(con));
+            assertTrue(e.getMessage().contains("no such column"), e.getMessage());
+        }
+    }
+}
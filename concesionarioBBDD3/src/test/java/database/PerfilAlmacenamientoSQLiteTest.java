@@ -0,0 +1,104 @@
+package database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * El perfil compacto reconstruye coches (DROP + RENAME): las vistas que dependen
+ * de ella (v_coches_por_marca, V10) deben seguir existiendo y funcionando, y la tabla
+ * nueva conserva su clave primaria (aunque sea compuesta) y las acciones de sus claves foráneas.
+ */
+class PerfilAlmacenamientoSQLiteTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void reconstruyeCochesConLaVistaDeV10() throws Exception {
+        try (Connection con = DriverManager.getConnection("jdbc:sqlite:" + directorio.resolve("perfil.db"))) {
+            MigradorEsquema.migrar(con);
+
+            try (Statement stmt = con.createStatement()) {
+                stmt.executeUpdate("INSERT INTO marcas (nombre) VALUES ('Seat')");
+                stmt.executeUpdate("INSERT INTO modelos (id_marca, nombre) VALUES (1, 'Leon')");
+                stmt.executeUpdate("INSERT INTO coches (matricula, id_marca, id_modelo, extras, precio_centimos) "
+                        + "VALUES ('1111AAA', 1, 1, 'GPS', 1500000), ('2222BBB', 1, 1, 'ABS', 2500000)");
+            }
+
+            assertTrue(PerfilAlmacenamientoSQLite.migrarAPerfilCompacto(con));
+            assertTrue(PerfilAlmacenamientoSQLite.esPerfilCompacto(con));
+
+            try (Statement stmt = con.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT marca, total_coches, suma_centimos, "
+                         + "precio_minimo_centimos, precio_maximo_centimos FROM v_coches_por_marca")) {
+                assertTrue(rs.next());
+                assertEquals("Seat", rs.getString("marca"));
+                assertEquals(2, rs.getInt("total_coches"));
+                assertEquals(4_000_000, rs.getLong("suma_centimos"));
+                assertEquals(1_500_000, rs.getLong("precio_minimo_centimos"));
+                assertEquals(2_500_000, rs.getLong("precio_maximo_centimos"));
+            }
+
+            assertEquals(1, contar(con, "SELECT COUNT(*) FROM sqlite_master WHERE name = 'v_coches_por_marca'"));
+        }
+    }
+
+    @Test
+    void conservaLaClaveCompuestaYLasAccionesDeLasForaneas() throws Exception {
+        try (Connection con = DriverManager.getConnection("jdbc:sqlite:" + directorio.resolve("compuesta.db"))) {
+            try (Statement stmt = con.createStatement()) {
+                stmt.executeUpdate("CREATE TABLE propietarios (id_propietario INTEGER PRIMARY KEY)");
+                stmt.executeUpdate("CREATE TABLE concesionarios (pais TEXT, codigo TEXT, PRIMARY KEY (pais, codigo))");
+                stmt.executeUpdate("CREATE TABLE coches (matricula TEXT, pais TEXT NOT NULL, codigo TEXT, "
+                        + "id_propietario INTEGER, "
+                        + "PRIMARY KEY (pais, matricula), "
+                        + "FOREIGN KEY (id_propietario) REFERENCES propietarios ON DELETE SET NULL, "
+                        + "FOREIGN KEY (pais, codigo) REFERENCES concesionarios(pais, codigo) ON UPDATE CASCADE)");
+                stmt.executeUpdate("INSERT INTO coches VALUES ('1111AAA', 'ES', 'M1', NULL), ('1111AAA', 'PT', 'L1', NULL)");
+            }
+
+            assertTrue(PerfilAlmacenamientoSQLite.migrarAPerfilCompacto(con));
+
+            try (Statement stmt = con.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT name, pk FROM pragma_table_info('coches') "
+                         + "WHERE pk > 0 ORDER BY pk")) {
+                assertTrue(rs.next());
+                assertEquals("pais", rs.getString(1));
+                assertTrue(rs.next());
+                assertEquals("matricula", rs.getString(1));
+            }
+
+            try (Statement stmt = con.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT \"table\", group_concat(\"from\"), "
+                         + "MIN(on_update), MIN(on_delete) FROM pragma_foreign_key_list('coches') "
+                         + "GROUP BY id ORDER BY \"table\"")) {
+                assertTrue(rs.next());
+                assertEquals("concesionarios", rs.getString(1));
+                assertEquals("pais,codigo", rs.getString(2));
+                assertEquals("CASCADE", rs.getString(3));
+                assertTrue(rs.next());
+                assertEquals("propietarios", rs.getString(1));
+                assertEquals("SET NULL", rs.getString(4));
+            }
+
+            assertEquals(2, contar(con, "SELECT COUNT(*) FROM coches"));
+        }
+    }
+
+    private static int contar(Connection con, String sql) throws SQLException {
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package estadistica;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Frecuencias aproximadas: nunca por debajo de la real, exceso acotado y los
+ * más frecuentes bien elegidos. Flujo sesgado con semilla fija.
+ */
+class CountMinSketchTest {
+
+    @Test
+    void nuncaSeQuedaCorto() {
+        CountMinSketch sketch = new CountMinSketch();
+        Map<String, Long> reales = flujo(sketch, 200_000, 20_000);
+
+        // Exceso típico: total / 2048 × e; se admite el doble para todos los valores
+        long excesoMaximo = Math.round(2 * Math.E * sketch.total() / 2048);
+        for (Map.Entry<String, Long> real : reales.entrySet()) {
+            long estimado = sketch.estimar(real.getKey());
+            assertTrue(estimado >= real.getValue(), real.getKey());
+            assertTrue(estimado - real.getValue() <= excesoMaximo, real.getKey());
+        }
+    }
+
+    @Test
+    void losMasFrecuentesSonLosReales() {
+        CountMinSketch sketch = new CountMinSketch();
+        Map<String, Long> reales = flujo(sketch, 100_000, 5_000);
+
+        List<String> esperados = reales.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(5)
+                .map(Map.Entry::getKey)
+                .toList();
+        List<String> obtenidos = sketch.masFrecuentes(5).stream().map(Map.Entry::getKey).toList();
+        assertEquals(esperados, obtenidos);
+    }
+
+    @Test
+    void fusionarSumaLasFrecuencias() {
+        CountMinSketch a = new CountMinSketch();
+        CountMinSketch b = new CountMinSketch();
+        for (int i = 0; i < 300; i++) {
+            a.anadir("GPS");
+            b.anadir("GPS");
+            b.anadir("Techo solar");
+        }
+        a.fusionar(b);
+
+        assertEquals(900, a.total());
+        assertTrue(a.estimar("GPS") >= 600);
+        assertTrue(a.estimar("Techo solar") >= 300);
+        assertEquals("GPS", a.masFrecuentes(1).get(0).getKey());
+    }
+
+    /**
+     * Valores "E0", "E1"... con frecuencias muy desiguales (los primeros mucho más que el resto).
+     */
+    private static Map<String, Long> flujo(CountMinSketch sketch, int cuantos, int distintos) {
+        Random aleatorio = new Random(2024);
+        Map<String, Long> reales = new HashMap<>();
+        for (int i = 0; i < cuantos; i++) {
+            double u = aleatorio.nextDouble();
+            String valor = "E" + (int) (distintos * u * u * u);
+            sketch.anadir(valor);
+            reales.merge(valor, 1L, Long::sum);
+        }
+        return reales;
+    }
+}
@@ -0,0 +1,79 @@
+package estadistica;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cardinalidad aproximada: dentro de un pequeño porcentaje del valor real,
+ * sin contar dos veces los repetidos. Los datos son fijos (sin aleatoriedad).
+ */
+class HyperLogLogTest {
+
+    @Test
+    void cuentaPocosValoresCasiExacto() {
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = 0; i < 1_000; i++) {
+            hll.anadir("DNI" + i);
+        }
+        assertCerca(1_000, hll.estimar(), 0.02);
+    }
+
+    @Test
+    void cuentaMuchosValoresDentroDelTresPorCiento() {
+        HyperLogLog hll = new HyperLogLog();
+        for (long i = 0; i < 200_000; i++) {
+            hll.anadir(i);
+        }
+        assertCerca(200_000, hll.estimar(), 0.03);
+    }
+
+    @Test
+    void losRepetidosNoCuentan() {
+        HyperLogLog hll = new HyperLogLog();
+        for (int vuelta = 0; vuelta < 10; vuelta++) {
+            for (int i = 0; i < 5_000; i++) {
+                hll.anadir("M" + i);
+            }
+        }
+        assertCerca(5_000, hll.estimar(), 0.03);
+    }
+
+    @Test
+    void fusionarEsLaUnion() {
+        HyperLogLog a = new HyperLogLog();
+        HyperLogLog b = new HyperLogLog();
+        for (long i = 0; i < 60_000; i++) {
+            a.anadir(i);
+        }
+        for (long i = 40_000; i < 100_000; i++) {
+            b.anadir(i);
+        }
+        a.fusionar(b);
+        assertCerca(100_000, a.estimar(), 0.03);
+    }
+
+    @Test
+    void seGuardaYSeLeeIgual() throws IOException {
+        HyperLogLog hll = new HyperLogLog();
+        for (long i = 0; i < 10_000; i++) {
+            hll.anadir(i);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        hll.escribir(new DataOutputStream(bytes));
+
+        HyperLogLog leido = HyperLogLog.leer(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(hll.estimar(), leido.estimar());
+    }
+
+    private static void assertCerca(long real, long estimado, double errorRelativo) {
+        double error = Math.abs(estimado - real) / (double) real;
+        assertEquals(0, error, errorRelativo, "real " + real + ", estimado " + estimado);
+    }
+}
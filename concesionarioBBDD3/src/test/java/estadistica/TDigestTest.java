@@ -0,0 +1,108 @@
+package estadistica;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cuantiles de un flujo uniforme (semilla fija) y los extremos exactos,
+ * también cuando solo hay un centroide.
+ */
+class TDigestTest {
+
+    @Test
+    void cuantilesDeUnFlujoUniforme() {
+        TDigest digest = new TDigest();
+        Random aleatorio = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            digest.anadir(aleatorio.nextDouble() * 1_000);
+        }
+
+        assertEquals(100_000, digest.total());
+        for (double q : new double[] {0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99}) {
+            // En un uniforme [0, 1000) el cuantil q vale q × 1000; error ≤ 1 % del rango
+            assertEquals(q * 1_000, digest.cuantil(q), 10, "cuantil " + q);
+        }
+        assertTrue(digest.cuantil(0) >= 0 && digest.cuantil(0) < 1);
+        assertTrue(digest.cuantil(1) > 999 && digest.cuantil(1) < 1_000);
+    }
+
+    @Test
+    void losCuantilesCrecenConQ() {
+        TDigest digest = new TDigest();
+        Random aleatorio = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            digest.anadir(aleatorio.nextGaussian() * 50 + 300);
+        }
+
+        double anterior = digest.cuantil(0);
+        for (int i = 1; i <= 100; i++) {
+            double actual = digest.cuantil(i / 100.0);
+            assertTrue(actual >= anterior, "cuantil " + i + " %");
+            anterior = actual;
+        }
+    }
+
+    @Test
+    void unSoloValor() {
+        TDigest digest = new TDigest();
+        digest.anadir(18_500);
+
+        assertEquals(18_500, digest.cuantil(0));
+        assertEquals(18_500, digest.cuantil(0.5));
+        assertEquals(18_500, digest.cuantil(1));
+    }
+
+    @Test
+    void conUnSoloCentroideLosExtremosSonElMinimoYElMaximo() throws IOException {
+        // Un centroide de 3 valores (media 20) entre 10 y 30, tal como se guardaría
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream salida = new DataOutputStream(bytes);
+        salida.writeDouble(10);
+        salida.writeDouble(30);
+        salida.writeInt(1);
+        salida.writeDouble(20);
+        salida.writeDouble(3);
+
+        TDigest digest = TDigest.leer(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(10, digest.cuantil(0));
+        assertEquals(20, digest.cuantil(0.5));
+        assertEquals(30, digest.cuantil(1));
+        double p90 = digest.cuantil(0.9);
+        assertTrue(p90 > 20 && p90 < 30);
+    }
+
+    @Test
+    void fusionarConservaLosExtremos() {
+        TDigest a = new TDigest();
+        TDigest b = new TDigest();
+        for (int i = 0; i < 1_000; i++) {
+            a.anadir(i);
+            b.anadir(1_000 + i);
+        }
+        a.fusionar(b);
+
+        assertEquals(2_000, a.total());
+        assertEquals(0, a.cuantil(0));
+        assertEquals(1_999, a.cuantil(1));
+        assertEquals(1_000, a.cuantil(0.5), 20);
+    }
+
+    @Test
+    void vacioYCuantilFueraDeRango() {
+        TDigest digest = new TDigest();
+        assertTrue(Double.isNaN(digest.cuantil(0.5)));
+        assertThrows(IllegalArgumentException.class, () -> digest.cuantil(1.5));
+        assertThrows(IllegalArgumentException.class, () -> digest.anadir(Double.NaN));
+    }
+}
@@ -0,0 +1,109 @@
+package model;
+
+import database.DatabaseManager;
+import database.MigradorEsquema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Los nombres del catálogo no distinguen mayúsculas ni espacios de los extremos, como en MySQL.
+ */
+class CatalogoMarcasTest {
+
+    private Connection con;
+
+    @BeforeEach
+    void preparar() throws Exception {
+        DatabaseManager.invalidarCachesDerivadas();
+        con = DriverManager.getConnection("jdbc:sqlite::memory:");
+        MigradorEsquema.migrar(con);
+    }
+
+    @AfterEach
+    void cerrar() throws SQLException {
+        con.close();
+        DatabaseManager.invalidarCachesDerivadas();
+    }
+
+    @Test
+    void mismaMarcaConOtrasMayusculas() throws SQLException {
+        int seat = CatalogoMarcas.obtenerIdMarca(con, "Seat");
+
+        assertEquals(seat, CatalogoMarcas.obtenerIdMarca(con, "seat"));
+        assertEquals(seat, CatalogoMarcas.obtenerIdMarca(con, " SEAT "));
+        assertEquals(seat, CatalogoMarcas.buscarIdMarca(con, "sEaT"));
+        assertEquals("Seat", CatalogoMarcas.nombreMarca(con, seat));
+        assertEquals(1, contar("SELECT COUNT(*) FROM marcas"));
+    }
+
+    @Test
+    void mismoModeloConOtrasMayusculas() throws SQLException {
+        int seat = CatalogoMarcas.obtenerIdMarca(con, "Seat");
+        int toyota = CatalogoMarcas.obtenerIdMarca(con, "Toyota");
+        int leon = CatalogoMarcas.obtenerIdModelo(con, seat, "Leon");
+
+        assertEquals(leon, CatalogoMarcas.obtenerIdModelo(con, seat, "LEON"));
+        assertNotEquals(leon, CatalogoMarcas.obtenerIdModelo(con, toyota, "Leon"));
+        assertEquals(2, contar("SELECT COUNT(*) FROM modelos"));
+    }
+
+    @Test
+    void reconoceElNombreGuardadoPorOtraConexion() throws SQLException {
+        CatalogoMarcas.obtenerIdMarca(con, "Toyota");     // catálogo cargado sin Seat
+        try (Statement stmt = con.createStatement()) {
+            stmt.executeUpdate("INSERT INTO marcas (nombre) VALUES ('Seat')");
+        }
+
+        int id = CatalogoMarcas.obtenerIdMarca(con, "SEAT");
+        assertEquals("Seat", CatalogoMarcas.nombreMarca(con, id));
+        assertEquals(2, contar("SELECT COUNT(*) FROM marcas"));
+    }
+
+    @Test
+    void lasAltasDeUnaTransaccionSoloSeVenTrasElCommit(@TempDir Path directorio) throws Exception {
+        String url = "jdbc:sqlite:" + directorio.resolve("catalogo.db");
+        try (Connection escritor = DriverManager.getConnection(url);
+             Connection lector = DriverManager.getConnection(url)) {
+            MigradorEsquema.migrar(escritor);
+
+            escritor.setAutoCommit(false);
+            int seat = CatalogoMarcas.obtenerIdMarca(escritor, "Seat");
+            assertEquals(seat, CatalogoMarcas.obtenerIdMarca(escritor, "SEAT"));
+            assertNull(CatalogoMarcas.buscarIdMarca(lector, "Seat"));
+
+            // Rollback: el mismo id se reutiliza para otra marca y nadie debe verlo como Seat
+            Transaccion.deshacer(escritor);
+            escritor.setAutoCommit(true);
+            int toyota = CatalogoMarcas.obtenerIdMarca(lector, "Toyota");
+            assertEquals(seat, toyota);
+            assertEquals("Toyota", CatalogoMarcas.nombreMarca(escritor, toyota));
+            assertNull(CatalogoMarcas.buscarIdMarca(lector, "Seat"));
+
+            escritor.setAutoCommit(false);
+            seat = CatalogoMarcas.obtenerIdMarca(escritor, "Seat");
+            Transaccion.confirmar(escritor);
+            escritor.setAutoCommit(true);
+            assertEquals(seat, CatalogoMarcas.buscarIdMarca(lector, "seat"));
+        }
+    }
+
+    private int contar(String sql) throws SQLException {
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
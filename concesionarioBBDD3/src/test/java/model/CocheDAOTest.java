@@ -0,0 +1,131 @@
+package model;
+
+import database.DatabaseManager;
+import database.MigradorEsquema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Las escrituras de CocheDAO abren su propia transacción solo si la conexión está en
+ * autocommit; si quien llama ya tiene una abierta, se unen a ella sin confirmarla.
+ * insertar/modificar/borrar distinguen matrícula repetida y coche inexistente de un error.
+ */
+class CocheDAOTest {
+
+    private Connection con;
+
+    @BeforeEach
+    void preparar() throws Exception {
+        DatabaseManager.invalidarCachesDerivadas();
+        con = DriverManager.getConnection("jdbc:sqlite::memory:");
+        MigradorEsquema.migrar(con);
+    }
+
+    @AfterEach
+    void cerrar() throws SQLException {
+        Transaccion.olvidar(con);
+        con.close();
+        DatabaseManager.invalidarCachesDerivadas();
+    }
+
+    @Test
+    void conAutocommitConfirmaYLoRestaura() throws SQLException {
+        assertTrue(CocheDAO.insertarCoche(con, "1111AAA", "Seat", "Leon", "GPS", Dinero.parse("15000")));
+
+        assertTrue(con.getAutoCommit());
+        assertEquals(1, contarCoches());
+        assertEquals(1, IndicePrecios.totalMarca(con, "Seat"));
+    }
+
+    @Test
+    void dentroDeUnaTransaccionNoLaConfirma() throws SQLException {
+        IndicePrecios.totalMarca(con, "Seat");      // índice cargado (vacío)
+        con.setAutoCommit(false);
+
+        assertTrue(CocheDAO.insertarCoche(con, "1111AAA", "Seat", "Leon", "GPS", Dinero.parse("15000")));
+        assertTrue(CocheDAO.insertarCoche(con, "2222BBB", "Seat", "Ibiza", "", Dinero.parse("12000")));
+
+        assertFalse(con.getAutoCommit());
+        assertEquals(0, IndicePrecios.totalMarca(con, "Seat"));
+
+        Transaccion.deshacer(con);
+        assertEquals(0, contarCoches());
+        assertEquals(0, IndicePrecios.totalMarca(con, "Seat"));
+    }
+
+    @Test
+    void quienLlamaConfirmaYSePublicaElIndice() throws SQLException {
+        IndicePrecios.totalMarca(con, "Seat");
+        con.setAutoCommit(false);
+
+        assertTrue(CocheDAO.insertarCoche(con, "1111AAA", "Seat", "Leon", "GPS", Dinero.parse("15000")));
+        assertTrue(CocheDAO.modificarCoche(con, "1111AAA", "Seat", "Leon", "GPS|ABS", Dinero.parse("16000")));
+
+        Transaccion.confirmar(con);
+        con.setAutoCommit(true);
+
+        assertEquals(1, contarCoches());
+        assertEquals(1, IndicePrecios.totalMarca(con, "Seat"));
+        assertEquals(Dinero.parse("16000"), IndicePrecios.percentil(con, "Seat", 50));
+    }
+
+    @Test
+    void unErrorDeshaceSoloLoDelDAO() throws SQLException {
+        con.setAutoCommit(false);
+
+        assertTrue(CocheDAO.insertarCoche(con, "1111AAA", "Seat", "Leon", "GPS", Dinero.parse("15000")));
+        // Matrícula repetida: se deshace hasta el savepoint, el primer alta sigue en la transacción
+        assertFalse(CocheDAO.insertarCoche(con, "1111AAA", "Seat", "Leon", "", Dinero.parse("9000")));
+
+        assertFalse(con.getAutoCommit());
+        Transaccion.confirmar(con);
+        con.setAutoCommit(true);
+        assertEquals(1, contarCoches());
+    }
+
+    @Test
+    void distingueMatriculaRepetidaYCocheInexistente() throws SQLException {
+        assertEquals(CocheDAO.Resultado.HECHO,
+                CocheDAO.insertar(con, "1111AAA", "Seat", "Leon", "GPS", Dinero.parse("15000")));
+        assertEquals(CocheDAO.Resultado.MATRICULA_REPETIDA,
+                CocheDAO.insertar(con, "1111AAA", "Seat", "Ibiza", "", Dinero.parse("9000")));
+        assertEquals(CocheDAO.Resultado.NO_EXISTE,
+                CocheDAO.modificar(con, "9999ZZZ", "Seat", "Leon", "", Dinero.parse("9000")));
+        assertEquals(CocheDAO.Resultado.NO_EXISTE, CocheDAO.borrar(con, "9999ZZZ"));
+        assertEquals(CocheDAO.Resultado.HECHO, CocheDAO.borrar(con, "1111AAA"));
+
+        assertTrue(con.getAutoCommit());
+        assertEquals(0, contarCoches());
+    }
+
+    @Test
+    void unErrorDeLaBaseDeDatosSeLanza() throws SQLException {
+        try (Statement stmt = con.createStatement()) {
+            stmt.executeUpdate("DROP TABLE coches_busqueda");
+        }
+
+        assertThrows(SQLException.class,
+                () -> CocheDAO.insertar(con, "1111AAA", "Seat", "Leon", "GPS", Dinero.parse("15000")));
+        assertTrue(con.getAutoCommit());
+        assertEquals(0, contarCoches());
+    }
+
+    private int contarCoches() throws SQLException {
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM coches")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package model;
+
+import database.CacheSentencias;
+import database.DatabaseManager;
+import database.MigradorEsquema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * El SQL que genera ConsultaCoches según los filtros usados (SQLite), con sus parámetros.
+ */
+class ConsultaCochesTest {
+
+    private static final String COLUMNAS = "SELECT c.matricula, c.id_marca, c.id_modelo, c.extras, "
+            + "c.precio_centimos, p.dni FROM coches c ";
+
+    private Connection con;
+
+    @BeforeEach
+    void preparar() throws Exception {
+        DatabaseManager.invalidarCachesDerivadas();
+        con = DriverManager.getConnection("jdbc:sqlite::memory:");
+        MigradorEsquema.migrar(con);
+    }
+
+    @AfterEach
+    void cerrar() throws SQLException {
+        CacheSentencias.olvidar(con);
+        Transaccion.olvidar(con);
+        con.close();
+        DatabaseManager.invalidarCachesDerivadas();
+    }
+
+    @Test
+    void sinFiltrosOrdenaPorMatricula() throws SQLException {
+        List<Object> parametros = new ArrayList<>();
+
+        assertEquals(COLUMNAS + "LEFT JOIN propietarios p ON p.id_propietario = c.id_propietario "
+                        + "ORDER BY c.matricula LIMIT ?",
+                ConsultaCoches.nueva().limite(20).generarSQL(con, parametros));
+        assertEquals(List.of(20), parametros);
+    }
+
+    @Test
+    void marcaYPrecioOrdenanPorPrecioYPaginanPorClave() throws SQLException {
+        int idSeat = CatalogoMarcas.obtenerIdMarca(con, "Seat");
+        Coche ultimo = new Coche("1111AAA", "Seat", "Leon", "", Dinero.parse("15000"), null);
+        List<Object> parametros = new ArrayList<>();
+
+        String sql = ConsultaCoches.nueva()
+                .marca("seat")
+                .precioEntre(Dinero.parse("10000"), Dinero.parse("20000"))
+                .enStock()
+                .despuesDe(ultimo)
+                .generarSQL(con, parametros);
+
+        assertEquals(COLUMNAS + "LEFT JOIN propietarios p ON p.id_propietario = c.id_propietario "
+                + "WHERE c.id_marca = ? AND c.precio_centimos >= ? AND c.precio_centimos <= ? "
+                + "AND c.id_propietario IS NULL "
+                + "AND (c.precio_centimos > ? OR (c.precio_centimos = ? AND c.matricula > ?)) "
+                + "ORDER BY c.precio_centimos, c.matricula LIMIT ?", sql);
+        assertEquals(List.of(idSeat, 1_000_000L, 2_000_000L, 1_500_000L, 1_500_000L, "1111AAA", 50), parametros);
+    }
+
+    @Test
+    void vendidosExigePropietarioSinUsarSuIndice() throws SQLException {
+        String sql = ConsultaCoches.nueva().vendidos().generarSQL(con, new ArrayList<>());
+
+        assertTrue(sql.contains("INNER JOIN propietarios p"), sql);
+        assertTrue(sql.contains("WHERE +c.id_propietario IS NOT NULL "), sql);
+    }
+
+    @Test
+    void elDniYaImplicaVendido() throws SQLException {
+        List<Object> parametros = new ArrayList<>();
+        String sql = ConsultaCoches.nueva().propietario("12345678Z").vendidos().generarSQL(con, parametros);
+
+        assertTrue(sql.contains("INNER JOIN propietarios p"), sql);
+        assertTrue(sql.contains("WHERE p.dni = ? ORDER BY c.matricula"), sql);
+        assertEquals(List.of("12345678Z", 50), parametros);
+    }
+
+    @Test
+    void unaMarcaQueNoExisteNoGeneraSQL() throws SQLException {
+        assertNull(ConsultaCoches.nueva().marca("Tesla").generarSQL(con, new ArrayList<>()));
+    }
+
+    @Test
+    void extrasConOtroFiltroSeCompruebanSobreSusFilas() throws SQLException {
+        List<Object> parametros = new ArrayList<>();
+        String sql = ConsultaCoches.nueva().enStock().conExtra("GPS_2%").generarSQL(con, parametros);
+
+        assertTrue(sql.contains("c.id_propietario IS NULL AND ('|' || c.extras || '|') LIKE ? ESCAPE '!'"), sql);
+        assertFalse(sql.contains("coches_busqueda_fts"), sql);
+        assertEquals(List.of("%|GPS!_2!%|%", 50), parametros);
+    }
+
+    @Test
+    void extrasRarosSeBuscanEnElIndiceDeTextoCompleto() throws SQLException {
+        assertTrue(CocheDAO.insertarCoche(con, "1111AAA", "Seat", "Leon", "ABS", Dinero.parse("15000")));
+        assertTrue(CocheDAO.insertarCoche(con, "2222BBB", "Seat", "Ibiza", "ABS", Dinero.parse("12000")));
+        List<Object> parametros = new ArrayList<>();
+
+        String sql = ConsultaCoches.nueva().conExtra("GPS").conExtra("Techo \"solar\"").generarSQL(con, parametros);
+
+        assertTrue(sql.contains("WHERE c.matricula IN (SELECT b.matricula FROM coches_busqueda_fts f "), sql);
+        assertEquals("extras : (\"GPS\" AND \"Techo \"\"solar\"\"\")", parametros.get(0));
+    }
+
+    @Test
+    void extrasComunesSeRecorrenEnOrden() throws SQLException {
+        assertTrue(CocheDAO.insertarCoche(con, "1111AAA", "Seat", "Leon", "GPS|ABS", Dinero.parse("15000")));
+        assertTrue(CocheDAO.insertarCoche(con, "2222BBB", "Seat", "Ibiza", "GPS", Dinero.parse("12000")));
+        assertTrue(CocheDAO.insertarCoche(con, "3333CCC", "Kia", "Rio", "GPS", Dinero.parse("11000")));
+
+        // Todos los coches tienen GPS: s = 1 y s² × N = 3 > 1
+        String sql = ConsultaCoches.nueva().conExtra("GPS").limite(1).generarSQL(con, new ArrayList<>());
+
+        assertFalse(sql.contains("coches_busqueda_fts"), sql);
+        assertTrue(sql.contains("WHERE ('|' || c.extras || '|') LIKE ? ESCAPE '!' ORDER BY c.matricula"), sql);
+        assertEquals(3, ConsultaCoches.nueva().conExtra("GPS").limite(5).ejecutar(con).size());
+    }
+}
@@ -0,0 +1,89 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Dinero: lectura de importes (coma o punto, negativos, decimales), redondeo de la media
+ * y desbordamiento de los céntimos.
+ */
+class DineroTest {
+
+    @Test
+    void aceptaComaYPunto() {
+        assertEquals(1_800_050, Dinero.parse("18000.50").centimos());
+        assertEquals(1_800_050, Dinero.parse("18000,5").centimos());
+        assertEquals(1_800_000, Dinero.parse(" 18000 ").centimos());
+        assertEquals(5, Dinero.parse(",05").centimos());
+    }
+
+    @Test
+    void aceptaNegativos() {
+        assertEquals(-150, Dinero.parse("-1,5").centimos());
+        assertEquals(-1, Dinero.parse("-0.01").centimos());
+        assertEquals("-1.50", Dinero.parse("-1.5").toString());
+        assertEquals("-0.01", Dinero.parse("-0,01").toString());
+    }
+
+    @Test
+    void masDeDosDecimalesSoloSiSonCeros() {
+        assertEquals(123, Dinero.parse("1.2300").centimos());
+        assertThrows(NumberFormatException.class, () -> Dinero.parse("1.234"));
+        assertThrows(NumberFormatException.class, () -> Dinero.parse("0,001"));
+    }
+
+    @Test
+    void rechazaLoQueNoEsUnImporte() {
+        assertThrows(NumberFormatException.class, () -> Dinero.parse(null));
+        assertThrows(NumberFormatException.class, () -> Dinero.parse("  "));
+        assertThrows(NumberFormatException.class, () -> Dinero.parse("doce"));
+        // El separador de miles no se admite: "1.000,50" sería ambiguo
+        assertThrows(NumberFormatException.class, () -> Dinero.parse("1.000,50"));
+    }
+
+    @Test
+    void elPromedioRedondeaLaMitadHaciaArriba() {
+        assertEquals(2, Dinero.promedio(3, 2).centimos());       // 1,5 → 2
+        assertEquals(1, Dinero.promedio(4, 3).centimos());       // 1,33 → 1
+        assertEquals(2, Dinero.promedio(5, 3).centimos());       // 1,67 → 2
+        assertEquals(-1, Dinero.promedio(-3, 2).centimos());     // -1,5 → -1
+        assertEquals(-2, Dinero.promedio(-5, 3).centimos());     // -1,67 → -2
+        assertEquals(Dinero.CERO, Dinero.promedio(100, 0));
+    }
+
+    @Test
+    void elPromedioNoSeDesbordaConSumasGrandes() {
+        assertEquals(Long.MAX_VALUE / 2 + 1, Dinero.promedio(Long.MAX_VALUE, 2).centimos());
+        assertEquals(Long.MAX_VALUE, Dinero.promedio(Long.MAX_VALUE, 1).centimos());
+        // -3074457345618258602,67 → -3074457345618258603
+        assertEquals(Math.floorDiv(Long.MIN_VALUE, 3), Dinero.promedio(Long.MIN_VALUE, 3).centimos());
+    }
+
+    @Test
+    void losDesbordamientosSonErrores() {
+        assertEquals(Long.MAX_VALUE, Dinero.parse("92233720368547758.07").centimos());
+        assertThrows(NumberFormatException.class, () -> Dinero.parse("92233720368547758.08"));
+        assertThrows(NumberFormatException.class, () -> Dinero.parse("-92233720368547758.09"));
+
+        Dinero maximo = Dinero.deCentimos(Long.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> maximo.sumar(Dinero.deCentimos(1)));
+    }
+
+    @Test
+    void formatoConDosDecimales() {
+        assertEquals("18000.50", Dinero.deCentimos(1_800_050).toString());
+        assertEquals("0.05", Dinero.deCentimos(5).toString());
+        assertEquals("-92233720368547758.08", Dinero.deCentimos(Long.MIN_VALUE).toString());
+        assertEquals(Dinero.deCentimos(Long.MIN_VALUE), Dinero.parse(Dinero.deCentimos(Long.MIN_VALUE).toString()));
+    }
+
+    @Test
+    void seOrdenaPorCentimos() {
+        assertTrue(Dinero.parse("-1").compareTo(Dinero.CERO) < 0);
+        assertTrue(Dinero.parse("10,01").compareTo(Dinero.parse("10")) > 0);
+        assertEquals(0, Dinero.parse("10.10").compareTo(Dinero.parse("10,1")));
+    }
+}
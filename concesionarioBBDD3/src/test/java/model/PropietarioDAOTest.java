@@ -0,0 +1,116 @@
+package model;
+
+import database.DatabaseManager;
+import database.MigradorEsquema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Importación de propietarios desde CSV: cuentas de nuevos, existentes, repetidos y
+ * rechazados, con DNI que solo difieren en mayúsculas o espacios.
+ */
+class PropietarioDAOTest {
+
+    // BOM + cabecera, 6 líneas de datos:
+    // un DNI ya existente (en minúscula), dos nuevos, un repetido y dos inválidas
+    private static final String CSV = """
+            \uFEFFdni;nombre;apellidos;telefono
+            11111111h;Ana;Ruiz Pérez;600111111
+            22222222J;Luis;Gómez;
+            22222222j;Luis;Gómez Otra Vez;
+             33333333P ;Eva;Sanz
+            44444444A;;Pérez;600444444
+            55555555K;Solo
+
+            """;
+
+    private Connection con;
+
+    @BeforeEach
+    void preparar() throws Exception {
+        DatabaseManager.invalidarCachesDerivadas();
+        con = DriverManager.getConnection("jdbc:sqlite::memory:");
+        MigradorEsquema.migrar(con);
+        assertTrue(PropietarioDAO.registrarPropietario(con, " 11111111H", "Ana", "Ruiz", null));
+    }
+
+    @AfterEach
+    void cerrar() throws SQLException {
+        con.close();
+        DatabaseManager.invalidarCachesDerivadas();
+    }
+
+    @Test
+    void cuentasOmitiendoExistentes() throws SQLException {
+        PropietarioDAO.ResultadoImportacion resultado = importar(PropietarioDAO.ModoConflicto.OMITIR);
+
+        assertCuentas(resultado);
+        assertEquals("Ruiz", apellidos("11111111H"));
+        assertEquals("Gómez", apellidos("22222222J"));
+        assertEquals("Sanz", apellidos("33333333P"));
+    }
+
+    @Test
+    void cuentasActualizandoExistentes() throws SQLException {
+        PropietarioDAO.ResultadoImportacion resultado = importar(PropietarioDAO.ModoConflicto.ACTUALIZAR);
+
+        assertCuentas(resultado);
+        assertEquals("Ruiz Pérez", apellidos("11111111H"));
+        // Gana la primera aparición del DNI repetido
+        assertEquals("Gómez", apellidos("22222222J"));
+    }
+
+    @Test
+    void repetirLaImportacionNoInsertaNada() {
+        importar(PropietarioDAO.ModoConflicto.OMITIR);
+        PropietarioDAO.ResultadoImportacion resultado = importar(PropietarioDAO.ModoConflicto.OMITIR);
+
+        assertEquals(0, resultado.insertados());
+        assertEquals(3, resultado.existentes());
+    }
+
+    private PropietarioDAO.ResultadoImportacion importar(PropietarioDAO.ModoConflicto modo) {
+        PropietarioDAO.ResultadoImportacion resultado =
+                PropietarioDAO.importar(con, new BufferedReader(new StringReader(CSV)), modo);
+        assertNotNull(resultado);
+        return resultado;
+    }
+
+    private void assertCuentas(PropietarioDAO.ResultadoImportacion resultado) throws SQLException {
+        assertEquals(6, resultado.leidas());
+        assertEquals(2, resultado.insertados());
+        assertEquals(1, resultado.existentes());
+        assertEquals(1, resultado.duplicados());
+        assertEquals(2, resultado.rechazados());
+        assertEquals(3, contarPropietarios());
+    }
+
+    private String apellidos(String dni) throws SQLException {
+        try (PreparedStatement pstmt = con.prepareStatement("SELECT apellidos FROM propietarios WHERE dni = ?")) {
+            pstmt.setString(1, dni);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    private int contarPropietarios() throws SQLException {
+        try (PreparedStatement pstmt = con.prepareStatement("SELECT COUNT(*) FROM propietarios");
+             ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package model;
+
+import database.CacheSentencias;
+import database.DatabaseManager;
+import database.MigradorEsquema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sugerencias de propietarios por prefijo (DNI, nombre, apellidos, segundo apellido)
+ * sin mayúsculas ni tildes, y el trie incompleto cuando no caben todos.
+ */
+class TriePropietariosTest {
+
+    private Connection con;
+
+    @BeforeEach
+    void preparar() throws Exception {
+        DatabaseManager.invalidarCachesDerivadas();
+        con = DriverManager.getConnection("jdbc:sqlite::memory:");
+        MigradorEsquema.migrar(con);
+
+        registrar("12345678Z", "Lucía", "García López");
+        registrar("23456789D", "Pedro", "Garcés Ruiz");
+        registrar("34567890V", "Ana", "Martín Núñez");
+    }
+
+    @AfterEach
+    void cerrar() throws SQLException {
+        TriePropietarios.fijarMaximo(null);
+        CacheSentencias.olvidar(con);
+        con.close();
+        DatabaseManager.invalidarCachesDerivadas();
+    }
+
+    @Test
+    void buscaPorPrefijoEnOrdenAlfabetico() throws SQLException {
+        // "garces" va antes que "garcia"
+        assertEquals(List.of("23456789D", "12345678Z"), dnis(TriePropietarios.sugerir(con, "garc", 10)));
+        assertEquals(List.of("23456789D"), dnis(TriePropietarios.sugerir(con, "garc", 1)));
+        assertEquals(List.of("12345678Z"), dnis(TriePropietarios.sugerir(con, "1234", 10)));
+        assertEquals(List.of("34567890V"), dnis(TriePropietarios.sugerir(con, "ana", 10)));
+        assertTrue(TriePropietarios.sugerir(con, "garcz", 10).isEmpty());
+        assertTrue(TriePropietarios.estaCompleto());
+    }
+
+    @Test
+    void encuentraElSegundoApellido() throws SQLException {
+        assertEquals(List.of("12345678Z"), dnis(TriePropietarios.sugerir(con, "lop", 10)));
+        assertEquals(List.of("34567890V"), dnis(TriePropietarios.sugerir(con, "nun", 10)));
+    }
+
+    @Test
+    void noDistingueTildesNiMayusculas() throws SQLException {
+        assertEquals(List.of("12345678Z"), dnis(TriePropietarios.sugerir(con, "GARCIA", 10)));
+        assertEquals(List.of("12345678Z"), dnis(TriePropietarios.sugerir(con, "garcía", 10)));
+        assertEquals(List.of("12345678Z"), dnis(TriePropietarios.sugerir(con, "lucia", 10)));
+        assertEquals(List.of("34567890V"), dnis(TriePropietarios.sugerir(con, "  MARTIN   nu", 10)));
+    }
+
+    @Test
+    void lasAltasEntranEnElTrieCargado() throws SQLException {
+        TriePropietarios.sugerir(con, "x", 1);
+        registrar("45678901G", "Íñigo", "Álvarez");
+
+        assertEquals(List.of("45678901G"), dnis(TriePropietarios.sugerir(con, "alv", 10)));
+        assertTrue(TriePropietarios.estaCompleto());
+    }
+
+    @Test
+    void siNoCabenTodosElSqlCompletaSinTildes() throws SQLException {
+        TriePropietarios.fijarMaximo(2);
+
+        // Solo los dos más recientes: García López (el más antiguo) queda fuera del trie
+        assertEquals(List.of("23456789D"), dnis(TriePropietarios.sugerir(con, "garc", 10)));
+        assertTrue(TriePropietarios.sugerir(con, "garcia", 10).isEmpty());
+        assertFalse(TriePropietarios.estaCompleto());
+
+        // ...pero PropietarioDAO lo encuentra por SQL, también sin la tilde
+        assertEquals(List.of("12345678Z"), dnis(PropietarioDAO.sugerir(con, "garcia", 10)));
+        assertEquals(List.of("12345678Z"), dnis(PropietarioDAO.sugerir(con, "GARCÍA l", 10)));
+        // Primero lo del trie y después lo que falta
+        assertEquals(List.of("23456789D", "12345678Z"), dnis(PropietarioDAO.sugerir(con, "garc", 10)));
+    }
+
+    @Test
+    void unTrieLlenoNoCreceConLasAltas() throws SQLException {
+        TriePropietarios.fijarMaximo(3);
+        TriePropietarios.sugerir(con, "x", 1);
+        assertTrue(TriePropietarios.estaCompleto());
+
+        registrar("45678901G", "Íñigo", "Álvarez");
+
+        assertFalse(TriePropietarios.estaCompleto());
+        assertTrue(TriePropietarios.sugerir(con, "alv", 10).isEmpty());
+        assertEquals(List.of("45678901G"), dnis(PropietarioDAO.sugerir(con, "alvarez", 10)));
+        // Lo que ya estaba se sigue sugiriendo
+        assertEquals(List.of("12345678Z"), dnis(TriePropietarios.sugerir(con, "lop", 10)));
+    }
+
+    private void registrar(String dni, String nombre, String apellidos) {
+        assertTrue(PropietarioDAO.registrarPropietario(con, dni, nombre, apellidos, "600000000"));
+    }
+
+    private static List<String> dnis(List<Propietario> propietarios) {
+        return propietarios.stream().map(Propietario::dni).toList();
+    }
+}
@@ -0,0 +1,84 @@
+package servidor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Búsqueda de rutas: la que encaja con su método, la que encaja con otro método (405)
+ * y la que no encaja con ninguna plantilla (404).
+ */
+class EnrutadorTest {
+
+    private final ServidorHttp.Manejador listar = p -> "listar";
+    private final ServidorHttp.Manejador obtener = p -> "obtener";
+    private final ServidorHttp.Manejador borrar = p -> "borrar";
+    private Enrutador rutas;
+
+    @BeforeEach
+    void preparar() {
+        rutas = new Enrutador();
+        rutas.agregar("GET", "/coches", listar);
+        rutas.agregar("GET", "/coches/{matricula}", obtener);
+        rutas.agregar("DELETE", "/coches/{matricula}", borrar);
+        rutas.agregar("GET", "/coches/nuevos", p -> "nunca");
+    }
+
+    @Test
+    void encuentraLaRutaYSusVariables() {
+        Enrutador.Encontrada encontrada = rutas.buscar("GET", "/coches/1234ABC");
+
+        assertEquals(obtener, encontrada.manejador());
+        assertEquals("/coches/{matricula}", encontrada.plantilla());
+        assertEquals(Map.of("matricula", "1234ABC"), encontrada.variables());
+    }
+
+    @Test
+    void lasVariablesLleganDecodificadas() {
+        assertEquals("12 34 Ñ", rutas.buscar("GET", "/coches/12%2034%20%C3%91").variables().get("matricula"));
+    }
+
+    @Test
+    void lasBarrasDeLosExtremosNoCuentan() {
+        assertEquals(listar, rutas.buscar("GET", "/coches/").manejador());
+        assertEquals(listar, rutas.buscar("GET", "coches").manejador());
+    }
+
+    @Test
+    void siEncajanVariasGanaLaPrimera() {
+        assertEquals(obtener, rutas.buscar("GET", "/coches/nuevos").manejador());
+    }
+
+    @Test
+    void rutaInexistenteEsUn404() {
+        assertNull(rutas.buscar("GET", "/propietarios"));
+        assertNull(rutas.buscar("GET", "/coches/1234ABC/extras"));
+        assertNull(rutas.buscar("GET", "/"));
+        // Un segmento vacío en medio no se salta
+        assertNull(rutas.buscar("GET", "/coches//1234ABC"));
+    }
+
+    @Test
+    void metodoNoAdmitidoEsUn405ConLosPermitidos() {
+        Enrutador.Encontrada encontrada = rutas.buscar("PUT", "/coches/1234ABC");
+
+        assertNotNull(encontrada);
+        assertNull(encontrada.manejador());
+        assertEquals("/coches/{matricula}", encontrada.plantilla());
+        assertEquals(Set.of("GET", "DELETE"), encontrada.permitidos());
+
+        assertEquals(Set.of("GET"), rutas.buscar("POST", "/coches").permitidos());
+    }
+
+    @Test
+    void unaRutaMalCodificadaEsUn400() {
+        assertThrows(IllegalArgumentException.class, () -> rutas.buscar("GET", "/coches/%zz"));
+    }
+}
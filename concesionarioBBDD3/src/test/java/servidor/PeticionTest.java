@@ -0,0 +1,56 @@
+package servidor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lectura de los parámetros de la URL, también cuando vienen mal formados.
+ */
+class PeticionTest {
+
+    @Test
+    void leeParametrosRepetidosYDecodificados() {
+        Map<String, List<String>> parametros = Peticion.leerParametros("extra=GPS&extra=Techo+solar&marca=Pe%C3%B1a");
+
+        assertEquals(List.of("GPS", "Techo solar"), parametros.get("extra"));
+        assertEquals(List.of("Peña"), parametros.get("marca"));
+    }
+
+    @Test
+    void sinConsultaNoHayParametros() {
+        assertTrue(Peticion.leerParametros(null).isEmpty());
+        assertTrue(Peticion.leerParametros("").isEmpty());
+        assertTrue(Peticion.leerParametros("&&&").isEmpty());
+    }
+
+    @Test
+    void paresIncompletos() {
+        Map<String, List<String>> parametros = Peticion.leerParametros("a&b=&=5&c=1=2&&d=%3D");
+
+        assertEquals(List.of(""), parametros.get("a"));
+        assertEquals(List.of(""), parametros.get("b"));
+        assertEquals(List.of("5"), parametros.get(""));
+        // Solo el primer '=' separa nombre y valor
+        assertEquals(List.of("1=2"), parametros.get("c"));
+        assertEquals(List.of("="), parametros.get("d"));
+    }
+
+    @Test
+    void unPorcentajeMalFormadoEsUn400() {
+        assertThrows(IllegalArgumentException.class, () -> Peticion.leerParametros("limite=%"));
+        assertThrows(IllegalArgumentException.class, () -> Peticion.leerParametros("limite=%2"));
+        assertThrows(IllegalArgumentException.class, () -> Peticion.leerParametros("marca=%zz"));
+        assertThrows(IllegalArgumentException.class, () -> Peticion.leerParametros("%G0=1"));
+    }
+
+    @Test
+    void bytesQueNoSonUtf8NoRompenLaLectura() {
+        assertEquals(List.of("\uFFFD"), Peticion.leerParametros("marca=%E9").get("marca"));
+    }
+}
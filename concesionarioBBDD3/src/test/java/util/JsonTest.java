@@ -0,0 +1,63 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Escritura y lectura de Json: escapes de comillas y caracteres de control,
+ * texto no ASCII tal cual y vuelta atrás con leer().
+ */
+class JsonTest {
+
+    @Test
+    void escapaComillasYBarras() {
+        assertEquals("\"di \\\"hola\\\" a C:\\\\coches\"", Json.escribir("di \"hola\" a C:\\coches"));
+    }
+
+    @Test
+    void escapaCaracteresDeControl() {
+        assertEquals("\"a\\nb\\tc\\rd\\be\\ff\"", Json.escribir("a\nb\tc\rd\be\ff"));
+        assertEquals("\"\\u0000\\u0001\\u001f\"", Json.escribir("\u0000\u0001\u001f"));
+    }
+
+    @Test
+    void elTextoNoAsciiSeEscribeTalCual() {
+        assertEquals("\"Peña 18.500 € 🚗\"", Json.escribir("Peña 18.500 € 🚗"));
+    }
+
+    @Test
+    void loEscritoSeLeeIgual() {
+        Map<String, Object> original = new LinkedHashMap<>();
+        original.put("texto", "\"comillas\" \\ \n\u0001 ñ €");
+        original.put("lista", List.of(1L, "dos", true));
+        original.put("importe", new BigDecimal("18500.50"));
+        original.put("nada", null);
+
+        assertEquals(original, Json.leer(Json.escribir(original)));
+    }
+
+    @Test
+    void leeEscapesUnicode() {
+        assertEquals("ñ€/", Json.leer("\"\\u00f1\\u20AC\\/\""));
+    }
+
+    @Test
+    void noAdmiteControlesSinEscaparNiEscapesInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> Json.leer("\"a\nb\""));
+        assertThrows(IllegalArgumentException.class, () -> Json.leer("\"\\x\""));
+        assertThrows(IllegalArgumentException.class, () -> Json.leer("\"\\u00g1\""));
+        assertThrows(IllegalArgumentException.class, () -> Json.leer("\"sin cerrar"));
+    }
+
+    @Test
+    void numerosNoFinitosSonNull() {
+        assertEquals("[null,null,1.5]", Json.escribir(List.of(Double.NaN, Float.POSITIVE_INFINITY, 1.5)));
+    }
+}